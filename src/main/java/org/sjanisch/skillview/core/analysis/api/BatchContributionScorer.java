@@ -0,0 +1,103 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.analysis.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.OptionalDouble;
+
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+
+/**
+ * A {@link ContributionScorer} that scores chunks of contributions at once,
+ * e.g. to amortise setup such as compiled pattern sets or lookup tables over
+ * many contributions.
+ * <p>
+ * Score services that support batch scoring pass chunks of contributions to
+ * {@link #scoreBatch(List)} or {@link #scoreContexts(List)}. Single
+ * contributions are scored as chunks of one.
+ * <p>
+ * Implementors must retain thread-safety and immutability.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public interface BatchContributionScorer extends ContributionScorer {
+
+	/**
+	 * 
+	 * @param contributions
+	 *            must not be {@code null} and must not contain {@code null}
+	 * @return a list (possibly unmodifiable) of the scores of given
+	 *         contributions in the same order, with an empty score for each
+	 *         contribution that could not be scored. Never {@code null}.
+	 */
+	List<OptionalDouble> scoreBatch(List<Contribution> contributions);
+
+	/**
+	 * Scores the contributions of given contexts. Scorers that look at diffs,
+	 * lines or languages of the contributions' items should override this
+	 * method and obtain them from the contexts.
+	 * <p>
+	 * The default implementation delegates to {@link #scoreBatch(List)}.
+	 * 
+	 * @param contexts
+	 *            must not be {@code null} and must not contain {@code null}
+	 * @return a list (possibly unmodifiable) of the scores of the contexts'
+	 *         contributions in the same order, with an empty score for each
+	 *         contribution that could not be scored. Never {@code null}.
+	 */
+	default List<OptionalDouble> scoreContexts(List<ScoringContext> contexts) {
+		Objects.requireNonNull(contexts, "contexts");
+
+		List<Contribution> contributions = new ArrayList<>(contexts.size());
+		for (ScoringContext context : contexts) {
+			contributions.add(context.getContribution());
+		}
+		return scoreBatch(contributions);
+	}
+
+	/**
+	 * The default implementation scores given contribution as a chunk of one.
+	 */
+	@Override
+	default OptionalDouble score(Contribution contribution) {
+		Objects.requireNonNull(contribution, "contribution");
+
+		return scoreBatch(Collections.singletonList(contribution)).get(0);
+	}
+
+	/**
+	 * The default implementation scores given context as a chunk of one.
+	 */
+	@Override
+	default OptionalDouble score(ScoringContext context) {
+		Objects.requireNonNull(context, "context");
+
+		return scoreContexts(Collections.singletonList(context)).get(0);
+	}
+
+}
@@ -23,6 +23,7 @@ SOFTWARE.
  */
 package org.sjanisch.skillview.core.analysis.api;
 
+import java.util.Objects;
 import java.util.OptionalDouble;
 
 import org.sjanisch.skillview.core.contribution.api.Contribution;
@@ -49,6 +50,38 @@ public interface ContributionScorer {
 	 */
 	OptionalDouble score(Contribution contribution);
 
+	/**
+	 * Scores the contribution of given context. Scorers that look at diffs,
+	 * lines or languages of the contribution's items should override this
+	 * method and obtain them from the context, which shares them with all
+	 * other scorers of the contribution.
+	 * <p>
+	 * The default implementation delegates to {@link #score(Contribution)}.
+	 * 
+	 * @param context
+	 *            must not be {@code null}
+	 * @return a score assigned to the context's contribution if it could be
+	 *         scored. Never {@code null}.
+	 */
+	default OptionalDouble score(ScoringContext context) {
+		Objects.requireNonNull(context, "context");
+
+		return score(context.getContribution());
+	}
+
+	/**
+	 * The items this scorer applies to. Score services may pass a scorer a
+	 * view of a contribution that only holds the items in scope, and skip
+	 * the scorer for contributions without such items.
+	 * <p>
+	 * The default implementation returns {@link ScorerScope#all()}.
+	 * 
+	 * @return never {@code null}
+	 */
+	default ScorerScope getScope() {
+		return ScorerScope.all();
+	}
+
 	/**
 	 * 
 	 * @return never {@code null}
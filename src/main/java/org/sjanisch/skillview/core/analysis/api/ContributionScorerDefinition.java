@@ -40,6 +40,21 @@ public interface ContributionScorerDefinition {
 	 */
 	double getNeutralScore();
 
+	/**
+	 * The version of the scorer's logic. Scores of a contribution computed by
+	 * a scorer of the same {@link #getScoreOriginator() originator} and
+	 * version are considered equal, so they may be memoized across runs. The
+	 * version must be changed whenever the scorer would score any
+	 * contribution differently.
+	 * <p>
+	 * The default implementation returns {@code 0}.
+	 * 
+	 * @return version
+	 */
+	default int getVersion() {
+		return 0;
+	}
+
 	/**
 	 * 
 	 * @param scoreOriginator
@@ -52,6 +67,23 @@ public interface ContributionScorerDefinition {
 	 */
 	public static ContributionScorerDefinition of(ScoreOriginator scoreOriginator, SkillTag skillTag,
 			double neutralScore) {
+		return of(scoreOriginator, skillTag, neutralScore, 0);
+	}
+
+	/**
+	 * 
+	 * @param scoreOriginator
+	 *            must not be {@code null}
+	 * @param skillTag
+	 *            must not be {@code null}
+	 * @param neutralScore
+	 *            must not be {@code null}
+	 * @param version
+	 *            see {@link #getVersion()}
+	 * @return never {@code null}
+	 */
+	public static ContributionScorerDefinition of(ScoreOriginator scoreOriginator, SkillTag skillTag,
+			double neutralScore, int version) {
 		Objects.requireNonNull(scoreOriginator, "scoreOriginator");
 		Objects.requireNonNull(skillTag, "skillTag");
 
@@ -72,10 +104,15 @@ public interface ContributionScorerDefinition {
 				return neutralScore;
 			}
 
+			@Override
+			public int getVersion() {
+				return version;
+			}
+
 			@Override
 			public String toString() {
-				return String.format("%s[%s:%s:%s]", getClass().getSimpleName(), getScoreOriginator(), getSkillTag(),
-						getNeutralScore());
+				return String.format("%s[%s:%s:%s:%s]", getClass().getSimpleName(), getScoreOriginator(),
+						getSkillTag(), getNeutralScore(), version);
 			}
 
 			@Override
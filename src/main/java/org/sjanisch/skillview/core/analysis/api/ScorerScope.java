@@ -0,0 +1,167 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.analysis.api;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+import org.sjanisch.skillview.core.contribution.api.ContributionItem;
+
+/**
+ * Restricts the {@link ContributionItem contribution items} a
+ * {@link ContributionScorer} applies to, by language or by path pattern.
+ * <p>
+ * An item is in scope if its language, as detected from the extension of its
+ * path, is one of {@link #getLanguages()} or its path matches one of
+ * {@link #getPathPatterns()}. A scope without languages and path patterns is
+ * unrestricted, i.e. contains all items.
+ * <p>
+ * Path patterns are {@link org.sjanisch.skillview.core.utility.PathGlob globs}
+ * matched against the {@code /}-separated path independently of the platform.
+ * Patterns without a {@code /} are matched against the file name, e.g.
+ * {@code *.java}, all other patterns against the whole path, e.g.
+ * {@code src/main/**}.
+ * <p>
+ * Implementors must retain thread-safety and immutability.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public interface ScorerScope {
+
+	/**
+	 * 
+	 * @return a set (possibly unmodifiable) of lower case language names as
+	 *         detected from file extensions, e.g. {@code java}. Never
+	 *         {@code null}.
+	 */
+	Set<String> getLanguages();
+
+	/**
+	 * 
+	 * @return a set (possibly unmodifiable) of glob patterns. Never
+	 *         {@code null}.
+	 */
+	Set<String> getPathPatterns();
+
+	/**
+	 * 
+	 * @return whether this scope contains all items
+	 */
+	default boolean isUnrestricted() {
+		return getLanguages().isEmpty() && getPathPatterns().isEmpty();
+	}
+
+	/**
+	 * 
+	 * @return a scope containing all items. Never {@code null}.
+	 */
+	public static ScorerScope all() {
+		return of(Collections.emptySet(), Collections.emptySet());
+	}
+
+	/**
+	 * 
+	 * @param languages
+	 *            must not be {@code null}
+	 * @return a scope containing the items of given languages. Never
+	 *         {@code null}.
+	 */
+	public static ScorerScope ofLanguages(String... languages) {
+		Objects.requireNonNull(languages, "languages");
+
+		return of(Arrays.asList(languages), Collections.emptySet());
+	}
+
+	/**
+	 * 
+	 * @param pathPatterns
+	 *            must not be {@code null}
+	 * @return a scope containing the items whose path matches any of given
+	 *         patterns. Never {@code null}.
+	 */
+	public static ScorerScope ofPathPatterns(String... pathPatterns) {
+		Objects.requireNonNull(pathPatterns, "pathPatterns");
+
+		return of(Collections.emptySet(), Arrays.asList(pathPatterns));
+	}
+
+	/**
+	 * 
+	 * @param languages
+	 *            must not be {@code null} and must not contain {@code null}
+	 *            or whitespace
+	 * @param pathPatterns
+	 *            must not be {@code null} and must not contain {@code null}
+	 *            or whitespace
+	 * @return never {@code null}
+	 */
+	public static ScorerScope of(Collection<String> languages, Collection<String> pathPatterns) {
+		Objects.requireNonNull(languages, "languages");
+		Objects.requireNonNull(pathPatterns, "pathPatterns");
+
+		Set<String> languageSet = new LinkedHashSet<>();
+		for (String language : languages) {
+			if (language == null || language.trim().isEmpty()) {
+				throw new IllegalArgumentException("invalid language " + language);
+			}
+			languageSet.add(language.trim());
+		}
+
+		Set<String> patternSet = new LinkedHashSet<>();
+		for (String pattern : pathPatterns) {
+			if (pattern == null || pattern.trim().isEmpty()) {
+				throw new IllegalArgumentException("invalid path pattern " + pattern);
+			}
+			patternSet.add(pattern.trim());
+		}
+
+		Set<String> unmodifiableLanguages = Collections.unmodifiableSet(languageSet);
+		Set<String> unmodifiablePatterns = Collections.unmodifiableSet(patternSet);
+
+		return new ScorerScope() {
+
+			@Override
+			public Set<String> getLanguages() {
+				return unmodifiableLanguages;
+			}
+
+			@Override
+			public Set<String> getPathPatterns() {
+				return unmodifiablePatterns;
+			}
+
+			@Override
+			public String toString() {
+				return String.format("%s[languages %s, paths %s]", getClass().getSimpleName(), unmodifiableLanguages,
+						unmodifiablePatterns);
+			}
+		};
+	}
+
+}
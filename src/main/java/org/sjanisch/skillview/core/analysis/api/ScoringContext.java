@@ -0,0 +1,103 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.analysis.api;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionItem;
+import org.sjanisch.skillview.core.diff.api.ContentDiff;
+
+/**
+ * Gives all {@link ContributionScorer scorers} of one {@link Contribution}
+ * shared access to derived data of its items, such as diffs, lines and
+ * languages. Each derived value is computed once, on first request, and
+ * memoized for the remaining scorers.
+ * <p>
+ * A context lives as long as its contribution is scored and must not be kept
+ * beyond that.
+ * <p>
+ * Implementors must retain thread-safety.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public interface ScoringContext {
+
+	/**
+	 * 
+	 * @return the contribution being scored. Never {@code null}.
+	 */
+	Contribution getContribution();
+
+	/**
+	 * 
+	 * @param contributionItem
+	 *            an item of {@link #getContribution()}. Must not be
+	 *            {@code null}.
+	 * @return the diff of the previous content of given item against its
+	 *         content. Never {@code null}.
+	 */
+	ContentDiff getDiff(ContributionItem contributionItem);
+
+	/**
+	 * 
+	 * @param contributionItem
+	 *            an item of {@link #getContribution()}. Must not be
+	 *            {@code null}.
+	 * @return a list (possibly unmodifiable) of the lines of the content of
+	 *         given item without their terminators. Never {@code null}.
+	 */
+	List<String> getLines(ContributionItem contributionItem);
+
+	/**
+	 * 
+	 * @param contributionItem
+	 *            an item of {@link #getContribution()}. Must not be
+	 *            {@code null}.
+	 * @return the language of the content of given item, e.g. {@code java}, if
+	 *         it could be detected. Never {@code null}.
+	 */
+	Optional<String> getLanguage(ContributionItem contributionItem);
+
+	/**
+	 * Memoizes arbitrary values for the scorers of this context, e.g. the
+	 * result of a scan over the touched content that several scorers share.
+	 * <p>
+	 * Keys are compared by {@link Object#equals(Object)} and should identify
+	 * the type of the value, e.g. a constant of the class that computes it.
+	 * Values may be memoized from within the computation of other values.
+	 * 
+	 * @param key
+	 *            must not be {@code null}
+	 * @param value
+	 *            computes the value on first request. Must not be
+	 *            {@code null} and must not return {@code null}.
+	 * @return the memoized value for given key. Never {@code null}.
+	 */
+	<T> T memoize(Object key, Supplier<T> value);
+
+}
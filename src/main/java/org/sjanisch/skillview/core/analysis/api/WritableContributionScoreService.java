@@ -1,5 +1,7 @@
 package org.sjanisch.skillview.core.analysis.api;
 
+import java.time.Instant;
+import java.util.Set;
 import java.util.stream.Stream;
 
 /**
@@ -20,4 +22,24 @@ public interface WritableContributionScoreService extends ContributionScoreServi
 	 */
 	void saveContributionScores(Stream<DetailedContributionScore> contributionScores);
 
+	/**
+	 * Replaces all persisted scores of given originators with a
+	 * {@link DetailedContributionScore#getScoreTime() score time} within given
+	 * time frame by given scores. Scores of other originators or outside of
+	 * the time frame are retained.
+	 * 
+	 * @param scoreOriginators
+	 *            the originators whose scores are replaced. Must not be
+	 *            {@code null}.
+	 * @param startExclusive
+	 *            must not be {@code null}
+	 * @param endInclusive
+	 *            must not be {@code null}
+	 * @param contributionScores
+	 *            the new scores. Must not be {@code null} and must only
+	 *            contain scores of given originators within given time frame.
+	 */
+	void replaceContributionScores(Set<ScoreOriginator> scoreOriginators, Instant startExclusive,
+			Instant endInclusive, Stream<DetailedContributionScore> contributionScores);
+
 }
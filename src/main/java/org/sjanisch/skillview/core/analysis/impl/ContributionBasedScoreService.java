@@ -1,28 +1,47 @@
 package org.sjanisch.skillview.core.analysis.impl;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import org.sjanisch.skillview.core.analysis.api.BatchContributionScorer;
 import org.sjanisch.skillview.core.analysis.api.ContributionScore;
 import org.sjanisch.skillview.core.analysis.api.ContributionScoreService;
 import org.sjanisch.skillview.core.analysis.api.ContributionScorer;
 import org.sjanisch.skillview.core.analysis.api.ContributionScorerDefinition;
 import org.sjanisch.skillview.core.analysis.api.DetailedContributionScore;
 import org.sjanisch.skillview.core.analysis.api.ScoreOriginator;
+import org.sjanisch.skillview.core.analysis.api.ScoringContext;
 import org.sjanisch.skillview.core.contribution.api.Contribution;
 import org.sjanisch.skillview.core.contribution.api.ContributionId;
+import org.sjanisch.skillview.core.contribution.api.ContributionItem;
 import org.sjanisch.skillview.core.contribution.api.ContributionService;
 import org.sjanisch.skillview.core.contribution.api.Contributor;
 import org.sjanisch.skillview.core.contribution.api.Project;
+import org.sjanisch.skillview.core.diff.api.ContentDiffService;
+import org.sjanisch.skillview.core.diff.impl.MyersContentDiffService;
+import org.sjanisch.skillview.core.utility.WorkBatchingSpliterator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -31,6 +50,38 @@ import org.slf4j.LoggerFactory;
  * {@link ContributionService contribution service} and a collection of
  * {@link ContributionScorer scorers} to score each contribution.
  * <p>
+ * All scorers of a contribution share one {@link ScoringContext}, so that
+ * each item is diffed at most once per contribution.
+ * <p>
+ * By default contributions are scored by a parallel stream, i.e. on the
+ * common {@link java.util.concurrent.ForkJoinPool}. The stream is split into
+ * batches of similar estimated work by a {@link WorkBatchingSpliterator}, the
+ * work of a contribution being estimated from the number and content sizes of
+ * its items, so that a few huge contributions do not stall a whole batch of
+ * others. A dedicated
+ * {@link Executor} can be set through the {@link Builder} to isolate scoring
+ * from other work of the process, e.g. a
+ * {@link java.util.concurrent.ForkJoinPool} of the desired parallelism. The
+ * returned stream then pulls contributions from the contribution service as
+ * it is consumed and keeps at most a given number of contributions submitted
+ * to the executor or scored but not yet consumed. Scores are returned in the
+ * order their contributions complete, and closing the stream cancels the
+ * contributions in flight. On Java 21 or later each contribution can instead
+ * be scored on a virtual thread, with a cap on the number of contributions
+ * scored at a time, which suits scorers that block on I/O.
+ * <p>
+ * If any scorer is a {@link BatchContributionScorer}, contributions are
+ * grouped into chunks of a configurable size, which then take the place of
+ * single contributions in the above. Batch scorers score each chunk with one
+ * call, all other scorers still score contribution by contribution.
+ * <p>
+ * Scorers with a restricted {@link ContributionScorer#getScope() scope} are
+ * only passed the contributions that hold items in scope, as views holding
+ * just these items. Items are routed to scorers through an index of the
+ * scopes built once per service.
+ * <p>
+ * The throughput of each retrieval is logged when its stream is closed.
+ * <p>
  * This implementation is immutable and thread-safe.
  * 
  * @author sebastianjanisch
@@ -38,12 +89,155 @@ import org.slf4j.LoggerFactory;
  */
 public class ContributionBasedScoreService implements ContributionScoreService {
 
+	public static final class Builder {
+		private final ContributionService contributionService;
+		private final Collection<ContributionScorer> scorers;
+		private ContentDiffService contentDiffService = new MyersContentDiffService();
+		private Executor executor;
+		private int maxInFlight;
+		private long initialBatchWork = DEFAULT_INITIAL_BATCH_WORK;
+		private long maxBatchWork = DEFAULT_MAX_BATCH_WORK;
+		private int chunkSize = DEFAULT_CHUNK_SIZE;
+		private String mode = "fork-join pool";
+
+		private Builder(ContributionService contributionService, Collection<ContributionScorer> scorers) {
+			this.contributionService = contributionService;
+			this.scorers = scorers;
+		}
+
+		/**
+		 * 
+		 * @param contentDiffService
+		 *            diffs contribution items for the {@link ScoringContext}.
+		 *            Must not be {@code null}. Defaults to a
+		 *            {@link MyersContentDiffService}.
+		 * @return this instance. Never {@code null}.
+		 */
+		public Builder setContentDiffService(ContentDiffService contentDiffService) {
+			this.contentDiffService = Objects.requireNonNull(contentDiffService, "contentDiffService");
+			return this;
+		}
+
+		/**
+		 * 
+		 * @param executor
+		 *            scores the contributions. Must not be {@code null}.
+		 * @param maxInFlight
+		 *            the maximum number of contributions submitted to the
+		 *            executor or scored but not yet consumed per retrieval,
+		 *            but at least one chunk if chunks are scored. Must be
+		 *            positive.
+		 * @return this instance. Never {@code null}.
+		 */
+		public Builder setExecutor(Executor executor, int maxInFlight) {
+			Objects.requireNonNull(executor, "executor");
+
+			if (maxInFlight <= 0) {
+				throw new IllegalArgumentException("max in flight must be positive: " + maxInFlight);
+			}
+
+			this.executor = executor;
+			this.maxInFlight = maxInFlight;
+			this.mode = "executor";
+			return this;
+		}
+
+		/**
+		 * Scores each contribution on its own virtual thread, which suits
+		 * scorers that block, e.g. on I/O. Requires Java 21 or later at
+		 * runtime.
+		 * 
+		 * @param maxConcurrency
+		 *            the maximum number of contributions scored at a time.
+		 *            Twice as many are kept in flight. Must be positive.
+		 * @return this instance. Never {@code null}.
+		 * @throws UnsupportedOperationException
+		 *             if the running JVM does not offer virtual threads, see
+		 *             {@link ContributionBasedScoreService#isVirtualThreadsSupported()}
+		 */
+		public Builder setVirtualThreads(int maxConcurrency) {
+			this.executor = VirtualThreads.newExecutor(maxConcurrency);
+			this.maxInFlight = (int) Math.min(Integer.MAX_VALUE, 2L * maxConcurrency);
+			this.mode = String.format("virtual threads (max concurrency %s)", maxConcurrency);
+			return this;
+		}
+
+		/**
+		 * Sets the work of the batches the parallel stream is split into if
+		 * no executor is set. Work is measured in characters of content plus
+		 * a fixed amount per item.
+		 * 
+		 * @param initialBatchWork
+		 *            the work of the first batch. Must be positive.
+		 * @param maxBatchWork
+		 *            the maximum work of a batch. Must not be less than
+		 *            {@code initialBatchWork}.
+		 * @return this instance. Never {@code null}.
+		 */
+		public Builder setBatchWork(long initialBatchWork, long maxBatchWork) {
+			if (initialBatchWork <= 0 || maxBatchWork < initialBatchWork) {
+				String msg = "invalid batch work: initial %s max %s";
+				throw new IllegalArgumentException(String.format(msg, initialBatchWork, maxBatchWork));
+			}
+
+			this.initialBatchWork = initialBatchWork;
+			this.maxBatchWork = maxBatchWork;
+			return this;
+		}
+
+		/**
+		 * Sets the number of contributions passed at once to
+		 * {@link BatchContributionScorer batch scorers}. Has no effect if
+		 * there are none.
+		 * 
+		 * @param chunkSize
+		 *            must be positive. Defaults to {@code 64}.
+		 * @return this instance. Never {@code null}.
+		 */
+		public Builder setChunkSize(int chunkSize) {
+			if (chunkSize <= 0) {
+				throw new IllegalArgumentException("chunk size must be positive: " + chunkSize);
+			}
+
+			this.chunkSize = chunkSize;
+			return this;
+		}
+
+		/**
+		 * 
+		 * @return new {@link ContributionBasedScoreService} as configured by
+		 *         this builder. Never {@code null}.
+		 */
+		public ContributionBasedScoreService build() {
+			return new ContributionBasedScoreService(this);
+		}
+	}
+
 	private static final Logger log = LoggerFactory.getLogger(ContributionBasedScoreService.class);
 
+	/**
+	 * Estimated work of scoring an item apart from its contents, in the same
+	 * unit as content sizes.
+	 */
+	private static final long ITEM_WORK = 1024;
+	private static final long DEFAULT_INITIAL_BATCH_WORK = 64 * 1024;
+	private static final long DEFAULT_MAX_BATCH_WORK = 16 * 1024 * 1024;
+	private static final int DEFAULT_CHUNK_SIZE = 64;
+
 	private final ContributionService contributionService;
-	private final Collection<ContributionScorer> scorers;
+	private final List<ContributionScorer> scorers;
+	private final ScorerRouting routing;
+	private final ContentDiffService contentDiffService;
+	private final Executor executor;
+	private final int chunkSize;
+	private final int maxChunksInFlight;
+	private final long initialBatchWork;
+	private final long maxBatchWork;
+	private final String mode;
 
 	/**
+	 * Creates a service that diffs contribution items with a
+	 * {@link MyersContentDiffService}.
 	 * 
 	 * @param contributionService
 	 *            must not be {@code null}
@@ -52,56 +246,239 @@ public class ContributionBasedScoreService implements ContributionScoreService {
 	 */
 	public ContributionBasedScoreService(ContributionService contributionService,
 			Collection<ContributionScorer> scorers) {
-		this.contributionService = Objects.requireNonNull(contributionService, "contributionService");
-		Objects.requireNonNull(scorers, "scorers");
+		this(contributionService, scorers, new MyersContentDiffService());
+	}
+
+	/**
+	 * 
+	 * @param contributionService
+	 *            must not be {@code null}
+	 * @param scorers
+	 *            must not be {@code null}. Copy will be taken.
+	 * @param contentDiffService
+	 *            diffs contribution items for the {@link ScoringContext}.
+	 *            Must not be {@code null}.
+	 */
+	public ContributionBasedScoreService(ContributionService contributionService,
+			Collection<ContributionScorer> scorers, ContentDiffService contentDiffService) {
+		this(newBuilder(contributionService, scorers).setContentDiffService(contentDiffService));
+	}
+
+	private ContributionBasedScoreService(Builder builder) {
+		this.contributionService = builder.contributionService;
+		this.contentDiffService = builder.contentDiffService;
+		this.executor = builder.executor;
+		this.initialBatchWork = builder.initialBatchWork;
+		this.maxBatchWork = builder.maxBatchWork;
+		this.mode = builder.mode;
 
-		this.scorers = Collections.unmodifiableCollection(new LinkedList<>(scorers));
+		this.scorers = Collections.unmodifiableList(new ArrayList<>(builder.scorers));
+		this.routing = new ScorerRouting(scorers);
+
+		boolean batching = scorers.stream().anyMatch(scorer -> scorer instanceof BatchContributionScorer);
+		this.chunkSize = batching ? builder.chunkSize : 1;
+		this.maxChunksInFlight = Math.max(1, builder.maxInFlight / chunkSize);
 
 		logInit();
 	}
 
+	/**
+	 * 
+	 * @return whether the running JVM offers virtual threads as required by
+	 *         {@link Builder#setVirtualThreads(int)}
+	 */
+	public static boolean isVirtualThreadsSupported() {
+		return VirtualThreads.isSupported();
+	}
+
+	/**
+	 * 
+	 * @param contributionService
+	 *            must not be {@code null}
+	 * @param scorers
+	 *            must not be {@code null}. Copy will be taken.
+	 * @return new builder. Never {@code null}.
+	 */
+	public static Builder newBuilder(ContributionService contributionService, Collection<ContributionScorer> scorers) {
+		Objects.requireNonNull(contributionService, "contributionService");
+		Objects.requireNonNull(scorers, "scorers");
+
+		return new Builder(contributionService, scorers);
+	}
+
 	@Override
 	public Stream<DetailedContributionScore> getContributionScores(Instant startExclusive, Instant endInclusive) {
 		Objects.requireNonNull(startExclusive, "startExclusive");
 		Objects.requireNonNull(endInclusive, "endInclusive");
 
 		AtomicLong scoredContributions = new AtomicLong();
+		AtomicLong completedContributions = new AtomicLong();
+		long start = System.nanoTime();
 
 		Stream<Contribution> contributions = contributionService.retrieveContributions(startExclusive, endInclusive);
 
-		Function<Contribution, List<DetailedContributionScore>> score = contribution -> {
+		Function<List<Contribution>, List<DetailedContributionScore>> score = chunk -> {
+			try {
+				List<DetailedContributionScore> scores = scoreChunk(chunk, scoredContributions);
+				completedContributions.addAndGet(chunk.size());
+				return scores;
+			} finally {
+				// also if a scorer failed, as the source might retain the
+				// contributions
+				for (Contribution contribution : chunk) {
+					contribution.getContributionItems().forEach(ContributionItem::releaseContent);
+				}
+			}
+		};
+
+		Runnable logThroughput = () -> logThroughput(completedContributions.get(), System.nanoTime() - start);
+
+		if (executor == null) {
+			Spliterator<List<Contribution>> batches = new WorkBatchingSpliterator<>(
+					chunk(contributions.spliterator(), chunkSize), ContributionBasedScoreService::estimateWork,
+					initialBatchWork, maxBatchWork);
+			Stream<DetailedContributionScore> scores = StreamSupport.stream(batches, true).map(score)
+					.flatMap(List::stream);
+
+			return scores.onClose(() -> {
+				contributions.close();
+				logThroughput.run();
+			});
+		}
+
+		ScoreSpliterator scores = new ScoreSpliterator(
+				Spliterators.iterator(chunk(contributions.spliterator(), chunkSize)), score);
 
-			List<DetailedContributionScore> scores = scorers.stream().map(scorer -> {
-				ContributionScorerDefinition definition = scorer.getDefinition();
+		return StreamSupport.stream(scores, false).onClose(() -> {
+			scores.close();
+			contributions.close();
+			logThroughput.run();
+		});
+	}
 
-				OptionalDouble rawScore = scorer.score(contribution);
+	private List<DetailedContributionScore> scoreChunk(List<Contribution> chunk, AtomicLong scoredContributions) {
+		// per contribution and scorer the context to score with, null if
+		// the contribution holds no items in the scorer's scope
+		List<ScoringContext[]> contexts = new ArrayList<>(chunk.size());
+		for (Contribution contribution : chunk) {
+			contexts.add(routing.route(new DefaultScoringContext(contribution, contentDiffService)));
+		}
+
+		// batch scorers score the whole chunk up front, all other scorers
+		// contribution by contribution below
+		List<List<OptionalDouble>> batchScores = new ArrayList<>(scorers.size());
+		for (int j = 0; j < scorers.size(); j++) {
+			ContributionScorer scorer = scorers.get(j);
+			boolean batch = scorer instanceof BatchContributionScorer;
+			batchScores.add(batch ? scoreBatch((BatchContributionScorer) scorer, contexts, j) : null);
+		}
 
-				if (!rawScore.isPresent()) {
-					return null;
+		List<DetailedContributionScore> scores = new ArrayList<>();
+		for (int i = 0; i < chunk.size(); i++) {
+			Contribution contribution = chunk.get(i);
+
+			for (int j = 0; j < scorers.size(); j++) {
+				ContributionScorer scorer = scorers.get(j);
+				ScoringContext context = contexts.get(i)[j];
+				if (context == null) {
+					continue;
 				}
 
-				Instant scoreTime = contribution.getContributionTime();
-				Project project = contribution.getProject();
-				ContributionId contributionId = contribution.getId();
-				Contributor contributor = contribution.getContributor();
-				ScoreOriginator scoreOriginator = definition.getScoreOriginator();
-				ContributionScore contributionScore = ContributionScore.of(definition.getSkillTag(),
-						rawScore.getAsDouble());
+				List<OptionalDouble> batchScore = batchScores.get(j);
+				OptionalDouble rawScore = batchScore != null ? batchScore.get(i) : scorer.score(context);
 
-				DetailedContributionScore result = DetailedContributionScore.of(contributionScore, scoreTime, project,
-						contributionId, contributor, scoreOriginator);
+				if (rawScore.isPresent()) {
+					DetailedContributionScore result = toDetailedScore(contribution, scorer.getDefinition(),
+							rawScore.getAsDouble());
+					log(contribution, result, scoredContributions.incrementAndGet());
+					scores.add(result);
+				}
+			}
+		}
 
-				log(contribution, result, scoredContributions.incrementAndGet());
+		return scores;
+	}
 
-				return result;
-			}).filter(Objects::nonNull).collect(Collectors.toList());
+	private static DetailedContributionScore toDetailedScore(Contribution contribution,
+			ContributionScorerDefinition definition, double rawScore) {
+		Instant scoreTime = contribution.getContributionTime();
+		Project project = contribution.getProject();
+		ContributionId contributionId = contribution.getId();
+		Contributor contributor = contribution.getContributor();
+		ScoreOriginator scoreOriginator = definition.getScoreOriginator();
+		ContributionScore contributionScore = ContributionScore.of(definition.getSkillTag(), rawScore);
+
+		return DetailedContributionScore.of(contributionScore, scoreTime, project, contributionId, contributor,
+				scoreOriginator);
+	}
 
-			return scores;
-		};
+	/**
+	 * Scores the contexts of given scorer in one call.
+	 * 
+	 * @return the scores per context, {@code null} where the scorer was
+	 *         not routed a context
+	 */
+	private static List<OptionalDouble> scoreBatch(BatchContributionScorer scorer, List<ScoringContext[]> contexts,
+			int index) {
+		List<ScoringContext> inScope = new ArrayList<>(contexts.size());
+		for (ScoringContext[] routed : contexts) {
+			if (routed[index] != null) {
+				inScope.add(routed[index]);
+			}
+		}
 
-		Stream<DetailedContributionScore> scores = contributions.parallel().map(score).flatMap(List::stream);
+		List<OptionalDouble> scores = inScope.isEmpty() ? Collections.emptyList()
+				: scorer.scoreContexts(Collections.unmodifiableList(inScope));
 
-		return scores.onClose(() -> contributions.close());
+		if (scores == null || scores.size() != inScope.size()) {
+			String msg = "batch scorer %s returned %s scores for %s contributions";
+			String originator = scorer.getDefinition().getScoreOriginator().getValue();
+			throw new IllegalStateException(String.format(msg, originator, scores == null ? null : scores.size(),
+					inScope.size()));
+		}
+
+		List<OptionalDouble> result = new ArrayList<>(contexts.size());
+		Iterator<OptionalDouble> iterator = scores.iterator();
+		for (ScoringContext[] routed : contexts) {
+			result.add(routed[index] != null ? iterator.next() : null);
+		}
+		return result;
+	}
+
+	/**
+	 * Groups given contributions into lists of {@code chunkSize}, the last
+	 * one possibly being shorter.
+	 */
+	private static Spliterator<List<Contribution>> chunk(Spliterator<Contribution> contributions, int chunkSize) {
+		int characteristics = contributions.characteristics() & (Spliterator.ORDERED | Spliterator.NONNULL);
+
+		return new Spliterators.AbstractSpliterator<List<Contribution>>(Long.MAX_VALUE, characteristics) {
+			@Override
+			public boolean tryAdvance(Consumer<? super List<Contribution>> action) {
+				List<Contribution> chunk = new ArrayList<>(chunkSize);
+				boolean advanced = true;
+				while (advanced && chunk.size() < chunkSize) {
+					advanced = contributions.tryAdvance(chunk::add);
+				}
+
+				if (chunk.isEmpty()) {
+					return false;
+				}
+
+				action.accept(chunk);
+				return true;
+			}
+		};
+	}
+
+	private static long estimateWork(List<Contribution> chunk) {
+		long result = 0;
+		for (Contribution contribution : chunk) {
+			for (ContributionItem item : contribution.getContributionItems()) {
+				result += ITEM_WORK + item.getPreviousContentSize() + item.getContentSize();
+			}
+		}
+		return result;
 	}
 
 	private void logInit() {
@@ -115,6 +492,10 @@ public class ContributionBasedScoreService implements ContributionScoreService {
 				sb.append(" for skill tag ");
 				sb.append(scorer.getDefinition().getSkillTag().getValue()).append(" with neutral score ");
 				sb.append(scorer.getDefinition().getNeutralScore());
+				if (!scorer.getScope().isUnrestricted()) {
+					sb.append(" on languages ").append(scorer.getScope().getLanguages());
+					sb.append(" and paths ").append(scorer.getScope().getPathPatterns());
+				}
 				sb.append(System.lineSeparator());
 			}
 			sb.setLength(sb.length() - System.lineSeparator().length());
@@ -123,6 +504,14 @@ public class ContributionBasedScoreService implements ContributionScoreService {
 		}
 	}
 
+	private void logThroughput(long contributions, long nanos) {
+		if (log.isInfoEnabled()) {
+			double seconds = nanos / 1e9;
+			String msg = "Scored %s contributions in %.3f s (%.1f contributions/s) on %s";
+			log.info(String.format(msg, contributions, seconds, contributions / Math.max(seconds, 1e-9), mode));
+		}
+	}
+
 	private void log(Contribution contribution, DetailedContributionScore contributionScore, long scoredContributions) {
 		if (log.isInfoEnabled() && scoredContributions % 1000 == 0) {
 			log.info(String.format("Scored %s contributions", scoredContributions));
@@ -143,4 +532,91 @@ public class ContributionBasedScoreService implements ContributionScoreService {
 
 	}
 
+	/**
+	 * Pulls chunks of contributions from the source as scores are consumed
+	 * and keeps up to {@code maxChunksInFlight} of them submitted to the
+	 * executor or completed but not yet consumed.
+	 */
+	private class ScoreSpliterator extends Spliterators.AbstractSpliterator<DetailedContributionScore> {
+
+		private final Iterator<List<Contribution>> chunks;
+		private final Function<List<Contribution>, List<DetailedContributionScore>> score;
+		private final Set<ScoreTask> pending = new HashSet<>();
+		private final BlockingQueue<ScoreTask> completed = new LinkedBlockingQueue<>();
+		private final AtomicBoolean closed = new AtomicBoolean();
+		private Iterator<DetailedContributionScore> current;
+
+		ScoreSpliterator(Iterator<List<Contribution>> chunks,
+				Function<List<Contribution>, List<DetailedContributionScore>> score) {
+			super(Long.MAX_VALUE, Spliterator.NONNULL);
+			this.chunks = chunks;
+			this.score = score;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super DetailedContributionScore> action) {
+			while (current == null || !current.hasNext()) {
+				submit();
+				if (pending.isEmpty()) {
+					return false;
+				}
+				current = takeNext().iterator();
+			}
+
+			action.accept(current.next());
+			return true;
+		}
+
+		private void submit() {
+			while (!closed.get() && pending.size() < maxChunksInFlight && chunks.hasNext()) {
+				ScoreTask task = new ScoreTask(chunks.next(), score, completed);
+				pending.add(task);
+				executor.execute(task);
+			}
+		}
+
+		private List<DetailedContributionScore> takeNext() {
+			try {
+				ScoreTask task = completed.take();
+				pending.remove(task);
+				return task.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				close();
+				throw new IllegalStateException("interrupted while waiting for scores", e);
+			} catch (ExecutionException e) {
+				close();
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				if (e.getCause() instanceof Error) {
+					throw (Error) e.getCause();
+				}
+				throw new IllegalStateException("could not score contribution", e.getCause());
+			}
+		}
+
+		void close() {
+			closed.set(true);
+			pending.forEach(task -> task.cancel(true));
+			pending.clear();
+		}
+	}
+
+	private static class ScoreTask extends FutureTask<List<DetailedContributionScore>> {
+
+		private final BlockingQueue<ScoreTask> completed;
+
+		ScoreTask(List<Contribution> chunk, Function<List<Contribution>, List<DetailedContributionScore>> score,
+				BlockingQueue<ScoreTask> completed) {
+			super(() -> score.apply(chunk));
+			this.completed = completed;
+		}
+
+		@Override
+		protected void done() {
+			completed.add(this);
+		}
+	}
+
 }
@@ -0,0 +1,222 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.analysis.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.sjanisch.skillview.core.analysis.api.ScoringContext;
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionItem;
+import org.sjanisch.skillview.core.diff.api.ContentDiff;
+import org.sjanisch.skillview.core.diff.api.ContentDiffService;
+import org.sjanisch.skillview.core.utility.Lazy;
+
+/**
+ * Default implementation of {@link ScoringContext}.
+ * <p>
+ * Diffs are computed through {@link ContentDiffService#diff(ContributionItem)}
+ * of the given service. Languages are detected by the extension of
+ * {@link ContributionItem#getPath()}.
+ * <p>
+ * This implementation is thread-safe.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class DefaultScoringContext implements ScoringContext {
+
+	private static final Map<String, String> LANGUAGES_BY_EXTENSION = languagesByExtension();
+
+	private final Contribution contribution;
+	private final ContentDiffService contentDiffService;
+	private final ConcurrentHashMap<Object, Lazy<?>> values = new ConcurrentHashMap<>();
+
+	/**
+	 * 
+	 * @param contribution
+	 *            must not be {@code null}
+	 * @param contentDiffService
+	 *            must not be {@code null}
+	 */
+	public DefaultScoringContext(Contribution contribution, ContentDiffService contentDiffService) {
+		this.contribution = Objects.requireNonNull(contribution, "contribution");
+		this.contentDiffService = Objects.requireNonNull(contentDiffService, "contentDiffService");
+	}
+
+	/**
+	 * 
+	 * @param path
+	 *            must not be {@code null}
+	 * @return the language of a file with given path as detected by its
+	 *         extension. Never {@code null}.
+	 */
+	public static Optional<String> detectLanguage(String path) {
+		Objects.requireNonNull(path, "path");
+
+		int slash = path.lastIndexOf('/');
+		int dot = path.lastIndexOf('.');
+		if (dot <= slash + 1) {
+			return Optional.empty();
+		}
+
+		String extension = path.substring(dot + 1).toLowerCase(Locale.ROOT);
+		return Optional.ofNullable(LANGUAGES_BY_EXTENSION.get(extension));
+	}
+
+	/**
+	 * 
+	 * @param language
+	 *            must not be {@code null}
+	 * @return whether {@link #detectLanguage(String)} detects given language
+	 *         for any extension
+	 */
+	static boolean isDetectable(String language) {
+		return LANGUAGES_BY_EXTENSION.containsValue(Objects.requireNonNull(language, "language"));
+	}
+
+	@Override
+	public Contribution getContribution() {
+		return contribution;
+	}
+
+	@Override
+	public ContentDiff getDiff(ContributionItem contributionItem) {
+		Objects.requireNonNull(contributionItem, "contributionItem");
+
+		return memoize(new ItemKey("diff", contributionItem), () -> contentDiffService.diff(contributionItem));
+	}
+
+	@Override
+	public List<String> getLines(ContributionItem contributionItem) {
+		Objects.requireNonNull(contributionItem, "contributionItem");
+
+		return memoize(new ItemKey("lines", contributionItem), () -> splitLines(contributionItem.getContent()));
+	}
+
+	@Override
+	public Optional<String> getLanguage(ContributionItem contributionItem) {
+		Objects.requireNonNull(contributionItem, "contributionItem");
+
+		return memoize(new ItemKey("language", contributionItem), () -> detectLanguage(contributionItem.getPath()));
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T memoize(Object key, Supplier<T> value) {
+		Objects.requireNonNull(key, "key");
+		Objects.requireNonNull(value, "value");
+
+		// the value is resolved outside of the map's lock so that values can
+		// be memoized from within the computation of other values
+		Lazy<?> lazy = values.computeIfAbsent(key, __ -> Lazy.of(value));
+		return (T) lazy.get();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[%s:%s values]", getClass().getSimpleName(), contribution.getId(), values.size());
+	}
+
+	private static List<String> splitLines(String content) {
+		List<String> result = new ArrayList<>();
+		int start = 0;
+		for (int i = 0; i < content.length(); i++) {
+			if (content.charAt(i) == '\n') {
+				int end = i > start && content.charAt(i - 1) == '\r' ? i - 1 : i;
+				result.add(content.substring(start, end));
+				start = i + 1;
+			}
+		}
+		if (start < content.length()) {
+			result.add(content.substring(start));
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	private static Map<String, String> languagesByExtension() {
+		Map<String, String> result = new HashMap<>();
+		result.put("java", "java");
+		result.put("kt", "kotlin");
+		result.put("scala", "scala");
+		result.put("groovy", "groovy");
+		result.put("js", "javascript");
+		result.put("jsx", "javascript");
+		result.put("ts", "typescript");
+		result.put("tsx", "typescript");
+		result.put("py", "python");
+		result.put("rb", "ruby");
+		result.put("go", "go");
+		result.put("rs", "rust");
+		result.put("c", "c");
+		result.put("h", "c");
+		result.put("cpp", "cpp");
+		result.put("cc", "cpp");
+		result.put("hpp", "cpp");
+		result.put("cs", "csharp");
+		result.put("sql", "sql");
+		result.put("xml", "xml");
+		result.put("html", "html");
+		result.put("css", "css");
+		result.put("sh", "shell");
+		result.put("json", "json");
+		result.put("yml", "yaml");
+		result.put("yaml", "yaml");
+		result.put("md", "markdown");
+		return Collections.unmodifiableMap(result);
+	}
+
+	/**
+	 * Identifies a derived value of an item by the item's identity, as items
+	 * need not implement {@link Object#equals(Object)}.
+	 */
+	private static class ItemKey {
+		private final String kind;
+		private final ContributionItem item;
+
+		ItemKey(String kind, ContributionItem item) {
+			this.kind = kind;
+			this.item = item;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * kind.hashCode() + System.identityHashCode(item);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof ItemKey && ((ItemKey) obj).kind.equals(kind) && ((ItemKey) obj).item == item;
+		}
+	}
+
+}
@@ -0,0 +1,134 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.analysis.impl;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.sjanisch.skillview.core.analysis.api.DetailedContributionScore;
+import org.sjanisch.skillview.core.analysis.api.ScoreOriginator;
+import org.sjanisch.skillview.core.analysis.api.WritableContributionScoreService;
+
+/**
+ * A {@link WritableContributionScoreService} that holds its scores in memory,
+ * ordered by {@link DetailedContributionScore#getScoreTime() score time}.
+ * <p>
+ * Retrieved streams are snapshots, i.e. they do not reflect scores saved or
+ * replaced afterwards. Scores are replaced atomically: concurrent retrievals
+ * see either the old or the new scores of a time frame.
+ * <p>
+ * This implementation is thread-safe.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class InMemoryContributionScoreService implements WritableContributionScoreService {
+
+	private final NavigableMap<Instant, List<DetailedContributionScore>> scores = new TreeMap<>();
+
+	@Override
+	public Stream<DetailedContributionScore> getContributionScores(Instant startExclusive, Instant endInclusive) {
+		Objects.requireNonNull(startExclusive, "startExclusive");
+		Objects.requireNonNull(endInclusive, "endInclusive");
+
+		List<DetailedContributionScore> result = new ArrayList<>();
+		synchronized (scores) {
+			if (endInclusive.isAfter(startExclusive)) {
+				scores.subMap(startExclusive, false, endInclusive, true).values().forEach(result::addAll);
+			}
+		}
+		return result.stream();
+	}
+
+	@Override
+	public void saveContributionScores(Stream<DetailedContributionScore> contributionScores) {
+		Objects.requireNonNull(contributionScores, "contributionScores");
+
+		List<DetailedContributionScore> saved = collect(contributionScores);
+		synchronized (scores) {
+			add(saved);
+		}
+	}
+
+	@Override
+	public void replaceContributionScores(Set<ScoreOriginator> scoreOriginators, Instant startExclusive,
+			Instant endInclusive, Stream<DetailedContributionScore> contributionScores) {
+		Objects.requireNonNull(scoreOriginators, "scoreOriginators");
+		Objects.requireNonNull(startExclusive, "startExclusive");
+		Objects.requireNonNull(endInclusive, "endInclusive");
+		Objects.requireNonNull(contributionScores, "contributionScores");
+
+		List<DetailedContributionScore> replacement = collect(contributionScores);
+		for (DetailedContributionScore score : replacement) {
+			if (!scoreOriginators.contains(score.getScoreOriginator())) {
+				String msg = "score %s is not of originators %s";
+				throw new IllegalArgumentException(String.format(msg, score, scoreOriginators));
+			}
+			Instant time = score.getScoreTime();
+			if (!time.isAfter(startExclusive) || time.isAfter(endInclusive)) {
+				String msg = "score %s is not within %s and %s";
+				throw new IllegalArgumentException(String.format(msg, score, startExclusive, endInclusive));
+			}
+		}
+
+		synchronized (scores) {
+			if (endInclusive.isAfter(startExclusive)) {
+				Collection<List<DetailedContributionScore>> frame = scores
+						.subMap(startExclusive, false, endInclusive, true).values();
+				for (Iterator<List<DetailedContributionScore>> it = frame.iterator(); it.hasNext();) {
+					List<DetailedContributionScore> atTime = it.next();
+					atTime.removeIf(score -> scoreOriginators.contains(score.getScoreOriginator()));
+					if (atTime.isEmpty()) {
+						it.remove();
+					}
+				}
+			}
+			add(replacement);
+		}
+	}
+
+	private void add(List<DetailedContributionScore> added) {
+		for (DetailedContributionScore score : added) {
+			scores.computeIfAbsent(score.getScoreTime(), time -> new ArrayList<>()).add(score);
+		}
+	}
+
+	private static List<DetailedContributionScore> collect(Stream<DetailedContributionScore> contributionScores) {
+		List<DetailedContributionScore> result = contributionScores.collect(Collectors.toList());
+		for (DetailedContributionScore score : result) {
+			Objects.requireNonNull(score, "contribution score");
+		}
+		return result;
+	}
+
+}
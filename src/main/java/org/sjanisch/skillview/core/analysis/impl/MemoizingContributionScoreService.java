@@ -0,0 +1,259 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.analysis.impl;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.sjanisch.skillview.core.analysis.api.BatchContributionScorer;
+import org.sjanisch.skillview.core.analysis.api.ContributionScoreService;
+import org.sjanisch.skillview.core.analysis.api.ContributionScorer;
+import org.sjanisch.skillview.core.analysis.api.ContributionScorerDefinition;
+import org.sjanisch.skillview.core.analysis.api.DetailedContributionScore;
+import org.sjanisch.skillview.core.analysis.api.ScorerScope;
+import org.sjanisch.skillview.core.analysis.api.ScoringContext;
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.utility.Hash128;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link ContributionScoreService} that memoizes the scores of its scorers
+ * in a persistent index, keyed by contribution id, score originator and
+ * {@link ContributionScorerDefinition#getVersion() scorer version}.
+ * <p>
+ * The scorers are decorated such that a contribution is only passed to a
+ * scorer if the index holds no score of it for the scorer's originator and
+ * version, and the decorated scorers are handed to a factory of the actual
+ * score service, e.g.
+ * {@code scorers -> new ContributionBasedScoreService(contributionService, scorers)}.
+ * Contributions a scorer gave no score for are memoized as well. As the
+ * {@link ScoringContext} computes diffs lazily, a contribution that is fully
+ * memoized is neither diffed nor scored. Decorated
+ * {@link BatchContributionScorer batch scorers} remain batch scorers and are
+ * passed only the contributions of a chunk that are not memoized.
+ * <p>
+ * New scores are appended to the index at the latest when the returned
+ * stream is closed. Changing the version of a scorer causes all
+ * contributions to be scored again by that scorer only.
+ * <p>
+ * This implementation is thread-safe if the score service created by the
+ * factory is.
+ *
+ * @author sebastianjanisch
+ *
+ */
+public class MemoizingContributionScoreService implements ContributionScoreService {
+
+	private static final Logger log = LoggerFactory.getLogger(MemoizingContributionScoreService.class);
+
+	private final ScoreIndex index;
+	private final ContributionScoreService delegate;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * 
+	 * @param indexFile
+	 *            must not be {@code null}. Will be created if it does not
+	 *            exist, appended to otherwise.
+	 * @param scorers
+	 *            must not be {@code null}
+	 * @param scoreServiceFactory
+	 *            creates the service that scores contributions with the given
+	 *            decorated scorers. Must not be {@code null} and must not
+	 *            return {@code null}.
+	 */
+	public MemoizingContributionScoreService(Path indexFile, Collection<ContributionScorer> scorers,
+			Function<Collection<ContributionScorer>, ContributionScoreService> scoreServiceFactory) {
+		Objects.requireNonNull(indexFile, "indexFile");
+		Objects.requireNonNull(scorers, "scorers");
+		Objects.requireNonNull(scoreServiceFactory, "scoreServiceFactory");
+
+		this.index = ScoreIndex.open(indexFile);
+
+		List<ContributionScorer> memoized = new ArrayList<>();
+		for (ContributionScorer scorer : scorers) {
+			Objects.requireNonNull(scorer, "scorer");
+			if (scorer instanceof BatchContributionScorer) {
+				memoized.add(new MemoizingBatchScorer((BatchContributionScorer) scorer));
+			} else {
+				memoized.add(new MemoizingScorer(scorer));
+			}
+		}
+
+		this.delegate = Objects.requireNonNull(scoreServiceFactory.apply(Collections.unmodifiableList(memoized)),
+				"score service");
+	}
+
+	@Override
+	public Stream<DetailedContributionScore> getContributionScores(Instant startExclusive, Instant endInclusive) {
+		Objects.requireNonNull(startExclusive, "startExclusive");
+		Objects.requireNonNull(endInclusive, "endInclusive");
+
+		Stream<DetailedContributionScore> scores = delegate.getContributionScores(startExclusive, endInclusive);
+
+		return scores.onClose(() -> {
+			index.flush();
+			if (log.isInfoEnabled()) {
+				String msg = "Memoized scores: %s served from index, %s computed, %s indexed";
+				log.info(String.format(msg, hits.get(), misses.get(), index.size()));
+			}
+		});
+	}
+
+	private class MemoizingScorer implements ContributionScorer {
+		private final ContributionScorer delegate;
+
+		MemoizingScorer(ContributionScorer delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public OptionalDouble score(Contribution contribution) {
+			Objects.requireNonNull(contribution, "contribution");
+
+			return memoize(contribution, () -> delegate.score(contribution));
+		}
+
+		@Override
+		public OptionalDouble score(ScoringContext context) {
+			Objects.requireNonNull(context, "context");
+
+			return memoize(context.getContribution(), () -> delegate.score(context));
+		}
+
+		private OptionalDouble memoize(Contribution contribution, Supplier<OptionalDouble> score) {
+			Hash128 key = ScoreIndex.key(contribution.getId(), delegate.getDefinition());
+
+			Double memoized = index.get(key);
+			if (memoized != null) {
+				hits.incrementAndGet();
+				return fromIndex(memoized);
+			}
+
+			misses.incrementAndGet();
+			OptionalDouble result = score.get();
+			index.put(key, toIndex(result));
+			return result;
+		}
+
+		@Override
+		public ContributionScorerDefinition getDefinition() {
+			return delegate.getDefinition();
+		}
+
+		@Override
+		public ScorerScope getScope() {
+			return delegate.getScope();
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s[%s]", getClass().getSimpleName(), delegate);
+		}
+	}
+
+	private class MemoizingBatchScorer extends MemoizingScorer implements BatchContributionScorer {
+		private final BatchContributionScorer batchDelegate;
+
+		MemoizingBatchScorer(BatchContributionScorer delegate) {
+			super(delegate);
+			this.batchDelegate = delegate;
+		}
+
+		@Override
+		public List<OptionalDouble> scoreBatch(List<Contribution> contributions) {
+			Objects.requireNonNull(contributions, "contributions");
+
+			return memoize(contributions, Function.identity(), batchDelegate::scoreBatch);
+		}
+
+		@Override
+		public List<OptionalDouble> scoreContexts(List<ScoringContext> contexts) {
+			Objects.requireNonNull(contexts, "contexts");
+
+			return memoize(contexts, ScoringContext::getContribution, batchDelegate::scoreContexts);
+		}
+
+		private <T> List<OptionalDouble> memoize(List<T> inputs, Function<T, Contribution> toContribution,
+				Function<List<T>, List<OptionalDouble>> score) {
+			OptionalDouble[] result = new OptionalDouble[inputs.size()];
+			Hash128[] keys = new Hash128[inputs.size()];
+			List<T> missing = new ArrayList<>();
+
+			for (int i = 0; i < inputs.size(); i++) {
+				keys[i] = ScoreIndex.key(toContribution.apply(inputs.get(i)).getId(), getDefinition());
+				Double memoized = index.get(keys[i]);
+				if (memoized != null) {
+					result[i] = fromIndex(memoized);
+				} else {
+					missing.add(inputs.get(i));
+				}
+			}
+
+			hits.addAndGet(inputs.size() - missing.size());
+			if (missing.isEmpty()) {
+				return Arrays.asList(result);
+			}
+
+			misses.addAndGet(missing.size());
+			List<OptionalDouble> scores = score.apply(missing);
+			if (scores.size() != missing.size()) {
+				String msg = "batch scorer %s returned %s scores for %s contributions";
+				String originator = getDefinition().getScoreOriginator().getValue();
+				throw new IllegalStateException(String.format(msg, originator, scores.size(), missing.size()));
+			}
+
+			for (int i = 0, k = 0; i < result.length; i++) {
+				if (result[i] == null) {
+					result[i] = scores.get(k++);
+					index.put(keys[i], toIndex(result[i]));
+				}
+			}
+
+			return Arrays.asList(result);
+		}
+	}
+
+	private static OptionalDouble fromIndex(double memoized) {
+		return Double.isNaN(memoized) ? OptionalDouble.empty() : OptionalDouble.of(memoized);
+	}
+
+	private static double toIndex(OptionalDouble score) {
+		return score.isPresent() ? score.getAsDouble() : Double.NaN;
+	}
+
+}
@@ -0,0 +1,338 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.analysis.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.sjanisch.skillview.core.analysis.api.ContributionScoreService;
+import org.sjanisch.skillview.core.analysis.api.ContributionScorer;
+import org.sjanisch.skillview.core.analysis.api.ContributionScorerDefinition;
+import org.sjanisch.skillview.core.analysis.api.DetailedContributionScore;
+import org.sjanisch.skillview.core.analysis.api.ScoreOriginator;
+import org.sjanisch.skillview.core.analysis.api.WritableContributionScoreService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rescores contributions selectively after scorers have been added or
+ * changed.
+ * <p>
+ * A registry file records per {@link ScoreOriginator score originator} the
+ * {@link ContributionScorerDefinition#getVersion() version} of the scores
+ * persisted in a {@link WritableContributionScoreService} and the time frame
+ * they cover. A backfill diffs the registered scorers against the registry,
+ * scores the time frame not yet covered with the new, changed or partially
+ * covering scorers only and
+ * {@link WritableContributionScoreService#replaceContributionScores(Set, Instant, Instant, Stream)
+ * replaces} the scores of just their originators. The registry is updated
+ * once the scores have been replaced.
+ * <p>
+ * The covered time frame of an originator is kept contiguous: a backfill
+ * that does not overlap it also scores the gap in between. A new version
+ * covers the time frame of the backfill that introduced it only, persisted
+ * scores outside of it stem from the previous version until they are
+ * backfilled as well.
+ * <p>
+ * Originators that are persisted but no longer registered are logged and
+ * left untouched.
+ * <p>
+ * This implementation is thread-safe if the score service created by the
+ * factory and the score store are.
+ *
+ * @author sebastianjanisch
+ *
+ */
+public class ScoreBackfill {
+
+	private static final Logger log = LoggerFactory.getLogger(ScoreBackfill.class);
+
+	private final Path registryFile;
+	private final Map<ScoreOriginator, ContributionScorer> scorers;
+	private final Function<Collection<ContributionScorer>, ContributionScoreService> scoreServiceFactory;
+	private final WritableContributionScoreService scoreStore;
+
+	/**
+	 * 
+	 * @param registryFile
+	 *            must not be {@code null}. Will be created if it does not
+	 *            exist, in which case all scorers are considered new.
+	 * @param scorers
+	 *            the registered scorers. Must not be {@code null} and must not
+	 *            contain two scorers of the same originator.
+	 * @param scoreServiceFactory
+	 *            creates the service that scores contributions with the given
+	 *            subset of scorers, e.g.
+	 *            {@code scorers -> new ContributionBasedScoreService(contributionService, scorers)}.
+	 *            Must not be {@code null} and must not return {@code null}.
+	 * @param scoreStore
+	 *            must not be {@code null}
+	 */
+	public ScoreBackfill(Path registryFile, Collection<ContributionScorer> scorers,
+			Function<Collection<ContributionScorer>, ContributionScoreService> scoreServiceFactory,
+			WritableContributionScoreService scoreStore) {
+		this.registryFile = Objects.requireNonNull(registryFile, "registryFile");
+		Objects.requireNonNull(scorers, "scorers");
+		this.scoreServiceFactory = Objects.requireNonNull(scoreServiceFactory, "scoreServiceFactory");
+		this.scoreStore = Objects.requireNonNull(scoreStore, "scoreStore");
+
+		this.scorers = new LinkedHashMap<>();
+		for (ContributionScorer scorer : scorers) {
+			Objects.requireNonNull(scorer, "scorer");
+			ScoreOriginator originator = scorer.getDefinition().getScoreOriginator();
+			if (this.scorers.put(originator, scorer) != null) {
+				throw new IllegalArgumentException("duplicate score originator " + originator.getValue());
+			}
+		}
+	}
+
+	/**
+	 * 
+	 * @return the registered scorers whose originator is not in the registry
+	 *         or is registered with a different version. Never {@code null}.
+	 */
+	public synchronized Collection<ContributionScorer> getOutdatedScorers() {
+		Map<String, Coverage> persisted = readRegistry();
+
+		List<ContributionScorer> result = new ArrayList<>();
+		for (ContributionScorer scorer : scorers.values()) {
+			ContributionScorerDefinition definition = scorer.getDefinition();
+			Coverage coverage = persisted.get(definition.getScoreOriginator().getValue());
+			if (coverage == null || coverage.version != definition.getVersion()) {
+				result.add(scorer);
+			}
+		}
+
+		return Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * Scores the part of given time frame that is not covered yet by each
+	 * registered scorer, together with the gap to its covered time frame, and
+	 * replaces the persisted scores of the scorer's originator in the scored
+	 * time frame. Scorers of {@link #getOutdatedScorers() outdated} versions
+	 * score all of given time frame.
+	 * 
+	 * @param startExclusive
+	 *            must not be {@code null}
+	 * @param endInclusive
+	 *            must not be {@code null}
+	 * @return the originators whose scores have been replaced. Never
+	 *         {@code null}, empty if all scorers covered given time frame.
+	 */
+	public synchronized Set<ScoreOriginator> backfill(Instant startExclusive, Instant endInclusive) {
+		Objects.requireNonNull(startExclusive, "startExclusive");
+		Objects.requireNonNull(endInclusive, "endInclusive");
+
+		Map<String, Coverage> registry = readRegistry();
+		for (String originator : registry.keySet()) {
+			if (!scorers.containsKey(ScoreOriginator.of(originator))) {
+				String msg = "Score originator %s is persisted but no longer registered, its scores are retained";
+				log.warn(String.format(msg, originator));
+			}
+		}
+
+		if (!endInclusive.isAfter(startExclusive)) {
+			return Collections.emptySet();
+		}
+
+		// scorers grouped by the time frame they have to score
+		Map<List<Instant>, List<ContributionScorer>> frames = new LinkedHashMap<>();
+		for (ContributionScorer scorer : scorers.values()) {
+			ContributionScorerDefinition definition = scorer.getDefinition();
+			Coverage coverage = registry.get(definition.getScoreOriginator().getValue());
+			List<Instant> frame = uncovered(coverage, definition.getVersion(), startExclusive, endInclusive);
+			if (frame != null) {
+				frames.computeIfAbsent(frame, key -> new ArrayList<>()).add(scorer);
+			}
+		}
+
+		Set<ScoreOriginator> result = new HashSet<>();
+		for (Map.Entry<List<Instant>, List<ContributionScorer>> entry : frames.entrySet()) {
+			Instant frameStart = entry.getKey().get(0);
+			Instant frameEnd = entry.getKey().get(1);
+			List<ContributionScorer> selected = entry.getValue();
+
+			Set<ScoreOriginator> originators = new HashSet<>();
+			for (ContributionScorer scorer : selected) {
+				originators.add(scorer.getDefinition().getScoreOriginator());
+			}
+
+			if (log.isInfoEnabled()) {
+				String msg = "Rescoring %s of %s scorers between %s and %s: %s";
+				log.info(String.format(msg, selected.size(), scorers.size(), frameStart, frameEnd, selected));
+			}
+
+			ContributionScoreService scoreService = Objects.requireNonNull(scoreServiceFactory.apply(selected),
+					"score service");
+			try (Stream<DetailedContributionScore> scores = scoreService.getContributionScores(frameStart,
+					frameEnd)) {
+				scoreStore.replaceContributionScores(Collections.unmodifiableSet(originators), frameStart, frameEnd,
+						scores);
+			}
+
+			for (ContributionScorer scorer : selected) {
+				ContributionScorerDefinition definition = scorer.getDefinition();
+				String originator = definition.getScoreOriginator().getValue();
+				registry.put(originator,
+						covered(registry.get(originator), definition.getVersion(), frameStart, frameEnd));
+			}
+			writeRegistry(registry);
+			result.addAll(originators);
+		}
+
+		return Collections.unmodifiableSet(result);
+	}
+
+	/**
+	 * @return the time frame that a scorer of given version has to score in
+	 *         order to cover given time frame, {@code null} if it is covered
+	 */
+	private static List<Instant> uncovered(Coverage coverage, int version, Instant startExclusive,
+			Instant endInclusive) {
+		if (coverage == null || coverage.version != version) {
+			return Arrays.asList(startExclusive, endInclusive);
+		}
+
+		boolean before = startExclusive.isBefore(coverage.startExclusive);
+		boolean after = endInclusive.isAfter(coverage.endInclusive);
+		if (before && after) {
+			return Arrays.asList(startExclusive, endInclusive);
+		}
+		if (before) {
+			return Arrays.asList(startExclusive, coverage.startExclusive);
+		}
+		if (after) {
+			return Arrays.asList(coverage.endInclusive, endInclusive);
+		}
+		return null;
+	}
+
+	private static Coverage covered(Coverage coverage, int version, Instant startExclusive, Instant endInclusive) {
+		if (coverage == null || coverage.version != version) {
+			return new Coverage(version, startExclusive, endInclusive);
+		}
+		Instant start = startExclusive.isBefore(coverage.startExclusive) ? startExclusive : coverage.startExclusive;
+		Instant end = endInclusive.isAfter(coverage.endInclusive) ? endInclusive : coverage.endInclusive;
+		return new Coverage(version, start, end);
+	}
+
+	private Map<String, Coverage> readRegistry() {
+		Map<String, Coverage> result = new LinkedHashMap<>();
+		if (!Files.exists(registryFile)) {
+			return result;
+		}
+
+		Properties properties = new Properties();
+		try (InputStream in = Files.newInputStream(registryFile)) {
+			properties.load(in);
+		} catch (IOException e) {
+			throw new UncheckedIOException("could not read scorer registry " + registryFile, e);
+		}
+
+		for (String originator : properties.stringPropertyNames()) {
+			try {
+				result.put(originator, Coverage.parse(properties.getProperty(originator)));
+			} catch (IllegalArgumentException | DateTimeParseException e) {
+				String msg = "corrupt scorer registry %s: invalid entry of %s";
+				throw new IllegalStateException(String.format(msg, registryFile, originator), e);
+			}
+		}
+
+		return result;
+	}
+
+	private void writeRegistry(Map<String, Coverage> registry) {
+		Properties properties = new Properties();
+		registry.forEach((originator, coverage) -> properties.setProperty(originator, coverage.toString()));
+
+		try {
+			Path directory = registryFile.toAbsolutePath().getParent();
+			Files.createDirectories(directory);
+			Path temporary = Files.createTempFile(directory, registryFile.getFileName().toString(), ".tmp");
+			try {
+				try (OutputStream out = Files.newOutputStream(temporary)) {
+					properties.store(out, null);
+				}
+				Files.move(temporary, registryFile, StandardCopyOption.ATOMIC_MOVE,
+						StandardCopyOption.REPLACE_EXISTING);
+			} finally {
+				Files.deleteIfExists(temporary);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("could not write scorer registry " + registryFile, e);
+		}
+	}
+
+	/**
+	 * The version of the persisted scores of an originator and the time frame
+	 * they cover, written as {@code version;startExclusive;endInclusive}.
+	 */
+	private static class Coverage {
+		private final int version;
+		private final Instant startExclusive;
+		private final Instant endInclusive;
+
+		Coverage(int version, Instant startExclusive, Instant endInclusive) {
+			this.version = version;
+			this.startExclusive = startExclusive;
+			this.endInclusive = endInclusive;
+		}
+
+		static Coverage parse(String value) {
+			String[] parts = value.split(";");
+			if (parts.length != 3) {
+				throw new IllegalArgumentException("invalid coverage " + value);
+			}
+			return new Coverage(Integer.parseInt(parts[0].trim()), Instant.parse(parts[1].trim()),
+					Instant.parse(parts[2].trim()));
+		}
+
+		@Override
+		public String toString() {
+			return version + ";" + startExclusive + ";" + endInclusive;
+		}
+	}
+
+}
@@ -0,0 +1,291 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.analysis.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+import org.sjanisch.skillview.core.analysis.api.ContributionScorerDefinition;
+import org.sjanisch.skillview.core.contribution.api.ContributionId;
+import org.sjanisch.skillview.core.utility.Hash128;
+import org.sjanisch.skillview.core.utility.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An append-only file of computed scores, keyed by contribution, score
+ * originator and scorer version, together with an in-memory table of its
+ * records.
+ * <p>
+ * The file consists of a header followed by fixed size records of the 128
+ * bit {@link Hashing#murmur3(CharSequence) hash} of the key and the score,
+ * {@link Double#NaN} if the scorer gave no score. The file is read into the
+ * table on {@link #open(Path)}. New records are buffered and appended in
+ * blocks of whole records, so an interrupted append leaves at most one
+ * incomplete record at the end of the file, which is cut off when read so
+ * that later appends start at a record boundary.
+ * <p>
+ * The table is an open addressing hash table of primitive arrays, taking 25
+ * bytes per score.
+ * <p>
+ * This class is thread-safe.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+final class ScoreIndex {
+
+	private static final Logger log = LoggerFactory.getLogger(ScoreIndex.class);
+
+	private static final int MAGIC = 0x53565349;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 8;
+	private static final int RECORD_SIZE = 24;
+	private static final int FLUSH_THRESHOLD = 1024 * 1024;
+
+	private final Path file;
+	private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+	private final DataOutputStream records = new DataOutputStream(buffer);
+
+	private long[] highs = new long[1024];
+	private long[] lows = new long[1024];
+	private double[] scores = new double[1024];
+	private boolean[] used = new boolean[1024];
+	private int size;
+
+	private ScoreIndex(Path file) {
+		this.file = file;
+	}
+
+	/**
+	 * 
+	 * @param file
+	 *            must not be {@code null}. Will be created on the first
+	 *            {@link #flush()} if it does not exist.
+	 * @return never {@code null}
+	 */
+	static ScoreIndex open(Path file) {
+		Objects.requireNonNull(file, "file");
+
+		ScoreIndex result = new ScoreIndex(file);
+		if (Files.exists(file)) {
+			result.read();
+		}
+		return result;
+	}
+
+	/**
+	 * 
+	 * @param contributionId
+	 *            must not be {@code null}
+	 * @param definition
+	 *            must not be {@code null}
+	 * @return the key of the score of given contribution by a scorer of given
+	 *         definition. Never {@code null}.
+	 */
+	static Hash128 key(ContributionId contributionId, ContributionScorerDefinition definition) {
+		String key = String.format("%s\u0000%s\u0000%s", contributionId.getValue(),
+				definition.getScoreOriginator().getValue(), definition.getVersion());
+		return Hashing.murmur3(key);
+	}
+
+	/**
+	 * 
+	 * @return the number of scores held
+	 */
+	synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * 
+	 * @param key
+	 *            must not be {@code null}
+	 * @return the score for given key, {@link Double#NaN} if there is no score
+	 *         for given key or {@code null} if the key is not indexed
+	 */
+	synchronized Double get(Hash128 key) {
+		int slot = slot(key.getHigh(), key.getLow());
+		return used[slot] ? scores[slot] : null;
+	}
+
+	/**
+	 * Indexes given score, to be appended to the file on the next
+	 * {@link #flush()} at the latest.
+	 * 
+	 * @param key
+	 *            must not be {@code null}
+	 * @param score
+	 *            {@link Double#NaN} if there is no score for given key
+	 */
+	synchronized void put(Hash128 key, double score) {
+		if (insert(key.getHigh(), key.getLow(), score)) {
+			try {
+				records.writeLong(key.getHigh());
+				records.writeLong(key.getLow());
+				records.writeDouble(score);
+			} catch (IOException e) {
+				throw new IllegalStateException("cannot happen for in-memory stream", e);
+			}
+			if (buffer.size() >= FLUSH_THRESHOLD) {
+				flush();
+			}
+		}
+	}
+
+	/**
+	 * Appends all indexed scores that have not been appended yet.
+	 */
+	synchronized void flush() {
+		if (buffer.size() == 0) {
+			return;
+		}
+
+		try {
+			Path directory = file.toAbsolutePath().getParent();
+			Files.createDirectories(directory);
+			try (OutputStream out = Files.newOutputStream(file, StandardOpenOption.CREATE,
+					StandardOpenOption.APPEND)) {
+				if (Files.size(file) == 0) {
+					DataOutputStream header = new DataOutputStream(out);
+					header.writeInt(MAGIC);
+					header.writeInt(VERSION);
+				}
+				buffer.writeTo(out);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("could not append to score index " + file, e);
+		}
+		buffer.reset();
+	}
+
+	private void read() {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			long length = channel.size();
+			if (length == 0) {
+				return;
+			}
+			if (length < HEADER_SIZE) {
+				throw new IllegalStateException("not a score index: " + file);
+			}
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while (header.hasRemaining() && channel.read(header) >= 0) {
+				// reads the header
+			}
+			header.flip();
+			if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+				throw new IllegalStateException("not a score index of version " + VERSION + ": " + file);
+			}
+
+			long records = (length - HEADER_SIZE) / RECORD_SIZE;
+			if (HEADER_SIZE + records * RECORD_SIZE != length) {
+				log.warn(String.format("Cutting off incomplete record at the end of %s", file));
+				channel.truncate(HEADER_SIZE + records * RECORD_SIZE);
+			}
+
+			// mapped in windows of whole records to support huge indices
+			long window = (Integer.MAX_VALUE / RECORD_SIZE) * (long) RECORD_SIZE;
+			for (long position = HEADER_SIZE; position < HEADER_SIZE + records * RECORD_SIZE; position += window) {
+				long windowLength = Math.min(window, HEADER_SIZE + records * RECORD_SIZE - position);
+				ByteBuffer mapped = channel.map(MapMode.READ_ONLY, position, windowLength);
+				while (mapped.hasRemaining()) {
+					insert(mapped.getLong(), mapped.getLong(), mapped.getDouble());
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("could not read score index " + file, e);
+		}
+
+		if (log.isDebugEnabled()) {
+			log.debug(String.format("Read %s scores from %s", size, file));
+		}
+	}
+
+	/**
+	 * @return {@code true} if the key was not indexed before
+	 */
+	private boolean insert(long high, long low, double score) {
+		if (size + 1 > highs.length / 2) {
+			grow();
+		}
+
+		int slot = slot(high, low);
+		boolean added = !used[slot];
+		if (added) {
+			used[slot] = true;
+			highs[slot] = high;
+			lows[slot] = low;
+			size++;
+		}
+		scores[slot] = score;
+		return added;
+	}
+
+	/**
+	 * @return the slot of given key or the free slot to insert it into
+	 */
+	private int slot(long high, long low) {
+		int mask = highs.length - 1;
+		int slot = (int) (low ^ (low >>> 32)) & mask;
+		while (used[slot] && (highs[slot] != high || lows[slot] != low)) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void grow() {
+		long[] oldHighs = highs;
+		long[] oldLows = lows;
+		double[] oldScores = scores;
+		boolean[] oldUsed = used;
+
+		int capacity = oldHighs.length * 2;
+		highs = new long[capacity];
+		lows = new long[capacity];
+		scores = new double[capacity];
+		used = new boolean[capacity];
+
+		for (int i = 0; i < oldHighs.length; i++) {
+			if (oldUsed[i]) {
+				int slot = slot(oldHighs[i], oldLows[i]);
+				used[slot] = true;
+				highs[slot] = oldHighs[i];
+				lows[slot] = oldLows[i];
+				scores[slot] = oldScores[i];
+			}
+		}
+	}
+
+}
@@ -0,0 +1,279 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.analysis.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.sjanisch.skillview.core.analysis.api.ContributionScorer;
+import org.sjanisch.skillview.core.analysis.api.ScorerScope;
+import org.sjanisch.skillview.core.analysis.api.ScoringContext;
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionItem;
+import org.sjanisch.skillview.core.contribution.impl.DefaultContribution;
+import org.sjanisch.skillview.core.diff.api.ContentDiff;
+import org.sjanisch.skillview.core.utility.PathGlob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Routes the items of a contribution to the {@link ContributionScorer
+ * scorers} whose {@link ScorerScope scope} contains them.
+ * <p>
+ * The index is built once from the scopes of the scorers. Languages and path
+ * patterns of the form {@code *.<extension>} are looked up by the language
+ * and extension of an item, so their cost does not grow with the number of
+ * scorers. All other path patterns are matched one by one.
+ * <p>
+ * This class is immutable and thread-safe.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+class ScorerRouting {
+
+	private static final Logger log = LoggerFactory.getLogger(ScorerRouting.class);
+
+	private static final Pattern EXTENSION_PATTERN = Pattern.compile("\\*\\.([A-Za-z0-9_+-]+)");
+
+	private final int scorerCount;
+	private final boolean[] restricted;
+	private final boolean anyRestricted;
+	private final Map<String, int[]> scorersByLanguage;
+	private final Map<String, int[]> scorersByExtension;
+	private final List<GlobRoute> globRoutes = new ArrayList<>();
+
+	/**
+	 * 
+	 * @param scorers
+	 *            must not be {@code null}
+	 */
+	ScorerRouting(List<ContributionScorer> scorers) {
+		Objects.requireNonNull(scorers, "scorers");
+
+		this.scorerCount = scorers.size();
+		this.restricted = new boolean[scorerCount];
+
+		Map<String, List<Integer>> byLanguage = new HashMap<>();
+		Map<String, List<Integer>> byExtension = new HashMap<>();
+		boolean any = false;
+
+		for (int i = 0; i < scorerCount; i++) {
+			ScorerScope scope = Objects.requireNonNull(scorers.get(i).getScope(), "scope");
+			if (scope.isUnrestricted()) {
+				continue;
+			}
+			restricted[i] = true;
+			any = true;
+
+			for (String language : scope.getLanguages()) {
+				String key = language.toLowerCase(Locale.ROOT);
+				if (!DefaultScoringContext.isDetectable(key)) {
+					String msg = "Language %s of scorer %s is never detected, use a path pattern instead";
+					String originator = scorers.get(i).getDefinition().getScoreOriginator().getValue();
+					log.warn(String.format(msg, language, originator));
+				}
+				byLanguage.computeIfAbsent(key, __ -> new ArrayList<>()).add(i);
+			}
+
+			for (String pattern : scope.getPathPatterns()) {
+				Matcher extension = EXTENSION_PATTERN.matcher(pattern);
+				if (extension.matches()) {
+					byExtension.computeIfAbsent(extension.group(1), __ -> new ArrayList<>()).add(i);
+				} else {
+					globRoutes.add(new GlobRoute(pattern, i));
+				}
+			}
+		}
+
+		this.anyRestricted = any;
+		this.scorersByLanguage = toArrays(byLanguage);
+		this.scorersByExtension = toArrays(byExtension);
+	}
+
+	/**
+	 * 
+	 * @return whether any scorer has a restricted scope
+	 */
+	boolean isRestricted() {
+		return anyRestricted;
+	}
+
+	/**
+	 * 
+	 * @param context
+	 *            must not be {@code null}
+	 * @return per scorer, in the order given on construction, the context to
+	 *         score with: given context if the scorer's scope contains all
+	 *         items of its contribution, a context of a view of the
+	 *         contribution holding the items in scope, or {@code null} if no
+	 *         item is in scope. Scorers with equal items in scope share the
+	 *         same context.
+	 */
+	ScoringContext[] route(ScoringContext context) {
+		Objects.requireNonNull(context, "context");
+
+		ScoringContext[] result = new ScoringContext[scorerCount];
+		if (!anyRestricted) {
+			Arrays.fill(result, context);
+			return result;
+		}
+
+		Contribution contribution = context.getContribution();
+		List<ContributionItem> items = new ArrayList<>(contribution.getContributionItems());
+		BitSet[] inScope = new BitSet[scorerCount];
+
+		for (int k = 0; k < items.size(); k++) {
+			ContributionItem item = items.get(k);
+			String path = item.getPath();
+			String name = path.substring(path.lastIndexOf('/') + 1);
+
+			Optional<String> language = context.getLanguage(item);
+			if (language.isPresent()) {
+				mark(inScope, scorersByLanguage.get(language.get()), k);
+			}
+
+			int dot = name.lastIndexOf('.');
+			if (dot >= 0) {
+				mark(inScope, scorersByExtension.get(name.substring(dot + 1)), k);
+			}
+
+			for (GlobRoute route : globRoutes) {
+				BitSet marked = inScope[route.scorer];
+				if ((marked == null || !marked.get(k)) && route.matches(path)) {
+					mark(inScope, new int[] { route.scorer }, k);
+				}
+			}
+		}
+
+		Map<BitSet, ScoringContext> views = new HashMap<>();
+		for (int i = 0; i < scorerCount; i++) {
+			BitSet marked = inScope[i];
+			if (!restricted[i] || marked != null && marked.cardinality() == items.size()) {
+				result[i] = context;
+			} else if (marked != null) {
+				result[i] = views.computeIfAbsent(marked, __ -> new ScopedScoringContext(context, items, marked));
+			}
+		}
+
+		return result;
+	}
+
+	private static void mark(BitSet[] inScope, int[] scorers, int item) {
+		if (scorers == null) {
+			return;
+		}
+		for (int scorer : scorers) {
+			if (inScope[scorer] == null) {
+				inScope[scorer] = new BitSet();
+			}
+			inScope[scorer].set(item);
+		}
+	}
+
+	private static Map<String, int[]> toArrays(Map<String, List<Integer>> scorers) {
+		Map<String, int[]> result = new HashMap<>();
+		scorers.forEach((key, indices) -> result.put(key, indices.stream().mapToInt(Integer::intValue).toArray()));
+		return result;
+	}
+
+	private static class GlobRoute {
+		private final PathGlob glob;
+		private final int scorer;
+
+		GlobRoute(String pattern, int scorer) {
+			this.glob = PathGlob.compile(pattern);
+			this.scorer = scorer;
+		}
+
+		boolean matches(String path) {
+			return glob.matches(path);
+		}
+	}
+
+	/**
+	 * Scores a view of a contribution holding a subset of its items. Derived
+	 * values are shared with the context of the whole contribution, values
+	 * memoized by scorers are kept per subset as they may depend on all items
+	 * of the view.
+	 */
+	private static class ScopedScoringContext implements ScoringContext {
+		private final ScoringContext context;
+		private final Contribution view;
+		private final BitSet items;
+
+		ScopedScoringContext(ScoringContext context, List<ContributionItem> items, BitSet inScope) {
+			this.context = context;
+			this.items = inScope;
+
+			Contribution contribution = context.getContribution();
+			DefaultContribution.Builder builder = DefaultContribution
+					.newBuilder(contribution.getId(), contribution.getProject(), contribution.getContributor(),
+							contribution.getContributionTime())
+					.setMessage(contribution.getMessage().orElse(null));
+			for (int k = inScope.nextSetBit(0); k >= 0; k = inScope.nextSetBit(k + 1)) {
+				builder.addContributionItem(items.get(k));
+			}
+			this.view = builder.build();
+		}
+
+		@Override
+		public Contribution getContribution() {
+			return view;
+		}
+
+		@Override
+		public ContentDiff getDiff(ContributionItem contributionItem) {
+			return context.getDiff(contributionItem);
+		}
+
+		@Override
+		public List<String> getLines(ContributionItem contributionItem) {
+			return context.getLines(contributionItem);
+		}
+
+		@Override
+		public Optional<String> getLanguage(ContributionItem contributionItem) {
+			return context.getLanguage(contributionItem);
+		}
+
+		@Override
+		public <T> T memoize(Object key, Supplier<T> value) {
+			Objects.requireNonNull(key, "key");
+
+			return context.memoize(Arrays.asList(items, key), value);
+		}
+	}
+
+}
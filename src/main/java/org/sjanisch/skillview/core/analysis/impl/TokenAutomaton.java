@@ -0,0 +1,176 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.analysis.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An Aho-Corasick automaton that counts the occurrences of a fixed set of
+ * tokens in a single pass over a text.
+ * <p>
+ * Characters are mapped to classes first, one per distinct character of the
+ * tokens plus one for all other characters, so that the transitions of all
+ * states fit in one dense table. Failure transitions are resolved when the
+ * automaton is built, hence each character of the text costs exactly one
+ * table lookup.
+ * <p>
+ * Occurrences may overlap, e.g. {@code aa} occurs twice in {@code aaa}.
+ * <p>
+ * This class is immutable and thread-safe.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+final class TokenAutomaton {
+
+	private static final int ROOT = 0;
+
+	private final int tokenCount;
+	private final char[] classes;
+	private final int classCount;
+	private final int[] transitions;
+	private final int[][] matches;
+
+	private TokenAutomaton(int tokenCount, char[] classes, int classCount, int[] transitions, int[][] matches) {
+		this.tokenCount = tokenCount;
+		this.classes = classes;
+		this.classCount = classCount;
+		this.transitions = transitions;
+		this.matches = matches;
+	}
+
+	/**
+	 * 
+	 * @param tokens
+	 *            must not be {@code null} and must not contain {@code null}
+	 *            or empty tokens
+	 * @return never {@code null}
+	 */
+	static TokenAutomaton of(List<String> tokens) {
+		Objects.requireNonNull(tokens, "tokens");
+
+		char[] classes = new char[Character.MAX_VALUE + 1];
+		int classCount = 1;
+		for (String token : tokens) {
+			if (token == null || token.isEmpty()) {
+				throw new IllegalArgumentException("tokens must not be null or empty: " + tokens);
+			}
+			for (int i = 0; i < token.length(); i++) {
+				char c = token.charAt(i);
+				if (classes[c] == 0) {
+					classes[c] = (char) classCount++;
+				}
+			}
+		}
+
+		// trie
+		List<int[]> trie = new ArrayList<>();
+		List<List<Integer>> outputs = new ArrayList<>();
+		trie.add(new int[classCount]);
+		outputs.add(new ArrayList<>());
+		for (int t = 0; t < tokens.size(); t++) {
+			String token = tokens.get(t);
+			int state = ROOT;
+			for (int i = 0; i < token.length(); i++) {
+				int c = classes[token.charAt(i)];
+				if (trie.get(state)[c] == 0) {
+					trie.get(state)[c] = trie.size();
+					trie.add(new int[classCount]);
+					outputs.add(new ArrayList<>());
+				}
+				state = trie.get(state)[c];
+			}
+			outputs.get(state).add(t);
+		}
+
+		// breadth first resolution of failure transitions
+		int states = trie.size();
+		int[] transitions = new int[states * classCount];
+		int[] failure = new int[states];
+		int[] queue = new int[states];
+		int head = 0;
+		int tail = 0;
+		for (int c = 0; c < classCount; c++) {
+			int next = trie.get(ROOT)[c];
+			transitions[ROOT * classCount + c] = next;
+			if (next != ROOT) {
+				failure[next] = ROOT;
+				queue[tail++] = next;
+			}
+		}
+		while (head < tail) {
+			int state = queue[head++];
+			outputs.get(state).addAll(outputs.get(failure[state]));
+			for (int c = 0; c < classCount; c++) {
+				int next = trie.get(state)[c];
+				if (next == 0) {
+					transitions[state * classCount + c] = transitions[failure[state] * classCount + c];
+				} else {
+					transitions[state * classCount + c] = next;
+					failure[next] = transitions[failure[state] * classCount + c];
+					queue[tail++] = next;
+				}
+			}
+		}
+
+		int[][] matches = new int[states][];
+		for (int state = 0; state < states; state++) {
+			matches[state] = outputs.get(state).stream().mapToInt(Integer::intValue).toArray();
+		}
+
+		return new TokenAutomaton(tokens.size(), classes, classCount, transitions, matches);
+	}
+
+	/**
+	 * 
+	 * @return the number of tokens of this automaton
+	 */
+	int getTokenCount() {
+		return tokenCount;
+	}
+
+	/**
+	 * Adds the occurrences of each token in given text to given counts.
+	 * 
+	 * @param text
+	 *            must not be {@code null}
+	 * @param counts
+	 *            indexed like the tokens this automaton was built of. Must
+	 *            not be {@code null}.
+	 */
+	void count(CharSequence text, int[] counts) {
+		int state = ROOT;
+		int length = text.length();
+		for (int i = 0; i < length; i++) {
+			state = transitions[state * classCount + classes[text.charAt(i)]];
+			int[] matched = matches[state];
+			for (int m = 0; m < matched.length; m++) {
+				counts[matched[m]]++;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,194 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.analysis.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalDouble;
+
+import org.sjanisch.skillview.core.analysis.api.ContributionScorer;
+import org.sjanisch.skillview.core.analysis.api.ContributionScorerDefinition;
+import org.sjanisch.skillview.core.analysis.api.ScoreOriginator;
+import org.sjanisch.skillview.core.analysis.api.ScoringContext;
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionItem;
+import org.sjanisch.skillview.core.diff.impl.MyersContentDiffService;
+
+/**
+ * Creates {@link ContributionScorer scorers} that count the occurrences of
+ * tokens in the touched content of a contribution, e.g. {@code .stream()} and
+ * {@code .collect(} for {@link SkillTags#JAVA8_STREAMS}.
+ * <p>
+ * The tokens of all scorers built together are compiled into one automaton.
+ * The touched content of a contribution is scanned once for all of them, the
+ * counts are shared through the {@link ScoringContext} and each scorer sums
+ * the counts of its own tokens. Scoring a contribution with {@code N} token
+ * scorers therefore costs one scan instead of {@code N}.
+ * <p>
+ * A scorer's score is the number of occurrences of its tokens, or absent if
+ * none of them occur. Tokens are matched case-sensitively, may overlap and
+ * must not contain line breaks, so each occurrence lies within one touched
+ * line.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class TokenCountScorers {
+
+	public static final class Builder {
+		private final Map<ScoreOriginator, ContributionScorerDefinition> definitions = new LinkedHashMap<>();
+		private final Map<ScoreOriginator, List<String>> tokens = new LinkedHashMap<>();
+
+		private Builder() {
+		}
+
+		/**
+		 * 
+		 * @param definition
+		 *            must not be {@code null}. Its score originator must not
+		 *            have been added before.
+		 * @param tokens
+		 *            the tokens to count. Must not be {@code null} or empty,
+		 *            must not contain {@code null} or empty tokens and tokens
+		 *            must not contain line breaks.
+		 * @return this instance. Never {@code null}.
+		 */
+		public Builder addScorer(ContributionScorerDefinition definition, Collection<String> tokens) {
+			Objects.requireNonNull(definition, "definition");
+			Objects.requireNonNull(tokens, "tokens");
+
+			ScoreOriginator originator = definition.getScoreOriginator();
+			if (this.definitions.containsKey(originator)) {
+				throw new IllegalArgumentException("duplicate score originator " + originator);
+			}
+			if (tokens.isEmpty()) {
+				throw new IllegalArgumentException("no tokens for " + originator);
+			}
+			for (String token : tokens) {
+				if (token == null || token.isEmpty() || token.indexOf('\n') >= 0 || token.indexOf('\r') >= 0) {
+					String msg = "tokens must be non empty single line strings: %s %s";
+					throw new IllegalArgumentException(String.format(msg, originator, tokens));
+				}
+			}
+
+			this.definitions.put(originator, definition);
+			this.tokens.put(originator, new ArrayList<>(tokens));
+			return this;
+		}
+
+		/**
+		 * 
+		 * @return a collection (possibly unmodifiable) of one scorer per added
+		 *         definition, sharing one automaton. Never {@code null}.
+		 */
+		public Collection<ContributionScorer> build() {
+			// equal tokens of different scorers are scanned for once
+			Map<String, Integer> indices = new LinkedHashMap<>();
+			Map<ScoreOriginator, int[]> tokenIndices = new LinkedHashMap<>();
+			for (Map.Entry<ScoreOriginator, List<String>> entry : tokens.entrySet()) {
+				int[] own = entry.getValue().stream().distinct()
+						.mapToInt(token -> indices.computeIfAbsent(token, __ -> indices.size())).toArray();
+				tokenIndices.put(entry.getKey(), own);
+			}
+
+			TokenAutomaton automaton = TokenAutomaton.of(new ArrayList<>(indices.keySet()));
+
+			List<ContributionScorer> result = new ArrayList<>();
+			for (Map.Entry<ScoreOriginator, ContributionScorerDefinition> entry : definitions.entrySet()) {
+				result.add(new TokenCountScorer(entry.getValue(), automaton, tokenIndices.get(entry.getKey())));
+			}
+			return Collections.unmodifiableList(result);
+		}
+	}
+
+	private TokenCountScorers() {
+		throw new UnsupportedOperationException("no instances");
+	}
+
+	/**
+	 * 
+	 * @return new builder. Never {@code null}.
+	 */
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	private static class TokenCountScorer implements ContributionScorer {
+		private final ContributionScorerDefinition definition;
+		private final TokenAutomaton automaton;
+		private final int[] tokenIndices;
+
+		TokenCountScorer(ContributionScorerDefinition definition, TokenAutomaton automaton, int[] tokenIndices) {
+			this.definition = definition;
+			this.automaton = automaton;
+			this.tokenIndices = tokenIndices;
+		}
+
+		@Override
+		public OptionalDouble score(Contribution contribution) {
+			Objects.requireNonNull(contribution, "contribution");
+
+			return score(new DefaultScoringContext(contribution, new MyersContentDiffService()));
+		}
+
+		@Override
+		public OptionalDouble score(ScoringContext context) {
+			Objects.requireNonNull(context, "context");
+
+			// the automaton is the key so that all scorers built together
+			// share the scan
+			int[] counts = context.memoize(automaton, () -> count(context));
+
+			long result = 0;
+			for (int index : tokenIndices) {
+				result += counts[index];
+			}
+			return result == 0 ? OptionalDouble.empty() : OptionalDouble.of(result);
+		}
+
+		private int[] count(ScoringContext context) {
+			int[] counts = new int[automaton.getTokenCount()];
+			for (ContributionItem item : context.getContribution().getContributionItems()) {
+				context.getDiff(item).streamTouchedContent().forEach(chunk -> automaton.count(chunk, counts));
+			}
+			return counts;
+		}
+
+		@Override
+		public ContributionScorerDefinition getDefinition() {
+			return definition;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s[%s]", getClass().getSimpleName(), definition);
+		}
+	}
+
+}
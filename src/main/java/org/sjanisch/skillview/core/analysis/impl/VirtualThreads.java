@@ -0,0 +1,107 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.analysis.impl;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Gives access to virtual threads on JVMs that offer them (Java 21 and
+ * later) while this library is compiled for Java 8.
+ * <p>
+ * The factory of virtual thread executors is looked up once, reflectively.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+final class VirtualThreads {
+
+	private static final MethodHandle NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = lookup();
+
+	private VirtualThreads() {
+		throw new UnsupportedOperationException("no instances");
+	}
+
+	/**
+	 * 
+	 * @return whether the running JVM offers virtual threads
+	 */
+	static boolean isSupported() {
+		return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+	}
+
+	/**
+	 * Creates an executor that runs each task on a new virtual thread, with at
+	 * most {@code maxConcurrency} tasks running at a time. Further tasks get
+	 * their virtual thread right away but wait for a permit before they run,
+	 * which costs no platform thread.
+	 * 
+	 * @param maxConcurrency
+	 *            must be positive
+	 * @return never {@code null}
+	 * @throws UnsupportedOperationException
+	 *             if the running JVM does not offer virtual threads
+	 */
+	static Executor newExecutor(int maxConcurrency) {
+		if (maxConcurrency <= 0) {
+			throw new IllegalArgumentException("max concurrency must be positive: " + maxConcurrency);
+		}
+		if (!isSupported()) {
+			String msg = "virtual threads require Java 21 or later, running on %s";
+			throw new UnsupportedOperationException(String.format(msg, System.getProperty("java.version")));
+		}
+
+		ExecutorService virtualThreads;
+		try {
+			virtualThreads = (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invokeExact();
+		} catch (Throwable e) {
+			throw new IllegalStateException("could not create virtual thread executor", e);
+		}
+
+		Semaphore permits = new Semaphore(maxConcurrency);
+		return task -> virtualThreads.execute(() -> {
+			permits.acquireUninterruptibly();
+			try {
+				task.run();
+			} finally {
+				permits.release();
+			}
+		});
+	}
+
+	private static MethodHandle lookup() {
+		try {
+			return MethodHandles.publicLookup().findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+					MethodType.methodType(ExecutorService.class));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			return null;
+		}
+	}
+
+}
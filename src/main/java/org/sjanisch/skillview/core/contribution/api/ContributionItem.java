@@ -9,7 +9,10 @@ import java.util.Objects;
  * <p>
  * {@link #hashCode()} and {@link #equals(Object)} are not be implemented.
  * <p>
- * Implementors must retain thread-safety and immutability.
+ * Implementors must retain thread-safety. The path, contents and content
+ * sizes of an item must not change, but implementations may load contents
+ * lazily and drop cached contents on {@link #releaseContent()}, loading equal
+ * contents again on the next access.
  * 
  * @author sebastianjanisch
  *
@@ -35,6 +38,40 @@ public interface ContributionItem {
 	 */
 	String getPreviousContent();
 
+	/**
+	 * Gives the size of {@link #getContent()} without necessarily loading it,
+	 * which allows to skip huge contents.
+	 * <p>
+	 * The default implementation returns the length of the content.
+	 * Implementations that load their content lazily may return an estimate,
+	 * such as the encoded size in bytes.
+	 * 
+	 * @return the number of characters of the content or an estimate thereof.
+	 */
+	default long getContentSize() {
+		return getContent().length();
+	}
+
+	/**
+	 * Same as {@link #getContentSize()} for {@link #getPreviousContent()}.
+	 * 
+	 * @return the number of characters of the previous content or an estimate
+	 *         thereof.
+	 */
+	default long getPreviousContentSize() {
+		return getPreviousContent().length();
+	}
+
+	/**
+	 * Signals that the content of this item is not needed for now.
+	 * Implementations that load their content lazily may drop it and load it
+	 * again on the next access.
+	 * <p>
+	 * The default implementation does nothing.
+	 */
+	default void releaseContent() {
+	}
+
 	/**
 	 * Must all be non {@code null}.
 	 * 
@@ -37,6 +37,10 @@ public class ContributionRetrievalException extends RuntimeException {
 	 */
 	private static final long serialVersionUID = 1L;
 
+	public ContributionRetrievalException(String message) {
+		super(message);
+	}
+
 	public ContributionRetrievalException(String message, Throwable cause) {
 		super(message, cause);
 	}
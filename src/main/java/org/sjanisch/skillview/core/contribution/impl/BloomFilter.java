@@ -0,0 +1,124 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.contribution.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.sjanisch.skillview.core.utility.Hash128;
+
+/**
+ * A fixed size, lock-free bloom filter over {@link Hash128} values using
+ * double hashing to derive the bit positions.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author sebastianjanisch
+ *
+ */
+class BloomFilter {
+
+	private static final long MAX_BITS = 64L * Integer.MAX_VALUE;
+
+	private final AtomicLongArray words;
+	private final long bits;
+	private final int hashFunctions;
+	private final AtomicLong setBits = new AtomicLong();
+
+	private BloomFilter(long bits, int hashFunctions) {
+		this.bits = bits;
+		this.hashFunctions = hashFunctions;
+		this.words = new AtomicLongArray((int) ((bits + 63) / 64));
+	}
+
+	/**
+	 *
+	 * @param expectedInsertions
+	 *            must be positive
+	 * @param falsePositiveProbability
+	 *            must be in {@code (0, 1)}
+	 * @return a filter sized for given parameters. Never {@code null}.
+	 */
+	static BloomFilter create(long expectedInsertions, double falsePositiveProbability) {
+		if (expectedInsertions <= 0) {
+			throw new IllegalArgumentException("expected insertions must be positive: " + expectedInsertions);
+		}
+		if (!(falsePositiveProbability > 0.0 && falsePositiveProbability < 1.0)) {
+			String msg = "false positive probability must be in (0, 1): %s";
+			throw new IllegalArgumentException(String.format(msg, falsePositiveProbability));
+		}
+
+		double ln2 = Math.log(2);
+		long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveProbability) / (ln2 * ln2));
+		bits = Math.max(64, Math.min(MAX_BITS, bits));
+		int hashFunctions = (int) Math.max(1, Math.round((double) bits / expectedInsertions * ln2));
+
+		return new BloomFilter(bits, hashFunctions);
+	}
+
+	/**
+	 *
+	 * @param hash
+	 *            must not be {@code null}
+	 * @return {@code true} if given hash has definitely not been put before,
+	 *         {@code false} if it might have been put before.
+	 */
+	boolean put(Hash128 hash) {
+		boolean changed = false;
+		long combined = hash.getHigh();
+		for (int i = 0; i < hashFunctions; i++) {
+			long index = Long.remainderUnsigned(combined, bits);
+			if (setBit(index)) {
+				changed = true;
+			}
+			combined += hash.getLow();
+		}
+		return changed;
+	}
+
+	/**
+	 *
+	 * @return the probability that {@link #put(Hash128)} reports an unseen
+	 *         hash as possibly seen, estimated from the current fill ratio.
+	 */
+	double getFalsePositiveProbability() {
+		return Math.pow((double) setBits.get() / bits, hashFunctions);
+	}
+
+	private boolean setBit(long index) {
+		int word = (int) (index >>> 6);
+		long mask = 1L << (index & 63);
+		while (true) {
+			long current = words.get(word);
+			if ((current & mask) != 0) {
+				return false;
+			}
+			if (words.compareAndSet(word, current, current | mask)) {
+				setBits.incrementAndGet();
+				return true;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,438 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.contribution.impl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionRetrievalException;
+import org.sjanisch.skillview.core.contribution.api.ContributionService;
+
+/**
+ * Holds multiple {@link ContributionService} instances and combines their
+ * output by opening all sources at once.
+ * <p>
+ * Each source is drained on its own task of the given {@link Executor} into a
+ * bounded queue that is shared by all sources. The returned stream consumes
+ * from that queue, hence a slow source does not stall the other sources. The
+ * contributions of each source keep their relative order, the order across
+ * sources is not defined.
+ * <p>
+ * A source whose task the executor runs on the calling thread, as a direct
+ * or caller-runs executor does, is not drained into the queue, as nobody
+ * would consume the queue yet. It is read on the consuming thread instead
+ * whenever the queue is empty.
+ * <p>
+ * Closing the returned stream stops all workers and closes the streams of the
+ * underlying sources.
+ * <p>
+ * This implementation is immutable and thread-safe.
+ *
+ * @author sebastianjanisch
+ *
+ */
+public class ConcurrentMultiContributionService implements ContributionService {
+
+	private static final long OFFER_TIMEOUT_MILLIS = 50;
+
+	/**
+	 * Snapshot of the retrieval statistics of a single source. Values are
+	 * accumulated over all retrievals of the owning service.
+	 * <p>
+	 * This class is immutable and thread-safe.
+	 */
+	public static final class SourceStatistics {
+		private final long retrieved;
+		private final long inFlight;
+		private final Duration blockedTime;
+
+		private SourceStatistics(long retrieved, long inFlight, Duration blockedTime) {
+			this.retrieved = retrieved;
+			this.inFlight = inFlight;
+			this.blockedTime = blockedTime;
+		}
+
+		/**
+		 *
+		 * @return number of contributions this source has handed to the merge
+		 *         queue.
+		 */
+		public long getRetrieved() {
+			return retrieved;
+		}
+
+		/**
+		 *
+		 * @return number of contributions of this source that are waiting in
+		 *         the merge queue or are about to be put into it.
+		 */
+		public long getInFlight() {
+			return inFlight;
+		}
+
+		/**
+		 *
+		 * @return the time this source spent waiting for space in the merge
+		 *         queue, including a currently ongoing wait. Never {@code null}.
+		 */
+		public Duration getBlockedTime() {
+			return blockedTime;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s[%s:%s:%s]", getClass().getSimpleName(), retrieved, inFlight, blockedTime);
+		}
+	}
+
+	private final List<ContributionService> services;
+	private final List<SourceCounters> counters;
+	private final Executor executor;
+	private final int queueCapacity;
+
+	/**
+	 *
+	 * @param services
+	 *            must not be {@code null}. Copy will be taken.
+	 * @param executor
+	 *            runs one draining task per source and retrieval. Must not be
+	 *            {@code null}.
+	 * @param queueCapacity
+	 *            the maximum number of contributions buffered across all
+	 *            sources. Must be positive.
+	 */
+	public ConcurrentMultiContributionService(Collection<ContributionService> services, Executor executor,
+			int queueCapacity) {
+		Objects.requireNonNull(services, "services");
+		this.executor = Objects.requireNonNull(executor, "executor");
+
+		if (queueCapacity <= 0) {
+			throw new IllegalArgumentException("queue capacity must be positive: " + queueCapacity);
+		}
+
+		this.services = Collections.unmodifiableList(new ArrayList<>(services));
+		this.counters = Collections.unmodifiableList(
+				this.services.stream().map(__ -> new SourceCounters()).collect(Collectors.toList()));
+		this.queueCapacity = queueCapacity;
+	}
+
+	@Override
+	public Stream<Contribution> retrieveContributions(Instant startExclusive, Instant endInclusive) {
+		Objects.requireNonNull(startExclusive, "startExclusive");
+		Objects.requireNonNull(endInclusive, "endInclusive");
+
+		BlockingQueue<Signal> queue = new ArrayBlockingQueue<>(queueCapacity);
+		AtomicBoolean closed = new AtomicBoolean();
+		Thread caller = Thread.currentThread();
+		List<Integer> inline = new ArrayList<>();
+
+		for (int source = 0; source < services.size(); source++) {
+			int index = source;
+			try {
+				executor.execute(() -> {
+					if (Thread.currentThread() == caller) {
+						// draining here would block on the full queue before
+						// the consumer exists
+						inline.add(index);
+						return;
+					}
+					drain(index, startExclusive, endInclusive, queue, closed);
+				});
+			} catch (RejectedExecutionException e) {
+				close(queue, closed);
+				throw new ContributionRetrievalException("could not start retrieval for source " + index, e);
+			}
+		}
+
+		MergingSpliterator merged = new MergingSpliterator(queue, closed, services.size() - inline.size(), inline,
+				startExclusive, endInclusive);
+
+		return StreamSupport.stream(merged, false).onClose(() -> {
+			close(queue, closed);
+			merged.closeInline();
+		});
+	}
+
+	/**
+	 *
+	 * @return statistics for each source in the order the sources were given
+	 *         to this instance. Never {@code null}.
+	 */
+	public List<SourceStatistics> getSourceStatistics() {
+		return Collections.unmodifiableList(counters.stream().map(SourceCounters::snapshot).collect(Collectors.toList()));
+	}
+
+	private void drain(int source, Instant startExclusive, Instant endInclusive, BlockingQueue<Signal> queue,
+			AtomicBoolean closed) {
+		ContributionService service = services.get(source);
+		SourceCounters sourceCounters = counters.get(source);
+
+		try (Stream<Contribution> contributions = service.retrieveContributions(startExclusive, endInclusive)) {
+			Iterator<Contribution> iterator = contributions.iterator();
+			while (!closed.get() && iterator.hasNext()) {
+				Contribution contribution = iterator.next();
+				sourceCounters.inFlight.incrementAndGet();
+				if (!put(queue, Signal.contribution(source, contribution), closed, sourceCounters)) {
+					sourceCounters.inFlight.decrementAndGet();
+					return;
+				}
+				sourceCounters.retrieved.incrementAndGet();
+				if (closed.get()) {
+					// the merge might have been closed after draining the queue
+					// but before this contribution was put
+					close(queue, closed);
+					return;
+				}
+			}
+		} catch (RuntimeException e) {
+			put(queue, Signal.failure(source, e), closed, sourceCounters);
+			return;
+		}
+
+		put(queue, Signal.done(source), closed, sourceCounters);
+	}
+
+	private static boolean put(BlockingQueue<Signal> queue, Signal signal, AtomicBoolean closed,
+			SourceCounters sourceCounters) {
+		if (queue.offer(signal)) {
+			return true;
+		}
+
+		boolean interrupted = false;
+		long blockedSince = System.nanoTime();
+		sourceCounters.blockedSince.set(blockedSince);
+		try {
+			while (!closed.get()) {
+				try {
+					if (queue.offer(signal, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+						return true;
+					}
+				} catch (InterruptedException e) {
+					// the consumer relies on a final signal per source, hence
+					// keep trying until the merge is closed
+					interrupted = true;
+				}
+			}
+			return false;
+		} finally {
+			sourceCounters.blockedSince.set(0);
+			sourceCounters.blockedNanos.addAndGet(System.nanoTime() - blockedSince);
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private void close(BlockingQueue<Signal> queue, AtomicBoolean closed) {
+		closed.set(true);
+
+		List<Signal> pending = new ArrayList<>();
+		queue.drainTo(pending);
+		for (Signal signal : pending) {
+			if (signal.contribution != null) {
+				counters.get(signal.source).inFlight.decrementAndGet();
+			}
+		}
+	}
+
+	private class MergingSpliterator extends Spliterators.AbstractSpliterator<Contribution> {
+
+		private final BlockingQueue<Signal> queue;
+		private final AtomicBoolean closed;
+		private final Deque<InlineSource> inlineSources = new ArrayDeque<>();
+		private int openSources;
+
+		MergingSpliterator(BlockingQueue<Signal> queue, AtomicBoolean closed, int drainedSources,
+				List<Integer> inline, Instant startExclusive, Instant endInclusive) {
+			super(Long.MAX_VALUE, Spliterator.NONNULL);
+			this.queue = queue;
+			this.closed = closed;
+			this.openSources = drainedSources;
+			for (int source : inline) {
+				inlineSources.add(new InlineSource(source, startExclusive, endInclusive));
+			}
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super Contribution> action) {
+			while (openSources > 0 || !inlineSources.isEmpty()) {
+				Signal signal = inlineSources.isEmpty() ? take() : queue.poll();
+
+				if (signal == null) {
+					Contribution contribution = nextInline();
+					if (contribution != null) {
+						action.accept(contribution);
+						return true;
+					}
+					continue;
+				}
+
+				if (signal.contribution != null) {
+					counters.get(signal.source).inFlight.decrementAndGet();
+					action.accept(signal.contribution);
+					return true;
+				}
+
+				if (signal.failure != null) {
+					close(queue, closed);
+					throw new ContributionRetrievalException("retrieval failed for source " + signal.source,
+							signal.failure);
+				}
+
+				openSources--;
+			}
+			return false;
+		}
+
+		/**
+		 * @return the next contribution of the first inline source, or
+		 *         {@code null} if that source is exhausted and was removed.
+		 */
+		private Contribution nextInline() {
+			InlineSource source = inlineSources.peekFirst();
+			try {
+				Iterator<Contribution> iterator = source.open();
+				if (iterator.hasNext()) {
+					Contribution contribution = iterator.next();
+					counters.get(source.index).retrieved.incrementAndGet();
+					return contribution;
+				}
+			} catch (RuntimeException e) {
+				close(queue, closed);
+				closeInline();
+				throw new ContributionRetrievalException("retrieval failed for source " + source.index, e);
+			}
+			inlineSources.removeFirst().close();
+			return null;
+		}
+
+		void closeInline() {
+			while (!inlineSources.isEmpty()) {
+				inlineSources.removeFirst().close();
+			}
+		}
+
+		private Signal take() {
+			try {
+				return queue.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				close(queue, closed);
+				throw new ContributionRetrievalException("interrupted while waiting for contributions", e);
+			}
+		}
+	}
+
+	/**
+	 * A source read on the consuming thread, opened on first use.
+	 */
+	private class InlineSource {
+		private final int index;
+		private final Instant startExclusive;
+		private final Instant endInclusive;
+		private Stream<Contribution> contributions;
+		private Iterator<Contribution> iterator;
+
+		InlineSource(int index, Instant startExclusive, Instant endInclusive) {
+			this.index = index;
+			this.startExclusive = startExclusive;
+			this.endInclusive = endInclusive;
+		}
+
+		Iterator<Contribution> open() {
+			if (iterator == null) {
+				contributions = services.get(index).retrieveContributions(startExclusive, endInclusive);
+				iterator = contributions.iterator();
+			}
+			return iterator;
+		}
+
+		void close() {
+			if (contributions != null) {
+				contributions.close();
+			}
+		}
+	}
+
+	private static class SourceCounters {
+		private final AtomicLong retrieved = new AtomicLong();
+		private final AtomicLong inFlight = new AtomicLong();
+		private final AtomicLong blockedNanos = new AtomicLong();
+		private final AtomicLong blockedSince = new AtomicLong();
+
+		SourceStatistics snapshot() {
+			long since = blockedSince.get();
+			long ongoing = since == 0 ? 0 : Math.max(0, System.nanoTime() - since);
+			Duration blockedTime = Duration.ofNanos(blockedNanos.get() + ongoing);
+			return new SourceStatistics(retrieved.get(), inFlight.get(), blockedTime);
+		}
+	}
+
+	private static class Signal {
+		private final int source;
+		private final Contribution contribution;
+		private final RuntimeException failure;
+
+		private Signal(int source, Contribution contribution, RuntimeException failure) {
+			this.source = source;
+			this.contribution = contribution;
+			this.failure = failure;
+		}
+
+		static Signal contribution(int source, Contribution contribution) {
+			return new Signal(source, contribution, null);
+		}
+
+		static Signal failure(int source, RuntimeException failure) {
+			return new Signal(source, null, failure);
+		}
+
+		static Signal done(int source) {
+			return new Signal(source, null, null);
+		}
+	}
+
+}
@@ -0,0 +1,283 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.contribution.impl;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.sjanisch.skillview.core.utility.Hash128;
+import org.sjanisch.skillview.core.utility.Hashing;
+
+/**
+ * A content addressed store that keeps each distinct file content once.
+ * <p>
+ * Contents are identified by a {@link Hash128 key} and all {@link ContentBlob
+ * blobs} acquired for the same key share one {@code String} instance, e.g. the
+ * content of one commit and the previous content of the next commit to the
+ * same file. Keys are either given by the caller, such as the object id of a
+ * git blob, or the {@link Hashing#murmur3(CharSequence) hash} of the content.
+ * <p>
+ * Blobs are reference counted: a content is evicted from the store once all
+ * of its blobs have been released. Released blobs keep their content
+ * accessible to their holders, the store merely stops handing out that
+ * instance. {@link LazyContributionItem#ofBlobs(String, Supplier, long, Supplier, long)
+ * Lazy items} acquire their blobs on first access and release them on
+ * {@link LazyContributionItem#releaseContent()}.
+ * <p>
+ * This implementation is thread-safe.
+ *
+ * @author sebastianjanisch
+ *
+ */
+public class ContentBlobStore {
+
+	/**
+	 * A reference to a content, possibly held by a {@link ContentBlobStore}.
+	 * <p>
+	 * This class is thread-safe.
+	 */
+	public static final class ContentBlob {
+		private final ContentBlobStore store;
+		private final Entry entry;
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		private ContentBlob(ContentBlobStore store, Entry entry) {
+			this.store = store;
+			this.entry = entry;
+		}
+
+		/**
+		 * 
+		 * @param content
+		 *            must not be {@code null}
+		 * @return a blob of given content that is not held by any store.
+		 *         Never {@code null}.
+		 */
+		public static ContentBlob unshared(String content) {
+			Objects.requireNonNull(content, "content");
+
+			return new ContentBlob(null, new Entry(null, content));
+		}
+
+		/**
+		 *
+		 * @return never {@code null}
+		 */
+		public String getContent() {
+			return entry.content;
+		}
+
+		/**
+		 * Gives up the reference of this blob. Subsequent invocations have no
+		 * effect.
+		 */
+		public void release() {
+			if (store != null && released.compareAndSet(false, true)) {
+				store.release(entry);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s[%s]", getClass().getSimpleName(), entry.key == null ? "unshared" : entry.key);
+		}
+	}
+
+	/**
+	 * Snapshot of the store's statistics.
+	 * <p>
+	 * This class is immutable and thread-safe.
+	 */
+	public static final class Statistics {
+		private final long blobs;
+		private final long residentCharacters;
+		private final long acquisitions;
+		private final long sharedAcquisitions;
+
+		private Statistics(long blobs, long residentCharacters, long acquisitions, long sharedAcquisitions) {
+			this.blobs = blobs;
+			this.residentCharacters = residentCharacters;
+			this.acquisitions = acquisitions;
+			this.sharedAcquisitions = sharedAcquisitions;
+		}
+
+		/**
+		 *
+		 * @return number of distinct contents currently held.
+		 */
+		public long getBlobs() {
+			return blobs;
+		}
+
+		/**
+		 *
+		 * @return number of characters of all contents currently held.
+		 */
+		public long getResidentCharacters() {
+			return residentCharacters;
+		}
+
+		/**
+		 *
+		 * @return number of all acquired blobs.
+		 */
+		public long getAcquisitions() {
+			return acquisitions;
+		}
+
+		/**
+		 *
+		 * @return number of acquired blobs that were served from an already
+		 *         held content.
+		 */
+		public long getSharedAcquisitions() {
+			return sharedAcquisitions;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s[%s:%s:%s:%s]", getClass().getSimpleName(), blobs, residentCharacters,
+					acquisitions, sharedAcquisitions);
+		}
+	}
+
+	private final ConcurrentHashMap<Hash128, Entry> entries = new ConcurrentHashMap<>();
+	private final AtomicLong residentCharacters = new AtomicLong();
+	private final AtomicLong acquisitions = new AtomicLong();
+	private final AtomicLong sharedAcquisitions = new AtomicLong();
+
+	/**
+	 * Acquires the content identified by given key, loading it only if the
+	 * store does not hold it.
+	 * 
+	 * @param key
+	 *            must not be {@code null} and must identify the content, i.e.
+	 *            equal keys must denote equal contents.
+	 * @param loader
+	 *            must not be {@code null} and must not supply {@code null}
+	 * @return a blob referencing the stored content. Never {@code null}.
+	 */
+	public ContentBlob acquire(Hash128 key, Supplier<String> loader) {
+		Objects.requireNonNull(key, "key");
+		Objects.requireNonNull(loader, "loader");
+
+		Entry shared = share(key);
+		if (shared != null) {
+			return new ContentBlob(this, shared);
+		}
+
+		// loaded outside of the map's lock, a concurrent acquisition of the
+		// same key may win and is shared instead
+		String content = Objects.requireNonNull(loader.get(), "loaded content");
+		return new ContentBlob(this, store(key, content));
+	}
+
+	/**
+	 * Acquires the stored content equal to given content, keyed by its hash.
+	 * If the store holds a different content of the same hash, given content
+	 * is returned without being shared.
+	 *
+	 * @param content
+	 *            must not be {@code null}
+	 * @return a blob referencing the stored content equal to the given one.
+	 *         Never {@code null}.
+	 */
+	public ContentBlob acquire(String content) {
+		Objects.requireNonNull(content, "content");
+
+		Entry entry = store(Hashing.murmur3(content), content);
+		if (!entry.content.equals(content)) {
+			// hash collision, serve the content without sharing it
+			release(entry);
+			return ContentBlob.unshared(content);
+		}
+		return new ContentBlob(this, entry);
+	}
+
+	/**
+	 *
+	 * @return never {@code null}
+	 */
+	public Statistics getStatistics() {
+		return new Statistics(entries.size(), residentCharacters.get(), acquisitions.get(), sharedAcquisitions.get());
+	}
+
+	private Entry share(Hash128 key) {
+		// reference counts are only modified while holding the map's lock
+		// for the key, which keeps them consistent with the eviction
+		Entry result = entries.computeIfPresent(key, (k, existing) -> {
+			existing.references++;
+			return existing;
+		});
+		if (result != null) {
+			acquisitions.incrementAndGet();
+			sharedAcquisitions.incrementAndGet();
+		}
+		return result;
+	}
+
+	private Entry store(Hash128 key, String content) {
+		boolean[] shared = new boolean[1];
+		Entry result = entries.compute(key, (k, existing) -> {
+			if (existing == null) {
+				residentCharacters.addAndGet(content.length());
+				return new Entry(key, content);
+			}
+			existing.references++;
+			shared[0] = true;
+			return existing;
+		});
+
+		acquisitions.incrementAndGet();
+		if (shared[0]) {
+			sharedAcquisitions.incrementAndGet();
+		}
+		return result;
+	}
+
+	private void release(Entry entry) {
+		entries.computeIfPresent(entry.key, (key, existing) -> {
+			if (existing != entry || --existing.references > 0) {
+				return existing;
+			}
+			residentCharacters.addAndGet(-existing.content.length());
+			return null;
+		});
+	}
+
+	private static class Entry {
+		private final Hash128 key;
+		private final String content;
+		private int references = 1;
+
+		Entry(Hash128 key, String content) {
+			this.key = key;
+			this.content = content;
+		}
+	}
+
+}
@@ -0,0 +1,191 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.contribution.impl;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collection;
+
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionId;
+import org.sjanisch.skillview.core.contribution.api.ContributionItem;
+import org.sjanisch.skillview.core.contribution.api.ContributionRetrievalException;
+import org.sjanisch.skillview.core.contribution.api.Contributor;
+import org.sjanisch.skillview.core.contribution.api.Project;
+
+/**
+ * Binary encoding of {@link Contribution contributions}.
+ * <p>
+ * A record consists of id, project, contributor name and email, time, message
+ * and items. Strings are written as their UTF-8 length followed by the UTF-8
+ * bytes where a length of {@code -1} denotes {@code null}. Item contents are
+ * additionally prefixed by their length in characters, so that decoded items
+ * can report their size without decoding their content.
+ * <p>
+ * Decoded contributions hold {@link LazyContributionItem lazy items} that
+ * decode their content from the source buffer on access and share it through
+ * a {@link ContentBlobStore}.
+ *
+ * @author sebastianjanisch
+ *
+ */
+final class ContributionCodec {
+
+	private ContributionCodec() {
+		throw new UnsupportedOperationException("no instances");
+	}
+
+	/**
+	 *
+	 * @param contribution
+	 *            must not be {@code null}
+	 * @param out
+	 *            must not be {@code null}
+	 * @throws IOException
+	 *             if writing to given output fails
+	 */
+	static void write(Contribution contribution, DataOutput out) throws IOException {
+		writeString(contribution.getId().getValue(), out);
+		writeString(contribution.getProject().getValue(), out);
+		writeString(contribution.getContributor().getName(), out);
+		writeString(contribution.getContributor().getEmail().orElse(null), out);
+		out.writeLong(contribution.getContributionTime().getEpochSecond());
+		out.writeInt(contribution.getContributionTime().getNano());
+		writeString(contribution.getMessage().orElse(null), out);
+
+		Collection<ContributionItem> items = contribution.getContributionItems();
+		out.writeInt(items.size());
+		for (ContributionItem item : items) {
+			writeString(item.getPath(), out);
+			writeContent(item.getPreviousContent(), out);
+			writeContent(item.getContent(), out);
+		}
+	}
+
+	/**
+	 * Decodes the contribution at the position of given buffer and advances
+	 * the position to the next record.
+	 *
+	 * @param buffer
+	 *            must not be {@code null}. The buffer's content must not
+	 *            change while decoded contributions are in use.
+	 * @param contents
+	 *            shares decoded contents. Must not be {@code null}.
+	 * @return never {@code null}
+	 */
+	static Contribution read(ByteBuffer buffer, ContentBlobStore contents) {
+		try {
+			ContributionId id = ContributionId.of(readString(buffer));
+			Project project = Project.of(readString(buffer));
+			String name = readString(buffer);
+			String email = readString(buffer);
+			Instant time = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+			String message = readString(buffer);
+
+			DefaultContribution.Builder builder = DefaultContribution.newBuilder(id, project,
+					Contributor.of(name, email), time);
+			builder.setMessage(message);
+
+			int items = buffer.getInt();
+			for (int i = 0; i < items; i++) {
+				String path = readString(buffer);
+				LazyContent previousContent = readContent(buffer);
+				LazyContent content = readContent(buffer);
+				builder.addContributionItem(LazyContributionItem.ofBlobs(path,
+						() -> contents.acquire(previousContent.decode()), previousContent.characters,
+						() -> contents.acquire(content.decode()), content.characters));
+			}
+
+			return builder.build();
+		} catch (BufferUnderflowException | IllegalArgumentException | NullPointerException e) {
+			throw new ContributionRetrievalException("corrupt contribution record", e);
+		}
+	}
+
+	private static void writeString(String value, DataOutput out) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static void writeContent(String content, DataOutput out) throws IOException {
+		out.writeInt(content.length());
+		writeString(content, out);
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length < 0) {
+			return null;
+		}
+		String result = decode(buffer, buffer.position(), length);
+		buffer.position(buffer.position() + length);
+		return result;
+	}
+
+	private static LazyContent readContent(ByteBuffer buffer) {
+		int characters = buffer.getInt();
+		int length = buffer.getInt();
+		if (length < 0 || characters < 0) {
+			throw new IllegalArgumentException("content must not be null");
+		}
+		LazyContent result = new LazyContent(buffer, buffer.position(), length, characters);
+		buffer.position(buffer.position() + length);
+		return result;
+	}
+
+	private static String decode(ByteBuffer buffer, int position, int length) {
+		ByteBuffer slice = buffer.duplicate();
+		slice.limit(position + length);
+		slice.position(position);
+		return StandardCharsets.UTF_8.decode(slice).toString();
+	}
+
+	private static class LazyContent {
+		private final ByteBuffer buffer;
+		private final int position;
+		private final int length;
+		private final int characters;
+
+		LazyContent(ByteBuffer buffer, int position, int length, int characters) {
+			this.buffer = buffer;
+			this.position = position;
+			this.length = length;
+			this.characters = characters;
+		}
+
+		String decode() {
+			return ContributionCodec.decode(buffer, position, length);
+		}
+	}
+
+}
@@ -0,0 +1,358 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.contribution.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionRetrievalException;
+
+/**
+ * The format of an append-only contribution journal.
+ * <p>
+ * A journal starts with a magic number and a format version followed by
+ * records. A record consists of the length of its payload, its type, the id of
+ * the recorded retrieval it belongs to, the nanoseconds elapsed since the
+ * start of that retrieval and the payload. Each recorded retrieval starts
+ * with a {@link #RETRIEVAL retrieval record} whose payload is the requested
+ * time frame, followed by {@link #CONTRIBUTION contribution records} whose
+ * payload is a contribution as encoded by {@link ContributionCodec}. Records
+ * of retrievals running concurrently may interleave.
+ *
+ * @author sebastianjanisch
+ *
+ */
+final class ContributionJournal {
+
+	static final int MAGIC = 0x53564a4c;
+	static final int VERSION = 2;
+	static final int HEADER_SIZE = 8;
+	static final int RECORD_HEADER_SIZE = 21;
+
+	static final byte RETRIEVAL = 1;
+	static final byte CONTRIBUTION = 2;
+
+	private static final int RETRIEVAL_SIZE = 24;
+
+	private ContributionJournal() {
+		throw new UnsupportedOperationException("no instances");
+	}
+
+	/**
+	 * 
+	 * @param retrieval
+	 *            the id of the recorded retrieval
+	 * @param startExclusive
+	 *            must not be {@code null}
+	 * @param endInclusive
+	 *            must not be {@code null}
+	 * @param out
+	 *            must not be {@code null}
+	 */
+	static void writeRetrieval(long retrieval, Instant startExclusive, Instant endInclusive,
+			ByteArrayOutputStream out) {
+		try {
+			DataOutputStream data = new DataOutputStream(out);
+			writeRecordHeader(RETRIEVAL_SIZE, RETRIEVAL, retrieval, 0, data);
+			data.writeLong(startExclusive.getEpochSecond());
+			data.writeInt(startExclusive.getNano());
+			data.writeLong(endInclusive.getEpochSecond());
+			data.writeInt(endInclusive.getNano());
+		} catch (IOException e) {
+			// cannot happen for in memory streams
+			throw new ContributionRetrievalException("could not encode retrieval " + retrieval, e);
+		}
+	}
+
+	/**
+	 * 
+	 * @param contribution
+	 *            must not be {@code null}
+	 * @param retrieval
+	 *            the id of the recorded retrieval
+	 * @param elapsedNanos
+	 *            since the start of the recorded retrieval
+	 * @param out
+	 *            must not be {@code null}
+	 */
+	static void writeRecord(Contribution contribution, long retrieval, long elapsedNanos,
+			ByteArrayOutputStream out) {
+		try {
+			ByteArrayOutputStream record = new ByteArrayOutputStream();
+			ContributionCodec.write(contribution, new DataOutputStream(record));
+
+			DataOutputStream data = new DataOutputStream(out);
+			writeRecordHeader(record.size(), CONTRIBUTION, retrieval, elapsedNanos, data);
+			record.writeTo(data);
+		} catch (IOException e) {
+			// cannot happen for in memory streams
+			throw new ContributionRetrievalException("could not encode " + contribution.getId(), e);
+		}
+	}
+
+	private static void writeRecordHeader(int length, byte type, long retrieval, long elapsedNanos,
+			DataOutputStream out) throws IOException {
+		out.writeInt(length);
+		out.writeByte(type);
+		out.writeLong(retrieval);
+		out.writeLong(elapsedNanos);
+	}
+
+	/**
+	 * Reads the records of a journal sequentially, mapping the journal into
+	 * memory in windows so that journals beyond 2 GiB can be read.
+	 * <p>
+	 * A truncated record at the end of the journal, as left behind by an
+	 * interrupted recording, ends the journal. Contributions are decoded on
+	 * access only, so that skipping over them is cheap.
+	 * <p>
+	 * This class is not thread-safe.
+	 */
+	static final class Reader implements AutoCloseable {
+
+		private static final long WINDOW_SIZE = 256L * 1024 * 1024;
+
+		private final Path journal;
+		private final FileChannel channel;
+		private final long size;
+		private final ContentBlobStore contents;
+		private ByteBuffer window;
+		private long windowStart;
+		private long position = HEADER_SIZE;
+		private byte type;
+		private long retrieval;
+		private long elapsedNanos;
+		private ByteBuffer payload;
+		private Contribution contribution;
+		private boolean truncated;
+
+		private Reader(Path journal, FileChannel channel, long size, ContentBlobStore contents) {
+			this.journal = journal;
+			this.channel = channel;
+			this.size = size;
+			this.contents = contents;
+		}
+
+		/**
+		 * Opens a reader whose contributions do not share their contents
+		 * with other readers.
+		 * 
+		 * @param journal
+		 *            must not be {@code null}
+		 * @return never {@code null}
+		 */
+		static Reader open(Path journal) {
+			return open(journal, new ContentBlobStore());
+		}
+
+		/**
+		 * 
+		 * @param journal
+		 *            must not be {@code null}
+		 * @param contents
+		 *            shares the contents of read contributions. Must not be
+		 *            {@code null}.
+		 * @return never {@code null}
+		 */
+		static Reader open(Path journal, ContentBlobStore contents) {
+			FileChannel channel = null;
+			try {
+				channel = FileChannel.open(journal, StandardOpenOption.READ);
+				Reader reader = new Reader(journal, channel, channel.size(), contents);
+				if (reader.size < HEADER_SIZE) {
+					throw new ContributionRetrievalException("not a journal: " + journal);
+				}
+				reader.map(0, HEADER_SIZE);
+				if (reader.window.getInt(0) != MAGIC || reader.window.getInt(4) != VERSION) {
+					throw new ContributionRetrievalException("not a journal of version " + VERSION + ": " + journal);
+				}
+				return reader;
+			} catch (IOException e) {
+				closeQuietly(channel);
+				throw new ContributionRetrievalException("could not open journal " + journal, e);
+			} catch (RuntimeException e) {
+				closeQuietly(channel);
+				throw e;
+			}
+		}
+
+		/**
+		 * Advances to the next record.
+		 * 
+		 * @return {@code false} if there are no more records
+		 */
+		boolean next() {
+			if (position + RECORD_HEADER_SIZE > size) {
+				truncated = position != size;
+				return false;
+			}
+
+			map(position, RECORD_HEADER_SIZE);
+			int offset = (int) (position - windowStart);
+			int length = window.getInt(offset);
+			byte recordType = window.get(offset + 4);
+			if (length < 0 || (recordType != RETRIEVAL && recordType != CONTRIBUTION)
+					|| (recordType == RETRIEVAL && length != RETRIEVAL_SIZE)) {
+				throw new ContributionRetrievalException("corrupt record at " + position + " in " + journal);
+			}
+			if (position + RECORD_HEADER_SIZE + length > size) {
+				truncated = true;
+				return false;
+			}
+
+			map(position, RECORD_HEADER_SIZE + length);
+			offset = (int) (position - windowStart);
+			ByteBuffer record = window.duplicate();
+			record.limit(offset + RECORD_HEADER_SIZE + length);
+			record.position(offset + RECORD_HEADER_SIZE);
+			payload = record.slice();
+			type = recordType;
+			retrieval = window.getLong(offset + 5);
+			elapsedNanos = window.getLong(offset + 13);
+			contribution = null;
+			position += RECORD_HEADER_SIZE + length;
+			return true;
+		}
+
+		/**
+		 * Moves back to the first record. Records appended after this reader
+		 * was opened remain invisible.
+		 */
+		void rewind() {
+			position = HEADER_SIZE;
+			payload = null;
+			contribution = null;
+			truncated = false;
+		}
+
+		/**
+		 * 
+		 * @return whether the current record starts a recorded retrieval
+		 *         rather than holding a contribution
+		 */
+		boolean isRetrieval() {
+			return type == RETRIEVAL;
+		}
+
+		/**
+		 * 
+		 * @return the id of the recorded retrieval of the current record
+		 */
+		long getRetrieval() {
+			return retrieval;
+		}
+
+		/**
+		 * 
+		 * @return the requested start of the current retrieval record
+		 */
+		Instant getStartExclusive() {
+			return Instant.ofEpochSecond(payload.getLong(0), payload.getInt(8));
+		}
+
+		/**
+		 * 
+		 * @return the requested end of the current retrieval record
+		 */
+		Instant getEndInclusive() {
+			return Instant.ofEpochSecond(payload.getLong(12), payload.getInt(20));
+		}
+
+		/**
+		 * 
+		 * @return the contribution of the current contribution record
+		 */
+		Contribution getContribution() {
+			if (contribution == null) {
+				contribution = ContributionCodec.read(payload.duplicate(), contents);
+			}
+			return contribution;
+		}
+
+		/**
+		 * 
+		 * @return the elapsed nanoseconds of the current record
+		 */
+		long getElapsedNanos() {
+			return elapsedNanos;
+		}
+
+		/**
+		 * 
+		 * @return the offset of the record following the current record
+		 */
+		long getPosition() {
+			return position;
+		}
+
+		/**
+		 * 
+		 * @return whether the journal ended with an incomplete record
+		 */
+		boolean isTruncated() {
+			return truncated;
+		}
+
+		@Override
+		public void close() {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				throw new ContributionRetrievalException("could not close journal " + journal, e);
+			}
+		}
+
+		private void map(long start, int length) {
+			if (window != null && start >= windowStart && start + length <= windowStart + window.capacity()) {
+				return;
+			}
+			try {
+				long windowLength = Math.min(size - start, Math.max(length, WINDOW_SIZE));
+				window = channel.map(MapMode.READ_ONLY, start, Math.min(windowLength, Integer.MAX_VALUE));
+				windowStart = start;
+			} catch (IOException e) {
+				throw new ContributionRetrievalException("could not read journal " + journal, e);
+			}
+		}
+
+		private static void closeQuietly(FileChannel channel) {
+			if (channel != null) {
+				try {
+					channel.close();
+				} catch (IOException e) {
+					// the original failure is more relevant
+				}
+			}
+		}
+	}
+
+}
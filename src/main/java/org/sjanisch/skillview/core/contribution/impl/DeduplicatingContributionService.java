@@ -0,0 +1,301 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.contribution.impl;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionId;
+import org.sjanisch.skillview.core.contribution.api.ContributionService;
+import org.sjanisch.skillview.core.utility.Hash128;
+import org.sjanisch.skillview.core.utility.Hashing;
+
+/**
+ * Decorates a {@link ContributionService} such that each {@link ContributionId}
+ * is returned at most once per retrieval, e.g. to drop commits that are
+ * reported by several mirrored repositories.
+ * <p>
+ * Membership is tracked in a bloom filter sized for the expected number of
+ * contributions per retrieval, hence memory does not grow with the number of
+ * contributions. Ids that the filter reports as seen are looked up in a small
+ * bounded set of recently admitted ids. If found there, the contribution is a
+ * confirmed duplicate and dropped. Otherwise it is an unconfirmed duplicate:
+ * either a duplicate whose first occurrence has been evicted from the set, or
+ * a false positive of the filter. What happens to unconfirmed duplicates is
+ * configurable:
+ * <ul>
+ * <li>dropping them removes all duplicates, but silently drops some
+ * contributions that are not duplicates. Each contribution that is not a
+ * duplicate is dropped with the filter's false positive probability at its
+ * time of arrival, so about {@code falsePositiveBudget * expectedContributions}
+ * contributions are expected to be lost per retrieval of the expected size,
+ * and more beyond that.</li>
+ * <li>admitting them never drops a contribution that is not a duplicate, but
+ * only removes duplicates that arrive within the confirmation capacity of
+ * their first occurrence.</li>
+ * </ul>
+ * The number of unconfirmed duplicates is reported by
+ * {@link #getStatistics()} and bounds the number of wrong decisions.
+ * <p>
+ * The returned streams can be consumed in parallel.
+ * <p>
+ * This implementation is thread-safe.
+ *
+ * @author sebastianjanisch
+ *
+ */
+public class DeduplicatingContributionService implements ContributionService {
+
+	private static final int STRIPES = 64;
+
+	/**
+	 * Snapshot of the de-duplication statistics accumulated over all
+	 * retrievals.
+	 * <p>
+	 * This class is immutable and thread-safe.
+	 */
+	public static final class Statistics {
+		private final long admitted;
+		private final long confirmedDuplicates;
+		private final long unconfirmedDuplicates;
+		private final double falsePositiveBudget;
+		private final double falsePositiveProbability;
+
+		private Statistics(long admitted, long confirmedDuplicates, long unconfirmedDuplicates,
+				double falsePositiveBudget, double falsePositiveProbability) {
+			this.admitted = admitted;
+			this.confirmedDuplicates = confirmedDuplicates;
+			this.unconfirmedDuplicates = unconfirmedDuplicates;
+			this.falsePositiveBudget = falsePositiveBudget;
+			this.falsePositiveProbability = falsePositiveProbability;
+		}
+
+		/**
+		 *
+		 * @return number of contributions that were passed on.
+		 */
+		public long getAdmitted() {
+			return admitted;
+		}
+
+		/**
+		 *
+		 * @return number of dropped contributions whose id was found in the
+		 *         exact confirmation set.
+		 */
+		public long getConfirmedDuplicates() {
+			return confirmedDuplicates;
+		}
+
+		/**
+		 *
+		 * @return number of contributions that were reported as seen by the
+		 *         bloom filter but not found in the exact confirmation set.
+		 *         Depending on configuration these were dropped or admitted.
+		 */
+		public long getUnconfirmedDuplicates() {
+			return unconfirmedDuplicates;
+		}
+
+		/**
+		 *
+		 * @return the configured false positive probability the filter is
+		 *         sized for.
+		 */
+		public double getFalsePositiveBudget() {
+			return falsePositiveBudget;
+		}
+
+		/**
+		 *
+		 * @return the false positive probability of the most recent
+		 *         retrieval's filter estimated from its fill ratio. Exceeds
+		 *         {@link #getFalsePositiveBudget()} if more contributions than
+		 *         expected were retrieved.
+		 */
+		public double getFalsePositiveProbability() {
+			return falsePositiveProbability;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s[%s:%s:%s:%s:%s]", getClass().getSimpleName(), admitted, confirmedDuplicates,
+					unconfirmedDuplicates, falsePositiveBudget, falsePositiveProbability);
+		}
+	}
+
+	private final ContributionService delegate;
+	private final long expectedContributions;
+	private final double falsePositiveBudget;
+	private final int confirmationCapacity;
+	private final boolean admitUnconfirmed;
+
+	private final AtomicLong admitted = new AtomicLong();
+	private final AtomicLong confirmedDuplicates = new AtomicLong();
+	private final AtomicLong unconfirmedDuplicates = new AtomicLong();
+	private final AtomicReference<BloomFilter> lastFilter = new AtomicReference<>();
+
+	/**
+	 *
+	 * @param delegate
+	 *            must not be {@code null}
+	 * @param expectedContributions
+	 *            the number of contributions expected per retrieval. Must be
+	 *            positive.
+	 * @param falsePositiveBudget
+	 *            the false positive probability of the filter at the expected
+	 *            number of contributions. Must be in {@code (0, 1)}.
+	 * @param confirmationCapacity
+	 *            the number of recently admitted ids kept for exact
+	 *            confirmation. Must not be negative. Unconfirmed duplicates
+	 *            are dropped.
+	 */
+	public DeduplicatingContributionService(ContributionService delegate, long expectedContributions,
+			double falsePositiveBudget, int confirmationCapacity) {
+		this(delegate, expectedContributions, falsePositiveBudget, confirmationCapacity, false);
+	}
+
+	/**
+	 *
+	 * @param delegate
+	 *            must not be {@code null}
+	 * @param expectedContributions
+	 *            the number of contributions expected per retrieval. Must be
+	 *            positive.
+	 * @param falsePositiveBudget
+	 *            the false positive probability of the filter at the expected
+	 *            number of contributions. Must be in {@code (0, 1)}.
+	 * @param confirmationCapacity
+	 *            the number of recently admitted ids kept for exact
+	 *            confirmation. Must not be negative.
+	 * @param admitUnconfirmed
+	 *            {@code true} to pass on unconfirmed duplicates, {@code false}
+	 *            to drop them.
+	 */
+	public DeduplicatingContributionService(ContributionService delegate, long expectedContributions,
+			double falsePositiveBudget, int confirmationCapacity, boolean admitUnconfirmed) {
+		this.delegate = Objects.requireNonNull(delegate, "delegate");
+
+		if (confirmationCapacity < 0) {
+			throw new IllegalArgumentException("confirmation capacity must not be negative: " + confirmationCapacity);
+		}
+
+		// validates the remaining arguments
+		BloomFilter.create(expectedContributions, falsePositiveBudget);
+
+		this.expectedContributions = expectedContributions;
+		this.falsePositiveBudget = falsePositiveBudget;
+		this.confirmationCapacity = confirmationCapacity;
+		this.admitUnconfirmed = admitUnconfirmed;
+	}
+
+	@Override
+	public Stream<Contribution> retrieveContributions(Instant startExclusive, Instant endInclusive) {
+		Objects.requireNonNull(startExclusive, "startExclusive");
+		Objects.requireNonNull(endInclusive, "endInclusive");
+
+		Deduplicator deduplicator = new Deduplicator();
+
+		return delegate.retrieveContributions(startExclusive, endInclusive).filter(deduplicator::admit);
+	}
+
+	/**
+	 *
+	 * @return never {@code null}
+	 */
+	public Statistics getStatistics() {
+		BloomFilter filter = lastFilter.get();
+		double falsePositiveProbability = filter == null ? 0.0 : filter.getFalsePositiveProbability();
+
+		return new Statistics(admitted.get(), confirmedDuplicates.get(), unconfirmedDuplicates.get(),
+				falsePositiveBudget, falsePositiveProbability);
+	}
+
+	private class Deduplicator {
+
+		private final BloomFilter filter = BloomFilter.create(expectedContributions, falsePositiveBudget);
+		private final RecentIds[] recentIds = new RecentIds[STRIPES];
+
+		Deduplicator() {
+			int capacityPerStripe = (confirmationCapacity + STRIPES - 1) / STRIPES;
+			for (int stripe = 0; stripe < STRIPES; stripe++) {
+				recentIds[stripe] = new RecentIds(capacityPerStripe);
+			}
+			lastFilter.set(filter);
+		}
+
+		boolean admit(Contribution contribution) {
+			String id = contribution.getId().getValue();
+			Hash128 hash = Hashing.murmur3(id);
+
+			// equal ids always map to the same stripe which serialises the
+			// filter update and the confirmation for them
+			RecentIds stripe = recentIds[(int) Long.remainderUnsigned(hash.getLow(), STRIPES)];
+			synchronized (stripe) {
+				if (filter.put(hash)) {
+					stripe.put(id, Boolean.TRUE);
+					admitted.incrementAndGet();
+					return true;
+				}
+
+				if (stripe.containsKey(id)) {
+					confirmedDuplicates.incrementAndGet();
+					return false;
+				}
+
+				unconfirmedDuplicates.incrementAndGet();
+				if (admitUnconfirmed) {
+					stripe.put(id, Boolean.TRUE);
+					admitted.incrementAndGet();
+					return true;
+				}
+				return false;
+			}
+		}
+	}
+
+	private static class RecentIds extends LinkedHashMap<String, Boolean> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int capacity;
+
+		RecentIds(int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+			return size() > capacity;
+		}
+	}
+
+}
@@ -29,6 +29,7 @@ import java.util.Collections;
 import java.util.LinkedList;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import org.sjanisch.skillview.core.contribution.api.Contribution;
 import org.sjanisch.skillview.core.contribution.api.ContributionId;
@@ -88,6 +89,28 @@ public class DefaultContribution implements Contribution {
 			return this;
 		}
 
+		/**
+		 * Adds a {@link LazyContributionItem} whose contents are loaded on
+		 * first access.
+		 * 
+		 * @param path
+		 *            must not be {@code null}
+		 * @param previousContent
+		 *            must not be {@code null}
+		 * @param previousContentSize
+		 *            must not be negative
+		 * @param content
+		 *            must not be {@code null}
+		 * @param contentSize
+		 *            must not be negative
+		 * @return this instance. Never {@code null}.
+		 */
+		public Builder addContributionItem(String path, Supplier<String> previousContent, long previousContentSize,
+				Supplier<String> content, long contentSize) {
+			return addContributionItem(
+					LazyContributionItem.of(path, previousContent, previousContentSize, content, contentSize));
+		}
+
 		/**
 		 * 
 		 * @return new {@link Contribution} with contents of this builder. Never
@@ -0,0 +1,304 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.contribution.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionRetrievalException;
+import org.sjanisch.skillview.core.contribution.api.ContributionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decorates a {@link ContributionService} such that contributions are only
+ * retrieved once across retrievals.
+ * <p>
+ * A high watermark, the latest contribution time seen together with the ids
+ * of the contributions at that time, is kept in a file. Retrievals only ask
+ * the delegate for contributions after the watermark. The watermark is
+ * advanced when a returned stream is closed after having been fully
+ * consumed, and only if the retrieval started at or before the watermark so
+ * that no gaps are introduced.
+ * <p>
+ * Contributions that show up at the source with a time before the watermark
+ * (e.g. commits pushed late) will not be retrieved.
+ * <p>
+ * Use {@link #perSource(Map, Path)} to keep a separate watermark per source
+ * before combining the sources with a {@link MultiContributionService}.
+ * <p>
+ * This implementation is thread-safe.
+ *
+ * @author sebastianjanisch
+ *
+ */
+public class IncrementalContributionService implements ContributionService {
+
+	private static final Logger log = LoggerFactory.getLogger(IncrementalContributionService.class);
+
+	private static final Pattern SOURCE_NAME = Pattern.compile("[A-Za-z0-9._-]+");
+
+	private final ContributionService delegate;
+	private final Path watermarkFile;
+
+	/**
+	 *
+	 * @param delegate
+	 *            must not be {@code null}
+	 * @param watermarkFile
+	 *            must not be {@code null}. Will be created if it does not
+	 *            exist.
+	 */
+	public IncrementalContributionService(ContributionService delegate, Path watermarkFile) {
+		this.delegate = Objects.requireNonNull(delegate, "delegate");
+		this.watermarkFile = Objects.requireNonNull(watermarkFile, "watermarkFile");
+	}
+
+	/**
+	 * Decorates each given source with its own watermark file
+	 * {@code <name>.watermark} in given directory.
+	 *
+	 * @param sources
+	 *            by their unique name. Names must consist of letters, digits,
+	 *            {@code .}, {@code _} or {@code -}. Must not be {@code null}.
+	 * @param directory
+	 *            must not be {@code null}
+	 * @return a list (possibly unmodifiable) of decorated sources. Never
+	 *         {@code null}.
+	 */
+	public static List<ContributionService> perSource(Map<String, ContributionService> sources, Path directory) {
+		Objects.requireNonNull(sources, "sources");
+		Objects.requireNonNull(directory, "directory");
+
+		List<ContributionService> result = new ArrayList<>();
+		for (Map.Entry<String, ContributionService> source : sources.entrySet()) {
+			String name = source.getKey();
+			if (name == null || !SOURCE_NAME.matcher(name).matches()) {
+				throw new IllegalArgumentException("invalid source name " + name);
+			}
+			Path watermarkFile = directory.resolve(name + ".watermark");
+			result.add(new IncrementalContributionService(source.getValue(), watermarkFile));
+		}
+
+		return Collections.unmodifiableList(result);
+	}
+
+	@Override
+	public Stream<Contribution> retrieveContributions(Instant startExclusive, Instant endInclusive) {
+		Objects.requireNonNull(startExclusive, "startExclusive");
+		Objects.requireNonNull(endInclusive, "endInclusive");
+
+		Watermark watermark = readWatermark();
+
+		// contributions at the watermark time may not all have been seen yet,
+		// so a watermark at the end still requires a retrieval
+		if (watermark != null && watermark.time.isAfter(endInclusive)) {
+			return Stream.empty();
+		}
+
+		boolean contiguous = watermark == null || !startExclusive.isAfter(watermark.time);
+		Instant effectiveStart = startExclusive;
+		if (watermark != null && contiguous) {
+			// contributions at the watermark time that have not been seen yet
+			// must be retrieved again
+			effectiveStart = watermark.time.minusNanos(1);
+		}
+
+		Tracker tracker = new Tracker(watermark);
+		AtomicBoolean exhausted = new AtomicBoolean();
+
+		Stream<Contribution> contributions = delegate.retrieveContributions(effectiveStart, endInclusive);
+		Spliterator<Contribution> source = contributions.spliterator();
+
+		Spliterator<Contribution> observed = new Spliterators.AbstractSpliterator<Contribution>(Long.MAX_VALUE,
+				source.characteristics() & (Spliterator.ORDERED | Spliterator.NONNULL)) {
+			@Override
+			public boolean tryAdvance(Consumer<? super Contribution> action) {
+				boolean advanced = source.tryAdvance(contribution -> {
+					if (tracker.observe(contribution)) {
+						action.accept(contribution);
+					}
+				});
+				if (!advanced) {
+					exhausted.set(true);
+				}
+				return advanced;
+			}
+		};
+
+		Runnable onClose = () -> {
+			contributions.close();
+			if (exhausted.get() && contiguous) {
+				tracker.getAdvanced().ifPresent(this::writeWatermark);
+			}
+		};
+
+		return StreamSupport.stream(observed, false).onClose(onClose);
+	}
+
+	private Watermark readWatermark() {
+		if (!Files.exists(watermarkFile)) {
+			return null;
+		}
+
+		Properties properties = new Properties();
+		try (InputStream in = Files.newInputStream(watermarkFile)) {
+			properties.load(in);
+		} catch (IOException e) {
+			throw new ContributionRetrievalException("could not read watermark " + watermarkFile, e);
+		}
+
+		try {
+			Instant time = Instant.parse(properties.getProperty("time"));
+			Set<String> ids = new HashSet<>();
+			for (int i = 0; properties.containsKey("id." + i); i++) {
+				ids.add(properties.getProperty("id." + i));
+			}
+			return new Watermark(time, ids);
+		} catch (DateTimeParseException | NullPointerException e) {
+			throw new ContributionRetrievalException("corrupt watermark " + watermarkFile, e);
+		}
+	}
+
+	private synchronized void writeWatermark(Watermark watermark) {
+		Watermark current = readWatermark();
+		if (current != null && current.time.isAfter(watermark.time)) {
+			return;
+		}
+
+		Properties properties = new Properties();
+		properties.setProperty("time", watermark.time.toString());
+		int i = 0;
+		for (String id : watermark.ids) {
+			properties.setProperty("id." + i++, id);
+		}
+
+		try {
+			Path directory = watermarkFile.toAbsolutePath().getParent();
+			Files.createDirectories(directory);
+			Path temporary = Files.createTempFile(directory, watermarkFile.getFileName().toString(), ".tmp");
+			try {
+				try (OutputStream out = Files.newOutputStream(temporary)) {
+					properties.store(out, null);
+				}
+				Files.move(temporary, watermarkFile, StandardCopyOption.ATOMIC_MOVE,
+						StandardCopyOption.REPLACE_EXISTING);
+			} finally {
+				Files.deleteIfExists(temporary);
+			}
+		} catch (IOException e) {
+			throw new ContributionRetrievalException("could not write watermark " + watermarkFile, e);
+		}
+
+		if (log.isDebugEnabled()) {
+			log.debug(String.format("Advanced watermark %s to %s", watermarkFile, watermark.time));
+		}
+	}
+
+	private static class Watermark {
+		private final Instant time;
+		private final Set<String> ids;
+
+		Watermark(Instant time, Set<String> ids) {
+			this.time = time;
+			this.ids = ids;
+		}
+	}
+
+	/**
+	 * Filters contributions already covered by a watermark and tracks the
+	 * next watermark.
+	 */
+	private static class Tracker {
+		private final Watermark previous;
+		private Instant time;
+		private Set<String> ids = new HashSet<>();
+
+		Tracker(Watermark previous) {
+			this.previous = previous;
+			if (previous != null) {
+				this.time = previous.time;
+				this.ids.addAll(previous.ids);
+			}
+		}
+
+		synchronized boolean observe(Contribution contribution) {
+			Instant contributionTime = contribution.getContributionTime();
+			String id = contribution.getId().getValue();
+
+			if (previous != null) {
+				if (contributionTime.isBefore(previous.time)) {
+					return false;
+				}
+				if (contributionTime.equals(previous.time) && previous.ids.contains(id)) {
+					return false;
+				}
+			}
+
+			if (time == null || contributionTime.isAfter(time)) {
+				time = contributionTime;
+				ids = new HashSet<>();
+			}
+			if (contributionTime.equals(time)) {
+				ids.add(id);
+			}
+
+			return true;
+		}
+
+		synchronized Optional<Watermark> getAdvanced() {
+			if (time == null) {
+				return Optional.empty();
+			}
+			if (previous != null && previous.time.equals(time) && previous.ids.equals(ids)) {
+				return Optional.empty();
+			}
+			return Optional.of(new Watermark(time, new HashSet<>(ids)));
+		}
+	}
+
+}
@@ -0,0 +1,209 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.contribution.impl;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionId;
+import org.sjanisch.skillview.core.contribution.api.ContributionRetrievalException;
+import org.sjanisch.skillview.core.contribution.api.ContributionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replays a journal recorded by {@link JournalingContributionService}.
+ * <p>
+ * Contributions are returned in recorded order, restricted to those whose
+ * time lies within the requested time frame. Contributions recorded more than
+ * once by retrievals of overlapping time frames are returned on their first
+ * occurrence only. To that end the ids of returned contributions are kept
+ * only if their time lies within the time frames of at least two recorded
+ * retrievals, so that replaying retrievals of disjoint time frames keeps no
+ * ids at all. The journal is mapped into memory and contents of contribution
+ * items are decoded on first access only and shared through a
+ * {@link ContentBlobStore}.
+ * <p>
+ * By default contributions are returned as fast as they can be read. If
+ * throttled, contributions are returned no earlier than they have been
+ * returned during recording, relative to the first replayed contribution of
+ * their recorded retrieval. Interleaved blocks of concurrently recorded
+ * retrievals are throttled each against their own retrieval.
+ * <p>
+ * This implementation is thread-safe.
+ *
+ * @author sebastianjanisch
+ *
+ */
+public class JournalReplayContributionService implements ContributionService {
+
+	private static final Logger log = LoggerFactory.getLogger(JournalReplayContributionService.class);
+
+	private final Path journal;
+	private final boolean throttled;
+	private final ContentBlobStore contents = new ContentBlobStore();
+
+	/**
+	 * Creates a service replaying at full speed.
+	 *
+	 * @param journal
+	 *            must not be {@code null}
+	 */
+	public JournalReplayContributionService(Path journal) {
+		this(journal, false);
+	}
+
+	/**
+	 *
+	 * @param journal
+	 *            must not be {@code null}
+	 * @param throttled
+	 *            {@code true} to replay with recorded timings
+	 */
+	public JournalReplayContributionService(Path journal, boolean throttled) {
+		this.journal = Objects.requireNonNull(journal, "journal");
+		this.throttled = throttled;
+	}
+
+	@Override
+	public Stream<Contribution> retrieveContributions(Instant startExclusive, Instant endInclusive) {
+		Objects.requireNonNull(startExclusive, "startExclusive");
+		Objects.requireNonNull(endInclusive, "endInclusive");
+
+		ContributionJournal.Reader reader = ContributionJournal.Reader.open(journal, contents);
+		NavigableMap<Instant, Instant> overlaps;
+		try {
+			overlaps = readOverlaps(reader);
+			reader.rewind();
+		} catch (RuntimeException e) {
+			reader.close();
+			throw e;
+		}
+
+		Spliterator<Contribution> records = new Spliterators.AbstractSpliterator<Contribution>(Long.MAX_VALUE,
+				Spliterator.ORDERED | Spliterator.NONNULL) {
+
+			private final Set<ContributionId> returned = new HashSet<>();
+			// per recorded retrieval, the time its first contribution was
+			// replayed at minus the time it was recorded at
+			private final Map<Long, Long> baselines = new HashMap<>();
+
+			@Override
+			public boolean tryAdvance(Consumer<? super Contribution> action) {
+				while (reader.next()) {
+					if (reader.isRetrieval()) {
+						continue;
+					}
+
+					Contribution contribution = reader.getContribution();
+					Instant time = contribution.getContributionTime();
+					if (!time.isAfter(startExclusive) || time.isAfter(endInclusive)) {
+						continue;
+					}
+					if (isOverlapped(overlaps, time) && !returned.add(contribution.getId())) {
+						continue;
+					}
+
+					if (throttled) {
+						awaitRecordedTime(reader.getRetrieval(), reader.getElapsedNanos());
+					}
+					action.accept(contribution);
+					return true;
+				}
+
+				if (reader.isTruncated()) {
+					log.warn(String.format("Ignoring incomplete record at the end of %s", journal));
+				}
+				return false;
+			}
+
+			private void awaitRecordedTime(long retrieval, long elapsed) {
+				long baseline = baselines.computeIfAbsent(retrieval, key -> System.nanoTime() - elapsed);
+
+				long wait = baseline + elapsed - System.nanoTime();
+				if (wait > 0) {
+					try {
+						TimeUnit.NANOSECONDS.sleep(wait);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new ContributionRetrievalException("interrupted while replaying " + journal, e);
+					}
+				}
+			}
+		};
+
+		return StreamSupport.stream(records, false).onClose(reader::close);
+	}
+
+	/**
+	 * @return the time frames covered by at least two recorded retrievals,
+	 *         keyed by their exclusive start and mapped to their inclusive
+	 *         end. Adjacent time frames are merged.
+	 */
+	private static NavigableMap<Instant, Instant> readOverlaps(ContributionJournal.Reader reader) {
+		// the number of recorded retrievals whose time frames cover the
+		// times after a key changes by the mapped value
+		NavigableMap<Instant, Integer> changes = new TreeMap<>();
+		while (reader.next()) {
+			if (reader.isRetrieval() && reader.getEndInclusive().isAfter(reader.getStartExclusive())) {
+				changes.merge(reader.getStartExclusive(), 1, Integer::sum);
+				changes.merge(reader.getEndInclusive(), -1, Integer::sum);
+			}
+		}
+
+		NavigableMap<Instant, Instant> result = new TreeMap<>();
+		int covering = 0;
+		Instant overlapStart = null;
+		for (Map.Entry<Instant, Integer> change : changes.entrySet()) {
+			covering += change.getValue();
+			if (covering >= 2 && overlapStart == null) {
+				overlapStart = change.getKey();
+			} else if (covering < 2 && overlapStart != null) {
+				result.put(overlapStart, change.getKey());
+				overlapStart = null;
+			}
+		}
+		return result;
+	}
+
+	private static boolean isOverlapped(NavigableMap<Instant, Instant> overlaps, Instant time) {
+		Map.Entry<Instant, Instant> overlap = overlaps.lowerEntry(time);
+		return overlap != null && !time.isAfter(overlap.getValue());
+	}
+
+}
@@ -0,0 +1,197 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.contribution.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionRetrievalException;
+import org.sjanisch.skillview.core.contribution.api.ContributionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decorates a {@link ContributionService} such that all contributions passing
+ * through returned streams are appended to a journal, together with the time
+ * that had elapsed since the start of the retrieval. Each retrieval is
+ * recorded under a random id along with its requested time frame.
+ * <p>
+ * Use {@link JournalReplayContributionService} to replay the journal.
+ * <p>
+ * Returned streams are sequential. Records are buffered per retrieval and
+ * appended in blocks of whole records, at the latest when the returned stream
+ * is closed. Retrievals running concurrently therefore do not corrupt the
+ * journal, but their blocks may interleave. Contents of contribution items
+ * are loaded in order to be recorded.
+ * <p>
+ * An incomplete record at the end of an existing journal, as left behind by
+ * an interrupted recording, is cut off before the first append.
+ * <p>
+ * This implementation is thread-safe.
+ *
+ * @author sebastianjanisch
+ *
+ */
+public class JournalingContributionService implements ContributionService {
+
+	private static final Logger log = LoggerFactory.getLogger(JournalingContributionService.class);
+
+	private static final int FLUSH_THRESHOLD = 1024 * 1024;
+
+	private final ContributionService delegate;
+	private final Path journal;
+	private boolean tailChecked;
+
+	/**
+	 *
+	 * @param delegate
+	 *            must not be {@code null}
+	 * @param journal
+	 *            must not be {@code null}. Will be created if it does not
+	 *            exist, appended to otherwise.
+	 */
+	public JournalingContributionService(ContributionService delegate, Path journal) {
+		this.delegate = Objects.requireNonNull(delegate, "delegate");
+		this.journal = Objects.requireNonNull(journal, "journal");
+	}
+
+	@Override
+	public Stream<Contribution> retrieveContributions(Instant startExclusive, Instant endInclusive) {
+		Objects.requireNonNull(startExclusive, "startExclusive");
+		Objects.requireNonNull(endInclusive, "endInclusive");
+
+		Recorder recorder = new Recorder(ThreadLocalRandom.current().nextLong(), System.nanoTime(), startExclusive,
+				endInclusive);
+		Stream<Contribution> contributions = delegate.retrieveContributions(startExclusive, endInclusive);
+		Spliterator<Contribution> source = contributions.spliterator();
+
+		// not a peek() as that may be skipped for streams of known size
+		Spliterator<Contribution> recorded = new Spliterators.AbstractSpliterator<Contribution>(Long.MAX_VALUE,
+				source.characteristics() & (Spliterator.ORDERED | Spliterator.NONNULL)) {
+			@Override
+			public boolean tryAdvance(Consumer<? super Contribution> action) {
+				return source.tryAdvance(contribution -> {
+					recorder.record(contribution);
+					action.accept(contribution);
+				});
+			}
+		};
+
+		Runnable onClose = () -> {
+			try {
+				recorder.flush();
+			} finally {
+				contributions.close();
+			}
+		};
+
+		return StreamSupport.stream(recorded, false).onClose(onClose);
+	}
+
+	private synchronized void append(ByteArrayOutputStream records) {
+		try {
+			Path directory = journal.toAbsolutePath().getParent();
+			Files.createDirectories(directory);
+			if (!tailChecked) {
+				truncateIncompleteRecord();
+				tailChecked = true;
+			}
+			try (OutputStream out = Files.newOutputStream(journal, StandardOpenOption.CREATE,
+					StandardOpenOption.APPEND)) {
+				if (Files.size(journal) == 0) {
+					DataOutputStream header = new DataOutputStream(out);
+					header.writeInt(ContributionJournal.MAGIC);
+					header.writeInt(ContributionJournal.VERSION);
+				}
+				records.writeTo(out);
+			}
+		} catch (IOException e) {
+			throw new ContributionRetrievalException("could not append to journal " + journal, e);
+		}
+	}
+
+	private void truncateIncompleteRecord() throws IOException {
+		if (!Files.exists(journal) || Files.size(journal) == 0) {
+			return;
+		}
+
+		long end;
+		try (ContributionJournal.Reader reader = ContributionJournal.Reader.open(journal)) {
+			while (reader.next()) {
+				// skip to the end of the last complete record
+			}
+			if (!reader.isTruncated()) {
+				return;
+			}
+			end = reader.getPosition();
+		}
+
+		try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+			channel.truncate(end);
+		}
+		log.warn(String.format("Cut off incomplete record at the end of %s", journal));
+	}
+
+	private class Recorder {
+		private final long retrieval;
+		private final long start;
+		private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+		Recorder(long retrieval, long start, Instant startExclusive, Instant endInclusive) {
+			this.retrieval = retrieval;
+			this.start = start;
+			ContributionJournal.writeRetrieval(retrieval, startExclusive, endInclusive, buffer);
+		}
+
+		synchronized void record(Contribution contribution) {
+			ContributionJournal.writeRecord(contribution, retrieval, System.nanoTime() - start, buffer);
+			if (buffer.size() >= FLUSH_THRESHOLD) {
+				flush();
+			}
+		}
+
+		synchronized void flush() {
+			if (buffer.size() > 0) {
+				append(buffer);
+				buffer.reset();
+			}
+		}
+	}
+
+}
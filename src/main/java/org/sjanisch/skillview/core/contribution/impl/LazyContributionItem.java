@@ -0,0 +1,201 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.contribution.impl;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import org.sjanisch.skillview.core.contribution.api.ContributionItem;
+import org.sjanisch.skillview.core.contribution.impl.ContentBlobStore.ContentBlob;
+
+/**
+ * A {@link ContributionItem} whose contents are loaded from a
+ * {@link Supplier} on first access and dropped again on
+ * {@link #releaseContent()}.
+ * <p>
+ * The content sizes are given upfront so that they can be inspected without
+ * loading the contents. The suppliers must return the same content on each
+ * invocation.
+ * <p>
+ * Items created by
+ * {@link #ofBlobs(String, Supplier, long, Supplier, long)} hold their contents
+ * as {@link ContentBlob blobs} of a {@link ContentBlobStore}, which are
+ * acquired on first access and released on {@link #releaseContent()}.
+ * <p>
+ * This implementation is thread-safe.
+ *
+ * @author sebastianjanisch
+ *
+ */
+public final class LazyContributionItem implements ContributionItem {
+
+	private final String path;
+	private final LazyContent previousContent;
+	private final LazyContent content;
+
+	private LazyContributionItem(String path, LazyContent previousContent, LazyContent content) {
+		this.path = path;
+		this.previousContent = previousContent;
+		this.content = content;
+	}
+
+	/**
+	 *
+	 * @param path
+	 *            must not be {@code null}
+	 * @param previousContent
+	 *            must not be {@code null} and must not supply {@code null}
+	 * @param previousContentSize
+	 *            the size as defined by
+	 *            {@link ContributionItem#getPreviousContentSize()}. Must not be
+	 *            negative.
+	 * @param content
+	 *            must not be {@code null} and must not supply {@code null}
+	 * @param contentSize
+	 *            the size as defined by
+	 *            {@link ContributionItem#getContentSize()}. Must not be
+	 *            negative.
+	 * @return never {@code null}
+	 */
+	public static LazyContributionItem of(String path, Supplier<String> previousContent, long previousContentSize,
+			Supplier<String> content, long contentSize) {
+		Objects.requireNonNull(path, "path");
+		Objects.requireNonNull(previousContent, "previousContent");
+		Objects.requireNonNull(content, "content");
+
+		if (previousContentSize < 0 || contentSize < 0) {
+			String msg = "content sizes must not be negative: %s %s";
+			throw new IllegalArgumentException(String.format(msg, previousContentSize, contentSize));
+		}
+
+		return ofBlobs(path, () -> ContentBlob.unshared(previousContent.get()), previousContentSize,
+				() -> ContentBlob.unshared(content.get()), contentSize);
+	}
+
+	/**
+	 *
+	 * @param path
+	 *            must not be {@code null}
+	 * @param previousContent
+	 *            acquires the blob of the previous content, typically from a
+	 *            {@link ContentBlobStore}. Must not be {@code null} and must
+	 *            not supply {@code null}.
+	 * @param previousContentSize
+	 *            the size as defined by
+	 *            {@link ContributionItem#getPreviousContentSize()}. Must not be
+	 *            negative.
+	 * @param content
+	 *            acquires the blob of the content. Must not be {@code null}
+	 *            and must not supply {@code null}.
+	 * @param contentSize
+	 *            the size as defined by
+	 *            {@link ContributionItem#getContentSize()}. Must not be
+	 *            negative.
+	 * @return never {@code null}
+	 */
+	public static LazyContributionItem ofBlobs(String path, Supplier<ContentBlob> previousContent,
+			long previousContentSize, Supplier<ContentBlob> content, long contentSize) {
+		Objects.requireNonNull(path, "path");
+		Objects.requireNonNull(previousContent, "previousContent");
+		Objects.requireNonNull(content, "content");
+
+		if (previousContentSize < 0 || contentSize < 0) {
+			String msg = "content sizes must not be negative: %s %s";
+			throw new IllegalArgumentException(String.format(msg, previousContentSize, contentSize));
+		}
+
+		return new LazyContributionItem(path, new LazyContent(previousContent, previousContentSize),
+				new LazyContent(content, contentSize));
+	}
+
+	@Override
+	public String getPath() {
+		return path;
+	}
+
+	@Override
+	public String getContent() {
+		return content.get();
+	}
+
+	@Override
+	public String getPreviousContent() {
+		return previousContent.get();
+	}
+
+	@Override
+	public long getContentSize() {
+		return content.size;
+	}
+
+	@Override
+	public long getPreviousContentSize() {
+		return previousContent.size;
+	}
+
+	@Override
+	public void releaseContent() {
+		previousContent.release();
+		content.release();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[%s]", getClass().getSimpleName(), path);
+	}
+
+	private static class LazyContent {
+		private final Supplier<ContentBlob> loader;
+		private final long size;
+		private volatile ContentBlob value;
+
+		LazyContent(Supplier<ContentBlob> loader, long size) {
+			this.loader = loader;
+			this.size = size;
+		}
+
+		String get() {
+			ContentBlob result = value;
+			if (result == null) {
+				synchronized (this) {
+					result = value;
+					if (result == null) {
+						result = Objects.requireNonNull(loader.get(), "supplied content");
+						value = result;
+					}
+				}
+			}
+			return result.getContent();
+		}
+
+		synchronized void release() {
+			ContentBlob released = value;
+			value = null;
+			if (released != null) {
+				released.release();
+			}
+		}
+	}
+
+}
@@ -15,6 +15,10 @@ import org.sjanisch.skillview.core.contribution.api.ContributionService;
  * Holds multiple {@link ContributionService} instances and combines their
  * output.
  * <p>
+ * Sources are consumed one after the other. See
+ * {@link ConcurrentMultiContributionService} to retrieve from all sources at
+ * once.
+ * <p>
  * This implementation is immutable and thread-safe.
  * 
  * @author sebastianjanisch
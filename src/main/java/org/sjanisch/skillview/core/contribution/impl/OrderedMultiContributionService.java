@@ -0,0 +1,164 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.contribution.impl;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionService;
+
+/**
+ * Holds multiple {@link ContributionService} instances and merges their output
+ * in chronological order.
+ * <p>
+ * Each underlying service must return its contributions sorted by
+ * {@link Contribution#getContributionTime() contribution time}. The merge is
+ * lazy and holds a single contribution per source at any time. Contributions
+ * with equal time are returned in the order of their sources.
+ * <p>
+ * This implementation is immutable and thread-safe.
+ *
+ * @author sebastianjanisch
+ *
+ */
+public class OrderedMultiContributionService implements ContributionService {
+
+	private final List<ContributionService> services;
+
+	/**
+	 *
+	 * @param services
+	 *            must not be {@code null}. Copy will be taken.
+	 */
+	public OrderedMultiContributionService(Collection<ContributionService> services) {
+		Objects.requireNonNull(services, "services");
+		this.services = Collections.unmodifiableList(new ArrayList<>(services));
+	}
+
+	@Override
+	public Stream<Contribution> retrieveContributions(Instant startExclusive, Instant endInclusive) {
+		Objects.requireNonNull(startExclusive, "startExclusive");
+		Objects.requireNonNull(endInclusive, "endInclusive");
+
+		List<Stream<Contribution>> streams = new ArrayList<>(services.size());
+		try {
+			for (ContributionService service : services) {
+				streams.add(service.retrieveContributions(startExclusive, endInclusive));
+			}
+		} catch (RuntimeException e) {
+			streams.forEach(Stream::close);
+			throw e;
+		}
+
+		Spliterator<Contribution> merged = new MergingSpliterator(streams);
+
+		return StreamSupport.stream(merged, false).onClose(() -> streams.forEach(Stream::close));
+	}
+
+	private static class MergingSpliterator extends Spliterators.AbstractSpliterator<Contribution> {
+
+		// @formatter:off
+		private static final Comparator<Head> ORDER = Comparator
+				.comparing((Head head) -> head.current.getContributionTime())
+				.thenComparingInt(head -> head.source);
+		// @formatter:on
+
+		private final List<Stream<Contribution>> streams;
+		private PriorityQueue<Head> heads;
+
+		MergingSpliterator(List<Stream<Contribution>> streams) {
+			super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+			this.streams = streams;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super Contribution> action) {
+			if (heads == null) {
+				heads = new PriorityQueue<>(Math.max(1, streams.size()), ORDER);
+				for (int source = 0; source < streams.size(); source++) {
+					Head head = new Head(source, streams.get(source).iterator());
+					if (head.advance()) {
+						heads.add(head);
+					}
+				}
+			}
+
+			Head head = heads.poll();
+			if (head == null) {
+				return false;
+			}
+
+			Contribution next = head.current;
+			if (head.advance()) {
+				heads.add(head);
+			}
+
+			action.accept(next);
+			return true;
+		}
+
+	}
+
+	private static class Head {
+		private final int source;
+		private final Iterator<Contribution> contributions;
+		private Contribution current;
+
+		Head(int source, Iterator<Contribution> contributions) {
+			this.source = source;
+			this.contributions = contributions;
+		}
+
+		boolean advance() {
+			if (!contributions.hasNext()) {
+				current = null;
+				return false;
+			}
+
+			Contribution next = contributions.next();
+			if (current != null && next.getContributionTime().isBefore(current.getContributionTime())) {
+				String msg = "source %s is not sorted by contribution time: %s before %s";
+				throw new IllegalStateException(
+						String.format(msg, source, next.getContributionTime(), current.getContributionTime()));
+			}
+
+			current = next;
+			return true;
+		}
+	}
+
+}
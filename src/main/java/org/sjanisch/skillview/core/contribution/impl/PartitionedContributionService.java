@@ -0,0 +1,246 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.contribution.impl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionRetrievalException;
+import org.sjanisch.skillview.core.contribution.api.ContributionService;
+
+/**
+ * Decorates a {@link ContributionService} by splitting the requested time
+ * frame into slices of a fixed length which are retrieved concurrently.
+ * <p>
+ * At most {@code parallelism} slices are retrieved or buffered at any time.
+ * Each slice is retrieved into memory on a task of the given {@link Executor}
+ * and its stream is closed once retrieved. In ordered mode slices are returned
+ * in chronological order of the slices, otherwise in the order they complete.
+ * <p>
+ * Slices are materialized so that a task never waits for the consumer, which
+ * keeps this service usable with bounded or caller-runs executors. Up to
+ * {@code parallelism} complete slices may be held in memory at a time, so the
+ * slice length should be chosen such that that many slices fit.
+ * <p>
+ * Closing the returned stream cancels all outstanding slices.
+ * <p>
+ * This implementation is immutable and thread-safe.
+ *
+ * @author sebastianjanisch
+ *
+ */
+public class PartitionedContributionService implements ContributionService {
+
+	private static final long MAX_SLICES_PER_RETRIEVAL = 1_000_000;
+
+	private final ContributionService delegate;
+	private final Duration sliceLength;
+	private final Executor executor;
+	private final int parallelism;
+	private final boolean ordered;
+
+	/**
+	 *
+	 * @param delegate
+	 *            must not be {@code null}
+	 * @param sliceLength
+	 *            must not be {@code null} and must be positive
+	 * @param executor
+	 *            runs the retrieval of the slices. Must not be {@code null}.
+	 * @param parallelism
+	 *            the maximum number of slices retrieved or buffered at a time.
+	 *            Must be positive.
+	 * @param ordered
+	 *            {@code true} to return slices in chronological order,
+	 *            {@code false} to return them as they complete.
+	 */
+	public PartitionedContributionService(ContributionService delegate, Duration sliceLength, Executor executor,
+			int parallelism, boolean ordered) {
+		this.delegate = Objects.requireNonNull(delegate, "delegate");
+		this.sliceLength = Objects.requireNonNull(sliceLength, "sliceLength");
+		this.executor = Objects.requireNonNull(executor, "executor");
+
+		if (sliceLength.isNegative() || sliceLength.isZero()) {
+			throw new IllegalArgumentException("slice length must be positive: " + sliceLength);
+		}
+
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+		}
+
+		this.parallelism = parallelism;
+		this.ordered = ordered;
+	}
+
+	@Override
+	public Stream<Contribution> retrieveContributions(Instant startExclusive, Instant endInclusive) {
+		Objects.requireNonNull(startExclusive, "startExclusive");
+		Objects.requireNonNull(endInclusive, "endInclusive");
+
+		List<Instant> boundaries = new ArrayList<>();
+		for (Instant boundary = startExclusive; boundary.isBefore(endInclusive); boundary = next(boundary,
+				endInclusive)) {
+			if (boundaries.size() > MAX_SLICES_PER_RETRIEVAL) {
+				String msg = "time frame spans too many slices: %s %s";
+				throw new IllegalArgumentException(String.format(msg, startExclusive, endInclusive));
+			}
+			boundaries.add(boundary);
+		}
+		boundaries.add(endInclusive);
+
+		SliceSpliterator slices = new SliceSpliterator(boundaries);
+
+		return StreamSupport.stream(slices, false).onClose(slices::close);
+	}
+
+	private Instant next(Instant boundary, Instant endInclusive) {
+		Duration remaining = Duration.between(boundary, endInclusive);
+		return remaining.compareTo(sliceLength) <= 0 ? endInclusive : boundary.plus(sliceLength);
+	}
+
+	private class SliceSpliterator extends Spliterators.AbstractSpliterator<Contribution> {
+
+		private final List<Instant> boundaries;
+		// accessed by close() from other threads
+		private final Deque<SliceTask> pending = new ConcurrentLinkedDeque<>();
+		private final BlockingQueue<SliceTask> completed = new LinkedBlockingQueue<>();
+		private final AtomicBoolean closed = new AtomicBoolean();
+		private int nextSlice;
+		private Iterator<Contribution> current;
+
+		SliceSpliterator(List<Instant> boundaries) {
+			super(Long.MAX_VALUE, ordered ? Spliterator.ORDERED | Spliterator.NONNULL : Spliterator.NONNULL);
+			this.boundaries = boundaries;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super Contribution> action) {
+			while (current == null || !current.hasNext()) {
+				submit();
+				if (pending.isEmpty()) {
+					return false;
+				}
+				current = takeNext().iterator();
+			}
+
+			action.accept(current.next());
+			return true;
+		}
+
+		private void submit() {
+			while (!closed.get() && pending.size() < parallelism && nextSlice < boundaries.size() - 1) {
+				Instant from = boundaries.get(nextSlice);
+				Instant to = boundaries.get(nextSlice + 1);
+				nextSlice++;
+
+				SliceTask task = new SliceTask(from, to, closed, completed);
+				pending.addLast(task);
+				try {
+					executor.execute(task);
+				} catch (RejectedExecutionException e) {
+					pending.remove(task);
+					close();
+					throw new ContributionRetrievalException("could not schedule slice " + from + " " + to, e);
+				}
+			}
+		}
+
+		private List<Contribution> takeNext() {
+			try {
+				SliceTask task = ordered ? pending.peekFirst() : completed.take();
+				if (task == null || !pending.remove(task)) {
+					throw new ContributionRetrievalException("retrieval was closed");
+				}
+				return task.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				close();
+				throw new ContributionRetrievalException("interrupted while waiting for contributions", e);
+			} catch (ExecutionException e) {
+				close();
+				if (e.getCause() instanceof ContributionRetrievalException) {
+					throw (ContributionRetrievalException) e.getCause();
+				}
+				throw new ContributionRetrievalException("could not retrieve slice", e.getCause());
+			} catch (CancellationException e) {
+				throw new ContributionRetrievalException("retrieval was closed", e);
+			}
+		}
+
+		void close() {
+			closed.set(true);
+			pending.forEach(task -> task.cancel(true));
+			pending.clear();
+		}
+	}
+
+	private class SliceTask extends FutureTask<List<Contribution>> {
+
+		private final BlockingQueue<SliceTask> completed;
+
+		SliceTask(Instant startExclusive, Instant endInclusive, AtomicBoolean closed,
+				BlockingQueue<SliceTask> completed) {
+			super(() -> {
+				if (closed.get()) {
+					throw new CancellationException();
+				}
+				try (Stream<Contribution> contributions = delegate.retrieveContributions(startExclusive,
+						endInclusive)) {
+					return contributions.collect(Collectors.toList());
+				}
+			});
+			this.completed = completed;
+		}
+
+		@Override
+		protected void done() {
+			// in ordered mode slices are awaited in submission order instead
+			if (!ordered) {
+				completed.add(this);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,300 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.contribution.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionRetrievalException;
+import org.sjanisch.skillview.core.contribution.api.ContributionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decorates a {@link ContributionService} with a persistent cache of
+ * time-partitioned segment files.
+ * <p>
+ * The time line is split into segments of a fixed length, aligned to the
+ * epoch, each covering {@code (segmentStart, segmentStart + segmentLength]}.
+ * Segments that ended at least a settle delay ago are retrieved from the
+ * delegate once, written to a segment file and from then on served from that
+ * file through a {@link MappedByteBuffer}. Contents of the returned
+ * contribution items are decoded from the mapped file on first access only
+ * and shared through a {@link ContentBlobStore}.
+ * Segments that are not yet complete are always retrieved from the delegate.
+ * <p>
+ * The settle delay must cover the time it takes for contributions to show up
+ * at the source, e.g. commits pushed days after their author time.
+ * Contributions that show up after their segment was cached are not
+ * retrieved unless the segment file is deleted.
+ * <p>
+ * Contributions are returned segment by segment in chronological order of the
+ * segments. Time frames spanning more than a million segments, such as
+ * {@code (Instant.MIN, Instant.MAX]}, are retrieved from the delegate
+ * uncached.
+ * <p>
+ * This implementation is thread-safe.
+ *
+ * @author sebastianjanisch
+ *
+ */
+public class SegmentCachingContributionService implements ContributionService {
+
+	private static final Logger log = LoggerFactory.getLogger(SegmentCachingContributionService.class);
+
+	private static final int MAGIC = 0x53565347;
+	private static final int VERSION = 1;
+	private static final long MAX_SEGMENTS_PER_RETRIEVAL = 1_000_000;
+	private static final Duration DEFAULT_SETTLE_DELAY = Duration.ofDays(1);
+
+	private final ContributionService delegate;
+	private final Path directory;
+	private final long segmentSeconds;
+	private final Duration settleDelay;
+	private final Clock clock;
+	private final ContentBlobStore contents = new ContentBlobStore();
+
+	/**
+	 *
+	 * @param delegate
+	 *            must not be {@code null}
+	 * @param directory
+	 *            the directory holding the segment files. Must not be
+	 *            {@code null}. Will be created if it does not exist.
+	 * @param segmentLength
+	 *            must not be {@code null} and must be a positive number of
+	 *            whole seconds.
+	 */
+	public SegmentCachingContributionService(ContributionService delegate, Path directory, Duration segmentLength) {
+		this(delegate, directory, segmentLength, DEFAULT_SETTLE_DELAY, Clock.systemUTC());
+	}
+
+	/**
+	 *
+	 * @param delegate
+	 *            must not be {@code null}
+	 * @param directory
+	 *            the directory holding the segment files. Must not be
+	 *            {@code null}. Will be created if it does not exist.
+	 * @param segmentLength
+	 *            must not be {@code null} and must be a positive number of
+	 *            whole seconds.
+	 * @param clock
+	 *            decides which segments are complete. Must not be
+	 *            {@code null}.
+	 */
+	public SegmentCachingContributionService(ContributionService delegate, Path directory, Duration segmentLength,
+			Clock clock) {
+		this(delegate, directory, segmentLength, DEFAULT_SETTLE_DELAY, clock);
+	}
+
+	/**
+	 *
+	 * @param delegate
+	 *            must not be {@code null}
+	 * @param directory
+	 *            the directory holding the segment files. Must not be
+	 *            {@code null}. Will be created if it does not exist.
+	 * @param segmentLength
+	 *            must not be {@code null} and must be a positive number of
+	 *            whole seconds.
+	 * @param settleDelay
+	 *            the time after the end of a segment until it is complete and
+	 *            may be cached. Must not be {@code null} or negative.
+	 *            Defaults to one day in the other constructors.
+	 * @param clock
+	 *            decides which segments are complete. Must not be
+	 *            {@code null}.
+	 */
+	public SegmentCachingContributionService(ContributionService delegate, Path directory, Duration segmentLength,
+			Duration settleDelay, Clock clock) {
+		this.delegate = Objects.requireNonNull(delegate, "delegate");
+		this.directory = Objects.requireNonNull(directory, "directory");
+		Objects.requireNonNull(segmentLength, "segmentLength");
+		this.settleDelay = Objects.requireNonNull(settleDelay, "settleDelay");
+		this.clock = Objects.requireNonNull(clock, "clock");
+
+		if (segmentLength.isNegative() || segmentLength.isZero() || segmentLength.getNano() != 0) {
+			throw new IllegalArgumentException("segment length must be positive whole seconds: " + segmentLength);
+		}
+
+		if (settleDelay.isNegative()) {
+			throw new IllegalArgumentException("settle delay must not be negative: " + settleDelay);
+		}
+
+		this.segmentSeconds = segmentLength.getSeconds();
+	}
+
+	@Override
+	public Stream<Contribution> retrieveContributions(Instant startExclusive, Instant endInclusive) {
+		Objects.requireNonNull(startExclusive, "startExclusive");
+		Objects.requireNonNull(endInclusive, "endInclusive");
+
+		if (!endInclusive.isAfter(startExclusive)) {
+			return Stream.empty();
+		}
+
+		long firstSegment = Math.floorDiv(startExclusive.getEpochSecond(), segmentSeconds);
+		long lastSegment = Math.floorDiv(endInclusive.getEpochSecond(), segmentSeconds);
+		if (endInclusive.getNano() == 0 && Math.floorMod(endInclusive.getEpochSecond(), segmentSeconds) == 0) {
+			// the end is the exclusive start of a segment
+			lastSegment--;
+		}
+
+		if (lastSegment - firstSegment >= MAX_SEGMENTS_PER_RETRIEVAL) {
+			if (log.isDebugEnabled()) {
+				String msg = "Time frame between %s and %s spans too many segments, retrieving it uncached";
+				log.debug(String.format(msg, startExclusive, endInclusive));
+			}
+			return delegate.retrieveContributions(startExclusive, endInclusive);
+		}
+
+		// segments ending after this instant may still receive contributions
+		Instant settled = clock.instant().minus(settleDelay);
+
+		List<Supplier<Stream<Contribution>>> parts = new ArrayList<>();
+		for (long segment = firstSegment; segment <= lastSegment; segment++) {
+			Instant segmentStart = Instant.ofEpochSecond(segment * segmentSeconds);
+			Instant segmentEnd = segmentStart.plusSeconds(segmentSeconds);
+
+			Instant from = max(startExclusive, segmentStart);
+			Instant to = min(endInclusive, segmentEnd);
+
+			if (segmentEnd.isAfter(settled)) {
+				parts.add(() -> delegate.retrieveContributions(from, to));
+			} else {
+				long index = segment;
+				parts.add(() -> readSegment(index).filter(c -> isBetween(c.getContributionTime(), from, to)));
+			}
+		}
+
+		return parts.stream().flatMap(Supplier::get);
+	}
+
+	private Stream<Contribution> readSegment(long segment) {
+		Path file = directory.resolve(String.format("segment-%s-%s.bin", segment * segmentSeconds, segmentSeconds));
+
+		if (!Files.exists(file)) {
+			fillSegment(segment, file);
+		}
+
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new ContributionRetrievalException("segment too large to be mapped: " + file);
+			}
+			buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+		} catch (IOException e) {
+			throw new ContributionRetrievalException("could not read segment " + file, e);
+		}
+
+		if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+			throw new ContributionRetrievalException("not a segment file of version " + VERSION + ": " + file);
+		}
+
+		Spliterator<Contribution> records = new Spliterators.AbstractSpliterator<Contribution>(Long.MAX_VALUE,
+				Spliterator.ORDERED | Spliterator.NONNULL) {
+			@Override
+			public boolean tryAdvance(Consumer<? super Contribution> action) {
+				if (!buffer.hasRemaining()) {
+					return false;
+				}
+				action.accept(ContributionCodec.read(buffer, contents));
+				return true;
+			}
+		};
+
+		return StreamSupport.stream(records, false);
+	}
+
+	private void fillSegment(long segment, Path file) {
+		Instant segmentStart = Instant.ofEpochSecond(segment * segmentSeconds);
+		Instant segmentEnd = segmentStart.plusSeconds(segmentSeconds);
+
+		long count = 0;
+		try {
+			Files.createDirectories(directory);
+			Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+			try {
+				try (DataOutputStream out = new DataOutputStream(
+						new BufferedOutputStream(Files.newOutputStream(temporary)));
+						Stream<Contribution> contributions = delegate.retrieveContributions(segmentStart,
+								segmentEnd)) {
+					out.writeInt(MAGIC);
+					out.writeInt(VERSION);
+					Iterator<Contribution> iterator = contributions.iterator();
+					while (iterator.hasNext()) {
+						ContributionCodec.write(iterator.next(), out);
+						count++;
+					}
+				}
+				Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} finally {
+				Files.deleteIfExists(temporary);
+			}
+		} catch (IOException e) {
+			throw new ContributionRetrievalException("could not write segment " + file, e);
+		}
+
+		if (log.isDebugEnabled()) {
+			log.debug(String.format("Cached %s contributions between %s and %s", count, segmentStart, segmentEnd));
+		}
+	}
+
+	private static boolean isBetween(Instant time, Instant startExclusive, Instant endInclusive) {
+		return time.isAfter(startExclusive) && !time.isAfter(endInclusive);
+	}
+
+	private static Instant max(Instant a, Instant b) {
+		return a.isAfter(b) ? a : b;
+	}
+
+	private static Instant min(Instant a, Instant b) {
+		return a.isBefore(b) ? a : b;
+	}
+
+}
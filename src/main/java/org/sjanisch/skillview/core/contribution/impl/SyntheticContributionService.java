@@ -0,0 +1,505 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.contribution.impl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionId;
+import org.sjanisch.skillview.core.contribution.api.ContributionService;
+import org.sjanisch.skillview.core.contribution.api.Contributor;
+import org.sjanisch.skillview.core.contribution.api.Project;
+
+/**
+ * Generates synthetic contributions for load tests.
+ * <p>
+ * A fixed number of contributions is spread over a time line starting at an
+ * origin, contribution {@code i} falling at a random point within
+ * {@code [origin + i * gap, origin + (i + 1) * gap)}. Every contribution is
+ * derived from the seed and its index alone, so that any time frame is
+ * generated lazily, in chronological order and identically across
+ * retrievals, without holding generated contributions in memory.
+ * <p>
+ * The generated data follows skewed distributions:
+ * <ul>
+ * <li>contributors and projects are drawn from Zipf distributions, so that few
+ * contributors are very active while most contribute rarely, which also
+ * yields realistic gaps between the contributions of a contributor</li>
+ * <li>contributors mostly contribute to a home project</li>
+ * <li>a share of contributions stems from a few bot accounts which bump
+ * versions in build files</li>
+ * <li>the number of items per contribution and the number of lines per file
+ * follow log-normal distributions</li>
+ * <li>items add, modify or delete files, modifications replace and insert a
+ * few lines at a random position</li>
+ * </ul>
+ * Contents are generated on access only. Successive modifications of the same
+ * path are unrelated to each other.
+ * <p>
+ * This implementation is immutable and thread-safe.
+ *
+ * @author sebastianjanisch
+ *
+ */
+public class SyntheticContributionService implements ContributionService {
+
+	public static final class Builder {
+		private final long seed;
+		private long contributionCount = 50_000_000;
+		private int contributorCount = 100_000;
+		private int projectCount = 500;
+		private int filesPerProject = 2_000;
+		private int botCount = 20;
+		private double botShare = 0.05;
+		private Instant origin = Instant.parse("2016-01-01T00:00:00Z");
+		private Duration gap = Duration.ofMillis(600);
+		private int medianItems = 2;
+		private int maxItems = 500;
+		private int medianLines = 120;
+		private int maxLines = 20_000;
+
+		private Builder(long seed) {
+			this.seed = seed;
+		}
+
+		/**
+		 * 
+		 * @param contributionCount
+		 *            must be positive. Defaults to 50,000,000.
+		 * @return this instance. Never {@code null}.
+		 */
+		public Builder setContributionCount(long contributionCount) {
+			this.contributionCount = contributionCount;
+			return this;
+		}
+
+		/**
+		 * 
+		 * @param contributorCount
+		 *            the number of human contributors. Must be positive.
+		 *            Defaults to 100,000.
+		 * @return this instance. Never {@code null}.
+		 */
+		public Builder setContributorCount(int contributorCount) {
+			this.contributorCount = contributorCount;
+			return this;
+		}
+
+		/**
+		 * 
+		 * @param projectCount
+		 *            must be positive. Defaults to 500.
+		 * @return this instance. Never {@code null}.
+		 */
+		public Builder setProjectCount(int projectCount) {
+			this.projectCount = projectCount;
+			return this;
+		}
+
+		/**
+		 * 
+		 * @param filesPerProject
+		 *            must be positive. Defaults to 2,000.
+		 * @return this instance. Never {@code null}.
+		 */
+		public Builder setFilesPerProject(int filesPerProject) {
+			this.filesPerProject = filesPerProject;
+			return this;
+		}
+
+		/**
+		 * 
+		 * @param botCount
+		 *            the number of bot accounts. Must be positive. Defaults to
+		 *            20.
+		 * @param botShare
+		 *            the share of contributions by bots, between 0 and 1.
+		 *            Defaults to 0.05.
+		 * @return this instance. Never {@code null}.
+		 */
+		public Builder setBots(int botCount, double botShare) {
+			this.botCount = botCount;
+			this.botShare = botShare;
+			return this;
+		}
+
+		/**
+		 * 
+		 * @param origin
+		 *            the exclusive start of the time line. Must not be
+		 *            {@code null}. Defaults to 2016-01-01T00:00:00Z.
+		 * @param gap
+		 *            the average time between contributions. Must not be
+		 *            {@code null} and must be positive. Defaults to 600 ms,
+		 *            which spreads the default number of contributions over
+		 *            about a year.
+		 * @return this instance. Never {@code null}.
+		 */
+		public Builder setTimeLine(Instant origin, Duration gap) {
+			this.origin = Objects.requireNonNull(origin, "origin");
+			this.gap = Objects.requireNonNull(gap, "gap");
+			return this;
+		}
+
+		/**
+		 * 
+		 * @param medianItems
+		 *            the median number of items per contribution. Must be
+		 *            positive. Defaults to 2.
+		 * @param maxItems
+		 *            must be at least the median. Defaults to 500.
+		 * @return this instance. Never {@code null}.
+		 */
+		public Builder setItemsPerContribution(int medianItems, int maxItems) {
+			this.medianItems = medianItems;
+			this.maxItems = maxItems;
+			return this;
+		}
+
+		/**
+		 * 
+		 * @param medianLines
+		 *            the median number of lines per file. Must be positive.
+		 *            Defaults to 120.
+		 * @param maxLines
+		 *            must be at least the median. Defaults to 20,000.
+		 * @return this instance. Never {@code null}.
+		 */
+		public Builder setLinesPerFile(int medianLines, int maxLines) {
+			this.medianLines = medianLines;
+			this.maxLines = maxLines;
+			return this;
+		}
+
+		/**
+		 * 
+		 * @return new {@link SyntheticContributionService} with the settings
+		 *         of this builder. Never {@code null}.
+		 */
+		public SyntheticContributionService build() {
+			if (contributionCount <= 0 || contributorCount <= 0 || projectCount <= 0 || filesPerProject <= 0
+					|| botCount <= 0) {
+				throw new IllegalArgumentException("counts must be positive");
+			}
+			if (botShare < 0 || botShare > 1) {
+				throw new IllegalArgumentException("bot share must be between 0 and 1: " + botShare);
+			}
+			if (gap.isNegative() || gap.isZero()) {
+				throw new IllegalArgumentException("gap must be positive: " + gap);
+			}
+			if (medianItems <= 0 || maxItems < medianItems || medianLines <= 0 || maxLines < medianLines) {
+				String msg = "invalid items or lines: median items %s, max items %s, median lines %s, max lines %s";
+				throw new IllegalArgumentException(String.format(msg, medianItems, maxItems, medianLines, maxLines));
+			}
+			long gapNanos = gap.toNanos();
+			if (contributionCount > Long.MAX_VALUE / gapNanos) {
+				String msg = "time line too long: %s contributions with a gap of %s";
+				throw new IllegalArgumentException(String.format(msg, contributionCount, gap));
+			}
+			return new SyntheticContributionService(this);
+		}
+	}
+
+	private static final double CONTRIBUTOR_EXPONENT = 0.5;
+	private static final double PROJECT_EXPONENT = 1.0;
+	private static final double FILE_EXPONENT = 0.9;
+	private static final double HOME_PROJECT_SHARE = 0.8;
+	private static final double ITEMS_SIGMA = 1.1;
+	private static final double LINES_SIGMA = 1.0;
+	private static final double ADDITION_SHARE = 0.15;
+	private static final double DELETION_SHARE = 0.05;
+	private static final int ESTIMATED_LINE_LENGTH = 36;
+
+	private static final String[] EXTENSIONS = { "java", "java", "java", "java", "java", "java", "java", "xml", "js",
+			"md" };
+
+	// lines are a prefix, a random number and a suffix
+	private static final String[][] JAVA_LINES = { //
+			{ "import java.util.List", ";" }, //
+			{ "\tprivate final String field", ";" }, //
+			{ "\tint value = compute(", ");" }, //
+			{ "\treturn items.stream().map(item -> item.get(", ")).collect(Collectors.toList());" }, //
+			{ "\tif (value > ", ") {" }, //
+			{ "\t\tthrow new IllegalArgumentException(\"invalid value \" + ", ");" }, //
+			{ "\t}", "" }, //
+			{ "\t// TODO ", "" }, //
+			{ "\titems.forEach(item -> handle(item, ", "));" }, //
+			{ "\tpublic void method", "() {" }, //
+			{ "\tOptional<String> result = lookup(", ").filter(s -> !s.isEmpty());" } };
+	private static final String[][] XML_LINES = { //
+			{ "\t<dependency id=\"", "\"/>" }, //
+			{ "\t<property name=\"p", "\">value</property>" }, //
+			{ "\t<!-- ", " -->" } };
+	private static final String[][] JS_LINES = { //
+			{ "const value = compute(", ");" }, //
+			{ "items.map(item => item.get(", "));" }, //
+			{ "function handler", "(event) {" }, //
+			{ "}", "" } };
+	private static final String[][] MD_LINES = { //
+			{ "## Section ", "" }, //
+			{ "Some documentation for step ", "." }, //
+			{ "* item ", "" } };
+
+	private final long seed;
+	private final long contributionCount;
+	private final int filesPerProject;
+	private final int botCount;
+	private final double botShare;
+	private final Instant origin;
+	private final long gapNanos;
+	private final int medianItems;
+	private final int maxItems;
+	private final int medianLines;
+	private final int maxLines;
+	private final double[] contributors;
+	private final double[] projects;
+	private final double[] files;
+
+	private SyntheticContributionService(Builder builder) {
+		this.seed = builder.seed;
+		this.contributionCount = builder.contributionCount;
+		this.filesPerProject = builder.filesPerProject;
+		this.botCount = builder.botCount;
+		this.botShare = builder.botShare;
+		this.origin = builder.origin;
+		this.gapNanos = builder.gap.toNanos();
+		this.medianItems = builder.medianItems;
+		this.maxItems = builder.maxItems;
+		this.medianLines = builder.medianLines;
+		this.maxLines = builder.maxLines;
+		this.contributors = zipf(builder.contributorCount, CONTRIBUTOR_EXPONENT);
+		this.projects = zipf(builder.projectCount, PROJECT_EXPONENT);
+		this.files = zipf(builder.filesPerProject, FILE_EXPONENT);
+	}
+
+	/**
+	 * 
+	 * @param seed
+	 *            determines all generated contributions
+	 * @return new builder. Never {@code null}.
+	 */
+	public static Builder newBuilder(long seed) {
+		return new Builder(seed);
+	}
+
+	@Override
+	public Stream<Contribution> retrieveContributions(Instant startExclusive, Instant endInclusive) {
+		Objects.requireNonNull(startExclusive, "startExclusive");
+		Objects.requireNonNull(endInclusive, "endInclusive");
+
+		long first = Math.max(0, indexOf(startExclusive));
+		long last = Math.min(contributionCount - 1, indexOf(endInclusive));
+		if (first > last) {
+			return Stream.empty();
+		}
+
+		return LongStream.rangeClosed(first, last).filter(index -> {
+			Instant time = timeOf(index, random(index));
+			return time.isAfter(startExclusive) && !time.isAfter(endInclusive);
+		}).mapToObj(this::generate);
+	}
+
+	/**
+	 * @return the index of the contribution whose slot contains given time,
+	 *         {@code -1} before the origin
+	 */
+	private long indexOf(Instant time) {
+		if (!time.isAfter(origin)) {
+			return -1;
+		}
+		Duration sinceOrigin = Duration.between(origin, time);
+		if (sinceOrigin.compareTo(Duration.ofNanos(contributionCount * gapNanos)) >= 0) {
+			return contributionCount;
+		}
+		return sinceOrigin.toNanos() / gapNanos;
+	}
+
+	private Contribution generate(long index) {
+		SplittableRandom random = random(index);
+		Instant time = timeOf(index, random);
+		ContributionId id = ContributionId.of(String.format("synthetic-%s-%s", seed, index));
+		Project project;
+		Contributor contributor;
+		DefaultContribution.Builder builder;
+
+		if (random.nextDouble() < botShare) {
+			int bot = random.nextInt(botCount);
+			contributor = Contributor.of(String.format("bot-%s[bot]", bot),
+					String.format("bot-%s@bots.example.com", bot));
+			project = Project.of("project-" + sample(projects, random));
+			builder = DefaultContribution.newBuilder(id, project, contributor, time);
+			builder.setMessage("Bump dependency version");
+			String buildFile = random.nextBoolean() ? "pom.xml" : "package.json";
+			addItem(builder, project.getValue() + "/" + buildFile, "xml", 40, false, false, random.nextLong());
+		} else {
+			int human = sample(contributors, random);
+			contributor = Contributor.of("contributor-" + human, String.format("contributor-%s@example.com", human));
+			project = Project.of("project-" + (random.nextDouble() < HOME_PROJECT_SHARE ? homeProject(human)
+					: sample(projects, random)));
+			builder = DefaultContribution.newBuilder(id, project, contributor, time);
+			builder.setMessage(String.format("Change %s of %s", index, contributor.getName()));
+
+			int items = logNormal(random, medianItems, ITEMS_SIGMA, maxItems);
+			Set<Integer> touched = new HashSet<>();
+			for (int i = 0; i < items && touched.size() < filesPerProject; i++) {
+				int file = sample(files, random);
+				if (!touched.add(file)) {
+					continue;
+				}
+				String extension = EXTENSIONS[file % EXTENSIONS.length];
+				String path = String.format("%s/src/module%s/File%s.%s", project.getValue(), file % 40, file,
+						extension);
+				double kind = random.nextDouble();
+				int lines = logNormal(random, medianLines, LINES_SIGMA, maxLines);
+				addItem(builder, path, extension, lines, kind < ADDITION_SHARE,
+						kind >= ADDITION_SHARE && kind < ADDITION_SHARE + DELETION_SHARE, random.nextLong());
+			}
+		}
+
+		return builder.build();
+	}
+
+	private static void addItem(DefaultContribution.Builder builder, String path, String extension, int lines,
+			boolean added, boolean deleted, long contentSeed) {
+		long size = (long) lines * ESTIMATED_LINE_LENGTH;
+		Supplier<String> previous = added ? () -> "" : () -> render(contentSeed, lines, extension, 0);
+		Supplier<String> content = deleted ? () -> ""
+				: added ? () -> render(contentSeed, lines, extension, 0)
+						: () -> render(contentSeed, lines, extension, mix(contentSeed));
+		builder.addContributionItem(path, previous, added ? 0 : size, content, deleted ? 0 : size);
+	}
+
+	/**
+	 * Renders a file. An edit seed other than zero replaces and inserts a few
+	 * lines at a random position of the file rendered with edit seed zero.
+	 */
+	private static String render(long contentSeed, int lines, String extension, long editSeed) {
+		String[][] templates = templates(extension);
+		SplittableRandom base = new SplittableRandom(contentSeed);
+		SplittableRandom edit = new SplittableRandom(editSeed);
+
+		int editStart = -1;
+		int editEnd = -1;
+		int inserted = 0;
+		if (editSeed != 0) {
+			editStart = edit.nextInt(lines);
+			editEnd = Math.min(lines, editStart + 1 + edit.nextInt(8));
+			inserted = edit.nextInt(6);
+		}
+
+		StringBuilder result = new StringBuilder(lines * ESTIMATED_LINE_LENGTH);
+		for (int line = 0; line < lines; line++) {
+			// the base is always advanced so that unedited lines stay the same
+			String original = line(templates, base);
+			result.append(line >= editStart && line < editEnd ? line(templates, edit) : original).append('\n');
+			if (line == editStart) {
+				for (int i = 0; i < inserted; i++) {
+					result.append(line(templates, edit)).append('\n');
+				}
+			}
+		}
+		return result.toString();
+	}
+
+	private static String[][] templates(String extension) {
+		switch (extension) {
+		case "java":
+			return JAVA_LINES;
+		case "js":
+			return JS_LINES;
+		case "md":
+			return MD_LINES;
+		default:
+			return XML_LINES;
+		}
+	}
+
+	private static String line(String[][] templates, SplittableRandom random) {
+		String[] template = templates[random.nextInt(templates.length)];
+		return template[0] + random.nextInt(1000) + template[1];
+	}
+
+	private int homeProject(int contributor) {
+		return sample(projects, new SplittableRandom(mix(seed ^ mix(~contributor))));
+	}
+
+	private SplittableRandom random(long index) {
+		return new SplittableRandom(mix(seed ^ mix(index)));
+	}
+
+	/**
+	 * The time is the first value drawn from the random of a contribution.
+	 */
+	private Instant timeOf(long index, SplittableRandom random) {
+		return origin.plusNanos(index * gapNanos + random.nextLong(gapNanos));
+	}
+
+	/**
+	 * @return the cumulative distribution of a Zipf distribution over given
+	 *         number of ranks
+	 */
+	private static double[] zipf(int ranks, double exponent) {
+		double[] result = new double[ranks];
+		double sum = 0;
+		for (int rank = 0; rank < ranks; rank++) {
+			sum += 1 / Math.pow(rank + 1, exponent);
+			result[rank] = sum;
+		}
+		for (int rank = 0; rank < ranks; rank++) {
+			result[rank] /= sum;
+		}
+		return result;
+	}
+
+	private static int sample(double[] cumulative, SplittableRandom random) {
+		int index = Arrays.binarySearch(cumulative, random.nextDouble());
+		int result = index >= 0 ? index : -index - 1;
+		return Math.min(result, cumulative.length - 1);
+	}
+
+	private static int logNormal(SplittableRandom random, int median, double sigma, int max) {
+		// Box-Muller transform as SplittableRandom offers no gaussians
+		double radius = Math.sqrt(-2 * Math.log(1 - random.nextDouble()));
+		double gaussian = radius * Math.cos(2 * Math.PI * random.nextDouble());
+		long result = Math.round(median * Math.exp(sigma * gaussian));
+		return (int) Math.max(1, Math.min(max, result));
+	}
+
+	private static long mix(long value) {
+		long result = value;
+		result = (result ^ (result >>> 33)) * 0xff51afd7ed558ccdL;
+		result = (result ^ (result >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		return result ^ (result >>> 33);
+	}
+
+}
@@ -0,0 +1,179 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.contribution.impl.git;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.sjanisch.skillview.core.contribution.api.ContributionRetrievalException;
+
+/**
+ * A parsed git commit object.
+ * <p>
+ * This class is immutable and thread-safe.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+final class Commit {
+
+	private final ObjectId id;
+	private final ObjectId tree;
+	private final List<ObjectId> parents;
+	private final String authorName;
+	private final String authorEmail;
+	private final Instant authorTime;
+	private final Instant committerTime;
+	private final String message;
+
+	private Commit(ObjectId id, ObjectId tree, List<ObjectId> parents, String authorName, String authorEmail,
+			Instant authorTime, Instant committerTime, String message) {
+		this.id = id;
+		this.tree = tree;
+		this.parents = parents;
+		this.authorName = authorName;
+		this.authorEmail = authorEmail;
+		this.authorTime = authorTime;
+		this.committerTime = committerTime;
+		this.message = message;
+	}
+
+	/**
+	 * 
+	 * @param id
+	 *            must not be {@code null}
+	 * @param data
+	 *            the content of the commit object. Must not be {@code null}.
+	 * @return never {@code null}
+	 */
+	static Commit parse(ObjectId id, byte[] data) {
+		String text = new String(data, StandardCharsets.UTF_8);
+
+		ObjectId tree = null;
+		List<ObjectId> parents = new ArrayList<>(1);
+		String author = null;
+		String committer = null;
+
+		int position = 0;
+		while (position < text.length()) {
+			int end = text.indexOf('\n', position);
+			if (end < 0) {
+				end = text.length();
+			}
+			if (end == position) {
+				// an empty line separates the headers from the message
+				position++;
+				break;
+			}
+
+			String line = text.substring(position, end);
+			position = end + 1;
+
+			if (line.startsWith("tree ")) {
+				tree = ObjectId.fromHex(line.substring(5));
+			} else if (line.startsWith("parent ")) {
+				parents.add(ObjectId.fromHex(line.substring(7)));
+			} else if (line.startsWith("author ")) {
+				author = line.substring(7);
+			} else if (line.startsWith("committer ")) {
+				committer = line.substring(10);
+			}
+		}
+
+		if (tree == null || author == null || committer == null) {
+			throw new ContributionRetrievalException("corrupt commit " + id.toHex());
+		}
+
+		int emailStart = author.lastIndexOf('<');
+		int emailEnd = author.lastIndexOf('>');
+		if (emailStart < 0 || emailEnd < emailStart) {
+			throw new ContributionRetrievalException("corrupt author in commit " + id.toHex());
+		}
+
+		String name = author.substring(0, emailStart).trim();
+		String email = author.substring(emailStart + 1, emailEnd);
+		String message = position < text.length() ? text.substring(position) : "";
+
+		return new Commit(id, tree, Collections.unmodifiableList(parents), name, email.isEmpty() ? null : email,
+				parseTime(id, author), parseTime(id, committer), message);
+	}
+
+	/**
+	 * Parses the time of an identity of the form
+	 * {@code Name <email> seconds timezone}.
+	 */
+	private static Instant parseTime(ObjectId id, String identity) {
+		String[] parts = identity.substring(identity.lastIndexOf('>') + 1).trim().split(" ");
+		try {
+			return Instant.ofEpochSecond(Long.parseLong(parts[0]));
+		} catch (NumberFormatException e) {
+			throw new ContributionRetrievalException("corrupt time in commit " + id.toHex(), e);
+		}
+	}
+
+	ObjectId getId() {
+		return id;
+	}
+
+	ObjectId getTree() {
+		return tree;
+	}
+
+	/**
+	 * 
+	 * @return an unmodifiable list of parents, the first parent first. Never
+	 *         {@code null}.
+	 */
+	List<ObjectId> getParents() {
+		return parents;
+	}
+
+	String getAuthorName() {
+		return authorName;
+	}
+
+	/**
+	 * 
+	 * @return the email or {@code null} if it is empty
+	 */
+	String getAuthorEmail() {
+		return authorEmail;
+	}
+
+	Instant getAuthorTime() {
+		return authorTime;
+	}
+
+	Instant getCommitterTime() {
+		return committerTime;
+	}
+
+	String getMessage() {
+		return message;
+	}
+
+}
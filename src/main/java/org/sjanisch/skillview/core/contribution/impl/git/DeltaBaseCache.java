@@ -0,0 +1,106 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.contribution.impl.git;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A least recently used cache of inflated delta bases within pack files,
+ * bounded by the total number of cached bytes.
+ * <p>
+ * Objects in a pack are commonly stored as a chain of deltas on top of each
+ * other. Caching the bases avoids inflating and applying the same chain over
+ * and over when neighbouring versions of a file are read.
+ * <p>
+ * This class is thread-safe.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+final class DeltaBaseCache {
+
+	private final long capacity;
+	private final Map<Key, GitObject> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long size;
+
+	/**
+	 * 
+	 * @param capacity
+	 *            the maximum number of cached bytes. Zero disables caching.
+	 */
+	DeltaBaseCache(long capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("capacity must not be negative: " + capacity);
+		}
+		this.capacity = capacity;
+	}
+
+	synchronized GitObject get(PackFile pack, long offset) {
+		return entries.get(new Key(pack, offset));
+	}
+
+	synchronized void put(PackFile pack, long offset, GitObject object) {
+		long weight = object.getData().length;
+		if (weight > capacity / 2) {
+			// a single huge object would flush the whole cache
+			return;
+		}
+
+		GitObject previous = entries.put(new Key(pack, offset), object);
+		if (previous != null) {
+			size -= previous.getData().length;
+		}
+		size += weight;
+
+		Iterator<GitObject> eldest = entries.values().iterator();
+		while (size > capacity && eldest.hasNext()) {
+			size -= eldest.next().getData().length;
+			eldest.remove();
+		}
+	}
+
+	private static class Key {
+		private final PackFile pack;
+		private final long offset;
+
+		Key(PackFile pack, long offset) {
+			this.pack = pack;
+			this.offset = offset;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(pack, offset);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Key && ((Key) obj).pack == pack && ((Key) obj).offset == offset;
+		}
+	}
+
+}
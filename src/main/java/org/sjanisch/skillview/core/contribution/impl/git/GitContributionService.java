@@ -0,0 +1,297 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.contribution.impl.git;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionId;
+import org.sjanisch.skillview.core.contribution.api.ContributionRetrievalException;
+import org.sjanisch.skillview.core.contribution.api.ContributionService;
+import org.sjanisch.skillview.core.contribution.api.Contributor;
+import org.sjanisch.skillview.core.contribution.api.Project;
+import org.sjanisch.skillview.core.contribution.impl.ContentBlobStore;
+import org.sjanisch.skillview.core.contribution.impl.ContentBlobStore.ContentBlob;
+import org.sjanisch.skillview.core.contribution.impl.DefaultContribution;
+import org.sjanisch.skillview.core.contribution.impl.LazyContributionItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Retrieves contributions from a local git repository by reading its object
+ * database directly, without the need of a git installation.
+ * <p>
+ * Pack files and their indexes are mapped into memory and objects are inflated
+ * on demand. Deltas within pack files are resolved with the help of a cache of
+ * delta bases of configurable size.
+ * <p>
+ * Each commit reachable from {@code HEAD}, a branch, a tag or a
+ * remote-tracking branch whose author time lies within the requested time
+ * frame becomes a contribution. Other references such as {@code refs/stash}
+ * or {@code refs/notes/} do not point to history and are ignored. The history is
+ * walked from the most recently committed commits backwards and stops once all
+ * remaining commits have been committed more than {@link #CLOCK_SKEW} before
+ * the requested time frame. Contributions are returned in ascending order of
+ * their time.
+ * <p>
+ * The contribution items are the regular files changed against the first
+ * parent, with contents read lazily and decoded as UTF-8. Contents are shared
+ * through a {@link ContentBlobStore} keyed by their blob id, so that the
+ * content of one commit and the previous content of the next commit to the
+ * same file are held once while both are loaded. Merge commits carry no items
+ * as their changes are contributed by the merged commits. Commits at the
+ * boundary of a shallow clone carry no items either, as their parents are
+ * missing and diffing against an empty tree would attribute the whole
+ * snapshot of the repository to their author.
+ * <p>
+ * The repository's pack files are determined anew for each retrieval.
+ * <p>
+ * This implementation is thread-safe.
+ *
+ * @author sebastianjanisch
+ *
+ */
+public class GitContributionService implements ContributionService {
+
+	private static final Logger log = LoggerFactory.getLogger(GitContributionService.class);
+
+	/**
+	 * How far committer times of ancestors may lie after those of their
+	 * descendants before commits within the requested time frame are missed.
+	 */
+	public static final Duration CLOCK_SKEW = Duration.ofDays(1);
+
+	private static final long DEFAULT_DELTA_BASE_CACHE_SIZE = 64L * 1024 * 1024;
+	private static final int MAX_TAG_DEPTH = 10;
+
+	private final Path repository;
+	private final Project project;
+	private final long deltaBaseCacheSize;
+	private final ContentBlobStore contents;
+
+	/**
+	 * Creates a service with a delta base cache of 64 MiB.
+	 *
+	 * @param repository
+	 *            the working tree of a non-bare repository or the directory of
+	 *            a bare repository. Must not be {@code null}.
+	 * @param project
+	 *            the project that contributions belong to. Must not be
+	 *            {@code null}.
+	 */
+	public GitContributionService(Path repository, Project project) {
+		this(repository, project, DEFAULT_DELTA_BASE_CACHE_SIZE);
+	}
+
+	/**
+	 *
+	 * @param repository
+	 *            the working tree of a non-bare repository or the directory of
+	 *            a bare repository. Must not be {@code null}.
+	 * @param project
+	 *            the project that contributions belong to. Must not be
+	 *            {@code null}.
+	 * @param deltaBaseCacheSize
+	 *            the maximum number of bytes of delta bases cached per
+	 *            retrieval. Must not be negative.
+	 */
+	public GitContributionService(Path repository, Project project, long deltaBaseCacheSize) {
+		this(repository, project, deltaBaseCacheSize, new ContentBlobStore());
+	}
+
+	/**
+	 *
+	 * @param repository
+	 *            the working tree of a non-bare repository or the directory of
+	 *            a bare repository. Must not be {@code null}.
+	 * @param project
+	 *            the project that contributions belong to. Must not be
+	 *            {@code null}.
+	 * @param deltaBaseCacheSize
+	 *            the maximum number of bytes of delta bases cached per
+	 *            retrieval. Must not be negative.
+	 * @param contents
+	 *            shares the contents of contribution items. Must not be
+	 *            {@code null} and must only be shared with services of the
+	 *            same repository.
+	 */
+	public GitContributionService(Path repository, Project project, long deltaBaseCacheSize,
+			ContentBlobStore contents) {
+		this.repository = Objects.requireNonNull(repository, "repository");
+		this.project = Objects.requireNonNull(project, "project");
+
+		if (deltaBaseCacheSize < 0) {
+			throw new IllegalArgumentException("delta base cache size must not be negative: " + deltaBaseCacheSize);
+		}
+
+		this.deltaBaseCacheSize = deltaBaseCacheSize;
+		this.contents = Objects.requireNonNull(contents, "contents");
+	}
+
+	@Override
+	public Stream<Contribution> retrieveContributions(Instant startExclusive, Instant endInclusive) {
+		Objects.requireNonNull(startExclusive, "startExclusive");
+		Objects.requireNonNull(endInclusive, "endInclusive");
+
+		Repository git = Repository.open(repository, new DeltaBaseCache(deltaBaseCacheSize));
+		Set<ObjectId> shallow = git.readShallowCommits();
+		List<Commit> commits = walk(git, shallow, startExclusive, endInclusive);
+		commits.sort(Comparator.comparing(Commit::getAuthorTime).thenComparing(Commit::getId));
+
+		if (log.isDebugEnabled()) {
+			String msg = "Found %s commits between %s and %s in %s";
+			log.debug(String.format(msg, commits.size(), startExclusive, endInclusive, repository));
+		}
+
+		return commits.stream().map(commit -> toContribution(git.getObjects(), shallow, commit));
+	}
+
+	private List<Commit> walk(Repository git, Set<ObjectId> shallow, Instant startExclusive, Instant endInclusive) {
+		ObjectDatabase objects = git.getObjects();
+
+		PriorityQueue<Commit> queue = new PriorityQueue<>(
+				Comparator.comparing(Commit::getCommitterTime).reversed());
+		Set<ObjectId> seen = new HashSet<>();
+
+		for (ObjectId target : git.readReferenceTargets()) {
+			Commit commit = peel(objects, target);
+			if (commit != null && seen.add(commit.getId())) {
+				queue.add(commit);
+			}
+		}
+
+		Instant horizon = startExclusive.isBefore(Instant.MIN.plus(CLOCK_SKEW)) ? Instant.MIN
+				: startExclusive.minus(CLOCK_SKEW);
+
+		List<Commit> result = new ArrayList<>();
+		while (!queue.isEmpty()) {
+			Commit commit = queue.poll();
+			if (!commit.getCommitterTime().isAfter(horizon)) {
+				break;
+			}
+
+			Instant time = commit.getAuthorTime();
+			if (time.isAfter(startExclusive) && !time.isAfter(endInclusive)) {
+				result.add(commit);
+			}
+
+			if (!shallow.contains(commit.getId())) {
+				for (ObjectId parent : commit.getParents()) {
+					if (seen.add(parent)) {
+						queue.add(readCommit(objects, parent));
+					}
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return the commit that given object (possibly a chain of annotated
+	 *         tags) refers to, or {@code null} if it does not refer to a
+	 *         commit or does not exist.
+	 */
+	private Commit peel(ObjectDatabase objects, ObjectId id) {
+		ObjectId current = id;
+		for (int depth = 0; depth < MAX_TAG_DEPTH; depth++) {
+			GitObject object = objects.find(current);
+			if (object == null) {
+				if (log.isDebugEnabled()) {
+					log.debug(String.format("Ignoring reference to missing object %s", current.toHex()));
+				}
+				return null;
+			}
+			if (object.getType() == GitObject.COMMIT) {
+				return Commit.parse(current, object.getData());
+			}
+			if (object.getType() != GitObject.TAG) {
+				return null;
+			}
+			String tag = new String(object.getData(), StandardCharsets.UTF_8);
+			if (!tag.startsWith("object ") || tag.length() < 47) {
+				throw new ContributionRetrievalException("corrupt tag " + current.toHex());
+			}
+			current = ObjectId.fromHex(tag.substring(7, 47));
+		}
+		return null;
+	}
+
+	private Commit readCommit(ObjectDatabase objects, ObjectId id) {
+		GitObject object = objects.open(id);
+		if (object.getType() != GitObject.COMMIT) {
+			throw new ContributionRetrievalException("not a commit: " + id.toHex());
+		}
+		return Commit.parse(id, object.getData());
+	}
+
+	private Contribution toContribution(ObjectDatabase objects, Set<ObjectId> shallow, Commit commit) {
+		Contributor contributor = Contributor.of(commit.getAuthorName(), commit.getAuthorEmail());
+		DefaultContribution.Builder builder = DefaultContribution.newBuilder(
+				ContributionId.of(commit.getId().toHex()), project, contributor, commit.getAuthorTime());
+		builder.setMessage(commit.getMessage());
+
+		// the parents of shallow commits are missing, so their changes are
+		// unknown just like those of merge commits
+		List<ObjectId> parents = commit.getParents();
+		if (parents.size() <= 1 && !shallow.contains(commit.getId())) {
+			ObjectId parentTree = parents.isEmpty() ? null : readCommit(objects, parents.get(0)).getTree();
+			for (TreeDiff.Change change : TreeDiff.diff(objects, parentTree, commit.getTree())) {
+				ObjectId oldId = change.getOldId();
+				ObjectId newId = change.getNewId();
+				builder.addContributionItem(LazyContributionItem.ofBlobs(change.getPath(), content(objects, oldId),
+						oldId == null ? 0 : objects.size(oldId), content(objects, newId),
+						newId == null ? 0 : objects.size(newId)));
+			}
+		}
+
+		return builder.build();
+	}
+
+	private Supplier<ContentBlob> content(ObjectDatabase objects, ObjectId blob) {
+		if (blob == null) {
+			return () -> ContentBlob.unshared("");
+		}
+		return () -> contents.acquire(blob.toHash128(),
+				() -> new String(objects.open(blob).getData(), StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[%s]", getClass().getSimpleName(), repository);
+	}
+
+}
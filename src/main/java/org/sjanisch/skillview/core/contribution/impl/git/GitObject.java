@@ -0,0 +1,86 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.contribution.impl.git;
+
+/**
+ * The inflated content of a git object together with its type.
+ * <p>
+ * Instances must not be modified after creation.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+final class GitObject {
+
+	static final int COMMIT = 1;
+	static final int TREE = 2;
+	static final int BLOB = 3;
+	static final int TAG = 4;
+
+	private final int type;
+	private final byte[] data;
+
+	GitObject(int type, byte[] data) {
+		this.type = type;
+		this.data = data;
+	}
+
+	/**
+	 * 
+	 * @param name
+	 *            the type name as found in loose object headers
+	 * @return one of the type constants of this class
+	 */
+	static int typeOf(String name) {
+		switch (name) {
+		case "commit":
+			return COMMIT;
+		case "tree":
+			return TREE;
+		case "blob":
+			return BLOB;
+		case "tag":
+			return TAG;
+		default:
+			throw new IllegalArgumentException("unknown object type " + name);
+		}
+	}
+
+	/**
+	 * 
+	 * @return one of the type constants of this class
+	 */
+	int getType() {
+		return type;
+	}
+
+	/**
+	 * 
+	 * @return the inflated content. Must not be modified. Never {@code null}.
+	 */
+	byte[] getData() {
+		return data;
+	}
+
+}
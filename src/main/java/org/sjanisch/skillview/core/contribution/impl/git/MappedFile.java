@@ -0,0 +1,139 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.contribution.impl.git;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A read-only file mapped into memory in windows of 1 GiB so that files beyond
+ * the 2 GiB limit of a single {@link MappedByteBuffer} can be read.
+ * <p>
+ * This class is thread-safe.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+final class MappedFile {
+
+	private static final int WINDOW_BITS = 30;
+	private static final long WINDOW_MASK = (1L << WINDOW_BITS) - 1;
+
+	private final Path path;
+	private final long length;
+	private final MappedByteBuffer[] windows;
+
+	private MappedFile(Path path, long length, MappedByteBuffer[] windows) {
+		this.path = path;
+		this.length = length;
+		this.windows = windows;
+	}
+
+	/**
+	 * 
+	 * @param path
+	 *            must not be {@code null}
+	 * @return never {@code null}
+	 * @throws IOException
+	 *             if the file cannot be mapped
+	 */
+	static MappedFile map(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long length = channel.size();
+			int count = (int) ((length + WINDOW_MASK) >>> WINDOW_BITS);
+			MappedByteBuffer[] windows = new MappedByteBuffer[count];
+			for (int i = 0; i < count; i++) {
+				long position = (long) i << WINDOW_BITS;
+				windows[i] = channel.map(MapMode.READ_ONLY, position, Math.min(length - position, 1L << WINDOW_BITS));
+			}
+			return new MappedFile(path, length, windows);
+		}
+	}
+
+	Path getPath() {
+		return path;
+	}
+
+	long length() {
+		return length;
+	}
+
+	/**
+	 * 
+	 * @param position
+	 *            must be within the file
+	 * @return the unsigned byte at given position
+	 */
+	int get(long position) {
+		checkPosition(position, 1);
+		return windows[(int) (position >>> WINDOW_BITS)].get((int) (position & WINDOW_MASK)) & 0xff;
+	}
+
+	/**
+	 * 
+	 * @param position
+	 *            must be within the file
+	 * @return the big-endian int at given position
+	 */
+	int getInt(long position) {
+		checkPosition(position, 4);
+		return get(position) << 24 | get(position + 1) << 16 | get(position + 2) << 8 | get(position + 3);
+	}
+
+	/**
+	 * Copies bytes starting at given position. Fewer bytes than requested may
+	 * be copied if the end of the file or a window is reached.
+	 * 
+	 * @param position
+	 *            must be within the file
+	 * @param target
+	 *            must not be {@code null}
+	 * @param offset
+	 *            in given target
+	 * @param length
+	 *            the maximum number of bytes to copy
+	 * @return the number of bytes copied. Positive unless length is zero.
+	 */
+	int read(long position, byte[] target, int offset, int length) {
+		checkPosition(position, 1);
+		ByteBuffer window = windows[(int) (position >>> WINDOW_BITS)].duplicate();
+		window.position((int) (position & WINDOW_MASK));
+		int count = Math.min(length, window.remaining());
+		window.get(target, offset, count);
+		return count;
+	}
+
+	private void checkPosition(long position, int size) {
+		if (position < 0 || position + size > length) {
+			String msg = "position %s beyond end of %s";
+			throw new IllegalArgumentException(String.format(msg, position, path));
+		}
+	}
+
+}
@@ -0,0 +1,268 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.contribution.impl.git;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+import org.sjanisch.skillview.core.contribution.api.ContributionRetrievalException;
+
+/**
+ * The objects of a git repository, stored in pack files, as loose objects or
+ * in alternate object directories.
+ * <p>
+ * The set of pack files is determined when the database is opened.
+ * <p>
+ * This class is thread-safe.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+final class ObjectDatabase {
+
+	private final Path directory;
+	private final List<PackFile> packs;
+	private final List<ObjectDatabase> alternates;
+	private final DeltaBaseCache cache;
+
+	private ObjectDatabase(Path directory, List<PackFile> packs, List<ObjectDatabase> alternates,
+			DeltaBaseCache cache) {
+		this.directory = directory;
+		this.packs = packs;
+		this.alternates = alternates;
+		this.cache = cache;
+	}
+
+	/**
+	 * 
+	 * @param directory
+	 *            the {@code objects} directory of a repository. Must not be
+	 *            {@code null}.
+	 * @param cache
+	 *            must not be {@code null}
+	 * @return never {@code null}
+	 */
+	static ObjectDatabase open(Path directory, DeltaBaseCache cache) {
+		return open(directory, cache, true);
+	}
+
+	private static ObjectDatabase open(Path directory, DeltaBaseCache cache, boolean withAlternates) {
+		try {
+			List<PackFile> packs = new ArrayList<>();
+			Path packDirectory = directory.resolve("pack");
+			if (Files.isDirectory(packDirectory)) {
+				try (DirectoryStream<Path> indexFiles = Files.newDirectoryStream(packDirectory, "*.idx")) {
+					for (Path indexFile : indexFiles) {
+						String name = indexFile.getFileName().toString();
+						Path packFile = packDirectory.resolve(name.substring(0, name.length() - 4) + ".pack");
+						if (Files.exists(packFile)) {
+							packs.add(PackFile.open(indexFile, packFile));
+						}
+					}
+				}
+			}
+
+			List<ObjectDatabase> alternates = new ArrayList<>();
+			Path alternatesFile = directory.resolve("info").resolve("alternates");
+			if (withAlternates && Files.exists(alternatesFile)) {
+				for (String line : Files.readAllLines(alternatesFile, StandardCharsets.UTF_8)) {
+					if (!line.trim().isEmpty() && !line.startsWith("#")) {
+						// alternates of alternates are not followed
+						alternates.add(open(directory.resolve(line.trim()), cache, false));
+					}
+				}
+			}
+
+			return new ObjectDatabase(directory, Collections.unmodifiableList(packs),
+					Collections.unmodifiableList(alternates), cache);
+		} catch (IOException e) {
+			throw new ContributionRetrievalException("could not open object database " + directory, e);
+		}
+	}
+
+	/**
+	 * 
+	 * @param id
+	 *            must not be {@code null}
+	 * @return never {@code null}
+	 * @throws ContributionRetrievalException
+	 *             if the object does not exist
+	 */
+	GitObject open(ObjectId id) {
+		GitObject result = find(id);
+		if (result == null) {
+			throw new ContributionRetrievalException("missing object " + id.toHex() + " in " + directory);
+		}
+		return result;
+	}
+
+	/**
+	 * 
+	 * @param id
+	 *            must not be {@code null}
+	 * @return the object or {@code null} if it does not exist
+	 */
+	GitObject find(ObjectId id) {
+		for (PackFile pack : packs) {
+			long offset = pack.findOffset(id);
+			if (offset >= 0) {
+				return pack.load(offset, this, cache);
+			}
+		}
+
+		GitObject loose = readLoose(id);
+		if (loose != null) {
+			return loose;
+		}
+
+		for (ObjectDatabase alternate : alternates) {
+			GitObject result = alternate.find(id);
+			if (result != null) {
+				return result;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Determines the size of an object without inflating all of it.
+	 * 
+	 * @param id
+	 *            must not be {@code null}
+	 * @return the inflated size of the object in bytes
+	 * @throws ContributionRetrievalException
+	 *             if the object does not exist
+	 */
+	long size(ObjectId id) {
+		long result = findSize(id);
+		if (result < 0) {
+			throw new ContributionRetrievalException("missing object " + id.toHex() + " in " + directory);
+		}
+		return result;
+	}
+
+	private long findSize(ObjectId id) {
+		for (PackFile pack : packs) {
+			long offset = pack.findOffset(id);
+			if (offset >= 0) {
+				return pack.size(offset);
+			}
+		}
+
+		long looseSize = readLooseSize(id);
+		if (looseSize >= 0) {
+			return looseSize;
+		}
+
+		for (ObjectDatabase alternate : alternates) {
+			long result = alternate.findSize(id);
+			if (result >= 0) {
+				return result;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Reads a loose object of the form {@code <type> <size>\0<data>}.
+	 * 
+	 * @return the object or {@code null} if there is no such loose object
+	 */
+	private GitObject readLoose(ObjectId id) {
+		Path file = looseFile(id);
+		try (InputStream in = new InflaterInputStream(Files.newInputStream(file))) {
+			long[] header = readLooseHeader(in, file);
+			byte[] data = new byte[(int) header[1]];
+			new DataInputStream(in).readFully(data);
+			return new GitObject((int) header[0], data);
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (EOFException | ZipException e) {
+			throw new ContributionRetrievalException("corrupt loose object " + file, e);
+		} catch (IOException e) {
+			throw new ContributionRetrievalException("could not read loose object " + file, e);
+		}
+	}
+
+	/**
+	 * 
+	 * @return the size of the loose object or {@code -1} if there is no such
+	 *         loose object
+	 */
+	private long readLooseSize(ObjectId id) {
+		Path file = looseFile(id);
+		try (InputStream in = new InflaterInputStream(Files.newInputStream(file))) {
+			return readLooseHeader(in, file)[1];
+		} catch (NoSuchFileException e) {
+			return -1;
+		} catch (ZipException e) {
+			throw new ContributionRetrievalException("corrupt loose object " + file, e);
+		} catch (IOException e) {
+			throw new ContributionRetrievalException("could not read loose object " + file, e);
+		}
+	}
+
+	private Path looseFile(ObjectId id) {
+		String hex = id.toHex();
+		return directory.resolve(hex.substring(0, 2)).resolve(hex.substring(2));
+	}
+
+	private static long[] readLooseHeader(InputStream in, Path file) throws IOException {
+		StringBuilder header = new StringBuilder();
+		int c;
+		while ((c = in.read()) > 0 && header.length() < 32) {
+			header.append((char) c);
+		}
+		int separator = header.indexOf(" ");
+		if (c != 0 || separator < 0) {
+			throw new ContributionRetrievalException("corrupt loose object " + file);
+		}
+
+		try {
+			int type = GitObject.typeOf(header.substring(0, separator));
+			int size = Integer.parseInt(header.substring(separator + 1));
+			if (size < 0) {
+				throw new IllegalArgumentException("negative size " + size);
+			}
+			return new long[] { type, size };
+		} catch (IllegalArgumentException e) {
+			throw new ContributionRetrievalException("corrupt loose object " + file, e);
+		}
+	}
+
+}
@@ -0,0 +1,146 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.contribution.impl.git;
+
+import java.util.Arrays;
+
+import org.sjanisch.skillview.core.utility.Hash128;
+
+/**
+ * The 20 byte SHA-1 name of a git object.
+ * <p>
+ * This class is immutable and thread-safe.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+final class ObjectId implements Comparable<ObjectId> {
+
+	static final int LENGTH = 20;
+
+	private final byte[] bytes;
+
+	private ObjectId(byte[] bytes) {
+		this.bytes = bytes;
+	}
+
+	/**
+	 * 
+	 * @param source
+	 *            must not be {@code null}
+	 * @param offset
+	 *            of the first of {@link #LENGTH} bytes in given source
+	 * @return never {@code null}
+	 */
+	static ObjectId fromBytes(byte[] source, int offset) {
+		return new ObjectId(Arrays.copyOfRange(source, offset, offset + LENGTH));
+	}
+
+	/**
+	 * 
+	 * @param hex
+	 *            40 hexadecimal digits. Must not be {@code null}.
+	 * @return never {@code null}
+	 */
+	static ObjectId fromHex(String hex) {
+		if (hex == null || hex.length() != 2 * LENGTH) {
+			throw new IllegalArgumentException("expected 40 hex digits: " + hex);
+		}
+		byte[] bytes = new byte[LENGTH];
+		for (int i = 0; i < LENGTH; i++) {
+			int high = Character.digit(hex.charAt(2 * i), 16);
+			int low = Character.digit(hex.charAt(2 * i + 1), 16);
+			if (high < 0 || low < 0) {
+				throw new IllegalArgumentException("expected 40 hex digits: " + hex);
+			}
+			bytes[i] = (byte) (high << 4 | low);
+		}
+		return new ObjectId(bytes);
+	}
+
+	/**
+	 * 
+	 * @param index
+	 *            between 0 and {@link #LENGTH} (exclusive)
+	 * @return the unsigned byte at given index
+	 */
+	int getByte(int index) {
+		return bytes[index] & 0xff;
+	}
+
+	/**
+	 * 
+	 * @return this id as 40 hexadecimal digits. Never {@code null}.
+	 */
+	String toHex() {
+		StringBuilder result = new StringBuilder(2 * LENGTH);
+		for (byte b : bytes) {
+			result.append(Character.forDigit((b >> 4) & 0xf, 16));
+			result.append(Character.forDigit(b & 0xf, 16));
+		}
+		return result.toString();
+	}
+
+	/**
+	 * 
+	 * @return the first 128 bits of this id. Never {@code null}.
+	 */
+	Hash128 toHash128() {
+		long high = 0;
+		long low = 0;
+		for (int i = 0; i < 8; i++) {
+			high = high << 8 | getByte(i);
+			low = low << 8 | getByte(8 + i);
+		}
+		return Hash128.of(high, low);
+	}
+
+	@Override
+	public int compareTo(ObjectId other) {
+		for (int i = 0; i < LENGTH; i++) {
+			int result = getByte(i) - other.getByte(i);
+			if (result != 0) {
+				return result;
+			}
+		}
+		return 0;
+	}
+
+	@Override
+	public int hashCode() {
+		// object ids are uniformly distributed already
+		return (bytes[0] & 0xff) << 24 | (bytes[1] & 0xff) << 16 | (bytes[2] & 0xff) << 8 | (bytes[3] & 0xff);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj != null && obj instanceof ObjectId && Arrays.equals(((ObjectId) obj).bytes, bytes);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[%s]", getClass().getSimpleName(), toHex());
+	}
+
+}
@@ -0,0 +1,391 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.contribution.impl.git;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.sjanisch.skillview.core.contribution.api.ContributionRetrievalException;
+
+/**
+ * A git pack file together with its version 2 index, both mapped into memory.
+ * <p>
+ * Objects are located through the fan-out table and a binary search over the
+ * sorted object names of the index and inflated on demand. Deltas, both
+ * against an offset within the pack and against an object name, are resolved
+ * iteratively with the help of a {@link DeltaBaseCache}.
+ * <p>
+ * This class is thread-safe.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+final class PackFile {
+
+	private static final int PACK_SIGNATURE = 0x5041434b;
+	private static final int INDEX_SIGNATURE = 0xff744f63;
+
+	private static final int OFS_DELTA = 6;
+	private static final int REF_DELTA = 7;
+
+	private static final int MAX_DELTA_CHAIN = 10_000;
+	private static final int INFLATE_CHUNK = 8192;
+
+	private final MappedFile index;
+	private final MappedFile pack;
+	private final int objectCount;
+
+	private PackFile(MappedFile index, MappedFile pack, int objectCount) {
+		this.index = index;
+		this.pack = pack;
+		this.objectCount = objectCount;
+	}
+
+	/**
+	 * 
+	 * @param indexFile
+	 *            the {@code .idx} file. Must not be {@code null}.
+	 * @param packFile
+	 *            the {@code .pack} file. Must not be {@code null}.
+	 * @return never {@code null}
+	 * @throws IOException
+	 *             if the files cannot be mapped
+	 */
+	static PackFile open(Path indexFile, Path packFile) throws IOException {
+		MappedFile index = MappedFile.map(indexFile);
+		MappedFile pack = MappedFile.map(packFile);
+
+		if (index.length() < 8 + 256 * 4 || index.getInt(0) != INDEX_SIGNATURE || index.getInt(4) != 2) {
+			throw new ContributionRetrievalException("not a version 2 pack index: " + indexFile);
+		}
+		if (pack.length() < 12 || pack.getInt(0) != PACK_SIGNATURE) {
+			throw new ContributionRetrievalException("not a pack file: " + packFile);
+		}
+
+		int objectCount = index.getInt(8 + 255 * 4);
+		if (objectCount != pack.getInt(8)) {
+			throw new ContributionRetrievalException("pack index does not match pack: " + indexFile);
+		}
+
+		return new PackFile(index, pack, objectCount);
+	}
+
+	/**
+	 * 
+	 * @param id
+	 *            must not be {@code null}
+	 * @return the offset of the object within the pack or {@code -1} if the
+	 *         pack does not contain given object
+	 */
+	long findOffset(ObjectId id) {
+		int first = id.getByte(0);
+		int low = first == 0 ? 0 : index.getInt(8 + (first - 1) * 4);
+		int high = index.getInt(8 + first * 4) - 1;
+
+		long names = 8 + 256 * 4;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int comparison = compare(id, names + (long) middle * ObjectId.LENGTH);
+			if (comparison == 0) {
+				return offsetAt(middle);
+			} else if (comparison < 0) {
+				high = middle - 1;
+			} else {
+				low = middle + 1;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * 
+	 * @param offset
+	 *            as returned by {@link #findOffset(ObjectId)}
+	 * @param database
+	 *            resolves delta bases outside this pack. Must not be
+	 *            {@code null}.
+	 * @param cache
+	 *            must not be {@code null}
+	 * @return never {@code null}
+	 */
+	GitObject load(long offset, ObjectDatabase database, DeltaBaseCache cache) {
+		Deque<Entry> deltas = new ArrayDeque<>();
+		long current = offset;
+		GitObject base;
+		boolean cacheable = true;
+
+		while (true) {
+			base = cache.get(this, current);
+			if (base != null) {
+				break;
+			}
+
+			Entry entry = readEntry(current);
+			if (entry.type < OFS_DELTA) {
+				base = new GitObject(entry.type, inflate(entry.dataStart, entry.size, entry.size));
+				break;
+			}
+
+			deltas.push(entry);
+			if (deltas.size() > MAX_DELTA_CHAIN) {
+				throw new ContributionRetrievalException("delta chain too long in " + pack.getPath());
+			}
+
+			if (entry.type == OFS_DELTA) {
+				current = entry.baseOffset;
+			} else {
+				current = findOffset(entry.baseId);
+				if (current < 0) {
+					base = database.open(entry.baseId);
+					cacheable = false;
+					break;
+				}
+			}
+		}
+
+		while (!deltas.isEmpty()) {
+			if (cacheable) {
+				cache.put(this, current, base);
+			}
+			Entry delta = deltas.pop();
+			byte[] instructions = inflate(delta.dataStart, delta.size, delta.size);
+			base = new GitObject(base.getType(), applyDelta(base.getData(), instructions));
+			current = delta.offset;
+			cacheable = true;
+		}
+
+		return base;
+	}
+
+	/**
+	 * Determines the size of an object without inflating all of it.
+	 * 
+	 * @param offset
+	 *            as returned by {@link #findOffset(ObjectId)}
+	 * @return the inflated size of the object in bytes
+	 */
+	long size(long offset) {
+		Entry entry = readEntry(offset);
+		if (entry.type < OFS_DELTA) {
+			return entry.size;
+		}
+
+		// the delta starts with the sizes of its base and its result
+		byte[] header = inflate(entry.dataStart, entry.size, Math.min(entry.size, 20));
+		int[] position = { 0 };
+		readVarInt(header, position);
+		return readVarInt(header, position);
+	}
+
+	private long offsetAt(int position) {
+		long offsets = 8 + 256 * 4 + (long) objectCount * (ObjectId.LENGTH + 4);
+		int offset = index.getInt(offsets + (long) position * 4);
+		if ((offset & 0x80000000) == 0) {
+			return offset;
+		}
+		// the offset refers to the table of large offsets
+		long largeOffsets = offsets + (long) objectCount * 4;
+		long large = largeOffsets + (long) (offset & 0x7fffffff) * 8;
+		return ((long) index.getInt(large) << 32) | (index.getInt(large + 4) & 0xffffffffL);
+	}
+
+	private int compare(ObjectId id, long position) {
+		for (int i = 0; i < ObjectId.LENGTH; i++) {
+			int result = id.getByte(i) - index.get(position + i);
+			if (result != 0) {
+				return result;
+			}
+		}
+		return 0;
+	}
+
+	private Entry readEntry(long offset) {
+		long position = offset;
+		int c = pack.get(position++);
+		int type = (c >> 4) & 7;
+		long size = c & 15;
+		int shift = 4;
+		while ((c & 0x80) != 0) {
+			c = pack.get(position++);
+			size |= (long) (c & 0x7f) << shift;
+			shift += 7;
+		}
+
+		if (size > Integer.MAX_VALUE - 8) {
+			String msg = "object at %s in %s too large: %s";
+			throw new ContributionRetrievalException(String.format(msg, offset, pack.getPath(), size));
+		}
+
+		Entry entry = new Entry(offset, type, (int) size);
+		if (type == OFS_DELTA) {
+			c = pack.get(position++);
+			long distance = c & 0x7f;
+			while ((c & 0x80) != 0) {
+				c = pack.get(position++);
+				distance = ((distance + 1) << 7) | (c & 0x7f);
+			}
+			entry.baseOffset = offset - distance;
+		} else if (type == REF_DELTA) {
+			byte[] name = new byte[ObjectId.LENGTH];
+			for (int i = 0; i < name.length; i++) {
+				name[i] = (byte) pack.get(position++);
+			}
+			entry.baseId = ObjectId.fromBytes(name, 0);
+		} else if (type < GitObject.COMMIT || type > GitObject.TAG) {
+			String msg = "invalid object type %s at %s in %s";
+			throw new ContributionRetrievalException(String.format(msg, type, offset, pack.getPath()));
+		}
+		entry.dataStart = position;
+
+		return entry;
+	}
+
+	private byte[] inflate(long position, int size, int limit) {
+		byte[] result = new byte[limit];
+		byte[] input = new byte[INFLATE_CHUNK];
+		Inflater inflater = new Inflater();
+		try {
+			long next = position;
+			int count = 0;
+			while (count < limit) {
+				if (inflater.needsInput()) {
+					int read = pack.read(next, input, 0, input.length);
+					next += read;
+					inflater.setInput(input, 0, read);
+				}
+				int inflated = inflater.inflate(result, count, limit - count);
+				count += inflated;
+				if (inflated == 0 && (inflater.finished() || inflater.needsDictionary())) {
+					break;
+				}
+			}
+			if (count != limit) {
+				String msg = "truncated object at %s in %s: expected %s bytes, got %s";
+				throw new ContributionRetrievalException(String.format(msg, position, pack.getPath(), size, count));
+			}
+			return result;
+		} catch (DataFormatException | IllegalArgumentException e) {
+			String msg = "corrupt object at %s in %s";
+			throw new ContributionRetrievalException(String.format(msg, position, pack.getPath()), e);
+		} finally {
+			inflater.end();
+		}
+	}
+
+	/**
+	 * Applies git's delta format: the base and result size followed by
+	 * instructions to either copy a range of the base or insert literal bytes.
+	 */
+	private byte[] applyDelta(byte[] base, byte[] delta) {
+		int[] position = { 0 };
+		long baseSize = readVarInt(delta, position);
+		long resultSize = readVarInt(delta, position);
+		if (baseSize != base.length || resultSize > Integer.MAX_VALUE - 8) {
+			throw new ContributionRetrievalException("corrupt delta in " + pack.getPath());
+		}
+
+		byte[] result = new byte[(int) resultSize];
+		int target = 0;
+		int p = position[0];
+		try {
+			while (p < delta.length) {
+				int instruction = delta[p++] & 0xff;
+				if ((instruction & 0x80) != 0) {
+					long copyOffset = 0;
+					for (int i = 0; i < 4; i++) {
+						if ((instruction & (1 << i)) != 0) {
+							copyOffset |= (long) (delta[p++] & 0xff) << (8 * i);
+						}
+					}
+					int copySize = 0;
+					for (int i = 0; i < 3; i++) {
+						if ((instruction & (0x10 << i)) != 0) {
+							copySize |= (delta[p++] & 0xff) << (8 * i);
+						}
+					}
+					if (copySize == 0) {
+						copySize = 0x10000;
+					}
+					System.arraycopy(base, (int) copyOffset, result, target, copySize);
+					target += copySize;
+				} else if (instruction != 0) {
+					System.arraycopy(delta, p, result, target, instruction);
+					p += instruction;
+					target += instruction;
+				} else {
+					throw new ContributionRetrievalException("corrupt delta in " + pack.getPath());
+				}
+			}
+		} catch (IndexOutOfBoundsException e) {
+			throw new ContributionRetrievalException("corrupt delta in " + pack.getPath(), e);
+		}
+
+		if (target != result.length) {
+			throw new ContributionRetrievalException("corrupt delta in " + pack.getPath());
+		}
+
+		return result;
+	}
+
+	private static long readVarInt(byte[] data, int[] position) {
+		long result = 0;
+		int shift = 0;
+		int c;
+		do {
+			if (position[0] >= data.length) {
+				throw new ContributionRetrievalException("corrupt delta header");
+			}
+			c = data[position[0]++] & 0xff;
+			result |= (long) (c & 0x7f) << shift;
+			shift += 7;
+		} while ((c & 0x80) != 0);
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[%s]", getClass().getSimpleName(), pack.getPath());
+	}
+
+	private static class Entry {
+		private final long offset;
+		private final int type;
+		private final int size;
+		private long dataStart;
+		private long baseOffset;
+		private ObjectId baseId;
+
+		Entry(long offset, int type, int size) {
+			this.offset = offset;
+			this.type = type;
+			this.size = size;
+		}
+	}
+
+}
@@ -0,0 +1,222 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.contribution.impl.git;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.sjanisch.skillview.core.contribution.api.ContributionRetrievalException;
+
+/**
+ * The git directory of a bare repository, of a non-bare repository or of a
+ * linked working tree, giving access to its objects and references.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+final class Repository {
+
+	private static final int MAX_SYMBOLIC_DEPTH = 10;
+
+	/**
+	 * The namespaces of references to history, as opposed to e.g.
+	 * {@code refs/stash} or {@code refs/notes/}.
+	 */
+	private static final List<String> HISTORY_NAMESPACES = Arrays.asList("refs/heads/", "refs/tags/",
+			"refs/remotes/");
+
+	private final Path gitDirectory;
+	private final Path commonDirectory;
+	private final ObjectDatabase objects;
+
+	private Repository(Path gitDirectory, Path commonDirectory, ObjectDatabase objects) {
+		this.gitDirectory = gitDirectory;
+		this.commonDirectory = commonDirectory;
+		this.objects = objects;
+	}
+
+	/**
+	 * 
+	 * @param path
+	 *            the working tree or the git directory. Must not be
+	 *            {@code null}.
+	 * @param cache
+	 *            must not be {@code null}
+	 * @return never {@code null}
+	 */
+	static Repository open(Path path, DeltaBaseCache cache) {
+		try {
+			Path gitDirectory = path;
+			Path dotGit = path.resolve(".git");
+			if (Files.isDirectory(dotGit)) {
+				gitDirectory = dotGit;
+			} else if (Files.isRegularFile(dotGit)) {
+				// a linked working tree points to its git directory
+				String content = new String(Files.readAllBytes(dotGit), StandardCharsets.UTF_8).trim();
+				if (!content.startsWith("gitdir:")) {
+					throw new ContributionRetrievalException("not a git directory reference: " + dotGit);
+				}
+				gitDirectory = path.resolve(content.substring(7).trim());
+			}
+
+			Path commonDirectory = gitDirectory;
+			Path commonDirFile = gitDirectory.resolve("commondir");
+			if (Files.isRegularFile(commonDirFile)) {
+				String content = new String(Files.readAllBytes(commonDirFile), StandardCharsets.UTF_8).trim();
+				commonDirectory = gitDirectory.resolve(content);
+			}
+
+			Path objectDirectory = commonDirectory.resolve("objects");
+			if (!Files.isDirectory(objectDirectory) || !Files.exists(gitDirectory.resolve("HEAD"))) {
+				throw new ContributionRetrievalException("not a git repository: " + path);
+			}
+
+			return new Repository(gitDirectory, commonDirectory, ObjectDatabase.open(objectDirectory, cache));
+		} catch (IOException e) {
+			throw new ContributionRetrievalException("could not open git repository " + path, e);
+		}
+	}
+
+	ObjectDatabase getObjects() {
+		return objects;
+	}
+
+	/**
+	 * 
+	 * @return the object names that {@code HEAD} and all branches, tags and
+	 *         remote-tracking branches point to. Never {@code null}.
+	 */
+	Set<ObjectId> readReferenceTargets() {
+		Map<String, String> references = new HashMap<>();
+		try {
+			readPackedReferences(references);
+			readLooseReferences(references);
+			String head = new String(Files.readAllBytes(gitDirectory.resolve("HEAD")), StandardCharsets.UTF_8);
+			references.put("HEAD", head.trim());
+		} catch (IOException e) {
+			throw new ContributionRetrievalException("could not read references of " + gitDirectory, e);
+		}
+
+		Set<ObjectId> result = new HashSet<>();
+		for (String name : references.keySet()) {
+			if (!isHistory(name)) {
+				continue;
+			}
+			ObjectId target = resolve(references, name);
+			if (target != null) {
+				result.add(target);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 
+	 * @return the commits of a shallow clone whose parents are missing. Never
+	 *         {@code null}.
+	 */
+	Set<ObjectId> readShallowCommits() {
+		Path shallow = commonDirectory.resolve("shallow");
+		if (!Files.exists(shallow)) {
+			return new HashSet<>();
+		}
+		try {
+			return Files.readAllLines(shallow, StandardCharsets.UTF_8).stream().map(String::trim)
+					.filter(line -> !line.isEmpty()).map(ObjectId::fromHex).collect(Collectors.toSet());
+		} catch (IOException | IllegalArgumentException e) {
+			throw new ContributionRetrievalException("could not read " + shallow, e);
+		}
+	}
+
+	private static boolean isHistory(String name) {
+		return name.equals("HEAD") || HISTORY_NAMESPACES.stream().anyMatch(name::startsWith);
+	}
+
+	private ObjectId resolve(Map<String, String> references, String name) {
+		String value = references.get(name);
+		for (int depth = 0; value != null && value.startsWith("ref:"); depth++) {
+			if (depth == MAX_SYMBOLIC_DEPTH) {
+				return null;
+			}
+			value = references.get(value.substring(4).trim());
+		}
+
+		try {
+			return value == null ? null : ObjectId.fromHex(value);
+		} catch (IllegalArgumentException e) {
+			throw new ContributionRetrievalException("corrupt reference " + name + " in " + gitDirectory, e);
+		}
+	}
+
+	private void readPackedReferences(Map<String, String> references) throws IOException {
+		Path packedReferences = commonDirectory.resolve("packed-refs");
+		if (!Files.exists(packedReferences)) {
+			return;
+		}
+
+		// lines are of the form <id> <name>, peeled tags follow as ^<id>
+		List<String> lines = Files.readAllLines(packedReferences, StandardCharsets.UTF_8);
+		for (String line : lines) {
+			if (line.isEmpty() || line.startsWith("#") || line.startsWith("^")) {
+				continue;
+			}
+			int separator = line.indexOf(' ');
+			if (separator > 0) {
+				references.put(line.substring(separator + 1).trim(), line.substring(0, separator));
+			}
+		}
+	}
+
+	private void readLooseReferences(Map<String, String> references) throws IOException {
+		Path directory = commonDirectory.resolve("refs");
+		if (!Files.isDirectory(directory)) {
+			return;
+		}
+
+		try (Stream<Path> files = Files.walk(directory)) {
+			Iterator<Path> iterator = files.filter(Files::isRegularFile).iterator();
+			while (iterator.hasNext()) {
+				Path file = iterator.next();
+				String name = commonDirectory.relativize(file).toString().replace(file.getFileSystem().getSeparator(),
+						"/");
+				String value = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+				if (!value.isEmpty()) {
+					references.put(name, value);
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,231 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.contribution.impl.git;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.sjanisch.skillview.core.contribution.api.ContributionRetrievalException;
+
+/**
+ * Determines the regular files that differ between two git trees.
+ * <p>
+ * Both trees are walked side by side in git's tree order. Sub trees with the
+ * same object name on both sides are skipped without being read. Symbolic
+ * links and submodules are ignored, as are changes of the file mode only.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+final class TreeDiff {
+
+	private static final int TYPE_MASK = 0170000;
+	private static final int TREE = 0040000;
+	private static final int FILE = 0100000;
+
+	/**
+	 * A changed file. The old or the new object name is {@code null} if the
+	 * file has been added or deleted respectively.
+	 */
+	static final class Change {
+		private final String path;
+		private final ObjectId oldId;
+		private final ObjectId newId;
+
+		private Change(String path, ObjectId oldId, ObjectId newId) {
+			this.path = path;
+			this.oldId = oldId;
+			this.newId = newId;
+		}
+
+		String getPath() {
+			return path;
+		}
+
+		ObjectId getOldId() {
+			return oldId;
+		}
+
+		ObjectId getNewId() {
+			return newId;
+		}
+	}
+
+	private final ObjectDatabase objects;
+	private final List<Change> changes = new ArrayList<>();
+
+	private TreeDiff(ObjectDatabase objects) {
+		this.objects = objects;
+	}
+
+	/**
+	 * 
+	 * @param objects
+	 *            must not be {@code null}
+	 * @param oldTree
+	 *            {@code null} for an empty tree
+	 * @param newTree
+	 *            {@code null} for an empty tree
+	 * @return an unmodifiable list of changes in tree order. Never
+	 *         {@code null}.
+	 */
+	static List<Change> diff(ObjectDatabase objects, ObjectId oldTree, ObjectId newTree) {
+		TreeDiff diff = new TreeDiff(objects);
+		diff.diff("", oldTree, newTree);
+		return Collections.unmodifiableList(diff.changes);
+	}
+
+	private void diff(String prefix, ObjectId oldTree, ObjectId newTree) {
+		List<Entry> oldEntries = read(oldTree);
+		List<Entry> newEntries = read(newTree);
+
+		int i = 0;
+		int j = 0;
+		while (i < oldEntries.size() || j < newEntries.size()) {
+			int comparison;
+			if (i >= oldEntries.size()) {
+				comparison = 1;
+			} else if (j >= newEntries.size()) {
+				comparison = -1;
+			} else {
+				comparison = oldEntries.get(i).compareTo(newEntries.get(j));
+			}
+
+			if (comparison < 0) {
+				changed(prefix, oldEntries.get(i++), null);
+			} else if (comparison > 0) {
+				changed(prefix, null, newEntries.get(j++));
+			} else {
+				Entry oldEntry = oldEntries.get(i++);
+				Entry newEntry = newEntries.get(j++);
+				if (!oldEntry.id.equals(newEntry.id)) {
+					changed(prefix, oldEntry, newEntry);
+				}
+			}
+		}
+	}
+
+	private void changed(String prefix, Entry oldEntry, Entry newEntry) {
+		Entry any = oldEntry != null ? oldEntry : newEntry;
+		String path = prefix + new String(any.name, StandardCharsets.UTF_8);
+
+		if (any.isTree()) {
+			// both entries are trees as they compare equal otherwise
+			diff(path + "/", oldEntry != null ? oldEntry.id : null, newEntry != null ? newEntry.id : null);
+		} else if (any.isFile()) {
+			if (oldEntry == null || newEntry == null || newEntry.isFile()) {
+				changes.add(new Change(path, oldEntry != null ? oldEntry.id : null,
+						newEntry != null ? newEntry.id : null));
+			} else if (oldEntry.isFile()) {
+				changes.add(new Change(path, oldEntry.id, null));
+			}
+		} else if (newEntry != null && newEntry.isFile()) {
+			// a symbolic link or submodule has been replaced by a file
+			changes.add(new Change(path, null, newEntry.id));
+		}
+	}
+
+	private List<Entry> read(ObjectId tree) {
+		if (tree == null) {
+			return Collections.emptyList();
+		}
+
+		GitObject object = objects.open(tree);
+		if (object.getType() != GitObject.TREE) {
+			throw new ContributionRetrievalException("not a tree: " + tree.toHex());
+		}
+
+		// entries are of the form <octal mode> <name>\0<20 byte id>
+		byte[] data = object.getData();
+		List<Entry> result = new ArrayList<>();
+		int position = 0;
+		try {
+			while (position < data.length) {
+				int mode = 0;
+				while (data[position] != ' ') {
+					mode = (mode << 3) + (data[position++] - '0');
+				}
+				int nameStart = ++position;
+				while (data[position] != 0) {
+					position++;
+				}
+				byte[] name = new byte[position - nameStart];
+				System.arraycopy(data, nameStart, name, 0, name.length);
+				position++;
+				result.add(new Entry(mode, name, ObjectId.fromBytes(data, position)));
+				position += ObjectId.LENGTH;
+			}
+		} catch (IndexOutOfBoundsException e) {
+			throw new ContributionRetrievalException("corrupt tree " + tree.toHex(), e);
+		}
+
+		return result;
+	}
+
+	private static class Entry implements Comparable<Entry> {
+		private final int mode;
+		private final byte[] name;
+		private final ObjectId id;
+
+		Entry(int mode, byte[] name, ObjectId id) {
+			this.mode = mode;
+			this.name = name;
+			this.id = id;
+		}
+
+		boolean isTree() {
+			return (mode & TYPE_MASK) == TREE;
+		}
+
+		boolean isFile() {
+			return (mode & TYPE_MASK) == FILE;
+		}
+
+		/**
+		 * Git's tree order: names compared as unsigned bytes where the name
+		 * of a tree is followed by a {@code /}.
+		 */
+		@Override
+		public int compareTo(Entry other) {
+			int length = Math.min(name.length, other.name.length);
+			for (int i = 0; i < length; i++) {
+				int result = (name[i] & 0xff) - (other.name[i] & 0xff);
+				if (result != 0) {
+					return result;
+				}
+			}
+			return terminator(length) - other.terminator(length);
+		}
+
+		private int terminator(int index) {
+			if (index < name.length) {
+				return name[index] & 0xff;
+			}
+			return isTree() ? '/' : 0;
+		}
+	}
+
+}
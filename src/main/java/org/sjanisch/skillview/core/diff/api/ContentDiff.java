@@ -23,7 +23,11 @@ SOFTWARE.
  */
 package org.sjanisch.skillview.core.diff.api;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.stream.Stream;
 
 /**
  * Exposes the touched (modified or added) parts between two contents.
@@ -42,4 +46,77 @@ public interface ContentDiff {
 	 */
 	Collection<String> getTouchedContent();
 
+	/**
+	 * Streams the touched content chunk by chunk, in the same order as
+	 * {@link #getTouchedContent()}. Implementations may produce the chunks
+	 * lazily as views into the current content, so that consumers that stop
+	 * early, e.g. after finding a keyword, do not pay for all chunks.
+	 * <p>
+	 * The default implementation streams {@link #getTouchedContent()}.
+	 * 
+	 * @return a stream of the content chunks that were added or modified.
+	 *         Never {@code null}.
+	 */
+	default Stream<CharSequence> streamTouchedContent() {
+		return getTouchedContent().stream().map(CharSequence.class::cast);
+	}
+
+	/**
+	 * Whether the diff gave up on finding the actual changes, e.g. because
+	 * the contents were too large or too different, and reports the whole
+	 * current content as touched instead. Scorers may want to weight such
+	 * diffs differently.
+	 * <p>
+	 * The default implementation returns {@code false}.
+	 * 
+	 * @return {@code true} if the touched content is the whole current
+	 *         content as a fallback
+	 */
+	default boolean isRewrite() {
+		return false;
+	}
+
+	/**
+	 * 
+	 * @param touchedContent
+	 *            must not be {@code null}
+	 * @return never {@code null}
+	 */
+	public static ContentDiff of(Collection<String> touchedContent) {
+		return of(touchedContent, false);
+	}
+
+	/**
+	 * 
+	 * @param touchedContent
+	 *            must not be {@code null}
+	 * @param rewrite
+	 *            see {@link #isRewrite()}
+	 * @return never {@code null}
+	 */
+	public static ContentDiff of(Collection<String> touchedContent, boolean rewrite) {
+		Objects.requireNonNull(touchedContent, "touchedContent");
+
+		Collection<String> copy = Collections.unmodifiableCollection(new ArrayList<>(touchedContent));
+
+		return new ContentDiff() {
+
+			@Override
+			public Collection<String> getTouchedContent() {
+				return copy;
+			}
+
+			@Override
+			public boolean isRewrite() {
+				return rewrite;
+			}
+
+			@Override
+			public String toString() {
+				return String.format("%s[%s chunks%s]", getClass().getSimpleName(), copy.size(),
+						rewrite ? ", rewrite" : "");
+			}
+		};
+	}
+
 }
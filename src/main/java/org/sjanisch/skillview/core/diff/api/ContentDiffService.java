@@ -23,6 +23,10 @@ SOFTWARE.
  */
 package org.sjanisch.skillview.core.diff.api;
 
+import java.util.Objects;
+
+import org.sjanisch.skillview.core.contribution.api.ContributionItem;
+
 /**
  * Carries out a {@link ContentDiff}.
  * <p>
@@ -44,4 +48,20 @@ public interface ContentDiffService {
 	 */
 	ContentDiff diff(String previousContent, String currentContent);
 
+	/**
+	 * Diffs the previous content of given item against its content.
+	 * Implementations may take the path or size of the item into account.
+	 * <p>
+	 * The default implementation delegates to {@link #diff(String, String)}.
+	 * 
+	 * @param contributionItem
+	 *            must not be {@code null}
+	 * @return never {@code null}
+	 */
+	default ContentDiff diff(ContributionItem contributionItem) {
+		Objects.requireNonNull(contributionItem, "contributionItem");
+
+		return diff(contributionItem.getPreviousContent(), contributionItem.getContent());
+	}
+
 }
@@ -0,0 +1,430 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.diff.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.sjanisch.skillview.core.contribution.api.ContributionItem;
+import org.sjanisch.skillview.core.diff.api.ContentDiff;
+import org.sjanisch.skillview.core.diff.api.ContentDiffService;
+import org.sjanisch.skillview.core.utility.Hash128;
+import org.sjanisch.skillview.core.utility.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decorates a {@link ContentDiffService} with a cache of diff results.
+ * <p>
+ * Results are keyed by a {@link Hashing#combine(Hash128, Hash128)
+ * combination} of the {@link Hashing#murmur3(CharSequence) hashes} of both
+ * contents and of the decorated service's {@link Object#toString() string
+ * representation}, so equal pairs of contents are diffed only once, whatever
+ * contribution or analysis window they belong to. Contents are not kept to
+ * confirm a hit, a collision of the 128 bit key is accepted as practically
+ * impossible.
+ * <p>
+ * The string representation of the decorated service must identify its
+ * algorithm and parameters, as all services of this package do, so that
+ * results of differently configured services are not mixed up. Services
+ * whose string representation is based on their identity only share the
+ * disk tier with neither other instances nor later processes.
+ * <p>
+ * The heap tier keeps the least recently used results up to a capacity
+ * measured in characters retained by the results. Results that reference
+ * their current content are compacted to their touched content before they
+ * are held. If a directory is given, every computed result is also written to
+ * a file in that directory, which serves heap misses of this and later
+ * processes. Failures to read or write the directory are logged and treated
+ * as misses. Cached results retain their {@link ContentDiff#isRewrite()
+ * rewrite} flag. Rewrites are held in the heap tier only, as a budget of time
+ * may not be exceeded again on another occasion.
+ * <p>
+ * {@link #diff(ContributionItem)} delegates to the decorated service's
+ * {@link ContentDiffService#diff(ContributionItem)} on a miss, but shares the
+ * cache with {@link #diff(String, String)}. Hence the decorated service must
+ * return equivalent results for equal contents, whatever their path. The one
+ * exception is a {@link CompositeContentDiffService}, which may route items
+ * by their path: items are keyed by the service it
+ * {@link CompositeContentDiffService#route(ContributionItem) routes} them to
+ * instead.
+ * <p>
+ * This implementation is thread-safe.
+ *
+ * @author sebastianjanisch
+ *
+ */
+public class CachingContentDiffService implements ContentDiffService {
+
+	/**
+	 * Snapshot of the cache's statistics.
+	 * <p>
+	 * This class is immutable and thread-safe.
+	 */
+	public static final class Statistics {
+		private final long hits;
+		private final long diskHits;
+		private final long misses;
+		private final long evictions;
+		private final long residentCharacters;
+
+		private Statistics(long hits, long diskHits, long misses, long evictions, long residentCharacters) {
+			this.hits = hits;
+			this.diskHits = diskHits;
+			this.misses = misses;
+			this.evictions = evictions;
+			this.residentCharacters = residentCharacters;
+		}
+
+		/**
+		 *
+		 * @return number of diffs served from the heap tier.
+		 */
+		public long getHits() {
+			return hits;
+		}
+
+		/**
+		 *
+		 * @return number of diffs served from the disk tier.
+		 */
+		public long getDiskHits() {
+			return diskHits;
+		}
+
+		/**
+		 *
+		 * @return number of diffs computed by the decorated service.
+		 */
+		public long getMisses() {
+			return misses;
+		}
+
+		/**
+		 *
+		 * @return number of results evicted from the heap tier.
+		 */
+		public long getEvictions() {
+			return evictions;
+		}
+
+		/**
+		 *
+		 * @return weight in characters of the results currently held in the
+		 *         heap tier.
+		 */
+		public long getResidentCharacters() {
+			return residentCharacters;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s[%s:%s:%s:%s:%s]", getClass().getSimpleName(), hits, diskHits, misses, evictions,
+					residentCharacters);
+		}
+	}
+
+	private static final Logger log = LoggerFactory.getLogger(CachingContentDiffService.class);
+
+	private static final int MAGIC = 0x53564443;
+	private static final int VERSION = 2;
+
+	/**
+	 * Weight in characters added to each result to account for its key and
+	 * bookkeeping, which bounds the number of held results without touched
+	 * content.
+	 */
+	private static final long ENTRY_WEIGHT = 64;
+
+	private final ContentDiffService delegate;
+	private final Hash128 delegateKey;
+	// keys of the services that a composite delegate routes items to
+	private final Map<ContentDiffService, Hash128> routeKeys = new ConcurrentHashMap<>();
+	private final long capacity;
+	private final Path directory;
+
+	private final Map<Hash128, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long residentCharacters;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong diskHits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * Creates a cache without disk tier.
+	 *
+	 * @param delegate
+	 *            must not be {@code null}
+	 * @param capacity
+	 *            the maximum weight in characters of the heap tier. Zero
+	 *            disables the heap tier.
+	 */
+	public CachingContentDiffService(ContentDiffService delegate, long capacity) {
+		this.delegate = Objects.requireNonNull(delegate, "delegate");
+		this.delegateKey = Hashing.murmur3(delegate.toString());
+		this.capacity = requireCapacity(capacity);
+		this.directory = null;
+	}
+
+	/**
+	 *
+	 * @param delegate
+	 *            must not be {@code null}
+	 * @param capacity
+	 *            the maximum weight in characters of the heap tier. Zero
+	 *            disables the heap tier.
+	 * @param directory
+	 *            the directory of the disk tier. Must not be {@code null}.
+	 *            Will be created if it does not exist.
+	 */
+	public CachingContentDiffService(ContentDiffService delegate, long capacity, Path directory) {
+		this.delegate = Objects.requireNonNull(delegate, "delegate");
+		this.delegateKey = Hashing.murmur3(delegate.toString());
+		this.capacity = requireCapacity(capacity);
+		this.directory = Objects.requireNonNull(directory, "directory");
+	}
+
+	@Override
+	public ContentDiff diff(String previousContent, String currentContent) {
+		Objects.requireNonNull(previousContent, "previousContent");
+		Objects.requireNonNull(currentContent, "currentContent");
+
+		return diff(delegateKey, previousContent, currentContent,
+				() -> delegate.diff(previousContent, currentContent));
+	}
+
+	@Override
+	public ContentDiff diff(ContributionItem contributionItem) {
+		Objects.requireNonNull(contributionItem, "contributionItem");
+
+		ContentDiffService service = delegate;
+		while (service instanceof CompositeContentDiffService) {
+			service = ((CompositeContentDiffService) service).route(contributionItem);
+		}
+		ContentDiffService routed = service;
+		Hash128 serviceKey = routed == delegate ? delegateKey
+				: routeKeys.computeIfAbsent(routed, key -> Hashing.murmur3(key.toString()));
+
+		String previousContent = contributionItem.getPreviousContent();
+		String currentContent = contributionItem.getContent();
+
+		return diff(serviceKey, previousContent, currentContent, () -> routed.diff(contributionItem));
+	}
+
+	/**
+	 *
+	 * @return never {@code null}
+	 */
+	public Statistics getStatistics() {
+		long resident;
+		synchronized (entries) {
+			resident = residentCharacters;
+		}
+		return new Statistics(hits.get(), diskHits.get(), misses.get(), evictions.get(), resident);
+	}
+
+	private ContentDiff diff(Hash128 serviceKey, String previousContent, String currentContent,
+			Supplier<ContentDiff> computation) {
+		Hash128 contents = Hashing.combine(Hashing.murmur3(previousContent), Hashing.murmur3(currentContent));
+		Hash128 key = Hashing.combine(serviceKey, contents);
+
+		Entry entry = get(key);
+		if (entry != null) {
+			hits.incrementAndGet();
+			return entry.diff;
+		}
+
+		if (directory != null) {
+			ContentDiff stored = read(key);
+			if (stored != null) {
+				diskHits.incrementAndGet();
+				put(key, stored);
+				return stored;
+			}
+		}
+
+		// concurrent misses of the same key compute the result twice, which
+		// is cheaper than making them wait on each other
+		misses.incrementAndGet();
+		ContentDiff result = compact(computation.get());
+		put(key, result);
+		// rewrites depend on the time budget and would outlive a retry
+		if (directory != null && !result.isRewrite()) {
+			write(key, result);
+		}
+		return result;
+	}
+
+	private Entry get(Hash128 key) {
+		synchronized (entries) {
+			return entries.get(key);
+		}
+	}
+
+	private void put(Hash128 key, ContentDiff diff) {
+		long weight = ENTRY_WEIGHT + retainedLength(diff);
+		if (weight > capacity / 2) {
+			// a single huge result would flush the whole tier
+			return;
+		}
+
+		synchronized (entries) {
+			Entry previous = entries.put(key, new Entry(diff, weight));
+			if (previous != null) {
+				residentCharacters -= previous.weight;
+			}
+			residentCharacters += weight;
+
+			Iterator<Entry> eldest = entries.values().iterator();
+			while (residentCharacters > capacity && eldest.hasNext()) {
+				residentCharacters -= eldest.next().weight;
+				eldest.remove();
+				evictions.incrementAndGet();
+			}
+		}
+	}
+
+	private static ContentDiff compact(ContentDiff diff) {
+		return diff instanceof LineRangeContentDiff ? ((LineRangeContentDiff) diff).compact() : diff;
+	}
+
+	/**
+	 * @return the number of characters retained by given diff, without
+	 *         copying its touched content
+	 */
+	private static long retainedLength(ContentDiff diff) {
+		if (diff instanceof LineRangeContentDiff) {
+			return ((LineRangeContentDiff) diff).getRetainedLength();
+		}
+		return diff.streamTouchedContent().mapToLong(CharSequence::length).sum();
+	}
+
+	private Path fileOf(Hash128 key) {
+		String hex = key.toHex();
+		return directory.resolve(hex.substring(0, 2)).resolve(hex + ".diff");
+	}
+
+	private ContentDiff read(Hash128 key) {
+		Path file = fileOf(key);
+
+		ByteBuffer buffer;
+		try {
+			buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			log.warn(String.format("Could not read cached diff %s", file), e);
+			return null;
+		}
+
+		try {
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				log.warn(String.format("Ignoring cached diff %s not of version %s", file, VERSION));
+				return null;
+			}
+			boolean rewrite = buffer.get() != 0;
+			int chunks = buffer.getInt();
+			List<String> touchedContent = new ArrayList<>(Math.max(0, Math.min(chunks, buffer.remaining() / 4)));
+			for (int i = 0; i < chunks; i++) {
+				int length = buffer.getInt();
+				if (length < 0 || length > buffer.remaining()) {
+					throw new BufferUnderflowException();
+				}
+				touchedContent.add(new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8));
+				buffer.position(buffer.position() + length);
+			}
+			return ContentDiff.of(touchedContent, rewrite);
+		} catch (BufferUnderflowException e) {
+			log.warn(String.format("Ignoring corrupt cached diff %s", file));
+			return null;
+		}
+	}
+
+	private void write(Hash128 key, ContentDiff diff) {
+		Path file = fileOf(key);
+		// views of the touched content, which is not copied into the diff
+		List<CharSequence> touchedContent = diff.streamTouchedContent().collect(Collectors.toList());
+
+		try {
+			Files.createDirectories(file.getParent());
+			Path temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+			try {
+				try (DataOutputStream out = new DataOutputStream(
+						new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+					out.writeInt(MAGIC);
+					out.writeInt(VERSION);
+					out.writeBoolean(diff.isRewrite());
+					out.writeInt(touchedContent.size());
+					for (CharSequence chunk : touchedContent) {
+						byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+						out.writeInt(bytes.length);
+						out.write(bytes);
+					}
+				}
+				Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} finally {
+				Files.deleteIfExists(temporary);
+			}
+		} catch (IOException e) {
+			log.warn(String.format("Could not write cached diff %s", file), e);
+		}
+	}
+
+	private static long requireCapacity(long capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("capacity must not be negative: " + capacity);
+		}
+		return capacity;
+	}
+
+	private static class Entry {
+		private final ContentDiff diff;
+		private final long weight;
+
+		Entry(ContentDiff diff, long weight) {
+			this.diff = diff;
+			this.weight = weight;
+		}
+	}
+
+}
@@ -0,0 +1,204 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.diff.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.sjanisch.skillview.core.contribution.api.ContributionItem;
+import org.sjanisch.skillview.core.diff.api.ContentDiff;
+import org.sjanisch.skillview.core.diff.api.ContentDiffService;
+import org.sjanisch.skillview.core.utility.PathGlob;
+
+/**
+ * A {@link ContentDiffService} that chooses among other services by the path
+ * or the size of a contribution item.
+ * <p>
+ * Routes are evaluated in the order they were added and the first matching
+ * route decides, falling back to a default service if none matches. Path
+ * routes match a {@link PathGlob} against {@link ContributionItem#getPath()},
+ * i.e. the file name for globs without {@code /}, e.g. {@code *.java}, and the
+ * whole path otherwise, e.g. {@code src/**}. Size routes match items whose previous content or content
+ * is at least of a given size as reported by
+ * {@link ContributionItem#getContentSize()}.
+ * <p>
+ * As {@link #diff(String, String)} knows no path, only size routes apply to
+ * it, based on the length of the contents.
+ * <p>
+ * This implementation is immutable and thread-safe if all services are.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class CompositeContentDiffService implements ContentDiffService {
+
+	public static final class Builder {
+		private final ContentDiffService fallback;
+		private final List<Route> routes = new ArrayList<>();
+
+		private Builder(ContentDiffService fallback) {
+			this.fallback = fallback;
+		}
+
+		/**
+		 * 
+		 * @param glob
+		 *            a {@link PathGlob} pattern. Must not be {@code null}.
+		 * @param service
+		 *            must not be {@code null}
+		 * @return this instance. Never {@code null}.
+		 */
+		public Builder routePath(String glob, ContentDiffService service) {
+			Objects.requireNonNull(glob, "glob");
+			Objects.requireNonNull(service, "service");
+
+			routes.add(new Route(PathGlob.compile(glob), -1, service));
+			return this;
+		}
+
+		/**
+		 * 
+		 * @param minimumSize
+		 *            must not be negative
+		 * @param service
+		 *            must not be {@code null}
+		 * @return this instance. Never {@code null}.
+		 */
+		public Builder routeSize(long minimumSize, ContentDiffService service) {
+			Objects.requireNonNull(service, "service");
+
+			if (minimumSize < 0) {
+				throw new IllegalArgumentException("minimum size must not be negative: " + minimumSize);
+			}
+
+			routes.add(new Route(null, minimumSize, service));
+			return this;
+		}
+
+		/**
+		 * 
+		 * @return new {@link CompositeContentDiffService} with the routes of
+		 *         this builder. Never {@code null}.
+		 */
+		public CompositeContentDiffService build() {
+			return new CompositeContentDiffService(fallback, routes);
+		}
+	}
+
+	private final ContentDiffService fallback;
+	private final List<Route> routes;
+
+	private CompositeContentDiffService(ContentDiffService fallback, List<Route> routes) {
+		this.fallback = fallback;
+		this.routes = Collections.unmodifiableList(new ArrayList<>(routes));
+	}
+
+	/**
+	 * 
+	 * @param fallback
+	 *            the service used if no route matches. Must not be
+	 *            {@code null}.
+	 * @return new builder. Never {@code null}.
+	 */
+	public static Builder newBuilder(ContentDiffService fallback) {
+		Objects.requireNonNull(fallback, "fallback");
+
+		return new Builder(fallback);
+	}
+
+	@Override
+	public ContentDiff diff(String previousContent, String currentContent) {
+		Objects.requireNonNull(previousContent, "previousContent");
+		Objects.requireNonNull(currentContent, "currentContent");
+
+		long size = Math.max(previousContent.length(), currentContent.length());
+		for (Route route : routes) {
+			if (route.glob == null && size >= route.minimumSize) {
+				return route.service.diff(previousContent, currentContent);
+			}
+		}
+
+		return fallback.diff(previousContent, currentContent);
+	}
+
+	@Override
+	public ContentDiff diff(ContributionItem contributionItem) {
+		Objects.requireNonNull(contributionItem, "contributionItem");
+
+		return route(contributionItem).diff(contributionItem);
+	}
+
+	/**
+	 * 
+	 * @param contributionItem
+	 *            must not be {@code null}
+	 * @return the service that {@link #diff(ContributionItem)} delegates to
+	 *         for given item. Never {@code null}.
+	 */
+	public ContentDiffService route(ContributionItem contributionItem) {
+		Objects.requireNonNull(contributionItem, "contributionItem");
+
+		for (Route route : routes) {
+			if (route.matches(contributionItem)) {
+				return route.service;
+			}
+		}
+
+		return fallback;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[%s, fallback %s]", getClass().getSimpleName(), routes, fallback);
+	}
+
+	private static class Route {
+		private final PathGlob glob;
+		private final long minimumSize;
+		private final ContentDiffService service;
+
+		Route(PathGlob glob, long minimumSize, ContentDiffService service) {
+			this.glob = glob;
+			this.minimumSize = minimumSize;
+			this.service = service;
+		}
+
+		boolean matches(ContributionItem item) {
+			if (glob == null) {
+				long size = Math.max(item.getPreviousContentSize(), item.getContentSize());
+				return size >= minimumSize;
+			}
+			return glob.matches(item.getPath());
+		}
+
+		@Override
+		public String toString() {
+			String condition = glob == null ? "size >= " + minimumSize : glob.toString();
+			return condition + " -> " + service;
+		}
+	}
+
+}
@@ -0,0 +1,250 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.diff.impl;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import org.sjanisch.skillview.core.diff.api.ContentDiff;
+import org.sjanisch.skillview.core.diff.api.ContentDiffService;
+
+/**
+ * A line based {@link ContentDiffService} implementing histogram diff as
+ * known from git.
+ * <p>
+ * A histogram of the lines of the previous range is built and the longest
+ * common region containing the least frequent lines is taken as split point,
+ * after which the ranges before and after the region are diffed recursively.
+ * Ranges whose common lines are all more frequent than a limit, or which have
+ * no lines in common, are diffed with {@link MyersContentDiffService Myers'
+ * algorithm}.
+ * <p>
+ * Like {@link PatienceContentDiffService patience diff} this prefers to align
+ * distinctive lines over frequent ones such as closing braces or blank lines,
+ * but also makes use of lines that occur a few times. It is usually the
+ * fastest of the line based implementations. The result is not necessarily
+ * minimal.
+ * <p>
+ * Touched content is reported as described for
+ * {@link MyersContentDiffService}. A budget can be given as for
+ * {@link MyersContentDiffService}, which applies to each range diffed with
+ * Myers' algorithm and to the time spent on the whole diff.
+ * <p>
+ * This implementation is immutable and thread-safe.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class HistogramContentDiffService implements ContentDiffService {
+
+	private static final int MAX_OCCURRENCES = 64;
+	private static final MyersContentDiffService UNBOUNDED = new MyersContentDiffService();
+
+	private final MyersContentDiffService fallback;
+
+	/**
+	 * Creates a service without budget.
+	 */
+	public HistogramContentDiffService() {
+		this.fallback = UNBOUNDED;
+	}
+
+	/**
+	 * 
+	 * @param maxEditDistance
+	 *            the maximum number of added and removed lines of each range
+	 *            diffed with Myers' algorithm, see
+	 *            {@link MyersContentDiffService#MyersContentDiffService(int, Duration)}.
+	 *            Must not be negative.
+	 * @param maxDuration
+	 *            the maximum time spent on a diff before giving up. Must not
+	 *            be {@code null} and must be positive.
+	 */
+	public HistogramContentDiffService(int maxEditDistance, Duration maxDuration) {
+		this.fallback = new MyersContentDiffService(maxEditDistance, maxDuration);
+	}
+
+	@Override
+	public ContentDiff diff(String previousContent, String currentContent) {
+		long start = System.nanoTime();
+		return LineDiffAlgorithm.apply((previous, previousFrom, previousTo, current, currentFrom, currentTo,
+				touched) -> diffLines(previous, previousFrom, previousTo, current, currentFrom, currentTo, touched,
+						fallback, start),
+				previousContent, currentContent);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[fallback %s]", getClass().getSimpleName(), fallback);
+	}
+
+	/**
+	 * Runs histogram diff on the given ranges as defined by
+	 * {@link LineDiffAlgorithm#diff(int[], int, int, int[], int, int, boolean[])}.
+	 * This algorithm never gives up.
+	 */
+	static boolean diffLines(int[] previous, int previousFrom, int previousTo, int[] current, int currentFrom,
+			int currentTo, boolean[] touched) {
+		return diffLines(previous, previousFrom, previousTo, current, currentFrom, currentTo, touched, UNBOUNDED,
+				System.nanoTime());
+	}
+
+	private static boolean diffLines(int[] previous, int previousFrom, int previousTo, int[] current,
+			int currentFrom, int currentTo, boolean[] touched, MyersContentDiffService fallback, long start) {
+		int distinct = 1 + Math.max(PatienceContentDiffService.max(previous, previousFrom, previousTo),
+				PatienceContentDiffService.max(current, currentFrom, currentTo));
+		Histogram histogram = new Histogram(previous, current, touched, distinct, fallback, start);
+		histogram.diff(previousFrom, previousTo, currentFrom, currentTo);
+		return !histogram.gaveUp;
+	}
+
+	/**
+	 * Holds the histogram as a chain of positions per line id. The tables are
+	 * reset after each step so that they can be reused by the next one.
+	 */
+	private static class Histogram {
+		private final int[] a;
+		private final int[] b;
+		private final boolean[] touched;
+		private final int[] head;
+		private final int[] count;
+		private final int[] next;
+		private final MyersContentDiffService fallback;
+		private final long start;
+		private boolean gaveUp;
+
+		// the best region of the current step
+		private int regionA;
+		private int regionB;
+		private int regionLength;
+		private int regionOccurrences;
+
+		Histogram(int[] a, int[] b, boolean[] touched, int distinct, MyersContentDiffService fallback, long start) {
+			this.a = a;
+			this.b = b;
+			this.touched = touched;
+			this.head = new int[distinct];
+			this.count = new int[distinct];
+			this.next = new int[a.length];
+			this.fallback = fallback;
+			this.start = start;
+			Arrays.fill(head, -1);
+		}
+
+		void diff(int aFrom, int aTo, int bFrom, int bTo) {
+			if (!gaveUp && fallback.isExpired(start)) {
+				gaveUp = true;
+			}
+			if (gaveUp) {
+				return;
+			}
+
+			while (aFrom < aTo && bFrom < bTo && a[aFrom] == b[bFrom]) {
+				aFrom++;
+				bFrom++;
+			}
+			while (aFrom < aTo && bFrom < bTo && a[aTo - 1] == b[bTo - 1]) {
+				aTo--;
+				bTo--;
+			}
+
+			if (bFrom == bTo) {
+				return;
+			}
+			if (aFrom == aTo) {
+				Arrays.fill(touched, bFrom, bTo, true);
+				return;
+			}
+
+			findRegion(aFrom, aTo, bFrom, bTo);
+			if (regionLength == 0) {
+				gaveUp = !fallback.diffLines(a, aFrom, aTo, b, bFrom, bTo, touched, start);
+				return;
+			}
+
+			int x = regionA;
+			int y = regionB;
+			int length = regionLength;
+			diff(aFrom, x, bFrom, y);
+			diff(x + length, aTo, y + length, bTo);
+		}
+
+		private void findRegion(int aFrom, int aTo, int bFrom, int bTo) {
+			for (int i = aTo - 1; i >= aFrom; i--) {
+				int id = a[i];
+				next[i] = head[id];
+				head[id] = i;
+				count[id]++;
+			}
+
+			regionLength = 0;
+			regionOccurrences = MAX_OCCURRENCES + 1;
+
+			int j = bFrom;
+			while (j < bTo) {
+				int id = b[j];
+				int nextJ = j + 1;
+				if (count[id] == 0 || count[id] > regionOccurrences) {
+					j = nextJ;
+					continue;
+				}
+
+				for (int i = head[id]; i != -1; i = next[i]) {
+					int occurrences = count[id];
+					int startA = i;
+					int startB = j;
+					while (startA > aFrom && startB > bFrom && a[startA - 1] == b[startB - 1]) {
+						startA--;
+						startB--;
+						occurrences = Math.min(occurrences, count[a[startA]]);
+					}
+					int endA = i + 1;
+					int endB = j + 1;
+					while (endA < aTo && endB < bTo && a[endA] == b[endB]) {
+						occurrences = Math.min(occurrences, count[a[endA]]);
+						endA++;
+						endB++;
+					}
+
+					int length = endA - startA;
+					if (occurrences < regionOccurrences
+							|| (occurrences == regionOccurrences && length > regionLength)) {
+						regionA = startA;
+						regionB = startB;
+						regionLength = length;
+						regionOccurrences = occurrences;
+					}
+					nextJ = Math.max(nextJ, endB);
+				}
+				j = nextJ;
+			}
+
+			for (int i = aFrom; i < aTo; i++) {
+				head[a[i]] = -1;
+				count[a[i]] = 0;
+			}
+		}
+	}
+
+}
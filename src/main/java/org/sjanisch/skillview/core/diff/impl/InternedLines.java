@@ -0,0 +1,222 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.diff.impl;
+
+/**
+ * The lines of two contents, each line identified by an integer that is equal
+ * for equal lines across both contents.
+ * <p>
+ * Lines are located and compared in place within the contents, no
+ * {@link String} is created per line. Line terminators ({@code \n}) are not
+ * part of a line and a terminator at the very end does not start another
+ * line.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+final class InternedLines {
+
+	private final String previousContent;
+	private final String currentContent;
+	private final int[] previousStarts;
+	private final int[] currentStarts;
+	private final int[] previous;
+	private final int[] current;
+	private int distinct;
+
+	private InternedLines(String previousContent, String currentContent) {
+		this.previousContent = previousContent;
+		this.currentContent = currentContent;
+		this.previousStarts = lineStarts(previousContent);
+		this.currentStarts = lineStarts(currentContent);
+		this.previous = new int[previousStarts.length - 1];
+		this.current = new int[currentStarts.length - 1];
+	}
+
+	/**
+	 * 
+	 * @param previousContent
+	 *            must not be {@code null}
+	 * @param currentContent
+	 *            must not be {@code null}
+	 * @return never {@code null}
+	 */
+	static InternedLines of(String previousContent, String currentContent) {
+		InternedLines result = new InternedLines(previousContent, currentContent);
+		result.intern();
+		return result;
+	}
+
+	/**
+	 * 
+	 * @return the line ids of the previous content. Must not be modified.
+	 */
+	int[] getPrevious() {
+		return previous;
+	}
+
+	/**
+	 * 
+	 * @return the line ids of the current content. Must not be modified.
+	 */
+	int[] getCurrent() {
+		return current;
+	}
+
+	/**
+	 * 
+	 * @return the number of distinct lines across both contents
+	 */
+	int getDistinctCount() {
+		return distinct;
+	}
+
+	/**
+	 * 
+	 * @return the current content. Never {@code null}.
+	 */
+	String getCurrentContent() {
+		return currentContent;
+	}
+
+	/**
+	 * 
+	 * @param line
+	 *            a line of the current content
+	 * @return the index of the first character of given line within the
+	 *         current content
+	 */
+	int currentStart(int line) {
+		return currentStarts[line];
+	}
+
+	/**
+	 * 
+	 * @param line
+	 *            a line of the current content
+	 * @return the index after the last character of given line within the
+	 *         current content, excluding its terminator
+	 */
+	int currentEnd(int line) {
+		return lineEnd(currentContent, currentStarts, line);
+	}
+
+	/**
+	 * Assigns ids through an open addressing hash table over the lines of
+	 * both contents.
+	 */
+	private void intern() {
+		int lines = previous.length + current.length;
+		int capacity = Integer.highestOneBit(Math.max(2, lines) * 2 - 1) << 1;
+		int mask = capacity - 1;
+		// slots hold the id of a line plus one, references to its first
+		// occurrence are kept per id
+		int[] slots = new int[capacity];
+		int[] hashes = new int[capacity];
+		int[] firstContent = new int[lines];
+		int[] firstLine = new int[lines];
+
+		for (int side = 0; side < 2; side++) {
+			String content = side == 0 ? previousContent : currentContent;
+			int[] starts = side == 0 ? previousStarts : currentStarts;
+			int[] ids = side == 0 ? previous : current;
+
+			for (int line = 0; line < ids.length; line++) {
+				int start = starts[line];
+				int end = lineEnd(content, starts, line);
+				int hash = hash(content, start, end);
+
+				int slot = hash & mask;
+				while (true) {
+					int entry = slots[slot];
+					if (entry == 0) {
+						int id = distinct++;
+						slots[slot] = id + 1;
+						hashes[slot] = hash;
+						firstContent[id] = side;
+						firstLine[id] = line;
+						ids[line] = id;
+						break;
+					}
+					int id = entry - 1;
+					if (hashes[slot] == hash && equal(content, start, end, id, firstContent, firstLine)) {
+						ids[line] = id;
+						break;
+					}
+					slot = (slot + 1) & mask;
+				}
+			}
+		}
+	}
+
+	private boolean equal(String content, int start, int end, int id, int[] firstContent, int[] firstLine) {
+		String other = firstContent[id] == 0 ? previousContent : currentContent;
+		int[] otherStarts = firstContent[id] == 0 ? previousStarts : currentStarts;
+		int otherStart = otherStarts[firstLine[id]];
+		int otherEnd = lineEnd(other, otherStarts, firstLine[id]);
+		return end - start == otherEnd - otherStart && content.regionMatches(start, other, otherStart, end - start);
+	}
+
+	private static int hash(String content, int start, int end) {
+		int result = 0;
+		for (int i = start; i < end; i++) {
+			result = 31 * result + content.charAt(i);
+		}
+		// spread the bits as consecutive slots are probed
+		return result ^ (result >>> 16) * 0x85ebca6b;
+	}
+
+	/**
+	 * @return the start offsets of all lines followed by the offset after the
+	 *         terminator of the last line, which may be missing
+	 */
+	private static int[] lineStarts(String content) {
+		int count = 0;
+		for (int i = 0; i < content.length(); i++) {
+			if (content.charAt(i) == '\n') {
+				count++;
+			}
+		}
+		boolean unterminated = !content.isEmpty() && content.charAt(content.length() - 1) != '\n';
+		if (unterminated) {
+			count++;
+		}
+
+		int[] result = new int[count + 1];
+		int line = 1;
+		for (int i = 0; i < content.length() && line < count; i++) {
+			if (content.charAt(i) == '\n') {
+				result[line++] = i + 1;
+			}
+		}
+		result[count] = unterminated ? content.length() + 1 : content.length();
+		return result;
+	}
+
+	private static int lineEnd(String content, int[] starts, int line) {
+		// excludes the terminator
+		return starts[line + 1] - 1;
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.diff.impl;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.sjanisch.skillview.core.diff.api.ContentDiff;
+
+/**
+ * A diff algorithm over lines identified by integers as provided by
+ * {@link InternedLines}.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+@FunctionalInterface
+interface LineDiffAlgorithm {
+
+	/**
+	 * Marks the lines of the current range that are not part of the common
+	 * subsequence found by this algorithm. Ranges are given by their first
+	 * (inclusive) and last (exclusive) index.
+	 * 
+	 * @param previous
+	 *            the line ids of the previous content
+	 * @param previousFrom
+	 * @param previousTo
+	 * @param current
+	 *            the line ids of the current content
+	 * @param currentFrom
+	 * @param currentTo
+	 * @param touched
+	 *            to be set to {@code true} for the added or modified lines of
+	 *            the current content
+	 * @return {@code false} if the algorithm gave up, in which case
+	 *         {@code touched} is undefined
+	 */
+	boolean diff(int[] previous, int previousFrom, int previousTo, int[] current, int currentFrom, int currentTo,
+			boolean[] touched);
+
+	/**
+	 * Interns the lines of both contents, strips common leading and trailing
+	 * lines, runs given algorithm on the remainder and collects each run of
+	 * consecutive touched lines as one chunk. Chunks are kept as ranges of
+	 * the current content, see {@link LineRangeContentDiff}.
+	 * <p>
+	 * If the algorithm gives up, the result is a {@link ContentDiff#isRewrite()
+	 * rewrite} with all lines of the current content touched.
+	 * 
+	 * @param algorithm
+	 *            must not be {@code null}
+	 * @param previousContent
+	 *            must not be {@code null}
+	 * @param currentContent
+	 *            must not be {@code null}
+	 * @return never {@code null}
+	 */
+	static ContentDiff apply(LineDiffAlgorithm algorithm, String previousContent, String currentContent) {
+		Objects.requireNonNull(previousContent, "previousContent");
+		Objects.requireNonNull(currentContent, "currentContent");
+
+		InternedLines lines = InternedLines.of(previousContent, currentContent);
+		int[] previous = lines.getPrevious();
+		int[] current = lines.getCurrent();
+
+		int previousFrom = 0;
+		int currentFrom = 0;
+		int previousTo = previous.length;
+		int currentTo = current.length;
+		while (previousFrom < previousTo && currentFrom < currentTo && previous[previousFrom] == current[currentFrom]) {
+			previousFrom++;
+			currentFrom++;
+		}
+		while (previousFrom < previousTo && currentFrom < currentTo
+				&& previous[previousTo - 1] == current[currentTo - 1]) {
+			previousTo--;
+			currentTo--;
+		}
+
+		boolean[] touched = new boolean[current.length];
+		if (previousFrom == previousTo) {
+			for (int i = currentFrom; i < currentTo; i++) {
+				touched[i] = true;
+			}
+		} else if (currentFrom < currentTo
+				&& !algorithm.diff(previous, previousFrom, previousTo, current, currentFrom, currentTo, touched)) {
+			if (current.length == 0) {
+				return new LineRangeContentDiff(lines.getCurrentContent(), new int[0], new int[0], true);
+			}
+			int[] starts = { lines.currentStart(0) };
+			int[] ends = { lines.currentEnd(current.length - 1) };
+			return new LineRangeContentDiff(lines.getCurrentContent(), starts, ends, true);
+		}
+
+		int[] starts = new int[currentTo - currentFrom];
+		int[] ends = new int[currentTo - currentFrom];
+		int chunks = 0;
+		int i = currentFrom;
+		while (i < currentTo) {
+			if (!touched[i]) {
+				i++;
+				continue;
+			}
+			int start = i;
+			while (i < currentTo && touched[i]) {
+				i++;
+			}
+			starts[chunks] = lines.currentStart(start);
+			ends[chunks] = lines.currentEnd(i - 1);
+			chunks++;
+		}
+
+		return new LineRangeContentDiff(lines.getCurrentContent(), Arrays.copyOf(starts, chunks),
+				Arrays.copyOf(ends, chunks), false);
+	}
+
+}
@@ -0,0 +1,186 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.diff.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.sjanisch.skillview.core.diff.api.ContentDiff;
+import org.sjanisch.skillview.core.utility.Lazy;
+
+/**
+ * A {@link ContentDiff} that keeps its chunks as character ranges of the
+ * current content.
+ * <p>
+ * {@link #streamTouchedContent()} produces each chunk on demand as a view
+ * that shares the current content's characters.
+ * {@link #getTouchedContent()} copies all chunks into strings when it is
+ * first invoked.
+ * <p>
+ * As the whole current content is retained, holders of many diffs, such as
+ * caches, should {@link #compact()} them first.
+ * <p>
+ * This class is immutable and thread-safe.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+final class LineRangeContentDiff implements ContentDiff {
+
+	private final String content;
+	private final int[] starts;
+	private final int[] ends;
+	private final boolean rewrite;
+	private final Lazy<Collection<String>> touchedContent;
+
+	/**
+	 * 
+	 * @param content
+	 *            the current content
+	 * @param starts
+	 *            the first character (inclusive) of each chunk
+	 * @param ends
+	 *            the last character (exclusive) of each chunk
+	 * @param rewrite
+	 *            see {@link ContentDiff#isRewrite()}
+	 */
+	LineRangeContentDiff(String content, int[] starts, int[] ends, boolean rewrite) {
+		this.content = content;
+		this.starts = starts;
+		this.ends = ends;
+		this.rewrite = rewrite;
+		this.touchedContent = Lazy.of(this::copyTouchedContent);
+	}
+
+	@Override
+	public Collection<String> getTouchedContent() {
+		return touchedContent.get();
+	}
+
+	@Override
+	public Stream<CharSequence> streamTouchedContent() {
+		return IntStream.range(0, starts.length).mapToObj(i -> new ContentView(content, starts[i], ends[i]));
+	}
+
+	@Override
+	public boolean isRewrite() {
+		return rewrite;
+	}
+
+	/**
+	 * 
+	 * @return the number of characters retained by this diff, which is the
+	 *         length of the whole current content unless compacted.
+	 */
+	int getRetainedLength() {
+		return content.length();
+	}
+
+	/**
+	 * Gives an equivalent diff that retains the characters of its chunks
+	 * only. Touched content that is not yet copied is not copied by this
+	 * method.
+	 * 
+	 * @return never {@code null}. This instance if it retains no other
+	 *         characters.
+	 */
+	LineRangeContentDiff compact() {
+		int length = 0;
+		for (int i = 0; i < starts.length; i++) {
+			length += ends[i] - starts[i];
+		}
+		if (length == content.length()) {
+			return this;
+		}
+
+		StringBuilder compacted = new StringBuilder(length);
+		int[] compactedStarts = new int[starts.length];
+		int[] compactedEnds = new int[ends.length];
+		for (int i = 0; i < starts.length; i++) {
+			compactedStarts[i] = compacted.length();
+			compacted.append(content, starts[i], ends[i]);
+			compactedEnds[i] = compacted.length();
+		}
+		return new LineRangeContentDiff(compacted.toString(), compactedStarts, compactedEnds, rewrite);
+	}
+
+	private Collection<String> copyTouchedContent() {
+		List<String> result = new ArrayList<>(starts.length);
+		for (int i = 0; i < starts.length; i++) {
+			result.add(content.substring(starts[i], ends[i]));
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[%s chunks%s]", getClass().getSimpleName(), starts.length, rewrite ? ", rewrite" : "");
+	}
+
+	/**
+	 * A range of a string that does not copy its characters.
+	 */
+	private static final class ContentView implements CharSequence {
+		private final String content;
+		private final int start;
+		private final int end;
+
+		ContentView(String content, int start, int end) {
+			this.content = content;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public int length() {
+			return end - start;
+		}
+
+		@Override
+		public char charAt(int index) {
+			if (index < 0 || index >= length()) {
+				throw new IndexOutOfBoundsException("index " + index + " of length " + length());
+			}
+			return content.charAt(start + index);
+		}
+
+		@Override
+		public CharSequence subSequence(int from, int to) {
+			if (from < 0 || to > length() || from > to) {
+				throw new IndexOutOfBoundsException(String.format("range [%s, %s) of length %s", from, to, length()));
+			}
+			return new ContentView(content, start + from, start + to);
+		}
+
+		@Override
+		public String toString() {
+			return content.substring(start, end);
+		}
+	}
+
+}
@@ -0,0 +1,328 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.diff.impl;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.sjanisch.skillview.core.diff.api.ContentDiff;
+import org.sjanisch.skillview.core.diff.api.ContentDiffService;
+
+/**
+ * A line based {@link ContentDiffService} implementing the linear space
+ * variant of Myers' O(ND) difference algorithm.
+ * <p>
+ * Lines are interned to integers first so that the algorithm compares
+ * integers only and no {@link String} is created per line. The touched
+ * content consists of one chunk per run of consecutive added or modified
+ * lines of the current content, each a substring of the current content.
+ * Removed lines are not part of the touched content.
+ * <p>
+ * The result is a minimal diff, i.e. the number of touched lines equals the
+ * number of lines of the current content minus the length of the longest
+ * common subsequence of lines.
+ * <p>
+ * As the algorithm takes time proportional to the product of the size of the
+ * contents and the number of changed lines, huge and largely changed files
+ * such as generated or minified ones can take very long. A budget for the
+ * number of changed lines and for the time spent can be given, beyond which
+ * the algorithm gives up and reports the whole current content as touched
+ * and the diff as a {@link ContentDiff#isRewrite() rewrite}.
+ * <p>
+ * This implementation is immutable and thread-safe.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class MyersContentDiffService implements ContentDiffService {
+
+	private final int maxEditDistance;
+	private final long maxNanos;
+
+	/**
+	 * Creates a service without budget that always finds a minimal diff.
+	 */
+	public MyersContentDiffService() {
+		this.maxEditDistance = Integer.MAX_VALUE;
+		this.maxNanos = Long.MAX_VALUE;
+	}
+
+	/**
+	 * 
+	 * @param maxEditDistance
+	 *            the maximum number of added and removed lines (roughly, as
+	 *            checked per half of the edit path) before giving up. Must not
+	 *            be negative.
+	 * @param maxDuration
+	 *            the maximum time spent on a diff before giving up. Must not
+	 *            be {@code null} and must be positive.
+	 */
+	public MyersContentDiffService(int maxEditDistance, Duration maxDuration) {
+		Objects.requireNonNull(maxDuration, "maxDuration");
+
+		if (maxEditDistance < 0) {
+			throw new IllegalArgumentException("max edit distance must not be negative: " + maxEditDistance);
+		}
+		if (maxDuration.isNegative() || maxDuration.isZero()) {
+			throw new IllegalArgumentException("max duration must be positive: " + maxDuration);
+		}
+
+		this.maxEditDistance = maxEditDistance;
+		this.maxNanos = maxDuration.compareTo(Duration.ofNanos(Long.MAX_VALUE)) >= 0 ? Long.MAX_VALUE
+				: maxDuration.toNanos();
+	}
+
+	@Override
+	public ContentDiff diff(String previousContent, String currentContent) {
+		long start = System.nanoTime();
+		return LineDiffAlgorithm.apply((previous, previousFrom, previousTo, current, currentFrom, currentTo,
+				touched) -> diffLines(previous, previousFrom, previousTo, current, currentFrom, currentTo, touched,
+						maxEditDistance, start, maxNanos),
+				previousContent, currentContent);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[maxEditDistance=%s, maxNanos=%s]", getClass().getSimpleName(), maxEditDistance,
+				maxNanos);
+	}
+
+	/**
+	 * Runs Myers' algorithm with the budget of this service on the given
+	 * ranges as defined by
+	 * {@link LineDiffAlgorithm#diff(int[], int, int, int[], int, int, boolean[])}.
+	 * 
+	 * @param start
+	 *            the {@link System#nanoTime()} at which the whole diff started
+	 * @return {@code false} if the budget was exceeded
+	 */
+	boolean diffLines(int[] previous, int previousFrom, int previousTo, int[] current, int currentFrom,
+			int currentTo, boolean[] touched, long start) {
+		return diffLines(previous, previousFrom, previousTo, current, currentFrom, currentTo, touched,
+				maxEditDistance, start, maxNanos);
+	}
+
+	/**
+	 * 
+	 * @param start
+	 *            the {@link System#nanoTime()} at which the whole diff started
+	 * @return whether the time budget of this service is exceeded
+	 */
+	boolean isExpired(long start) {
+		return System.nanoTime() - start > maxNanos;
+	}
+
+	/**
+	 * Runs Myers' algorithm without budget on the given ranges as defined by
+	 * {@link LineDiffAlgorithm#diff(int[], int, int, int[], int, int, boolean[])}.
+	 * This algorithm never gives up.
+	 */
+	static boolean diffLines(int[] previous, int previousFrom, int previousTo, int[] current, int currentFrom,
+			int currentTo, boolean[] touched) {
+		return diffLines(previous, previousFrom, previousTo, current, currentFrom, currentTo, touched,
+				Integer.MAX_VALUE, System.nanoTime(), Long.MAX_VALUE);
+	}
+
+	private static boolean diffLines(int[] previous, int previousFrom, int previousTo, int[] current,
+			int currentFrom, int currentTo, boolean[] touched, int maxEditDistance, long start, long maxNanos) {
+		int maxDistance = (previousTo - previousFrom + currentTo - currentFrom + 1) / 2;
+		Bisection bisection = new Bisection(previous, current, touched, 2 * maxDistance + 2, maxEditDistance, start,
+				maxNanos);
+		bisection.diff(previousFrom, previousTo, currentFrom, currentTo);
+		return !bisection.gaveUp;
+	}
+
+	/**
+	 * Recursively splits the ranges at the middle snake of their edit path.
+	 * The diagonal arrays are allocated once and reused by all steps.
+	 * <p>
+	 * The edit distance of any step is at most that of the whole diff. Hence
+	 * the edit distance budget is checked against each step's search depth,
+	 * which reaches half of the step's edit distance.
+	 */
+	private static class Bisection {
+		private final int[] a;
+		private final int[] b;
+		private final boolean[] touched;
+		private final int[] forward;
+		private final int[] backward;
+		private final int maxDepth;
+		private final long start;
+		private final long maxNanos;
+		private boolean gaveUp;
+
+		Bisection(int[] a, int[] b, boolean[] touched, int diagonals, int maxEditDistance, long start,
+				long maxNanos) {
+			this.a = a;
+			this.b = b;
+			this.touched = touched;
+			this.forward = new int[diagonals];
+			this.backward = new int[diagonals];
+			this.maxDepth = maxEditDistance == Integer.MAX_VALUE ? Integer.MAX_VALUE
+					: maxEditDistance / 2 + (maxEditDistance & 1) + 1;
+			this.start = start;
+			this.maxNanos = maxNanos;
+		}
+
+		void diff(int aFrom, int aTo, int bFrom, int bTo) {
+			if (gaveUp) {
+				return;
+			}
+
+			while (aFrom < aTo && bFrom < bTo && a[aFrom] == b[bFrom]) {
+				aFrom++;
+				bFrom++;
+			}
+			while (aFrom < aTo && bFrom < bTo && a[aTo - 1] == b[bTo - 1]) {
+				aTo--;
+				bTo--;
+			}
+
+			if (bFrom == bTo) {
+				return;
+			}
+			if (aFrom == aTo) {
+				Arrays.fill(touched, bFrom, bTo, true);
+				return;
+			}
+
+			long split = middleSnake(aFrom, aTo, bFrom, bTo);
+			if (gaveUp) {
+				return;
+			}
+			if (split < 0) {
+				// nothing in common
+				Arrays.fill(touched, bFrom, bTo, true);
+				return;
+			}
+
+			int x = (int) (split >>> 32);
+			int y = (int) split;
+			diff(aFrom, x, bFrom, y);
+			diff(x, aTo, y, bTo);
+		}
+
+		/**
+		 * Searches forward from the start and backward from the end of both
+		 * ranges simultaneously until the paths overlap.
+		 * 
+		 * @return the absolute split point with the position in {@code a} in
+		 *         the upper and the position in {@code b} in the lower 32
+		 *         bits, or {@code -1} if there is no common line or the budget
+		 *         is exceeded
+		 */
+		private long middleSnake(int aFrom, int aTo, int bFrom, int bTo) {
+			int n = aTo - aFrom;
+			int m = bTo - bFrom;
+			int maxDistance = (n + m + 1) / 2;
+			int offset = maxDistance;
+			int length = 2 * maxDistance;
+			Arrays.fill(forward, 0, length, -1);
+			Arrays.fill(backward, 0, length, -1);
+			forward[offset + 1] = 0;
+			backward[offset + 1] = 0;
+
+			int delta = n - m;
+			// the paths meet in the forward search if delta is odd
+			boolean front = (delta & 1) != 0;
+			int forwardStart = 0;
+			int forwardEnd = 0;
+			int backwardStart = 0;
+			int backwardEnd = 0;
+
+			for (int d = 0; d < maxDistance; d++) {
+				if (d >= maxDepth || (maxNanos != Long.MAX_VALUE && System.nanoTime() - start > maxNanos)) {
+					gaveUp = true;
+					return -1;
+				}
+
+				for (int k = -d + forwardStart; k <= d - forwardEnd; k += 2) {
+					int kOffset = offset + k;
+					int x;
+					if (k == -d || (k != d && forward[kOffset - 1] < forward[kOffset + 1])) {
+						x = forward[kOffset + 1];
+					} else {
+						x = forward[kOffset - 1] + 1;
+					}
+					int y = x - k;
+					while (x < n && y < m && a[aFrom + x] == b[bFrom + y]) {
+						x++;
+						y++;
+					}
+					forward[kOffset] = x;
+					if (x > n) {
+						forwardEnd += 2;
+					} else if (y > m) {
+						forwardStart += 2;
+					} else if (front) {
+						int backwardOffset = offset + delta - k;
+						if (backwardOffset >= 0 && backwardOffset < length && backward[backwardOffset] != -1) {
+							if (x >= n - backward[backwardOffset]) {
+								return split(aFrom + x, bFrom + y);
+							}
+						}
+					}
+				}
+
+				for (int k = -d + backwardStart; k <= d - backwardEnd; k += 2) {
+					int kOffset = offset + k;
+					int x;
+					if (k == -d || (k != d && backward[kOffset - 1] < backward[kOffset + 1])) {
+						x = backward[kOffset + 1];
+					} else {
+						x = backward[kOffset - 1] + 1;
+					}
+					int y = x - k;
+					while (x < n && y < m && a[aTo - x - 1] == b[bTo - y - 1]) {
+						x++;
+						y++;
+					}
+					backward[kOffset] = x;
+					if (x > n) {
+						backwardEnd += 2;
+					} else if (y > m) {
+						backwardStart += 2;
+					} else if (!front) {
+						int forwardOffset = offset + delta - k;
+						if (forwardOffset >= 0 && forwardOffset < length && forward[forwardOffset] != -1) {
+							int forwardX = forward[forwardOffset];
+							int forwardY = offset + forwardX - forwardOffset;
+							if (forwardX >= n - x) {
+								return split(aFrom + forwardX, bFrom + forwardY);
+							}
+						}
+					}
+				}
+			}
+
+			return -1;
+		}
+
+		private static long split(int x, int y) {
+			return ((long) x << 32) | (y & 0xffffffffL);
+		}
+	}
+
+}
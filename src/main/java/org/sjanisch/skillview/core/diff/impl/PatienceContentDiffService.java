@@ -0,0 +1,270 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.diff.impl;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import org.sjanisch.skillview.core.diff.api.ContentDiff;
+import org.sjanisch.skillview.core.diff.api.ContentDiffService;
+
+/**
+ * A line based {@link ContentDiffService} implementing patience diff.
+ * <p>
+ * Lines that occur exactly once in both contents are matched first, taking
+ * the longest sequence of such lines that appears in the same order in both
+ * contents as anchors. The ranges between anchors are diffed recursively.
+ * Ranges without unique common lines are diffed with
+ * {@link MyersContentDiffService Myers' algorithm}.
+ * <p>
+ * As frequent lines such as closing braces or blank lines never serve as
+ * anchors, the result aligns the distinctive lines of moved or inserted
+ * blocks, which yields less fragmented touched content than Myers' algorithm
+ * for source code. The result is not necessarily minimal.
+ * <p>
+ * Touched content is reported as described for
+ * {@link MyersContentDiffService}. A budget can be given as for
+ * {@link MyersContentDiffService}, which applies to each range diffed with
+ * Myers' algorithm and to the time spent on the whole diff.
+ * <p>
+ * This implementation is immutable and thread-safe.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class PatienceContentDiffService implements ContentDiffService {
+
+	private static final MyersContentDiffService UNBOUNDED = new MyersContentDiffService();
+
+	private final MyersContentDiffService fallback;
+
+	/**
+	 * Creates a service without budget.
+	 */
+	public PatienceContentDiffService() {
+		this.fallback = UNBOUNDED;
+	}
+
+	/**
+	 * 
+	 * @param maxEditDistance
+	 *            the maximum number of added and removed lines of each range
+	 *            diffed with Myers' algorithm, see
+	 *            {@link MyersContentDiffService#MyersContentDiffService(int, Duration)}.
+	 *            Must not be negative.
+	 * @param maxDuration
+	 *            the maximum time spent on a diff before giving up. Must not
+	 *            be {@code null} and must be positive.
+	 */
+	public PatienceContentDiffService(int maxEditDistance, Duration maxDuration) {
+		this.fallback = new MyersContentDiffService(maxEditDistance, maxDuration);
+	}
+
+	@Override
+	public ContentDiff diff(String previousContent, String currentContent) {
+		long start = System.nanoTime();
+		return LineDiffAlgorithm.apply((previous, previousFrom, previousTo, current, currentFrom, currentTo,
+				touched) -> diffLines(previous, previousFrom, previousTo, current, currentFrom, currentTo, touched,
+						fallback, start),
+				previousContent, currentContent);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[fallback %s]", getClass().getSimpleName(), fallback);
+	}
+
+	/**
+	 * Runs patience diff on the given ranges as defined by
+	 * {@link LineDiffAlgorithm#diff(int[], int, int, int[], int, int, boolean[])}.
+	 * This algorithm never gives up.
+	 */
+	static boolean diffLines(int[] previous, int previousFrom, int previousTo, int[] current, int currentFrom,
+			int currentTo, boolean[] touched) {
+		return diffLines(previous, previousFrom, previousTo, current, currentFrom, currentTo, touched, UNBOUNDED,
+				System.nanoTime());
+	}
+
+	private static boolean diffLines(int[] previous, int previousFrom, int previousTo, int[] current,
+			int currentFrom, int currentTo, boolean[] touched, MyersContentDiffService fallback, long start) {
+		int distinct = 1 + Math.max(max(previous, previousFrom, previousTo), max(current, currentFrom, currentTo));
+		Patience patience = new Patience(previous, current, touched, distinct, fallback, start);
+		patience.diff(previousFrom, previousTo, currentFrom, currentTo);
+		return !patience.gaveUp;
+	}
+
+	static int max(int[] values, int from, int to) {
+		int result = -1;
+		for (int i = from; i < to; i++) {
+			result = Math.max(result, values[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Holds the occurrence counts per line id, which are reset after each
+	 * step so that they can be reused by the next one.
+	 */
+	private static class Patience {
+		private final int[] a;
+		private final int[] b;
+		private final boolean[] touched;
+		private final int[] countA;
+		private final int[] countB;
+		private final int[] positionA;
+		private final MyersContentDiffService fallback;
+		private final long start;
+		private boolean gaveUp;
+
+		Patience(int[] a, int[] b, boolean[] touched, int distinct, MyersContentDiffService fallback, long start) {
+			this.a = a;
+			this.b = b;
+			this.touched = touched;
+			this.countA = new int[distinct];
+			this.countB = new int[distinct];
+			this.positionA = new int[distinct];
+			this.fallback = fallback;
+			this.start = start;
+		}
+
+		void diff(int aFrom, int aTo, int bFrom, int bTo) {
+			if (!gaveUp && fallback.isExpired(start)) {
+				gaveUp = true;
+			}
+			if (gaveUp) {
+				return;
+			}
+
+			while (aFrom < aTo && bFrom < bTo && a[aFrom] == b[bFrom]) {
+				aFrom++;
+				bFrom++;
+			}
+			while (aFrom < aTo && bFrom < bTo && a[aTo - 1] == b[bTo - 1]) {
+				aTo--;
+				bTo--;
+			}
+
+			if (bFrom == bTo) {
+				return;
+			}
+			if (aFrom == aTo) {
+				Arrays.fill(touched, bFrom, bTo, true);
+				return;
+			}
+
+			int[] anchors = uniqueCommonLines(aFrom, aTo, bFrom, bTo);
+			if (anchors.length == 0) {
+				gaveUp = !fallback.diffLines(a, aFrom, aTo, b, bFrom, bTo, touched, start);
+				return;
+			}
+
+			// positions are looked up before recursing as steps reuse the
+			// position table
+			int[] anchorsA = new int[anchors.length];
+			for (int k = 0; k < anchors.length; k++) {
+				anchorsA[k] = positionA[b[anchors[k]]];
+			}
+
+			int previousA = aFrom;
+			int previousB = bFrom;
+			for (int k = 0; k < anchors.length; k++) {
+				diff(previousA, anchorsA[k], previousB, anchors[k]);
+				previousA = anchorsA[k] + 1;
+				previousB = anchors[k] + 1;
+			}
+			diff(previousA, aTo, previousB, bTo);
+		}
+
+		/**
+		 * @return the positions in {@code b} of the longest sequence of lines
+		 *         unique in both ranges that appears in the same order in both
+		 *         ranges. The position in {@code a} of each such line is left
+		 *         in {@link #positionA}.
+		 */
+		private int[] uniqueCommonLines(int aFrom, int aTo, int bFrom, int bTo) {
+			for (int i = aFrom; i < aTo; i++) {
+				countA[a[i]]++;
+				positionA[a[i]] = i;
+			}
+			for (int j = bFrom; j < bTo; j++) {
+				countB[b[j]]++;
+			}
+
+			int[] unique = new int[bTo - bFrom];
+			int uniqueCount = 0;
+			for (int j = bFrom; j < bTo; j++) {
+				if (countA[b[j]] == 1 && countB[b[j]] == 1) {
+					unique[uniqueCount++] = j;
+				}
+			}
+
+			for (int i = aFrom; i < aTo; i++) {
+				countA[a[i]] = 0;
+			}
+			for (int j = bFrom; j < bTo; j++) {
+				countB[b[j]] = 0;
+			}
+
+			return longestIncreasing(unique, uniqueCount);
+		}
+
+		/**
+		 * Patience sorting: finds the longest subsequence of the given lines
+		 * of {@code b} whose positions in {@code a} are increasing.
+		 */
+		private int[] longestIncreasing(int[] lines, int count) {
+			// tails[k] is the index of the smallest tail of all increasing
+			// subsequences of length k + 1
+			int[] tails = new int[count];
+			int[] predecessors = new int[count];
+			int length = 0;
+
+			for (int i = 0; i < count; i++) {
+				int x = positionA[b[lines[i]]];
+				int low = 0;
+				int high = length;
+				while (low < high) {
+					int middle = (low + high) >>> 1;
+					if (positionA[b[lines[tails[middle]]]] < x) {
+						low = middle + 1;
+					} else {
+						high = middle;
+					}
+				}
+				predecessors[i] = low > 0 ? tails[low - 1] : -1;
+				tails[low] = i;
+				if (low == length) {
+					length++;
+				}
+			}
+
+			int[] result = new int[length];
+			for (int k = length - 1, i = length > 0 ? tails[length - 1] : -1; k >= 0; k--, i = predecessors[i]) {
+				result[k] = lines[i];
+			}
+			return result;
+		}
+	}
+
+}
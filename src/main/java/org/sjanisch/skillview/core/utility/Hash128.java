@@ -0,0 +1,114 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.utility;
+
+/**
+ * A 128 bit hash value.
+ * <p>
+ * {@link #hashCode()} and {@link #equals(Object)} are implemented against
+ * {@link #getHigh()} and {@link #getLow()}.
+ * <p>
+ * This class is immutable and thread-safe.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public final class Hash128 {
+
+	private final long high;
+	private final long low;
+
+	private Hash128(long high, long low) {
+		this.high = high;
+		this.low = low;
+	}
+
+	/**
+	 * 
+	 * @param high
+	 *            the upper 64 bits
+	 * @param low
+	 *            the lower 64 bits
+	 * @return never {@code null}
+	 */
+	public static Hash128 of(long high, long low) {
+		return new Hash128(high, low);
+	}
+
+	/**
+	 * 
+	 * @param hex
+	 *            32 hexadecimal digits as returned by {@link #toHex()}. Must
+	 *            not be {@code null}.
+	 * @return never {@code null}
+	 */
+	public static Hash128 fromHex(String hex) {
+		if (hex == null || hex.length() != 32) {
+			throw new IllegalArgumentException("expected 32 hex digits: " + hex);
+		}
+		long high = Long.parseUnsignedLong(hex.substring(0, 16), 16);
+		long low = Long.parseUnsignedLong(hex.substring(16), 16);
+		return new Hash128(high, low);
+	}
+
+	/**
+	 * 
+	 * @return the upper 64 bits
+	 */
+	public long getHigh() {
+		return high;
+	}
+
+	/**
+	 * 
+	 * @return the lower 64 bits
+	 */
+	public long getLow() {
+		return low;
+	}
+
+	/**
+	 * 
+	 * @return this hash as 32 hexadecimal digits. Never {@code null}.
+	 */
+	public String toHex() {
+		return String.format("%016x%016x", high, low);
+	}
+
+	@Override
+	public int hashCode() {
+		return (int) (low ^ (low >>> 32));
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj != null && obj instanceof Hash128 && ((Hash128) obj).high == high && ((Hash128) obj).low == low;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[%s]", getClass().getSimpleName(), toHex());
+	}
+
+}
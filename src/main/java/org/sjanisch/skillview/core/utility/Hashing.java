@@ -0,0 +1,188 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.utility;
+
+import java.util.Objects;
+
+/**
+ * Offers fast non-cryptographic hash functions.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class Hashing {
+
+	private static final long C1 = 0x87c37b91114253d5L;
+	private static final long C2 = 0x4cf5ad432745937fL;
+
+	private Hashing() {
+		throw new UnsupportedOperationException("no instances");
+	}
+
+	/**
+	 * Computes the 128 bit MurmurHash3 (x64 variant) of the UTF-16 code units
+	 * of given value.
+	 * 
+	 * @param value
+	 *            must not be {@code null}
+	 * @return never {@code null}
+	 */
+	public static Hash128 murmur3(CharSequence value) {
+		return murmur3(value, 0);
+	}
+
+	/**
+	 * Computes the 128 bit MurmurHash3 (x64 variant) of the UTF-16 code units
+	 * of given value.
+	 * 
+	 * @param value
+	 *            must not be {@code null}
+	 * @param seed
+	 *            the seed of the hash function
+	 * @return never {@code null}
+	 */
+	public static Hash128 murmur3(CharSequence value, long seed) {
+		Objects.requireNonNull(value, "value");
+
+		long h1 = seed;
+		long h2 = seed;
+
+		int length = value.length();
+		int blocks = length / 8;
+		for (int block = 0; block < blocks; block++) {
+			int offset = block * 8;
+			long k1 = pack(value, offset, 4);
+			long k2 = pack(value, offset + 4, 4);
+
+			h1 ^= mixK1(k1);
+			h1 = Long.rotateLeft(h1, 27);
+			h1 += h2;
+			h1 = h1 * 5 + 0x52dce729;
+
+			h2 ^= mixK2(k2);
+			h2 = Long.rotateLeft(h2, 31);
+			h2 += h1;
+			h2 = h2 * 5 + 0x38495ab5;
+		}
+
+		int tail = blocks * 8;
+		int remaining = length - tail;
+		if (remaining > 4) {
+			h2 ^= mixK2(pack(value, tail + 4, remaining - 4));
+		}
+		if (remaining > 0) {
+			h1 ^= mixK1(pack(value, tail, Math.min(4, remaining)));
+		}
+
+		h1 ^= length * 2L;
+		h2 ^= length * 2L;
+
+		h1 += h2;
+		h2 += h1;
+
+		h1 = fmix(h1);
+		h2 = fmix(h2);
+
+		h1 += h2;
+		h2 += h1;
+
+		return Hash128.of(h1, h2);
+	}
+
+	/**
+	 * Combines two hashes into one such that the result depends on the order
+	 * of the arguments, by running both through the MurmurHash3 (x64 variant)
+	 * block mixing and finalization.
+	 * 
+	 * @param first
+	 *            must not be {@code null}
+	 * @param second
+	 *            must not be {@code null}
+	 * @return never {@code null}
+	 */
+	public static Hash128 combine(Hash128 first, Hash128 second) {
+		Objects.requireNonNull(first, "first");
+		Objects.requireNonNull(second, "second");
+
+		long h1 = 0;
+		long h2 = 0;
+		for (Hash128 hash : new Hash128[] { first, second }) {
+			h1 ^= mixK1(hash.getHigh());
+			h1 = Long.rotateLeft(h1, 27);
+			h1 += h2;
+			h1 = h1 * 5 + 0x52dce729;
+
+			h2 ^= mixK2(hash.getLow());
+			h2 = Long.rotateLeft(h2, 31);
+			h2 += h1;
+			h2 = h2 * 5 + 0x38495ab5;
+		}
+
+		h1 ^= 32;
+		h2 ^= 32;
+
+		h1 += h2;
+		h2 += h1;
+
+		h1 = fmix(h1);
+		h2 = fmix(h2);
+
+		h1 += h2;
+		h2 += h1;
+
+		return Hash128.of(h1, h2);
+	}
+
+	private static long pack(CharSequence value, int offset, int chars) {
+		long result = 0;
+		for (int i = 0; i < chars; i++) {
+			result |= ((long) value.charAt(offset + i)) << (16 * i);
+		}
+		return result;
+	}
+
+	private static long mixK1(long k1) {
+		k1 *= C1;
+		k1 = Long.rotateLeft(k1, 31);
+		k1 *= C2;
+		return k1;
+	}
+
+	private static long mixK2(long k2) {
+		k2 *= C2;
+		k2 = Long.rotateLeft(k2, 33);
+		k2 *= C1;
+		return k2;
+	}
+
+	private static long fmix(long k) {
+		k ^= k >>> 33;
+		k *= 0xff51afd7ed558ccdL;
+		k ^= k >>> 33;
+		k *= 0xc4ceb9fe1a85ec53L;
+		k ^= k >>> 33;
+		return k;
+	}
+
+}
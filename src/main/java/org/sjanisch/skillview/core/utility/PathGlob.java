@@ -0,0 +1,187 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.utility;
+
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * A glob pattern matched against {@code /}-separated paths, independently of
+ * the platform's file system.
+ * <p>
+ * The syntax is that of {@link java.nio.file.FileSystem#getPathMatcher(String)
+ * glob patterns}: {@code *} matches any characters within a path segment,
+ * {@code **} any characters across segments, {@code ?} a single character
+ * within a segment, {@code [...]} a character of a set or range ({@code [!...]}
+ * negates it), {@code {a,b}} one of several alternatives and {@code \} escapes
+ * the next character.
+ * <p>
+ * Patterns without a {@code /} are matched against the file name, i.e. the
+ * last segment of a path, e.g. {@code *.java} matches {@code src/A.java}. All
+ * other patterns are matched against the whole path, e.g. {@code src/main/**}.
+ * <p>
+ * This class is immutable and thread-safe.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public final class PathGlob {
+
+	private final String glob;
+	private final Pattern pattern;
+	private final boolean fileName;
+
+	private PathGlob(String glob, Pattern pattern, boolean fileName) {
+		this.glob = glob;
+		this.pattern = pattern;
+		this.fileName = fileName;
+	}
+
+	/**
+	 * 
+	 * @param glob
+	 *            must not be {@code null}
+	 * @return never {@code null}
+	 * @throws IllegalArgumentException
+	 *             if given glob is malformed
+	 */
+	public static PathGlob compile(String glob) {
+		Objects.requireNonNull(glob, "glob");
+
+		return new PathGlob(glob, Pattern.compile(toRegex(glob)), glob.indexOf('/') < 0);
+	}
+
+	/**
+	 * 
+	 * @param path
+	 *            a {@code /}-separated path. Must not be {@code null}.
+	 * @return whether given path, or its file name if this glob contains no
+	 *         {@code /}, matches this glob
+	 */
+	public boolean matches(String path) {
+		Objects.requireNonNull(path, "path");
+
+		String subject = fileName ? path.substring(path.lastIndexOf('/') + 1) : path;
+		return pattern.matcher(subject).matches();
+	}
+
+	@Override
+	public String toString() {
+		return glob;
+	}
+
+	private static String toRegex(String glob) {
+		StringBuilder result = new StringBuilder();
+		boolean inGroup = false;
+		for (int i = 0; i < glob.length(); i++) {
+			char c = glob.charAt(i);
+			switch (c) {
+			case '*':
+				if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+					result.append(".*");
+					i++;
+				} else {
+					result.append("[^/]*");
+				}
+				break;
+			case '?':
+				result.append("[^/]");
+				break;
+			case '\\':
+				if (++i == glob.length()) {
+					throw malformed(glob, "trailing escape");
+				}
+				appendLiteral(glob.charAt(i), result);
+				break;
+			case '[':
+				i = appendBracket(glob, i, result);
+				break;
+			case '{':
+				if (inGroup) {
+					throw malformed(glob, "nested group");
+				}
+				result.append("(?:");
+				inGroup = true;
+				break;
+			case '}':
+				if (!inGroup) {
+					throw malformed(glob, "unopened group");
+				}
+				result.append(')');
+				inGroup = false;
+				break;
+			case ',':
+				if (inGroup) {
+					result.append('|');
+				} else {
+					appendLiteral(c, result);
+				}
+				break;
+			default:
+				appendLiteral(c, result);
+			}
+		}
+		if (inGroup) {
+			throw malformed(glob, "unclosed group");
+		}
+		return result.toString();
+	}
+
+	/**
+	 * @return the index of the closing bracket
+	 */
+	private static int appendBracket(String glob, int open, StringBuilder result) {
+		int i = open + 1;
+		result.append("[[^/]&&[");
+		if (i < glob.length() && (glob.charAt(i) == '!' || glob.charAt(i) == '^')) {
+			result.append('^');
+			i++;
+		}
+		for (boolean first = true; i < glob.length(); i++, first = false) {
+			char c = glob.charAt(i);
+			if (c == ']' && !first) {
+				result.append("]]");
+				return i;
+			}
+			if (c == '-' && !first && i + 1 < glob.length() && glob.charAt(i + 1) != ']') {
+				result.append('-');
+			} else {
+				appendLiteral(c, result);
+			}
+		}
+		throw malformed(glob, "unclosed bracket");
+	}
+
+	private static void appendLiteral(char c, StringBuilder result) {
+		if (!Character.isLetterOrDigit(c)) {
+			result.append('\\');
+		}
+		result.append(c);
+	}
+
+	private static IllegalArgumentException malformed(String glob, String reason) {
+		return new IllegalArgumentException(String.format("malformed glob %s: %s", glob, reason));
+	}
+
+}
@@ -0,0 +1,137 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.utility;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Decorates a {@link Spliterator} of unknown size such that it splits off
+ * batches of roughly equal estimated work rather than of equal element count.
+ * <p>
+ * Each {@link #trySplit()} takes elements from the source until their
+ * accumulated work reaches the current batch work, so an element whose work
+ * exceeds the batch work forms a batch on its own and does not hold up other
+ * elements. The batch work starts small, so that all workers of a parallel
+ * stream get busy quickly, and doubles with each split up to a maximum, which
+ * bounds the work of the last batches and hence the tail of a parallel run.
+ * <p>
+ * This class is not thread-safe, as required by the {@link Spliterator}
+ * contract.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class WorkBatchingSpliterator<T> implements Spliterator<T> {
+
+	private static final int MAX_BATCH_ELEMENTS = 1 << 25;
+
+	private final Spliterator<T> source;
+	private final ToLongFunction<? super T> work;
+	private final long maxBatchWork;
+	private long batchWork;
+
+	/**
+	 * 
+	 * @param source
+	 *            must not be {@code null}
+	 * @param work
+	 *            estimates the work of an element in arbitrary units. Must
+	 *            not be {@code null}. Negative estimates count as zero.
+	 * @param initialBatchWork
+	 *            the work of the first batch. Must be positive.
+	 * @param maxBatchWork
+	 *            the maximum work of a batch. Must not be less than
+	 *            {@code initialBatchWork}.
+	 */
+	public WorkBatchingSpliterator(Spliterator<T> source, ToLongFunction<? super T> work, long initialBatchWork,
+			long maxBatchWork) {
+		this.source = Objects.requireNonNull(source, "source");
+		this.work = Objects.requireNonNull(work, "work");
+
+		if (initialBatchWork <= 0 || maxBatchWork < initialBatchWork) {
+			String msg = "invalid batch work: initial %s max %s";
+			throw new IllegalArgumentException(String.format(msg, initialBatchWork, maxBatchWork));
+		}
+
+		this.batchWork = initialBatchWork;
+		this.maxBatchWork = maxBatchWork;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super T> action) {
+		return source.tryAdvance(action);
+	}
+
+	@Override
+	public void forEachRemaining(Consumer<? super T> action) {
+		source.forEachRemaining(action);
+	}
+
+	@Override
+	public Spliterator<T> trySplit() {
+		Batch<T> batch = new Batch<>(work);
+		while (batch.work < batchWork && batch.elements.size() < MAX_BATCH_ELEMENTS && source.tryAdvance(batch)) {
+			// accumulated by the batch
+		}
+
+		if (batch.elements.isEmpty()) {
+			return null;
+		}
+
+		batchWork = Math.min(maxBatchWork, batchWork * 2);
+		return batch.elements.spliterator();
+	}
+
+	@Override
+	public long estimateSize() {
+		return source.estimateSize();
+	}
+
+	@Override
+	public int characteristics() {
+		return source.characteristics() & (ORDERED | DISTINCT | NONNULL | IMMUTABLE);
+	}
+
+	private static class Batch<T> implements Consumer<T> {
+		private final ToLongFunction<? super T> estimate;
+		private final List<T> elements = new ArrayList<>();
+		private long work;
+
+		Batch(ToLongFunction<? super T> estimate) {
+			this.estimate = estimate;
+		}
+
+		@Override
+		public void accept(T element) {
+			elements.add(element);
+			work += Math.max(0, estimate.applyAsLong(element));
+		}
+	}
+
+}
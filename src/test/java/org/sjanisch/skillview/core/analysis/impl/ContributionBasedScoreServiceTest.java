@@ -0,0 +1,320 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.analysis.impl;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+import org.sjanisch.skillview.core.analysis.api.BatchContributionScorer;
+import org.sjanisch.skillview.core.analysis.api.ContributionScorer;
+import org.sjanisch.skillview.core.analysis.api.ContributionScorerDefinition;
+import org.sjanisch.skillview.core.analysis.api.DetailedContributionScore;
+import org.sjanisch.skillview.core.analysis.api.ScoreOriginator;
+import org.sjanisch.skillview.core.analysis.api.ScorerScope;
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionId;
+import org.sjanisch.skillview.core.contribution.api.ContributionService;
+import org.sjanisch.skillview.core.contribution.api.Contributor;
+import org.sjanisch.skillview.core.contribution.api.Project;
+import org.sjanisch.skillview.core.contribution.impl.DefaultContribution;
+
+/**
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class ContributionBasedScoreServiceTest {
+
+	@Test
+	public void testGetContributionScores_GivenExecutor_ExpectAllScoredWithinInFlightBound() throws Exception {
+		AtomicInteger retrieved = new AtomicInteger();
+		AtomicInteger scored = new AtomicInteger();
+		AtomicInteger maxAhead = new AtomicInteger();
+
+		ContributionService contributions = (start, end) -> IntStream.range(0, 200).mapToObj(i -> {
+			retrieved.incrementAndGet();
+			return contribution(i);
+		});
+
+		ContributionScorerDefinition definition = ContributionScorerDefinition.of(ScoreOriginator.of("scorer"),
+				SkillTags.JAVA, 0);
+		ContributionScorer scorer = new ContributionScorer() {
+			@Override
+			public OptionalDouble score(Contribution contribution) {
+				scored.incrementAndGet();
+				return OptionalDouble.of(Integer.parseInt(contribution.getId().getValue()));
+			}
+
+			@Override
+			public ContributionScorerDefinition getDefinition() {
+				return definition;
+			}
+		};
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			ContributionBasedScoreService service = ContributionBasedScoreService
+					.newBuilder(contributions, Collections.singleton(scorer)).setExecutor(executor, 8).build();
+
+			List<DetailedContributionScore> scores;
+			try (Stream<DetailedContributionScore> stream = service.getContributionScores(Instant.MIN, Instant.MAX)) {
+				scores = stream.peek(score -> maxAhead.accumulateAndGet(retrieved.get() - scored.get(), Math::max))
+						.collect(Collectors.toList());
+			}
+
+			double sum = scores.stream().mapToDouble(score -> score.getScore().getAsDouble()).sum();
+			assertThat(scores.size(), is(200));
+			assertThat(sum, is(199 * 200 / 2.0));
+			assertThat(maxAhead.get(), lessThanOrEqualTo(8));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testGetContributionScores_GivenVirtualThreads_ExpectAllScoredWithinConcurrencyCap() {
+		ContributionService contributions = (start, end) -> IntStream.range(0, 100).mapToObj(i -> contribution(i));
+
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		ContributionScorerDefinition definition = ContributionScorerDefinition.of(ScoreOriginator.of("scorer"),
+				SkillTags.JAVA, 0);
+		ContributionScorer scorer = new ContributionScorer() {
+			@Override
+			public OptionalDouble score(Contribution contribution) {
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+				try {
+					Thread.sleep(5);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				running.decrementAndGet();
+				return OptionalDouble.of(1);
+			}
+
+			@Override
+			public ContributionScorerDefinition getDefinition() {
+				return definition;
+			}
+		};
+
+		ContributionBasedScoreService.Builder builder = ContributionBasedScoreService.newBuilder(contributions,
+				Collections.singleton(scorer));
+
+		if (!ContributionBasedScoreService.isVirtualThreadsSupported()) {
+			try {
+				builder.setVirtualThreads(10);
+				fail("expected virtual threads to be unsupported");
+			} catch (UnsupportedOperationException e) {
+				return;
+			}
+		}
+
+		ContributionBasedScoreService service = builder.setVirtualThreads(10).build();
+		try (Stream<DetailedContributionScore> stream = service.getContributionScores(Instant.MIN, Instant.MAX)) {
+			assertThat(stream.count(), is(100L));
+		}
+		assertThat(maxRunning.get(), lessThanOrEqualTo(10));
+	}
+
+	@Test
+	public void testGetContributionScores_GivenBatchScorer_ExpectChunksScoredAlongsideSingleScorer() {
+		ContributionService contributions = (start, end) -> IntStream.range(0, 10).mapToObj(i -> contribution(i));
+
+		ConcurrentLinkedQueue<Integer> chunkSizes = new ConcurrentLinkedQueue<>();
+		ContributionScorerDefinition batchDefinition = ContributionScorerDefinition.of(ScoreOriginator.of("batch"),
+				SkillTags.JAVA, 0);
+		BatchContributionScorer batchScorer = new BatchContributionScorer() {
+			@Override
+			public List<OptionalDouble> scoreBatch(List<Contribution> chunk) {
+				chunkSizes.add(chunk.size());
+				return chunk.stream().map(contribution -> OptionalDouble.of(2)).collect(Collectors.toList());
+			}
+
+			@Override
+			public ContributionScorerDefinition getDefinition() {
+				return batchDefinition;
+			}
+		};
+
+		ContributionScorerDefinition singleDefinition = ContributionScorerDefinition.of(ScoreOriginator.of("single"),
+				SkillTags.JAVA, 0);
+		ContributionScorer singleScorer = new ContributionScorer() {
+			@Override
+			public OptionalDouble score(Contribution contribution) {
+				return OptionalDouble.of(1);
+			}
+
+			@Override
+			public ContributionScorerDefinition getDefinition() {
+				return singleDefinition;
+			}
+		};
+
+		ContributionBasedScoreService service = ContributionBasedScoreService
+				.newBuilder(contributions, Arrays.asList(batchScorer, singleScorer)).setChunkSize(4).build();
+
+		double sum;
+		try (Stream<DetailedContributionScore> stream = service.getContributionScores(Instant.MIN, Instant.MAX)) {
+			sum = stream.mapToDouble(score -> score.getScore().getAsDouble()).sum();
+		}
+
+		assertThat(sum, is(30.0));
+		assertThat(chunkSizes.stream().mapToInt(Integer::intValue).sum(), is(10));
+		assertThat(chunkSizes, everyItem(lessThanOrEqualTo(4)));
+		assertThat(chunkSizes.size(), is(3));
+	}
+
+	@Test
+	public void testGetContributionScores_GivenScopedScorers_ExpectOnlyItemsInScopeRouted() {
+		ContributionService contributions = (start, end) -> Stream.of(
+				contribution(1, "src/Main.java", "scripts/build.py", "docs/index.md"),
+				contribution(2, "README.md"));
+
+		AtomicInteger rustCalls = new AtomicInteger();
+		List<ContributionScorer> scorers = Arrays.asList(itemCounter("all", ScorerScope.all(), null),
+				itemCounter("java", ScorerScope.ofLanguages("java"), null),
+				itemCounter("python", ScorerScope.ofPathPatterns("*.py"), null),
+				itemCounter("docs", ScorerScope.ofPathPatterns("docs/**"), null),
+				itemCounter("markdown", ScorerScope.of(Arrays.asList("markdown"), Arrays.asList("*.py")), null),
+				itemCounter("rust", ScorerScope.ofLanguages("rust"), rustCalls));
+
+		ContributionBasedScoreService service = new ContributionBasedScoreService(contributions, scorers);
+
+		Map<String, Double> scores;
+		try (Stream<DetailedContributionScore> stream = service.getContributionScores(Instant.MIN, Instant.MAX)) {
+			scores = stream.collect(Collectors.toMap(
+					score -> score.getContributionId().getValue() + ":" + score.getScoreOriginator().getValue(),
+					score -> score.getScore().getAsDouble()));
+		}
+
+		assertThat(scores.get("1:all"), is(3.0));
+		assertThat(scores.get("1:java"), is(1.0));
+		assertThat(scores.get("1:python"), is(1.0));
+		assertThat(scores.get("1:docs"), is(1.0));
+		assertThat(scores.get("1:markdown"), is(2.0));
+		assertThat(scores.get("2:all"), is(1.0));
+		assertThat(scores.get("2:markdown"), is(1.0));
+		assertThat(scores.size(), is(7));
+		assertThat(rustCalls.get(), is(0));
+	}
+
+	@Test
+	public void testGetContributionScores_GivenFailingScorer_ExpectContentReleased() {
+		AtomicInteger loads = new AtomicInteger();
+		Contribution contribution = DefaultContribution
+				.newBuilder(ContributionId.of("1"), Project.of("project"), Contributor.of("name"), Instant.EPOCH)
+				.addContributionItem("a.java", () -> "", 0, () -> {
+					loads.incrementAndGet();
+					return "content";
+				}, 7).build();
+
+		ContributionScorerDefinition definition = ContributionScorerDefinition.of(ScoreOriginator.of("failing"),
+				SkillTags.JAVA, 0);
+		ContributionScorer scorer = new ContributionScorer() {
+			@Override
+			public OptionalDouble score(Contribution contribution) {
+				contribution.getContributionItems().forEach(item -> item.getContent());
+				throw new IllegalStateException("broken");
+			}
+
+			@Override
+			public ContributionScorerDefinition getDefinition() {
+				return definition;
+			}
+		};
+
+		ContributionBasedScoreService service = new ContributionBasedScoreService(
+				(start, end) -> Stream.of(contribution), Collections.singleton(scorer));
+
+		try (Stream<DetailedContributionScore> stream = service.getContributionScores(Instant.MIN, Instant.MAX)) {
+			stream.count();
+			fail("expected scorer failure");
+		} catch (IllegalStateException e) {
+			// parallel streams rethrow a copy of a worker's exception
+			assertThat(e.getMessage(), containsString("broken"));
+		}
+
+		contribution.getContributionItems().forEach(item -> item.getContent());
+		assertThat(loads.get(), is(2));
+	}
+
+	private static ContributionScorer itemCounter(String originator, ScorerScope scope, AtomicInteger calls) {
+		ContributionScorerDefinition definition = ContributionScorerDefinition.of(ScoreOriginator.of(originator),
+				SkillTags.JAVA, 0);
+		return new ContributionScorer() {
+			@Override
+			public OptionalDouble score(Contribution contribution) {
+				if (calls != null) {
+					calls.incrementAndGet();
+				}
+				return OptionalDouble.of(contribution.getContributionItems().size());
+			}
+
+			@Override
+			public ContributionScorerDefinition getDefinition() {
+				return definition;
+			}
+
+			@Override
+			public ScorerScope getScope() {
+				return scope;
+			}
+		};
+	}
+
+	private static Contribution contribution(int i, String... paths) {
+		DefaultContribution.Builder builder = DefaultContribution.newBuilder(ContributionId.of(Integer.toString(i)),
+				Project.of("project"), Contributor.of("name"), Instant.EPOCH);
+		for (String path : paths) {
+			builder.addContributionItem(path, () -> "", 0, () -> "content", 7);
+		}
+		return builder.build();
+	}
+
+	private static Contribution contribution(int i) {
+		return DefaultContribution.newBuilder(ContributionId.of(Integer.toString(i)), Project.of("project"),
+				Contributor.of("name"), Instant.EPOCH).build();
+	}
+
+}
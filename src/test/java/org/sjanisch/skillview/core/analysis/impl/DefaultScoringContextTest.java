@@ -0,0 +1,87 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.analysis.impl;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionId;
+import org.sjanisch.skillview.core.contribution.api.ContributionItem;
+import org.sjanisch.skillview.core.contribution.api.Contributor;
+import org.sjanisch.skillview.core.contribution.api.Project;
+import org.sjanisch.skillview.core.contribution.impl.DefaultContribution;
+import org.sjanisch.skillview.core.diff.api.ContentDiff;
+import org.sjanisch.skillview.core.diff.api.ContentDiffService;
+import org.sjanisch.skillview.core.diff.impl.MyersContentDiffService;
+
+/**
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class DefaultScoringContextTest {
+
+	@Test
+	public void testGetDiff_GivenRepeatedRequests_ExpectDiffedOnce() {
+		AtomicInteger diffs = new AtomicInteger();
+		ContentDiffService service = (previous, current) -> {
+			diffs.incrementAndGet();
+			return new MyersContentDiffService().diff(previous, current);
+		};
+		ContributionItem item = ContributionItem.of("src/A.java", "a\nb\n", "a\nc\n");
+		DefaultScoringContext context = new DefaultScoringContext(contribution(item), service);
+
+		ContentDiff first = context.getDiff(item);
+		ContentDiff second = context.getDiff(item);
+
+		assertThat(diffs.get(), is(1));
+		assertThat(second == first, is(true));
+		assertThat(first.getTouchedContent(), contains("c"));
+	}
+
+	@Test
+	public void testMemoize_GivenNestedMemoization_ExpectBothValuesMemoized() {
+		ContributionItem item = ContributionItem.of("src/A.java", "", "a\r\nb");
+		DefaultScoringContext context = new DefaultScoringContext(contribution(item), new MyersContentDiffService());
+
+		int lineCount = context.memoize("count", () -> context.getLines(item).size());
+
+		assertThat(lineCount, is(2));
+		assertThat(context.getLines(item), contains("a", "b"));
+		assertThat(context.getLanguage(item), is(Optional.of("java")));
+	}
+
+	private static Contribution contribution(ContributionItem item) {
+		return DefaultContribution.newBuilder(ContributionId.of("1"), Project.of("project"),
+				Contributor.of("name"), Instant.EPOCH).addContributionItem(item).build();
+	}
+
+}
@@ -0,0 +1,119 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.analysis.impl;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+import org.sjanisch.skillview.core.analysis.api.ContributionScore;
+import org.sjanisch.skillview.core.analysis.api.DetailedContributionScore;
+import org.sjanisch.skillview.core.analysis.api.ScoreOriginator;
+import org.sjanisch.skillview.core.contribution.api.ContributionId;
+import org.sjanisch.skillview.core.contribution.api.Contributor;
+import org.sjanisch.skillview.core.contribution.api.Project;
+
+/**
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class InMemoryContributionScoreServiceTest {
+
+	private final InMemoryContributionScoreService service = new InMemoryContributionScoreService();
+
+	@Test
+	public void testGetContributionScores_GivenSavedScores_ExpectScoresWithinTimeFrameInTimeOrder() {
+		service.saveContributionScores(Stream.of(score("a", 3, 1), score("a", 1, 1), score("a", 2, 1)));
+
+		assertThat(ids(service.getContributionScores(seconds(1), seconds(3))), contains("a2", "a3"));
+	}
+
+	@Test
+	public void testGetContributionScores_GivenEmptyTimeFrame_ExpectNoScores() {
+		service.saveContributionScores(Stream.of(score("a", 1, 1)));
+
+		assertThat(ids(service.getContributionScores(seconds(1), seconds(0))), empty());
+	}
+
+	@Test
+	public void testReplaceContributionScores_GivenOriginatorAndTimeFrame_ExpectOthersRetained() {
+		service.saveContributionScores(Stream.of(score("a", 1, 1), score("a", 2, 1), score("b", 2, 1),
+				score("a", 3, 1)));
+
+		service.replaceContributionScores(Collections.singleton(ScoreOriginator.of("a")), seconds(1), seconds(2),
+				Stream.of(score("a", 2, 5)));
+
+		List<DetailedContributionScore> scores = service.getContributionScores(Instant.MIN, Instant.MAX)
+				.collect(Collectors.toList());
+		assertThat(ids(scores.stream()), containsInAnyOrder("a1", "a2", "b2", "a3"));
+		assertThat(scores.stream().mapToDouble(score -> score.getScore().getAsDouble()).sum(), is(8.0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testReplaceContributionScores_GivenScoreOfOtherOriginator_ExpectException() {
+		service.replaceContributionScores(Collections.singleton(ScoreOriginator.of("a")), seconds(0), seconds(2),
+				Stream.of(score("b", 1, 1)));
+	}
+
+	@Test
+	public void testReplaceContributionScores_GivenScoreOutsideTimeFrame_ExpectExceptionAndScoresRetained() {
+		service.saveContributionScores(Stream.of(score("a", 1, 1)));
+
+		try {
+			service.replaceContributionScores(Collections.singleton(ScoreOriginator.of("a")), seconds(0),
+					seconds(2), Stream.of(score("a", 3, 1)));
+			fail("expected exception");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+
+		assertThat(ids(service.getContributionScores(Instant.MIN, Instant.MAX)), contains("a1"));
+	}
+
+	private static DetailedContributionScore score(String originator, long second, double score) {
+		return DetailedContributionScore.of(ContributionScore.of(SkillTags.JAVA, score), seconds(second),
+				Project.of("project"), ContributionId.of(originator + second), Contributor.of("name"),
+				ScoreOriginator.of(originator));
+	}
+
+	private static List<String> ids(Stream<DetailedContributionScore> scores) {
+		return scores.map(score -> score.getContributionId().getValue()).collect(Collectors.toList());
+	}
+
+	private static Instant seconds(long seconds) {
+		return Instant.EPOCH.plusSeconds(seconds);
+	}
+
+}
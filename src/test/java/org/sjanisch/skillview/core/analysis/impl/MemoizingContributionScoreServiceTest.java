@@ -0,0 +1,235 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.analysis.impl;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalDouble;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sjanisch.skillview.core.analysis.api.BatchContributionScorer;
+import org.sjanisch.skillview.core.analysis.api.ContributionScorer;
+import org.sjanisch.skillview.core.analysis.api.ContributionScorerDefinition;
+import org.sjanisch.skillview.core.analysis.api.DetailedContributionScore;
+import org.sjanisch.skillview.core.analysis.api.ScoreOriginator;
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionId;
+import org.sjanisch.skillview.core.contribution.api.ContributionService;
+import org.sjanisch.skillview.core.contribution.api.Contributor;
+import org.sjanisch.skillview.core.contribution.api.Project;
+import org.sjanisch.skillview.core.contribution.impl.DefaultContribution;
+
+/**
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class MemoizingContributionScoreServiceTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final ContributionService contributions = (start, end) -> IntStream.range(0, 50)
+			.mapToObj(i -> DefaultContribution.newBuilder(ContributionId.of(Integer.toString(i)),
+					Project.of("project"), Contributor.of("name"), Instant.EPOCH).build());
+
+	@Test
+	public void testGetContributionScores_GivenRepeatedRuns_ExpectScoredOncePerVersion() throws Exception {
+		Path index = folder.getRoot().toPath().resolve("scores.idx");
+		AtomicInteger scored = new AtomicInteger();
+
+		assertThat(scoreAll(index, 1, scored), is(25L * 24));
+		assertThat(scored.get(), is(50));
+
+		assertThat(scoreAll(index, 1, scored), is(25L * 24));
+		assertThat(scored.get(), is(50));
+
+		assertThat(scoreAll(index, 2, scored), is(25L * 24));
+		assertThat(scored.get(), is(100));
+	}
+
+	@Test
+	public void testScoreBatch_GivenPartlyMemoizedChunk_ExpectOnlyMissingPassedOnAndMergedInOrder() {
+		List<List<String>> chunks = new ArrayList<>();
+		BatchContributionScorer scorer = new TimesTenScorer(chunks, 0);
+		BatchContributionScorer memoizing = (BatchContributionScorer) decorate(index(), scorer);
+
+		memoizing.scoreBatch(Arrays.asList(contribution(0), contribution(2)));
+		List<OptionalDouble> scores = memoizing
+				.scoreBatch(Arrays.asList(contribution(0), contribution(1), contribution(2), contribution(3)));
+
+		assertThat(chunks.get(1), contains("1", "3"));
+		assertThat(scores, contains(OptionalDouble.of(0), OptionalDouble.of(10), OptionalDouble.of(20),
+				OptionalDouble.of(30)));
+	}
+
+	@Test
+	public void testScoreBatch_GivenFullyMemoizedChunk_ExpectDelegateNotCalled() {
+		List<List<String>> chunks = new ArrayList<>();
+		BatchContributionScorer scorer = new TimesTenScorer(chunks, 0);
+		BatchContributionScorer memoizing = (BatchContributionScorer) decorate(index(), scorer);
+
+		memoizing.scoreBatch(Arrays.asList(contribution(4), contribution(5)));
+		List<OptionalDouble> scores = memoizing.scoreBatch(Arrays.asList(contribution(5), contribution(4)));
+
+		assertThat(chunks.size(), is(1));
+		assertThat(scores, contains(OptionalDouble.of(50), OptionalDouble.of(40)));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testScoreBatch_GivenDelegateReturnsTooFewScores_ExpectException() {
+		BatchContributionScorer scorer = new TimesTenScorer(new ArrayList<>(), 1);
+		BatchContributionScorer memoizing = (BatchContributionScorer) decorate(index(), scorer);
+
+		memoizing.scoreBatch(Arrays.asList(contribution(0), contribution(1)));
+	}
+
+	@Test
+	public void testScore_GivenEmptyScore_ExpectMemoizedAsEmptyAcrossServices() {
+		Path index = index();
+		AtomicInteger scored = new AtomicInteger();
+		ContributionScorer scorer = new ContributionScorer() {
+			@Override
+			public OptionalDouble score(Contribution contribution) {
+				scored.incrementAndGet();
+				return OptionalDouble.empty();
+			}
+
+			@Override
+			public ContributionScorerDefinition getDefinition() {
+				return definition(1);
+			}
+		};
+
+		AtomicReference<MemoizingContributionScoreService> service = new AtomicReference<>();
+		ContributionScorer memoizing = decorate(index, scorer, service);
+		assertThat(memoizing.score(contribution(7)), is(OptionalDouble.empty()));
+		assertThat(memoizing.score(contribution(7)), is(OptionalDouble.empty()));
+		assertThat(scored.get(), is(1));
+
+		service.get().getContributionScores(Instant.MIN, Instant.MIN).close();
+
+		ContributionScorer reopened = decorate(index, scorer);
+		assertThat(reopened.score(contribution(7)), is(OptionalDouble.empty()));
+		assertThat(scored.get(), is(1));
+	}
+
+	private Path index() {
+		return folder.getRoot().toPath().resolve("scores.idx");
+	}
+
+	private static Contribution contribution(int id) {
+		return DefaultContribution.newBuilder(ContributionId.of(Integer.toString(id)), Project.of("project"),
+				Contributor.of("name"), Instant.EPOCH).build();
+	}
+
+	private static ContributionScorerDefinition definition(int version) {
+		return ContributionScorerDefinition.of(ScoreOriginator.of("test"), SkillTags.JAVA, 0, version);
+	}
+
+	private ContributionScorer decorate(Path index, ContributionScorer scorer) {
+		return decorate(index, scorer, new AtomicReference<>());
+	}
+
+	private ContributionScorer decorate(Path index, ContributionScorer scorer,
+			AtomicReference<MemoizingContributionScoreService> service) {
+		AtomicReference<Collection<ContributionScorer>> decorated = new AtomicReference<>();
+		service.set(new MemoizingContributionScoreService(index, Collections.singleton(scorer), scorers -> {
+			decorated.set(scorers);
+			return new ContributionBasedScoreService(contributions, scorers);
+		}));
+
+		return decorated.get().iterator().next();
+	}
+
+	private static class TimesTenScorer implements BatchContributionScorer {
+		private final ContributionScorerDefinition definition = definition(1);
+		private final List<List<String>> chunks;
+		private final int dropped;
+
+		TimesTenScorer(List<List<String>> chunks, int dropped) {
+			this.chunks = chunks;
+			this.dropped = dropped;
+		}
+
+		@Override
+		public List<OptionalDouble> scoreBatch(List<Contribution> contributions) {
+			List<String> ids = new ArrayList<>();
+			List<OptionalDouble> scores = new ArrayList<>();
+			for (Contribution contribution : contributions) {
+				ids.add(contribution.getId().getValue());
+				scores.add(OptionalDouble.of(Integer.parseInt(contribution.getId().getValue()) * 10));
+			}
+			chunks.add(ids);
+			return scores.subList(0, scores.size() - dropped);
+		}
+
+		@Override
+		public ContributionScorerDefinition getDefinition() {
+			return definition;
+		}
+	}
+
+	private long scoreAll(Path index, int version, AtomicInteger scored) {
+		ContributionScorerDefinition definition = ContributionScorerDefinition.of(ScoreOriginator.of("even"),
+				SkillTags.JAVA, 0, version);
+		ContributionScorer scorer = new ContributionScorer() {
+			@Override
+			public OptionalDouble score(Contribution contribution) {
+				scored.incrementAndGet();
+				int id = Integer.parseInt(contribution.getId().getValue());
+				return id % 2 == 0 ? OptionalDouble.of(id) : OptionalDouble.empty();
+			}
+
+			@Override
+			public ContributionScorerDefinition getDefinition() {
+				return definition;
+			}
+		};
+
+		MemoizingContributionScoreService service = new MemoizingContributionScoreService(index,
+				Collections.singleton(scorer), scorers -> new ContributionBasedScoreService(contributions, scorers));
+
+		try (Stream<DetailedContributionScore> scores = service.getContributionScores(Instant.MIN, Instant.MAX)) {
+			return scores.collect(Collectors.summingLong(score -> (long) score.getScore().getAsDouble()));
+		}
+	}
+
+}
@@ -0,0 +1,229 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.analysis.impl;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sjanisch.skillview.core.analysis.api.ContributionScorer;
+import org.sjanisch.skillview.core.analysis.api.ContributionScorerDefinition;
+import org.sjanisch.skillview.core.analysis.api.DetailedContributionScore;
+import org.sjanisch.skillview.core.analysis.api.ScoreOriginator;
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionId;
+import org.sjanisch.skillview.core.contribution.api.ContributionService;
+import org.sjanisch.skillview.core.contribution.api.Contributor;
+import org.sjanisch.skillview.core.contribution.api.Project;
+import org.sjanisch.skillview.core.contribution.impl.DefaultContribution;
+
+/**
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class ScoreBackfillTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final ContributionService contributions = (start, end) -> IntStream.range(0, 10)
+			.mapToObj(i -> DefaultContribution.newBuilder(ContributionId.of(Integer.toString(i)),
+					Project.of("project"), Contributor.of("name"), Instant.EPOCH.plusSeconds(i)).build())
+			.filter(contribution -> within(contribution.getContributionTime(), start, end));
+
+	private final InMemoryScoreStore store = new InMemoryScoreStore();
+
+	@Test
+	public void testBackfill_GivenChangedAndAddedScorers_ExpectOnlyTheirScoresReplaced() {
+		Path registry = folder.getRoot().toPath().resolve("scorers.properties");
+
+		ScoreBackfill initial = backfill(registry, scorer("a", 1, 1), scorer("b", 1, 2));
+		assertThat(initial.backfill(Instant.MIN, Instant.MAX), containsInAnyOrder(originator("a"), originator("b")));
+		assertThat(store.sum("a"), is(10.0));
+		assertThat(store.sum("b"), is(20.0));
+
+		ScoreBackfill unchanged = backfill(registry, scorer("a", 1, 1), scorer("b", 1, 2));
+		assertThat(unchanged.getOutdatedScorers(), is(empty()));
+		assertThat(unchanged.backfill(Instant.MIN, Instant.MAX), is(empty()));
+
+		ScoreBackfill changed = backfill(registry, scorer("a", 1, 1), scorer("b", 2, 3), scorer("c", 1, 4));
+		assertThat(changed.backfill(Instant.MIN, Instant.MAX), containsInAnyOrder(originator("b"), originator("c")));
+		assertThat(store.replaced, contains(Arrays.asList("a", "b"), Arrays.asList("b", "c")));
+		assertThat(store.sum("a"), is(10.0));
+		assertThat(store.sum("b"), is(30.0));
+		assertThat(store.sum("c"), is(40.0));
+	}
+
+	@Test
+	public void testBackfill_GivenAdjacentWindows_ExpectOnlyUncoveredPartScored() {
+		Path registry = folder.getRoot().toPath().resolve("scorers.properties");
+
+		ScoreBackfill first = backfill(registry, scorer("a", 1, 1));
+		assertThat(first.backfill(Instant.EPOCH.minusSeconds(1), seconds(4)), contains(originator("a")));
+		assertThat(store.sum("a"), is(5.0));
+
+		ScoreBackfill second = backfill(registry, scorer("a", 1, 1));
+		assertThat(second.getOutdatedScorers(), is(empty()));
+		assertThat(second.backfill(seconds(2), seconds(9)), contains(originator("a")));
+		assertThat(store.frames, contains(Arrays.asList(Instant.EPOCH.minusSeconds(1), seconds(4)),
+				Arrays.asList(seconds(4), seconds(9))));
+		assertThat(store.sum("a"), is(10.0));
+	}
+
+	@Test
+	public void testBackfill_GivenCoveredWindow_ExpectNothingScored() {
+		Path registry = folder.getRoot().toPath().resolve("scorers.properties");
+
+		backfill(registry, scorer("a", 1, 1)).backfill(Instant.MIN, Instant.MAX);
+
+		assertThat(backfill(registry, scorer("a", 1, 1)).backfill(seconds(2), seconds(5)), is(empty()));
+		assertThat(store.replaced.size(), is(1));
+	}
+
+	@Test
+	public void testBackfill_GivenDisjointWindow_ExpectGapScored() {
+		Path registry = folder.getRoot().toPath().resolve("scorers.properties");
+
+		backfill(registry, scorer("a", 1, 1)).backfill(Instant.EPOCH.minusSeconds(1), seconds(1));
+		backfill(registry, scorer("a", 1, 1)).backfill(seconds(6), seconds(9));
+
+		assertThat(store.frames.get(1), is(Arrays.asList(seconds(1), seconds(9))));
+		assertThat(store.sum("a"), is(10.0));
+	}
+
+	@Test
+	public void testBackfill_GivenChangedVersion_ExpectCoverageReset() {
+		Path registry = folder.getRoot().toPath().resolve("scorers.properties");
+
+		backfill(registry, scorer("a", 1, 1)).backfill(Instant.MIN, Instant.MAX);
+		backfill(registry, scorer("a", 2, 2)).backfill(seconds(4), seconds(9));
+		assertThat(store.sum("a"), is(15.0));
+
+		ScoreBackfill rest = backfill(registry, scorer("a", 2, 2));
+		assertThat(rest.getOutdatedScorers(), is(empty()));
+		assertThat(rest.backfill(Instant.MIN, Instant.MAX), contains(originator("a")));
+		assertThat(store.sum("a"), is(20.0));
+	}
+
+	@Test
+	public void testBackfill_GivenDifferentWindowsPerScorer_ExpectScoredSeparately() {
+		Path registry = folder.getRoot().toPath().resolve("scorers.properties");
+
+		backfill(registry, scorer("a", 1, 1)).backfill(Instant.EPOCH.minusSeconds(1), seconds(4));
+		ScoreBackfill both = backfill(registry, scorer("a", 1, 1), scorer("b", 1, 2));
+
+		assertThat(both.backfill(Instant.EPOCH.minusSeconds(1), seconds(9)),
+				containsInAnyOrder(originator("a"), originator("b")));
+		assertThat(store.sum("a"), is(10.0));
+		assertThat(store.sum("b"), is(20.0));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testBackfill_GivenEntryWithoutTimeFrame_ExpectException() throws Exception {
+		Path registry = folder.getRoot().toPath().resolve("scorers.properties");
+		Files.write(registry, Arrays.asList("a=1"));
+
+		backfill(registry, scorer("a", 1, 1)).backfill(seconds(4), seconds(9));
+	}
+
+	@Test
+	public void testBackfill_GivenEmptyWindow_ExpectNothingScored() {
+		Path registry = folder.getRoot().toPath().resolve("scorers.properties");
+
+		assertThat(backfill(registry, scorer("a", 1, 1)).backfill(seconds(4), seconds(4)), is(empty()));
+		assertThat(store.replaced, is(empty()));
+	}
+
+	private ScoreBackfill backfill(Path registry, ContributionScorer... scorers) {
+		return new ScoreBackfill(registry, Arrays.asList(scorers),
+				selected -> new ContributionBasedScoreService(contributions, selected), store);
+	}
+
+	private static ContributionScorer scorer(String originator, int version, double score) {
+		ContributionScorerDefinition definition = ContributionScorerDefinition.of(originator(originator),
+				SkillTags.JAVA, 0, version);
+		return new ContributionScorer() {
+			@Override
+			public OptionalDouble score(Contribution contribution) {
+				return OptionalDouble.of(score);
+			}
+
+			@Override
+			public ContributionScorerDefinition getDefinition() {
+				return definition;
+			}
+		};
+	}
+
+	private static ScoreOriginator originator(String value) {
+		return ScoreOriginator.of(value);
+	}
+
+	private static Instant seconds(long seconds) {
+		return Instant.EPOCH.plusSeconds(seconds);
+	}
+
+	private static boolean within(Instant time, Instant startExclusive, Instant endInclusive) {
+		return time.isAfter(startExclusive) && !time.isAfter(endInclusive);
+	}
+
+	private static class InMemoryScoreStore extends InMemoryContributionScoreService {
+		private final List<List<String>> replaced = new ArrayList<>();
+		private final List<List<Instant>> frames = new ArrayList<>();
+
+		@Override
+		public void replaceContributionScores(Set<ScoreOriginator> scoreOriginators, Instant startExclusive,
+				Instant endInclusive, Stream<DetailedContributionScore> contributionScores) {
+			replaced.add(scoreOriginators.stream().map(ScoreOriginator::getValue).sorted()
+					.collect(Collectors.toList()));
+			frames.add(Arrays.asList(startExclusive, endInclusive));
+			super.replaceContributionScores(scoreOriginators, startExclusive, endInclusive, contributionScores);
+		}
+
+		double sum(String originator) {
+			return getContributionScores(Instant.MIN, Instant.MAX)
+					.filter(score -> score.getScoreOriginator().getValue().equals(originator))
+					.mapToDouble(score -> score.getScore().getAsDouble()).sum();
+		}
+	}
+
+}
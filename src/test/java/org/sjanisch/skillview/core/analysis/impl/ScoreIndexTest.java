@@ -0,0 +1,120 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.analysis.impl;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sjanisch.skillview.core.utility.Hash128;
+import org.sjanisch.skillview.core.utility.Hashing;
+
+/**
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class ScoreIndexTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testOpen_GivenFlushedScores_ExpectScoresAfterReopen() {
+		Path file = folder.getRoot().toPath().resolve("scores.idx");
+		ScoreIndex index = ScoreIndex.open(file);
+		for (int i = 0; i < 5000; i++) {
+			index.put(key(i), i == 7 ? Double.NaN : i);
+		}
+		index.flush();
+
+		ScoreIndex reopened = ScoreIndex.open(file);
+
+		assertThat(reopened.size(), is(5000));
+		assertThat(reopened.get(key(42)), is(42.0));
+		assertThat(reopened.get(key(7)).isNaN(), is(true));
+		assertThat(reopened.get(key(5000)), is(nullValue()));
+	}
+
+	@Test
+	public void testOpen_GivenRepeatedPut_ExpectSingleRecord() throws IOException {
+		Path file = folder.getRoot().toPath().resolve("scores.idx");
+		ScoreIndex index = ScoreIndex.open(file);
+		index.put(key(1), 1);
+		index.put(key(1), 1);
+		index.flush();
+
+		assertThat(Files.size(file), is(8L + 24));
+	}
+
+	@Test
+	public void testOpen_GivenTruncatedRecord_ExpectRecordCutOffAndLaterAppendsReadable() throws IOException {
+		Path file = folder.getRoot().toPath().resolve("scores.idx");
+		ScoreIndex index = ScoreIndex.open(file);
+		index.put(key(1), 1);
+		index.put(key(2), 2);
+		index.flush();
+		truncate(file, Files.size(file) - 5);
+
+		ScoreIndex repaired = ScoreIndex.open(file);
+		assertThat(repaired.size(), is(1));
+		assertThat(Files.size(file), is(8L + 24));
+		repaired.put(key(3), 3);
+		repaired.flush();
+
+		ScoreIndex reopened = ScoreIndex.open(file);
+		assertThat(reopened.size(), is(2));
+		assertThat(reopened.get(key(1)), is(1.0));
+		assertThat(reopened.get(key(2)), is(nullValue()));
+		assertThat(reopened.get(key(3)), is(3.0));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testOpen_GivenForeignFile_ExpectException() throws IOException {
+		Path file = folder.newFile().toPath();
+		Files.write(file, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+
+		ScoreIndex.open(file);
+	}
+
+	private static Hash128 key(int i) {
+		return Hashing.murmur3("key " + i);
+	}
+
+	private static void truncate(Path file, long size) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.truncate(size);
+		}
+	}
+
+}
@@ -0,0 +1,121 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.analysis.impl;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.OptionalDouble;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.sjanisch.skillview.core.analysis.api.ContributionScorer;
+import org.sjanisch.skillview.core.analysis.api.ContributionScorerDefinition;
+import org.sjanisch.skillview.core.analysis.api.ScoreOriginator;
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionId;
+import org.sjanisch.skillview.core.contribution.api.ContributionItem;
+import org.sjanisch.skillview.core.contribution.api.Contributor;
+import org.sjanisch.skillview.core.contribution.api.Project;
+import org.sjanisch.skillview.core.contribution.impl.DefaultContribution;
+import org.sjanisch.skillview.core.diff.api.ContentDiffService;
+import org.sjanisch.skillview.core.diff.impl.MyersContentDiffService;
+
+/**
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class TokenCountScorersTest {
+
+	@Test
+	public void testCount_GivenRandomTexts_ExpectCountsOfNaiveSearch() {
+		Random random = new Random(3);
+		for (int run = 0; run < 200; run++) {
+			List<String> tokens = Arrays.asList(randomText(random, 1 + random.nextInt(3)),
+					randomText(random, 1 + random.nextInt(4)), randomText(random, 1 + random.nextInt(2)));
+			String text = randomText(random, random.nextInt(60));
+
+			int[] counts = new int[tokens.size()];
+			TokenAutomaton.of(tokens).count(text, counts);
+
+			for (int t = 0; t < tokens.size(); t++) {
+				assertThat(counts[t], is(naiveCount(text, tokens.get(t))));
+			}
+		}
+	}
+
+	@Test
+	public void testScore_GivenScorersOfOneBuilder_ExpectOneDiffAndCountsPerScorer() {
+		ContributionScorerDefinition streams = ContributionScorerDefinition.of(ScoreOriginator.of("streams"),
+				SkillTags.JAVA8_STREAMS, 0);
+		ContributionScorerDefinition lambdas = ContributionScorerDefinition.of(ScoreOriginator.of("lambdas"),
+				SkillTags.JAVA, 0);
+		ContributionScorerDefinition generics = ContributionScorerDefinition.of(ScoreOriginator.of("generics"),
+				SkillTags.JAVA, 0);
+		Iterator<ContributionScorer> scorers = TokenCountScorers.newBuilder()
+				.addScorer(streams, Arrays.asList(".stream()", ".collect(")).addScorer(lambdas, Arrays.asList("->"))
+				.addScorer(generics, Arrays.asList("<T>")).build().iterator();
+
+		String previous = "class A {\n}\n";
+		String current = "class A {\nlist.stream().map(x -> x).collect(toList());\nset.stream();\n}\n";
+		ContributionItem item = ContributionItem.of("A.java", previous, current);
+		Contribution contribution = DefaultContribution.newBuilder(ContributionId.of("1"), Project.of("project"),
+				Contributor.of("name"), Instant.EPOCH).addContributionItem(item).build();
+
+		AtomicInteger diffs = new AtomicInteger();
+		ContentDiffService service = (p, c) -> {
+			diffs.incrementAndGet();
+			return new MyersContentDiffService().diff(p, c);
+		};
+		DefaultScoringContext context = new DefaultScoringContext(contribution, service);
+
+		assertThat(scorers.next().score(context), is(OptionalDouble.of(3)));
+		assertThat(scorers.next().score(context), is(OptionalDouble.of(1)));
+		assertThat(scorers.next().score(context), is(OptionalDouble.empty()));
+		assertThat(diffs.get(), is(1));
+	}
+
+	private static String randomText(Random random, int length) {
+		StringBuilder result = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			result.append((char) ('a' + random.nextInt(3)));
+		}
+		return result.toString();
+	}
+
+	private static int naiveCount(String text, String token) {
+		int result = 0;
+		for (int i = text.indexOf(token); i >= 0; i = text.indexOf(token, i + 1)) {
+			result++;
+		}
+		return result;
+	}
+
+}
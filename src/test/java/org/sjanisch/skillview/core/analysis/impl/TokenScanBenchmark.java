@@ -0,0 +1,147 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.analysis.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares counting the tokens of many scorers in touched content with one
+ * fused {@link TokenAutomaton} against one automaton per scorer and against
+ * a {@link String#indexOf(String, int)} loop per token.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenScanBenchmark {
+
+	private static final String[] WORDS = { "stream", "map", "filter", "collect", "list", "Optional", "var", "get",
+			"value", "items", "forEach", "reduce", "of", "new", "return", "this", "size", "count" };
+
+	@Param({ "5", "20" })
+	public int scorers;
+
+	@Param({ "4" })
+	public int tokensPerScorer;
+
+	@Param({ "2000" })
+	public int lines;
+
+	private List<String> touchedContent;
+	private List<String> tokens;
+	private TokenAutomaton fused;
+	private List<TokenAutomaton> separate;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(42);
+
+		tokens = new ArrayList<>();
+		separate = new ArrayList<>();
+		for (int s = 0; s < scorers; s++) {
+			List<String> own = new ArrayList<>();
+			for (int t = 0; t < tokensPerScorer; t++) {
+				own.add(token(random));
+			}
+			tokens.addAll(own);
+			separate.add(TokenAutomaton.of(own));
+		}
+		fused = TokenAutomaton.of(tokens);
+
+		touchedContent = new ArrayList<>();
+		StringBuilder chunk = new StringBuilder();
+		for (int i = 0; i < lines; i++) {
+			chunk.append("\t\t").append(WORDS[random.nextInt(WORDS.length)]).append('.');
+			chunk.append(WORDS[random.nextInt(WORDS.length)]).append("(x -> x.");
+			chunk.append(WORDS[random.nextInt(WORDS.length)]).append("());\n");
+			if (random.nextInt(10) == 0) {
+				touchedContent.add(chunk.toString());
+				chunk.setLength(0);
+			}
+		}
+		touchedContent.add(chunk.toString());
+	}
+
+	@Benchmark
+	public int[] fused() {
+		int[] counts = new int[fused.getTokenCount()];
+		for (String chunk : touchedContent) {
+			fused.count(chunk, counts);
+		}
+		return counts;
+	}
+
+	@Benchmark
+	public int[][] separate() {
+		int[][] counts = new int[scorers][];
+		for (int s = 0; s < scorers; s++) {
+			TokenAutomaton automaton = separate.get(s);
+			counts[s] = new int[automaton.getTokenCount()];
+			for (String chunk : touchedContent) {
+				automaton.count(chunk, counts[s]);
+			}
+		}
+		return counts;
+	}
+
+	@Benchmark
+	public int[] indexOf() {
+		int[] counts = new int[tokens.size()];
+		for (int t = 0; t < tokens.size(); t++) {
+			String token = tokens.get(t);
+			for (String chunk : touchedContent) {
+				for (int i = chunk.indexOf(token); i >= 0; i = chunk.indexOf(token, i + 1)) {
+					counts[t]++;
+				}
+			}
+		}
+		return counts;
+	}
+
+	private static String token(Random random) {
+		String word = WORDS[random.nextInt(WORDS.length)];
+		return random.nextBoolean() ? "." + word + "(" : word;
+	}
+
+}
@@ -0,0 +1,67 @@
+package org.sjanisch.skillview.core.contribution.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.both;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.sjanisch.skillview.core.utility.Hashing;
+
+/**
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class BloomFilterTest {
+
+	@Test
+	public void testPut_GivenSameHashTwice_ExpectSeenSecondTime() {
+		BloomFilter filter = BloomFilter.create(100, 0.01);
+
+		assertThat(filter.put(Hashing.murmur3("a")), is(true));
+		assertThat(filter.put(Hashing.murmur3("a")), is(false));
+		assertThat(filter.put(Hashing.murmur3("b")), is(true));
+	}
+
+	@Test
+	public void testPut_GivenExpectedInsertions_ExpectFalsePositiveRateNearBudget() {
+		BloomFilter filter = BloomFilter.create(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.put(Hashing.murmur3("inserted" + i));
+		}
+
+		// probes are inserted as well, hence only a few to keep the load
+		// near the expected insertions
+		int falsePositives = 0;
+		for (int i = 0; i < 1000; i++) {
+			if (!filter.put(Hashing.murmur3("probe" + i))) {
+				falsePositives++;
+			}
+		}
+
+		assertThat(falsePositives, lessThan(40));
+	}
+
+	@Test
+	public void testGetFalsePositiveProbability_GivenExpectedInsertions_ExpectBudget() {
+		BloomFilter filter = BloomFilter.create(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.put(Hashing.murmur3(Integer.toString(i)));
+		}
+
+		assertThat(filter.getFalsePositiveProbability(), both(greaterThan(0.005)).and(lessThan(0.02)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCreate_GivenZeroInsertions_ExpectException() {
+		BloomFilter.create(0, 0.01);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCreate_GivenProbabilityOne_ExpectException() {
+		BloomFilter.create(100, 1.0);
+	}
+
+}
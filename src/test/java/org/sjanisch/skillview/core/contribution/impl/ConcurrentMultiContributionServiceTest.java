@@ -0,0 +1,157 @@
+package org.sjanisch.skillview.core.contribution.impl;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Test;
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionId;
+import org.sjanisch.skillview.core.contribution.api.ContributionRetrievalException;
+import org.sjanisch.skillview.core.contribution.api.ContributionService;
+import org.sjanisch.skillview.core.contribution.api.Contributor;
+import org.sjanisch.skillview.core.contribution.api.Project;
+
+/**
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class ConcurrentMultiContributionServiceTest {
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenSources_ExpectAllInSourceOrder() {
+		ConcurrentMultiContributionService service = new ConcurrentMultiContributionService(
+				Arrays.asList(service("a", 100), service("b", 50), service("c", 0)), executor, 4);
+
+		List<String> ids;
+		try (Stream<Contribution> contributions = service.retrieveContributions(Instant.MIN, Instant.MAX)) {
+			ids = contributions.map(c -> c.getId().getValue()).collect(Collectors.toList());
+		}
+
+		assertThat(ids.size(), is(150));
+		assertThat(ids.stream().filter(id -> id.startsWith("a")).collect(Collectors.toList()), equalTo(ids("a", 100)));
+		assertThat(ids.stream().filter(id -> id.startsWith("b")).collect(Collectors.toList()), equalTo(ids("b", 50)));
+		assertThat(service.getSourceStatistics().get(0).getRetrieved(), is(100L));
+		assertThat(service.getSourceStatistics().get(0).getInFlight(), is(0L));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenFailingSource_ExpectExceptionAndOtherSourcesClosed() throws Exception {
+		CountDownLatch closed = new CountDownLatch(1);
+		ContributionService endless = (start, end) -> Stream.iterate(0, i -> i + 1).map(i -> contribution("a", i))
+				.onClose(closed::countDown);
+		ContributionService failing = (start, end) -> IntStream.range(0, 10).mapToObj(i -> {
+			if (i == 5) {
+				throw new IllegalStateException("broken");
+			}
+			return contribution("b", i);
+		});
+
+		ConcurrentMultiContributionService service = new ConcurrentMultiContributionService(
+				Arrays.asList(endless, failing), executor, 4);
+
+		try (Stream<Contribution> contributions = service.retrieveContributions(Instant.MIN, Instant.MAX)) {
+			contributions.count();
+			fail("expected failure of source 1");
+		} catch (ContributionRetrievalException e) {
+			assertThat(e.getMessage(), is("retrieval failed for source 1"));
+			assertThat(e.getCause().getMessage(), is("broken"));
+		}
+
+		assertTrue(closed.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testRetrieveContributions_CloseEarly_ExpectBlockedSourcesStoppedAndClosed() throws Exception {
+		CountDownLatch closed = new CountDownLatch(2);
+		ContributionService endless1 = (start, end) -> Stream.iterate(0, i -> i + 1).map(i -> contribution("a", i))
+				.onClose(closed::countDown);
+		ContributionService endless2 = (start, end) -> Stream.iterate(0, i -> i + 1).map(i -> contribution("b", i))
+				.onClose(closed::countDown);
+
+		ConcurrentMultiContributionService service = new ConcurrentMultiContributionService(
+				Arrays.asList(endless1, endless2), executor, 2);
+
+		try (Stream<Contribution> contributions = service.retrieveContributions(Instant.MIN, Instant.MAX)) {
+			assertThat(contributions.limit(10).count(), is(10L));
+		}
+
+		assertTrue(closed.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenDirectExecutor_ExpectAllWithoutDeadlock() {
+		AtomicInteger closed = new AtomicInteger();
+		ContributionService source1 = (start, end) -> service("a", 100).retrieveContributions(start, end)
+				.onClose(closed::incrementAndGet);
+		ContributionService source2 = (start, end) -> service("b", 100).retrieveContributions(start, end)
+				.onClose(closed::incrementAndGet);
+
+		ConcurrentMultiContributionService service = new ConcurrentMultiContributionService(
+				Arrays.asList(source1, source2), Runnable::run, 2);
+
+		List<String> ids;
+		try (Stream<Contribution> contributions = service.retrieveContributions(Instant.MIN, Instant.MAX)) {
+			ids = contributions.map(c -> c.getId().getValue()).collect(Collectors.toList());
+		}
+
+		assertThat(ids.size(), is(200));
+		assertThat(ids.subList(0, 100), equalTo(ids("a", 100)));
+		assertThat(closed.get(), is(2));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenDirectExecutorClosedEarly_ExpectOpenedSourceClosed() {
+		AtomicInteger closed = new AtomicInteger();
+		ContributionService source = (start, end) -> service("a", 100).retrieveContributions(start, end)
+				.onClose(closed::incrementAndGet);
+
+		ConcurrentMultiContributionService service = new ConcurrentMultiContributionService(
+				Arrays.asList(source, source), Runnable::run, 2);
+
+		try (Stream<Contribution> contributions = service.retrieveContributions(Instant.MIN, Instant.MAX)) {
+			Iterator<Contribution> iterator = contributions.iterator();
+			iterator.next();
+		}
+
+		assertThat(closed.get(), is(1));
+	}
+
+	private static ContributionService service(String prefix, int count) {
+		return (startExclusive, endInclusive) -> IntStream.range(0, count).mapToObj(i -> contribution(prefix, i));
+	}
+
+	private static Contribution contribution(String prefix, int i) {
+		return DefaultContribution.newBuilder(ContributionId.of(prefix + i), Project.of("p"), Contributor.of("c"),
+				Instant.ofEpochSecond(i)).build();
+	}
+
+	private static List<String> ids(String prefix, int count) {
+		return IntStream.range(0, count).mapToObj(i -> prefix + i).collect(Collectors.toList());
+	}
+
+}
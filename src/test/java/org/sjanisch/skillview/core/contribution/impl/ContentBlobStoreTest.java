@@ -0,0 +1,94 @@
+package org.sjanisch.skillview.core.contribution.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+import org.sjanisch.skillview.core.contribution.impl.ContentBlobStore.ContentBlob;
+import org.sjanisch.skillview.core.utility.Hash128;
+
+/**
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class ContentBlobStoreTest {
+
+	private final ContentBlobStore store = new ContentBlobStore();
+
+	@Test
+	public void testAcquire_GivenEqualContents_ExpectSameInstance() {
+		ContentBlob first = store.acquire(new String("content"));
+		ContentBlob second = store.acquire(new String("content"));
+
+		assertThat(first.getContent() == second.getContent(), is(true));
+		assertThat(store.getStatistics().getBlobs(), is(1L));
+		assertThat(store.getStatistics().getResidentCharacters(), is(7L));
+		assertThat(store.getStatistics().getSharedAcquisitions(), is(1L));
+	}
+
+	@Test
+	public void testAcquire_GivenHeldKey_ExpectNotLoaded() {
+		AtomicInteger loads = new AtomicInteger();
+		Hash128 key = Hash128.of(1, 2);
+
+		ContentBlob first = store.acquire(key, counting("content", loads));
+		ContentBlob second = store.acquire(key, counting("content", loads));
+
+		assertThat(first.getContent() == second.getContent(), is(true));
+		assertThat(loads.get(), is(1));
+	}
+
+	@Test
+	public void testRelease_GivenAllBlobsReleased_ExpectEvicted() {
+		ContentBlob first = store.acquire("content");
+		ContentBlob second = store.acquire("content");
+
+		first.release();
+		first.release();
+		assertThat(store.getStatistics().getBlobs(), is(1L));
+
+		second.release();
+		assertThat(store.getStatistics().getBlobs(), is(0L));
+		assertThat(store.getStatistics().getResidentCharacters(), is(0L));
+		assertThat(second.getContent(), is("content"));
+	}
+
+	@Test
+	public void testAcquire_GivenReleasedKey_ExpectLoadedAgain() {
+		AtomicInteger loads = new AtomicInteger();
+		Hash128 key = Hash128.of(1, 2);
+
+		store.acquire(key, counting("content", loads)).release();
+		store.acquire(key, counting("content", loads));
+
+		assertThat(loads.get(), is(2));
+	}
+
+	@Test
+	public void testReleaseContent_GivenLazyItemsSharingBlob_ExpectEvictedAfterLastItem() {
+		Hash128 key = Hash128.of(1, 2);
+		LazyContributionItem first = LazyContributionItem.ofBlobs("a", () -> ContentBlob.unshared(""), 0,
+				() -> store.acquire(key, () -> "content"), 7);
+		LazyContributionItem second = LazyContributionItem.ofBlobs("a", () -> store.acquire(key, () -> "content"), 7,
+				() -> ContentBlob.unshared(""), 0);
+
+		assertThat(first.getContent() == second.getPreviousContent(), is(true));
+
+		first.releaseContent();
+		assertThat(store.getStatistics().getBlobs(), is(1L));
+		second.releaseContent();
+		assertThat(store.getStatistics().getBlobs(), is(0L));
+	}
+
+	private static Supplier<String> counting(String content, AtomicInteger loads) {
+		return () -> {
+			loads.incrementAndGet();
+			return content;
+		};
+	}
+
+}
@@ -0,0 +1,154 @@
+package org.sjanisch.skillview.core.contribution.impl;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Test;
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionId;
+import org.sjanisch.skillview.core.contribution.api.ContributionItem;
+import org.sjanisch.skillview.core.contribution.api.ContributionRetrievalException;
+import org.sjanisch.skillview.core.contribution.api.Contributor;
+import org.sjanisch.skillview.core.contribution.api.Project;
+
+/**
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class ContributionCodecTest {
+
+	private final ContentBlobStore contents = new ContentBlobStore();
+
+	@Test
+	public void testRead_GivenWrittenContribution_ExpectSameContribution() throws IOException {
+		Contribution contribution = DefaultContribution
+				.newBuilder(ContributionId.of("id"), Project.of("project"), Contributor.of("name", "mail@example.org"),
+						Instant.ofEpochSecond(1234, 5678))
+				.setMessage("message").addContributionItem(ContributionItem.of("a/b.java", "", "new"))
+				.addContributionItem(ContributionItem.of("c.txt", "gr\u00fc\u00dfe \ud83d\ude00", "")).build();
+
+		Contribution result = ContributionCodec.read(ByteBuffer.wrap(encode(contribution)), contents);
+
+		assertThat(result.getId(), equalTo(ContributionId.of("id")));
+		assertThat(result.getProject(), equalTo(Project.of("project")));
+		assertThat(result.getContributor(), equalTo(Contributor.of("name", "mail@example.org")));
+		assertThat(result.getContributionTime(), equalTo(Instant.ofEpochSecond(1234, 5678)));
+		assertThat(result.getMessage(), equalTo(Optional.of("message")));
+
+		List<ContributionItem> items = new ArrayList<>(result.getContributionItems());
+		assertThat(items.size(), is(2));
+		assertThat(items.get(0).getPath(), equalTo("a/b.java"));
+		assertThat(items.get(0).getPreviousContent(), equalTo(""));
+		assertThat(items.get(0).getContent(), equalTo("new"));
+		assertThat(items.get(1).getPath(), equalTo("c.txt"));
+		assertThat(items.get(1).getPreviousContent(), equalTo("gr\u00fc\u00dfe \ud83d\ude00"));
+		assertThat(items.get(1).getPreviousContentSize(), is(8L));
+		assertThat(items.get(1).getContentSize(), is(0L));
+	}
+
+	@Test
+	public void testRead_GivenAbsentEmailAndMessage_ExpectAbsent() throws IOException {
+		Contribution contribution = DefaultContribution
+				.newBuilder(ContributionId.of("id"), Project.of("p"), Contributor.of("name"), Instant.EPOCH).build();
+
+		Contribution result = ContributionCodec.read(ByteBuffer.wrap(encode(contribution)), contents);
+
+		assertThat(result.getContributor().getEmail(), equalTo(Optional.empty()));
+		assertThat(result.getMessage(), equalTo(Optional.empty()));
+		assertThat(result.getContributionItems().isEmpty(), is(true));
+	}
+
+	@Test
+	public void testRead_GivenConsecutiveRecords_ExpectPositionAdvancedPerRecord() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			ContributionCodec.write(contribution("first"), out);
+			ContributionCodec.write(contribution("second"), out);
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+
+		assertThat(ContributionCodec.read(buffer, contents).getId(), equalTo(ContributionId.of("first")));
+		assertThat(ContributionCodec.read(buffer, contents).getId(), equalTo(ContributionId.of("second")));
+		assertThat(buffer.hasRemaining(), is(false));
+	}
+
+	@Test
+	public void testRead_GivenContentOfNextCommit_ExpectSameInstance() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			ContributionCodec.write(contribution("first", "", "shared"), out);
+			ContributionCodec.write(contribution("second", "shared", "next"), out);
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+		ContributionItem first = ContributionCodec.read(buffer, contents).getContributionItems().iterator().next();
+		ContributionItem second = ContributionCodec.read(buffer, contents).getContributionItems().iterator().next();
+
+		assertThat(second.getPreviousContent() == first.getContent(), is(true));
+		assertThat(contents.getStatistics().getSharedAcquisitions(), is(1L));
+
+		first.releaseContent();
+		second.releaseContent();
+		assertThat(contents.getStatistics().getBlobs(), is(0L));
+	}
+
+	@Test(expected = ContributionRetrievalException.class)
+	public void testRead_GivenTruncatedRecord_ExpectException() throws IOException {
+		byte[] bytes = encode(contribution("id"));
+
+		ContributionCodec.read(ByteBuffer.wrap(bytes, 0, bytes.length - 1).slice(), contents);
+	}
+
+	@Test(expected = ContributionRetrievalException.class)
+	public void testRead_GivenNullContent_ExpectException() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(1);
+			out.write('i');
+			out.writeInt(1);
+			out.write('p');
+			out.writeInt(1);
+			out.write('n');
+			out.writeInt(-1);
+			out.writeLong(0);
+			out.writeInt(0);
+			out.writeInt(-1);
+			out.writeInt(1);
+			out.writeInt(1);
+			out.write('f');
+			out.writeInt(-1);
+			out.writeInt(-1);
+		}
+
+		ContributionCodec.read(ByteBuffer.wrap(bytes.toByteArray()), contents);
+	}
+
+	private static Contribution contribution(String id) {
+		return contribution(id, "old", "new");
+	}
+
+	private static Contribution contribution(String id, String previousContent, String content) {
+		return DefaultContribution
+				.newBuilder(ContributionId.of(id), Project.of("p"), Contributor.of("c"), Instant.EPOCH)
+				.addContributionItem(ContributionItem.of("f", previousContent, content)).build();
+	}
+
+	private static byte[] encode(Contribution contribution) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			ContributionCodec.write(contribution, out);
+		}
+		return bytes.toByteArray();
+	}
+
+}
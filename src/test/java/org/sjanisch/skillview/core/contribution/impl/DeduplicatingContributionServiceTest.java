@@ -0,0 +1,101 @@
+package org.sjanisch.skillview.core.contribution.impl;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertThat;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionId;
+import org.sjanisch.skillview.core.contribution.api.ContributionService;
+import org.sjanisch.skillview.core.contribution.api.Contributor;
+import org.sjanisch.skillview.core.contribution.api.Project;
+
+/**
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class DeduplicatingContributionServiceTest {
+
+	@Test
+	public void testRetrieveContributions_GivenRepeatedIds_ExpectFirstOccurrencesOnly() {
+		ContributionService source = service("a", "b", "a", "c", "b", "a");
+		DeduplicatingContributionService service = new DeduplicatingContributionService(source, 1000, 1e-6, 100);
+
+		assertThat(ids(service), equalTo(Arrays.asList("a", "b", "c")));
+		assertThat(service.getStatistics().getAdmitted(), is(3L));
+		assertThat(service.getStatistics().getConfirmedDuplicates(), is(3L));
+		assertThat(service.getStatistics().getUnconfirmedDuplicates(), is(0L));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenTwoRetrievals_ExpectIdsTrackedPerRetrieval() {
+		DeduplicatingContributionService service = new DeduplicatingContributionService(service("a", "a"), 1000,
+				1e-6, 100);
+
+		assertThat(ids(service), equalTo(Arrays.asList("a")));
+		assertThat(ids(service), equalTo(Arrays.asList("a")));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenParallelStream_ExpectEachIdOnce() {
+		String[] ids = IntStream.range(0, 4000).mapToObj(i -> Integer.toString(i % 1000)).toArray(String[]::new);
+		DeduplicatingContributionService service = new DeduplicatingContributionService(service(ids), 1000, 1e-6,
+				1000);
+
+		List<String> result;
+		try (Stream<Contribution> contributions = service.retrieveContributions(Instant.MIN, Instant.MAX)) {
+			result = contributions.parallel().map(c -> c.getId().getValue()).collect(Collectors.toList());
+		}
+
+		assertThat(result.size(), is(1000));
+		assertThat(result.stream().distinct().count(), is(1000L));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenSaturatedFilterAndDropping_ExpectUnconfirmedDropsCounted() {
+		String[] ids = IntStream.range(0, 1000).mapToObj(Integer::toString).toArray(String[]::new);
+		DeduplicatingContributionService service = new DeduplicatingContributionService(service(ids), 10, 0.1, 0);
+
+		long admitted = ids(service).size();
+
+		assertThat(service.getStatistics().getUnconfirmedDuplicates(), greaterThan(0L));
+		assertThat(admitted + service.getStatistics().getUnconfirmedDuplicates(), is(1000L));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenSaturatedFilterAndAdmitting_ExpectNoContributionLost() {
+		String[] ids = IntStream.range(0, 1000).mapToObj(i -> Integer.toString(i / 2)).toArray(String[]::new);
+		DeduplicatingContributionService service = new DeduplicatingContributionService(service(ids), 10, 0.1, 16,
+				true);
+
+		List<String> result = ids(service);
+
+		// adjacent duplicates are within the confirmation capacity
+		assertThat(result.size(), is(500));
+		assertThat(result.stream().distinct().count(), is(500L));
+		assertThat(service.getStatistics().getUnconfirmedDuplicates(), greaterThan(0L));
+	}
+
+	private static List<String> ids(ContributionService service) {
+		try (Stream<Contribution> contributions = service.retrieveContributions(Instant.MIN, Instant.MAX)) {
+			return contributions.map(c -> c.getId().getValue()).collect(Collectors.toList());
+		}
+	}
+
+	private static ContributionService service(String... ids) {
+		return (startExclusive, endInclusive) -> Arrays.stream(ids)
+				.map(id -> DefaultContribution.newBuilder(ContributionId.of(id), Project.of("p"), Contributor.of("c"),
+						Instant.EPOCH).build());
+	}
+
+}
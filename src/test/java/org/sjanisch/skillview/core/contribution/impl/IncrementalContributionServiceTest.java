@@ -0,0 +1,160 @@
+package org.sjanisch.skillview.core.contribution.impl;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionId;
+import org.sjanisch.skillview.core.contribution.api.ContributionService;
+import org.sjanisch.skillview.core.contribution.api.Contributor;
+import org.sjanisch.skillview.core.contribution.api.Project;
+
+/**
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class IncrementalContributionServiceTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final Source source = new Source();
+
+	@Test
+	public void testRetrieveContributions_GivenConsumedRetrieval_ExpectNothingRetrievedAgain() throws Exception {
+		source.add("a", 1).add("b", 2);
+		ContributionService service = new IncrementalContributionService(source, watermarkFile());
+
+		assertThat(ids(service, 0, 10), equalTo(Arrays.asList("a", "b")));
+		assertThat(ids(service, 0, 10), equalTo(Collections.emptyList()));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenNewInstanceOnSameFile_ExpectWatermarkRead() throws Exception {
+		source.add("a", 1).add("b", 2);
+		Path watermarkFile = watermarkFile();
+		ids(new IncrementalContributionService(source, watermarkFile), 0, 10);
+		source.add("c", 2).add("d", 3);
+
+		ContributionService service = new IncrementalContributionService(source, watermarkFile);
+
+		assertThat(ids(service, 0, 10), equalTo(Arrays.asList("c", "d")));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenNewIdAtWatermarkAndEnd_ExpectRetrieved() throws Exception {
+		source.add("a", 5);
+		ContributionService service = new IncrementalContributionService(source, watermarkFile());
+		ids(service, 0, 5);
+		source.add("b", 5);
+
+		assertThat(ids(service, 0, 5), equalTo(Arrays.asList("b")));
+		assertThat(ids(service, 0, 5), equalTo(Collections.emptyList()));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenWatermarkAfterEnd_ExpectDelegateNotAsked() throws Exception {
+		source.add("a", 5);
+		ContributionService service = new IncrementalContributionService(source, watermarkFile());
+		ids(service, 0, 5);
+		source.requests = 0;
+
+		assertThat(ids(service, 0, 4), equalTo(Collections.emptyList()));
+		assertThat(source.requests, is(0));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenPartiallyConsumedStream_ExpectWatermarkNotAdvanced() throws Exception {
+		source.add("a", 1).add("b", 2);
+		ContributionService service = new IncrementalContributionService(source, watermarkFile());
+
+		try (Stream<Contribution> contributions = service.retrieveContributions(Instant.ofEpochSecond(0),
+				Instant.ofEpochSecond(10))) {
+			contributions.findFirst();
+		}
+
+		assertThat(ids(service, 0, 10), equalTo(Arrays.asList("a", "b")));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenStartAfterWatermark_ExpectWatermarkNotAdvanced() throws Exception {
+		source.add("a", 1).add("b", 5);
+		ContributionService service = new IncrementalContributionService(source, watermarkFile());
+		ids(service, 0, 1);
+
+		assertThat(ids(service, 3, 10), equalTo(Arrays.asList("b")));
+		assertThat(ids(service, 0, 10), equalTo(Arrays.asList("b")));
+	}
+
+	@Test
+	public void testPerSource_GivenTwoSources_ExpectSeparateWatermarks() throws Exception {
+		Source other = new Source().add("x", 1);
+		source.add("a", 1);
+		Map<String, ContributionService> sources = new LinkedHashMap<>();
+		sources.put("first", source);
+		sources.put("second", other);
+		Path directory = folder.newFolder().toPath();
+
+		List<ContributionService> services = IncrementalContributionService.perSource(sources, directory);
+		ids(services.get(0), 0, 10);
+
+		assertThat(Files.exists(directory.resolve("first.watermark")), is(true));
+		assertThat(Files.exists(directory.resolve("second.watermark")), is(false));
+		assertThat(ids(services.get(1), 0, 10), equalTo(Arrays.asList("x")));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPerSource_GivenInvalidName_ExpectException() throws Exception {
+		IncrementalContributionService.perSource(Collections.singletonMap("../x", source), folder.getRoot().toPath());
+	}
+
+	private Path watermarkFile() throws Exception {
+		return folder.newFolder().toPath().resolve("source.watermark");
+	}
+
+	private static List<String> ids(ContributionService service, long startExclusive, long endInclusive) {
+		try (Stream<Contribution> contributions = service.retrieveContributions(Instant.ofEpochSecond(startExclusive),
+				Instant.ofEpochSecond(endInclusive))) {
+			return contributions.map(c -> c.getId().getValue()).collect(Collectors.toList());
+		}
+	}
+
+	private static class Source implements ContributionService {
+
+		private final List<Contribution> contributions = new ArrayList<>();
+		private int requests;
+
+		Source add(String id, long time) {
+			Instant contributionTime = Instant.ofEpochSecond(time);
+			contributions.add(DefaultContribution
+					.newBuilder(ContributionId.of(id), Project.of("p"), Contributor.of("c"), contributionTime).build());
+			return this;
+		}
+
+		@Override
+		public Stream<Contribution> retrieveContributions(Instant startExclusive, Instant endInclusive) {
+			requests++;
+			return new ArrayList<>(contributions).stream().filter(c -> c.getContributionTime().isAfter(startExclusive)
+					&& !c.getContributionTime().isAfter(endInclusive));
+		}
+
+	}
+
+}
@@ -0,0 +1,187 @@
+package org.sjanisch.skillview.core.contribution.impl;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionId;
+import org.sjanisch.skillview.core.contribution.api.ContributionItem;
+import org.sjanisch.skillview.core.contribution.api.ContributionRetrievalException;
+import org.sjanisch.skillview.core.contribution.api.ContributionService;
+import org.sjanisch.skillview.core.contribution.api.Contributor;
+import org.sjanisch.skillview.core.contribution.api.Project;
+
+/**
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class JournalingContributionServiceTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final ContributionService source = (startExclusive, endInclusive) -> Stream.of(1, 2, 3, 4)
+			.map(JournalingContributionServiceTest::contribution)
+			.filter(c -> c.getContributionTime().isAfter(startExclusive)
+					&& !c.getContributionTime().isAfter(endInclusive));
+
+	@Test
+	public void testRetrieveContributions_GivenRecording_ExpectRecordFormat() throws IOException {
+		Path journal = folder.getRoot().toPath().resolve("journal.bin");
+
+		ids(new JournalingContributionService(source, journal), 0, 2);
+
+		try (DataInputStream in = new DataInputStream(Files.newInputStream(journal))) {
+			assertThat(in.readInt(), is(ContributionJournal.MAGIC));
+			assertThat(in.readInt(), is(ContributionJournal.VERSION));
+
+			assertThat(in.readInt(), is(24));
+			assertThat(in.readByte(), is(ContributionJournal.RETRIEVAL));
+			long retrieval = in.readLong();
+			assertThat(in.readLong(), is(0L));
+			assertThat(Instant.ofEpochSecond(in.readLong(), in.readInt()), equalTo(Instant.ofEpochSecond(0)));
+			assertThat(Instant.ofEpochSecond(in.readLong(), in.readInt()), equalTo(Instant.ofEpochSecond(2)));
+
+			long previousElapsed = 0;
+			for (int i = 1; i <= 2; i++) {
+				int length = in.readInt();
+				assertThat(in.readByte(), is(ContributionJournal.CONTRIBUTION));
+				assertThat(in.readLong(), is(retrieval));
+				long elapsed = in.readLong();
+				assertThat(elapsed, greaterThanOrEqualTo(previousElapsed));
+				previousElapsed = elapsed;
+				in.readFully(new byte[length]);
+			}
+			assertThat(in.read(), is(-1));
+		}
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenReplay_ExpectRecordedContributions() {
+		Path journal = folder.getRoot().toPath().resolve("journal.bin");
+		assertThat(ids(new JournalingContributionService(source, journal), 0, 4),
+				equalTo(Arrays.asList("1", "2", "3", "4")));
+
+		JournalReplayContributionService replay = new JournalReplayContributionService(journal);
+
+		assertThat(ids(replay, 1, 3), equalTo(Arrays.asList("2", "3")));
+		try (Stream<Contribution> contributions = replay.retrieveContributions(Instant.EPOCH, Instant.MAX)) {
+			Contribution first = contributions.findFirst().get();
+			ContributionItem item = first.getContributionItems().iterator().next();
+			assertThat(item.getPath(), equalTo("f1"));
+			assertThat(item.getPreviousContent(), equalTo("old 1"));
+			assertThat(item.getContent(), equalTo("new 1"));
+		}
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenOverlappingRecordings_ExpectEachContributionReplayedOnce() {
+		Path journal = folder.getRoot().toPath().resolve("journal.bin");
+		JournalingContributionService service = new JournalingContributionService(source, journal);
+		ids(service, 0, 3);
+		ids(service, 1, 4);
+
+		List<String> ids = ids(new JournalReplayContributionService(journal), 0, 4);
+
+		assertThat(ids, equalTo(Arrays.asList("1", "2", "3", "4")));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenTruncatedTail_ExpectCompleteRecordsReplayed() throws IOException {
+		Path journal = folder.getRoot().toPath().resolve("journal.bin");
+		ids(new JournalingContributionService(source, journal), 0, 3);
+		truncate(journal, Files.size(journal) - 3);
+
+		assertThat(ids(new JournalReplayContributionService(journal), 0, 4), equalTo(Arrays.asList("1", "2")));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenAppendAfterTruncatedTail_ExpectIncompleteRecordCutOff()
+			throws IOException {
+		Path journal = folder.getRoot().toPath().resolve("journal.bin");
+		ids(new JournalingContributionService(source, journal), 0, 2);
+		truncate(journal, Files.size(journal) - 3);
+
+		ids(new JournalingContributionService(source, journal), 2, 4);
+
+		assertThat(ids(new JournalReplayContributionService(journal), 0, 4), equalTo(Arrays.asList("1", "3", "4")));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenInterleavedRetrievals_ExpectThrottledPerRetrieval() throws IOException {
+		Path journal = folder.getRoot().toPath().resolve("journal.bin");
+		ByteArrayOutputStream records = new ByteArrayOutputStream();
+		ContributionJournal.writeRetrieval(1, Instant.EPOCH, Instant.ofEpochSecond(4), records);
+		ContributionJournal.writeRetrieval(2, Instant.EPOCH, Instant.ofEpochSecond(4), records);
+		ContributionJournal.writeRecord(contribution(1), 1, TimeUnit.MILLISECONDS.toNanos(500), records);
+		ContributionJournal.writeRecord(contribution(2), 2, 0, records);
+		ContributionJournal.writeRecord(contribution(3), 1, TimeUnit.MILLISECONDS.toNanos(700), records);
+		try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(journal))) {
+			out.writeInt(ContributionJournal.MAGIC);
+			out.writeInt(ContributionJournal.VERSION);
+			records.writeTo(out);
+		}
+
+		long start = System.nanoTime();
+		List<String> ids = ids(new JournalReplayContributionService(journal, true), 0, 4);
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertThat(ids, equalTo(Arrays.asList("1", "2", "3")));
+		// 200 ms between the contributions of the first retrieval, the
+		// second retrieval must not reset its baseline
+		assertThat(elapsedMillis, greaterThanOrEqualTo(200L));
+		assertThat(elapsedMillis, lessThan(600L));
+	}
+
+	@Test(expected = ContributionRetrievalException.class)
+	public void testRetrieveContributions_GivenNoJournal_ExpectException() throws IOException {
+		Path journal = folder.newFile().toPath();
+		Files.write(journal, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+
+		new JournalReplayContributionService(journal).retrieveContributions(Instant.EPOCH, Instant.MAX);
+	}
+
+	private static void truncate(Path journal, long size) throws IOException {
+		try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+			channel.truncate(size);
+		}
+	}
+
+	private static List<String> ids(ContributionService service, long startExclusive, long endInclusive) {
+		try (Stream<Contribution> contributions = service.retrieveContributions(Instant.ofEpochSecond(startExclusive),
+				Instant.ofEpochSecond(endInclusive))) {
+			return contributions.map(c -> c.getId().getValue()).collect(Collectors.toCollection(ArrayList::new));
+		}
+	}
+
+	private static Contribution contribution(int i) {
+		return DefaultContribution
+				.newBuilder(ContributionId.of(Integer.toString(i)), Project.of("p"), Contributor.of("c"),
+						Instant.ofEpochSecond(i))
+				.addContributionItem(ContributionItem.of("f" + i, "old " + i, "new " + i)).build();
+	}
+
+}
@@ -0,0 +1,69 @@
+package org.sjanisch.skillview.core.contribution.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+/**
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class LazyContributionItemTest {
+
+	@Test
+	public void testGetSizes_ExpectNothingLoaded() {
+		AtomicInteger loads = new AtomicInteger();
+		LazyContributionItem item = LazyContributionItem.of("a", counting("old", loads), 3, counting("new", loads), 3);
+
+		assertThat(item.getPreviousContentSize(), is(3L));
+		assertThat(item.getContentSize(), is(3L));
+		assertThat(loads.get(), is(0));
+	}
+
+	@Test
+	public void testGetContent_GivenConcurrentAccess_ExpectLoadedOnce() {
+		AtomicInteger loads = new AtomicInteger();
+		LazyContributionItem item = LazyContributionItem.of("a", counting("old", loads), 3, counting("new", loads), 3);
+
+		IntStream.range(0, 1000).parallel().forEach(i -> assertThat(item.getContent(), is("new")));
+
+		assertThat(loads.get(), is(1));
+	}
+
+	@Test
+	public void testReleaseContent_ExpectReloadedOnNextAccess() {
+		AtomicInteger loads = new AtomicInteger();
+		LazyContributionItem item = LazyContributionItem.of("a", counting("old", loads), 3, counting("new", loads), 3);
+
+		assertThat(item.getPreviousContent(), is("old"));
+		assertThat(item.getContent(), is("new"));
+		item.releaseContent();
+		assertThat(item.getContent(), is("new"));
+
+		assertThat(loads.get(), is(3));
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testGetContent_GivenSupplierReturningNull_ExpectException() {
+		LazyContributionItem.of("a", () -> "", 0, () -> null, 0).getContent();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testOf_GivenNegativeSize_ExpectException() {
+		LazyContributionItem.of("a", () -> "", -1, () -> "", 0);
+	}
+
+	private static Supplier<String> counting(String content, AtomicInteger loads) {
+		return () -> {
+			loads.incrementAndGet();
+			return content;
+		};
+	}
+
+}
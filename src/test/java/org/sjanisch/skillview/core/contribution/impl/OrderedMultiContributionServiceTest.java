@@ -0,0 +1,103 @@
+package org.sjanisch.skillview.core.contribution.impl;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionId;
+import org.sjanisch.skillview.core.contribution.api.ContributionService;
+import org.sjanisch.skillview.core.contribution.api.Contributor;
+import org.sjanisch.skillview.core.contribution.api.Project;
+
+/**
+ *
+ * @author sebastianjanisch
+ *
+ */
+public class OrderedMultiContributionServiceTest {
+
+	@Test
+	public void testRetrieveContributions_NoServices_ExpectEmptyStream() {
+		OrderedMultiContributionService service = new OrderedMultiContributionService(Collections.emptySet());
+
+		try (Stream<Contribution> contributions = service.retrieveContributions(Instant.MIN, Instant.MAX)) {
+			assertThat(contributions.count(), is(0L));
+		}
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenSortedSources_ExpectChronologicalMerge() {
+		ContributionService source1 = service("a", 1, 4, 5, 9);
+		ContributionService source2 = service("b", 2, 3, 10);
+		ContributionService source3 = service("c");
+
+		OrderedMultiContributionService service = new OrderedMultiContributionService(
+				Arrays.asList(source1, source2, source3));
+
+		try (Stream<Contribution> contributions = service.retrieveContributions(Instant.MIN, Instant.MAX)) {
+			List<String> ids = contributions.map(c -> c.getId().getValue()).collect(Collectors.toList());
+			assertThat(ids, equalTo(Arrays.asList("a1", "b2", "b3", "a4", "a5", "a9", "b10")));
+		}
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenEqualTimes_ExpectSourceOrder() {
+		ContributionService source1 = service("a", 1, 2);
+		ContributionService source2 = service("b", 1, 2);
+
+		OrderedMultiContributionService service = new OrderedMultiContributionService(
+				Arrays.asList(source1, source2));
+
+		try (Stream<Contribution> contributions = service.retrieveContributions(Instant.MIN, Instant.MAX)) {
+			List<String> ids = contributions.map(c -> c.getId().getValue()).collect(Collectors.toList());
+			assertThat(ids, equalTo(Arrays.asList("a1", "b1", "a2", "b2")));
+		}
+	}
+
+	@Test
+	public void testRetrieveContributions_CloseStream_ExpectUnderlyingStreamsClosed() {
+		AtomicInteger closed = new AtomicInteger();
+		ContributionService source1 = (start, end) -> service("a", 1).retrieveContributions(start, end)
+				.onClose(closed::incrementAndGet);
+		ContributionService source2 = (start, end) -> service("b", 2).retrieveContributions(start, end)
+				.onClose(closed::incrementAndGet);
+
+		OrderedMultiContributionService service = new OrderedMultiContributionService(
+				Arrays.asList(source1, source2));
+
+		try (Stream<Contribution> contributions = service.retrieveContributions(Instant.MIN, Instant.MAX)) {
+			contributions.findFirst();
+		}
+
+		assertThat(closed.get(), is(2));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testRetrieveContributions_GivenUnsortedSource_ExpectException() {
+		OrderedMultiContributionService service = new OrderedMultiContributionService(
+				Collections.singleton(service("a", 2, 1)));
+
+		try (Stream<Contribution> contributions = service.retrieveContributions(Instant.MIN, Instant.MAX)) {
+			contributions.count();
+		}
+	}
+
+	private static ContributionService service(String prefix, int... seconds) {
+		return (startExclusive, endInclusive) -> Arrays.stream(seconds).mapToObj(second -> {
+			ContributionId id = ContributionId.of(prefix + second);
+			Instant time = Instant.ofEpochSecond(second);
+			return DefaultContribution.newBuilder(id, Project.of("p"), Contributor.of("c"), time).build();
+		});
+	}
+
+}
@@ -0,0 +1,187 @@
+package org.sjanisch.skillview.core.contribution.impl;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Test;
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionId;
+import org.sjanisch.skillview.core.contribution.api.ContributionRetrievalException;
+import org.sjanisch.skillview.core.contribution.api.ContributionService;
+import org.sjanisch.skillview.core.contribution.api.Contributor;
+import org.sjanisch.skillview.core.contribution.api.Project;
+
+/**
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class PartitionedContributionServiceTest {
+
+	private static final Duration SLICE = Duration.ofSeconds(10);
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenOrdered_ExpectSlicesInChronologicalOrder() {
+		List<String> requests = Collections.synchronizedList(new ArrayList<>());
+		PartitionedContributionService service = new PartitionedContributionService(source(requests), SLICE,
+				executor, 3, true);
+
+		assertThat(times(service, 0, 35), equalTo(LongStream.rangeClosed(1, 35).boxed().collect(Collectors.toList())));
+
+		Collections.sort(requests);
+		assertThat(requests, equalTo(Arrays.asList("0-10", "10-20", "20-30", "30-35")));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenUnordered_ExpectAllContributions() {
+		PartitionedContributionService service = new PartitionedContributionService(source(new ArrayList<>()), SLICE,
+				executor, 3, false);
+
+		List<Long> times = times(service, 0, 100);
+		Collections.sort(times);
+
+		assertThat(times, equalTo(LongStream.rangeClosed(1, 100).boxed().collect(Collectors.toList())));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenDirectExecutor_ExpectAllContributions() {
+		PartitionedContributionService service = new PartitionedContributionService(source(new ArrayList<>()), SLICE,
+				Runnable::run, 2, true);
+
+		assertThat(times(service, 0, 25), equalTo(LongStream.rangeClosed(1, 25).boxed().collect(Collectors.toList())));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenFailingSlice_ExpectException() {
+		ContributionService failing = (start, end) -> {
+			if (start.getEpochSecond() == 20) {
+				throw new ContributionRetrievalException("broken");
+			}
+			return source(new ArrayList<>()).retrieveContributions(start, end);
+		};
+		PartitionedContributionService service = new PartitionedContributionService(failing, SLICE, executor, 2,
+				true);
+
+		try {
+			times(service, 0, 50);
+			fail("expected failure of slice 20-30");
+		} catch (ContributionRetrievalException e) {
+			assertThat(e.getMessage(), equalTo("broken"));
+		}
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenRejectingExecutor_ExpectExceptionAndSubmittedSlicesCancelled()
+			throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch interrupted = new CountDownLatch(1);
+		ContributionService blocking = (start, end) -> {
+			started.countDown();
+			try {
+				Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+			} catch (InterruptedException e) {
+				interrupted.countDown();
+			}
+			return Stream.empty();
+		};
+		AtomicInteger executions = new AtomicInteger();
+		Executor rejecting = task -> {
+			if (executions.incrementAndGet() > 1) {
+				awaitUninterruptibly(started);
+				throw new RejectedExecutionException("full");
+			}
+			executor.execute(task);
+		};
+		PartitionedContributionService service = new PartitionedContributionService(blocking, SLICE, rejecting, 4,
+				true);
+
+		try {
+			times(service, 0, 50);
+			fail("expected rejection of slice 10-20");
+		} catch (ContributionRetrievalException e) {
+			assertTrue(e.getCause() instanceof RejectedExecutionException);
+		}
+
+		assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenEarlyClose_ExpectOutstandingSlicesCancelled() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch interrupted = new CountDownLatch(1);
+		ContributionService blocking = (start, end) -> {
+			if (start.getEpochSecond() > 0) {
+				started.countDown();
+				try {
+					Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+				} catch (InterruptedException e) {
+					interrupted.countDown();
+				}
+			}
+			return source(new ArrayList<>()).retrieveContributions(start, end);
+		};
+		PartitionedContributionService service = new PartitionedContributionService(blocking, SLICE, executor, 2,
+				true);
+
+		try (Stream<Contribution> contributions = service.retrieveContributions(Instant.ofEpochSecond(0),
+				Instant.ofEpochSecond(50))) {
+			assertThat(contributions.findFirst().get().getContributionTime(), is(Instant.ofEpochSecond(1)));
+			assertTrue(started.await(10, TimeUnit.SECONDS));
+		}
+
+		assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+	}
+
+	private static void awaitUninterruptibly(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static List<Long> times(ContributionService service, long startExclusive, long endInclusive) {
+		try (Stream<Contribution> contributions = service.retrieveContributions(Instant.ofEpochSecond(startExclusive),
+				Instant.ofEpochSecond(endInclusive))) {
+			return contributions.map(c -> c.getContributionTime().getEpochSecond()).collect(Collectors.toList());
+		}
+	}
+
+	private static ContributionService source(List<String> requests) {
+		return (startExclusive, endInclusive) -> {
+			requests.add(startExclusive.getEpochSecond() + "-" + endInclusive.getEpochSecond());
+			return LongStream.rangeClosed(startExclusive.getEpochSecond() + 1, endInclusive.getEpochSecond())
+					.mapToObj(time -> DefaultContribution.newBuilder(ContributionId.of(Long.toString(time)),
+							Project.of("p"), Contributor.of("c"), Instant.ofEpochSecond(time)).build());
+		};
+	}
+
+}
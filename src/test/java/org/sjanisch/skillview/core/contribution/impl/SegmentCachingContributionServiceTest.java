@@ -0,0 +1,142 @@
+package org.sjanisch.skillview.core.contribution.impl;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionId;
+import org.sjanisch.skillview.core.contribution.api.ContributionService;
+import org.sjanisch.skillview.core.contribution.api.Contributor;
+import org.sjanisch.skillview.core.contribution.api.Project;
+
+/**
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class SegmentCachingContributionServiceTest {
+
+	private static final Duration SEGMENT = Duration.ofSeconds(10);
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final RecordingService delegate = new RecordingService(5, 10, 11, 19, 20, 21, 35);
+
+	@Test
+	public void testRetrieveContributions_GivenSegmentEnds_ExpectEndsInclusiveStartsExclusive() throws IOException {
+		SegmentCachingContributionService service = service(Duration.ZERO, 100);
+
+		assertThat(times(service, 0, 40), equalTo(Arrays.asList(5L, 10L, 11L, 19L, 20L, 21L, 35L)));
+		assertThat(times(service, 10, 20), equalTo(Arrays.asList(11L, 19L, 20L)));
+		assertThat(times(service, 5, 11), equalTo(Arrays.asList(10L, 11L)));
+		assertThat(times(service, 20, 20), equalTo(Collections.emptyList()));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenCompleteSegments_ExpectDelegateAskedOncePerSegment() throws IOException {
+		SegmentCachingContributionService service = service(Duration.ZERO, 100);
+
+		times(service, 5, 25);
+		times(service, 0, 30);
+		times(service, 12, 18);
+
+		assertThat(delegate.requests, equalTo(Arrays.asList("0-10", "10-20", "20-30")));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenGapBetweenCachedSegments_ExpectOnlyGapRetrieved() throws IOException {
+		SegmentCachingContributionService service = service(Duration.ZERO, 100);
+
+		times(service, 0, 10);
+		times(service, 20, 30);
+		delegate.requests.clear();
+
+		assertThat(times(service, 0, 40), equalTo(Arrays.asList(5L, 10L, 11L, 19L, 20L, 21L, 35L)));
+		assertThat(delegate.requests, equalTo(Arrays.asList("10-20", "30-40")));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenSegmentNotComplete_ExpectDelegateAskedEveryTime() throws IOException {
+		SegmentCachingContributionService service = service(Duration.ZERO, 25);
+
+		times(service, 20, 25);
+		times(service, 20, 25);
+
+		assertThat(delegate.requests, equalTo(Arrays.asList("20-25", "20-25")));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenSegmentWithinSettleDelay_ExpectNotCached() throws IOException {
+		SegmentCachingContributionService service = service(Duration.ofSeconds(15), 40);
+
+		times(service, 0, 40);
+		delegate.requests.clear();
+		times(service, 0, 40);
+
+		assertThat(delegate.requests, equalTo(Arrays.asList("20-30", "30-40")));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenTimeFrameOfTooManySegments_ExpectDelegateAskedUncached()
+			throws IOException {
+		SegmentCachingContributionService service = service(Duration.ZERO, 100);
+
+		assertThat(times(service, 0, 20_000_000), equalTo(Arrays.asList(5L, 10L, 11L, 19L, 20L, 21L, 35L)));
+		assertThat(delegate.requests, equalTo(Arrays.asList("0-20000000")));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructor_GivenNegativeSettleDelay_ExpectException() throws IOException {
+		service(Duration.ofSeconds(-1), 0);
+	}
+
+	private SegmentCachingContributionService service(Duration settleDelay, long now) throws IOException {
+		Clock clock = Clock.fixed(Instant.ofEpochSecond(now), ZoneOffset.UTC);
+		return new SegmentCachingContributionService(delegate, folder.newFolder().toPath(), SEGMENT, settleDelay,
+				clock);
+	}
+
+	private static List<Long> times(ContributionService service, long startExclusive, long endInclusive) {
+		try (Stream<Contribution> contributions = service.retrieveContributions(Instant.ofEpochSecond(startExclusive),
+				Instant.ofEpochSecond(endInclusive))) {
+			return contributions.map(c -> c.getContributionTime().getEpochSecond()).collect(Collectors.toList());
+		}
+	}
+
+	private static class RecordingService implements ContributionService {
+
+		private final long[] times;
+		private final List<String> requests = new ArrayList<>();
+
+		RecordingService(long... times) {
+			this.times = times;
+		}
+
+		@Override
+		public Stream<Contribution> retrieveContributions(Instant startExclusive, Instant endInclusive) {
+			requests.add(startExclusive.getEpochSecond() + "-" + endInclusive.getEpochSecond());
+			return Arrays.stream(times).mapToObj(Instant::ofEpochSecond)
+					.filter(time -> time.isAfter(startExclusive) && !time.isAfter(endInclusive))
+					.map(time -> DefaultContribution.newBuilder(ContributionId.of(time.toString()), Project.of("p"),
+							Contributor.of("c"), time).build());
+		}
+
+	}
+
+}
@@ -0,0 +1,82 @@
+package org.sjanisch.skillview.core.contribution.impl;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionService;
+
+/**
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class SyntheticContributionServiceTest {
+
+	private static final Instant ORIGIN = Instant.parse("2016-01-01T00:00:00Z");
+
+	@Test
+	public void testRetrieveContributions_GivenSameSeed_ExpectSameStream() {
+		List<String> first = describe(service(42), ORIGIN, ORIGIN.plusSeconds(1000));
+		List<String> second = describe(service(42), ORIGIN, ORIGIN.plusSeconds(1000));
+
+		assertThat(first.size(), is(1000));
+		assertThat(second, equalTo(first));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenDifferentSeed_ExpectDifferentStream() {
+		List<String> first = describe(service(42), ORIGIN, ORIGIN.plusSeconds(100));
+		List<String> second = describe(service(43), ORIGIN, ORIGIN.plusSeconds(100));
+
+		assertThat(second, not(equalTo(first)));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenSubFrame_ExpectSameContributionsAsWithinWholeFrame() {
+		ContributionService service = service(42);
+		Instant start = ORIGIN.plusMillis(250_500);
+		Instant end = ORIGIN.plusMillis(750_500);
+
+		List<String> whole = describe(service, ORIGIN, ORIGIN.plusSeconds(1000));
+		List<String> part = describe(service, start, end);
+
+		List<String> expected = whole.stream().filter(d -> {
+			Instant time = Instant.parse(d.substring(0, d.indexOf(' ')));
+			return time.isAfter(start) && !time.isAfter(end);
+		}).collect(Collectors.toList());
+		assertThat(part, equalTo(expected));
+	}
+
+	private static ContributionService service(long seed) {
+		return SyntheticContributionService.newBuilder(seed).setContributionCount(1000).setContributorCount(50)
+				.setProjectCount(5).setFilesPerProject(20).setTimeLine(ORIGIN, Duration.ofSeconds(1))
+				.setLinesPerFile(10, 50).build();
+	}
+
+	private static List<String> describe(ContributionService service, Instant startExclusive, Instant endInclusive) {
+		try (Stream<Contribution> contributions = service.retrieveContributions(startExclusive, endInclusive)) {
+			return contributions.map(SyntheticContributionServiceTest::describe).collect(Collectors.toList());
+		}
+	}
+
+	private static String describe(Contribution contribution) {
+		StringBuilder result = new StringBuilder();
+		result.append(contribution.getContributionTime()).append(' ').append(contribution.getId()).append(' ')
+				.append(contribution.getProject()).append(' ').append(contribution.getContributor()).append(' ')
+				.append(contribution.getMessage().orElse(""));
+		contribution.getContributionItems().forEach(item -> result.append('\n').append(item.getPath()).append('\n')
+				.append(item.getPreviousContent()).append('\n').append(item.getContent()));
+		return result.toString();
+	}
+
+}
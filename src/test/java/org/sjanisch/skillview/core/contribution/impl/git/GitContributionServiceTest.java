@@ -0,0 +1,331 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.contribution.impl.git;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.DeflaterOutputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sjanisch.skillview.core.contribution.api.Contribution;
+import org.sjanisch.skillview.core.contribution.api.ContributionItem;
+import org.sjanisch.skillview.core.contribution.api.ContributionRetrievalException;
+import org.sjanisch.skillview.core.contribution.api.Contributor;
+import org.sjanisch.skillview.core.contribution.api.Project;
+
+/**
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class GitContributionServiceTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path workingTree;
+	private Path objects;
+	private String commit1;
+	private String commit2;
+	private String commit3;
+
+	@Before
+	public void setUp() throws Exception {
+		workingTree = folder.getRoot().toPath();
+		Path gitDirectory = Files.createDirectories(workingTree.resolve(".git"));
+		objects = Files.createDirectories(gitDirectory.resolve("objects"));
+		Files.createDirectories(gitDirectory.resolve("refs").resolve("heads"));
+
+		String readme = blob("hello");
+		String src1 = tree(entry("100644", "A.java", blob("class A {}")));
+		commit1 = commit(tree(entry("100644", "README", readme), entry("40000", "src", src1)), null, 1000,
+				"first");
+
+		String src2 = tree(entry("100644", "A.java", blob("class A { int x; }")),
+				entry("100644", "B.java", blob("class B {}")));
+		commit2 = commit(tree(entry("100644", "README", readme), entry("40000", "src", src2)), commit1, 2000,
+				"second");
+
+		commit3 = commit(tree(entry("40000", "src", src2)), commit2, 3000, "third");
+
+		Files.write(gitDirectory.resolve("HEAD"), "ref: refs/heads/master\n".getBytes(StandardCharsets.UTF_8));
+		Files.write(gitDirectory.resolve("refs").resolve("heads").resolve("master"),
+				(commit3 + "\n").getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenAllTime_ExpectAllCommitsInOrder() {
+		List<Contribution> contributions = retrieve(Instant.EPOCH, Instant.ofEpochSecond(5000));
+
+		List<String> ids = contributions.stream().map(c -> c.getId().getValue()).collect(Collectors.toList());
+		assertThat(ids, contains(commit1, commit2, commit3));
+
+		Contribution first = contributions.get(0);
+		assertThat(first.getContributor(), equalTo(Contributor.of("Jane Doe", "jane@example.com")));
+		assertThat(first.getContributionTime(), equalTo(Instant.ofEpochSecond(1000)));
+		assertThat(first.getMessage().get(), equalTo("first"));
+		assertThat(paths(first), contains("README", "src/A.java"));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenTimeFrame_ExpectCommitsWithinOnly() {
+		List<Contribution> contributions = retrieve(Instant.ofEpochSecond(1000), Instant.ofEpochSecond(2000));
+
+		assertThat(contributions.size(), is(1));
+		assertThat(contributions.get(0).getId().getValue(), equalTo(commit2));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenModification_ExpectChangedFilesWithContents() {
+		Contribution contribution = retrieve(Instant.ofEpochSecond(1000), Instant.ofEpochSecond(2000)).get(0);
+
+		assertThat(paths(contribution), contains("src/A.java", "src/B.java"));
+
+		List<ContributionItem> items = new ArrayList<>(contribution.getContributionItems());
+		assertThat(items.get(0).getPreviousContent(), equalTo("class A {}"));
+		assertThat(items.get(0).getContent(), equalTo("class A { int x; }"));
+		assertThat(items.get(0).getContentSize(), is(18L));
+		assertThat(items.get(1).getPreviousContent(), equalTo(""));
+		assertThat(items.get(1).getContent(), equalTo("class B {}"));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenContentOfNextCommit_ExpectSameInstance() {
+		List<Contribution> contributions = retrieve(Instant.EPOCH, Instant.ofEpochSecond(2000));
+
+		ContributionItem first = itemOf(contributions.get(0), "src/A.java");
+		ContributionItem second = itemOf(contributions.get(1), "src/A.java");
+
+		assertThat(second.getPreviousContent() == first.getContent(), is(true));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenDeletion_ExpectEmptyContent() {
+		Contribution contribution = retrieve(Instant.ofEpochSecond(2000), Instant.ofEpochSecond(3000)).get(0);
+
+		ContributionItem item = contribution.getContributionItems().iterator().next();
+		assertThat(item.getPath(), equalTo("README"));
+		assertThat(item.getPreviousContent(), equalTo("hello"));
+		assertThat(item.getContent(), equalTo(""));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenTimeFrameBeforeHistory_ExpectEmpty() {
+		assertThat(retrieve(Instant.EPOCH, Instant.ofEpochSecond(999)), empty());
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenShallowClone_ExpectBoundaryCommitWithoutItems() throws IOException {
+		Files.write(workingTree.resolve(".git").resolve("shallow"), (commit2 + "\n").getBytes(StandardCharsets.UTF_8));
+		Files.delete(objects.resolve(commit1.substring(0, 2)).resolve(commit1.substring(2)));
+
+		List<Contribution> contributions = retrieve(Instant.EPOCH, Instant.ofEpochSecond(5000));
+
+		List<String> ids = contributions.stream().map(c -> c.getId().getValue()).collect(Collectors.toList());
+		assertThat(ids, contains(commit2, commit3));
+		assertThat(paths(contributions.get(0)), empty());
+		assertThat(paths(contributions.get(1)), contains("README"));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenStashAndNotes_ExpectHistoryOnly() throws IOException {
+		String src = tree(entry("100644", "A.java", blob("class A { int stashed; }")));
+		String index = commit(tree(entry("40000", "src", src)), commit3, 4000, "index on master");
+		String untracked = commit(tree(entry("100644", "Untracked.java", blob("class U {}"))), null, 4000,
+				"untracked files on master");
+		String stash = commitWithParents(tree(entry("40000", "src", src)), Arrays.asList(commit3, index, untracked), 4000,
+				"WIP on master");
+		String notes = commit(tree(entry("100644", commit3, blob("a note"))), null, 4000, "Notes added");
+
+		Path refs = workingTree.resolve(".git").resolve("refs");
+		Files.write(refs.resolve("stash"), (stash + "\n").getBytes(StandardCharsets.UTF_8));
+		Path notesRef = Files.createDirectories(refs.resolve("notes")).resolve("commits");
+		Files.write(notesRef, (notes + "\n").getBytes(StandardCharsets.UTF_8));
+
+		List<Contribution> contributions = retrieve(Instant.EPOCH, Instant.ofEpochSecond(5000));
+
+		List<String> ids = contributions.stream().map(c -> c.getId().getValue()).collect(Collectors.toList());
+		assertThat(ids, contains(commit1, commit2, commit3));
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenPackWithOffsetDeltas_ExpectResolvedContents() throws Exception {
+		assertPackedHistory("ofs-deltas.git", 0);
+		assertPackedHistory("ofs-deltas.git", 1024 * 1024);
+	}
+
+	@Test
+	public void testRetrieveContributions_GivenPackWithReferenceDeltas_ExpectResolvedContents() throws Exception {
+		assertPackedHistory("ref-deltas.git", 0);
+		assertPackedHistory("ref-deltas.git", 1024 * 1024);
+	}
+
+	@Test(expected = ContributionRetrievalException.class)
+	public void testRetrieveContributions_GivenNoRepository_ExpectException() throws IOException {
+		Path empty = folder.newFolder().toPath();
+		new GitContributionService(empty, Project.of("p")).retrieveContributions(Instant.EPOCH, Instant.MAX);
+	}
+
+	/**
+	 * The fixtures are bare repositories with a single pack of five commits,
+	 * each changing another line of {@code src/Main.txt}, committed at
+	 * {@code 1000000000 + i * 1000} seconds. Their blobs are stored as delta
+	 * chains of up to three deltas.
+	 */
+	private static void assertPackedHistory(String fixture, long deltaBaseCacheSize) throws Exception {
+		Path repository = Paths.get(GitContributionServiceTest.class.getResource(fixture).toURI());
+		GitContributionService service = new GitContributionService(repository, Project.of("p"), deltaBaseCacheSize);
+
+		List<Contribution> contributions;
+		try (Stream<Contribution> stream = service.retrieveContributions(Instant.EPOCH, Instant.MAX)) {
+			contributions = stream.collect(Collectors.toList());
+		}
+
+		assertThat(contributions.size(), is(5));
+		for (int i = 1; i <= 5; i++) {
+			Contribution contribution = contributions.get(i - 1);
+			assertThat(contribution.getContributionTime(), equalTo(Instant.ofEpochSecond(1000000000 + i * 1000)));
+			assertThat(contribution.getMessage().get(), equalTo("commit " + i));
+			assertThat(paths(contribution), contains("src/Main.txt"));
+
+			ContributionItem item = contribution.getContributionItems().iterator().next();
+			assertThat(item.getPreviousContent(), equalTo(i == 1 ? "" : packedContent(i - 1)));
+			assertThat(item.getContent(), equalTo(packedContent(i)));
+		}
+	}
+
+	private static String packedContent(int commit) {
+		StringBuilder content = new StringBuilder();
+		for (int line = 0; line < 200; line++) {
+			if (line > 0 && line % 30 == 0 && line / 30 <= commit) {
+				content.append("changed in commit ").append(line / 30);
+			} else {
+				content.append("line ").append(line).append(" of a file that is long enough to be stored as a delta");
+			}
+			content.append('\n');
+		}
+		return content.toString();
+	}
+
+	private List<Contribution> retrieve(Instant startExclusive, Instant endInclusive) {
+		GitContributionService service = new GitContributionService(workingTree, Project.of("p"));
+		try (Stream<Contribution> contributions = service.retrieveContributions(startExclusive, endInclusive)) {
+			return contributions.collect(Collectors.toList());
+		}
+	}
+
+	private static ContributionItem itemOf(Contribution contribution, String path) {
+		return contribution.getContributionItems().stream().filter(item -> item.getPath().equals(path)).findFirst()
+				.get();
+	}
+
+	private static List<String> paths(Contribution contribution) {
+		return contribution.getContributionItems().stream().map(ContributionItem::getPath)
+				.collect(Collectors.toList());
+	}
+
+	private String blob(String content) throws IOException {
+		return write("blob", content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private String tree(byte[]... entries) throws IOException {
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		for (byte[] entry : entries) {
+			data.write(entry);
+		}
+		return write("tree", data.toByteArray());
+	}
+
+	private String commit(String tree, String parent, long time, String message) throws IOException {
+		return commitWithParents(tree, parent == null ? Collections.emptyList() : Arrays.asList(parent), time, message);
+	}
+
+	private String commitWithParents(String tree, List<String> parents, long time, String message) throws IOException {
+		StringBuilder data = new StringBuilder();
+		data.append("tree ").append(tree).append('\n');
+		for (String parent : parents) {
+			data.append("parent ").append(parent).append('\n');
+		}
+		data.append("author Jane Doe <jane@example.com> ").append(time).append(" +0100\n");
+		data.append("committer Jane Doe <jane@example.com> ").append(time).append(" +0100\n");
+		data.append('\n').append(message).append('\n');
+		return write("commit", data.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static byte[] entry(String mode, String name, String id) throws IOException {
+		ByteArrayOutputStream entry = new ByteArrayOutputStream();
+		entry.write((mode + " " + name + "\0").getBytes(StandardCharsets.UTF_8));
+		for (int i = 0; i < id.length(); i += 2) {
+			entry.write(Integer.parseInt(id.substring(i, i + 2), 16));
+		}
+		return entry.toByteArray();
+	}
+
+	private String write(String type, byte[] data) throws IOException {
+		ByteArrayOutputStream object = new ByteArrayOutputStream();
+		object.write((type + " " + data.length + "\0").getBytes(StandardCharsets.UTF_8));
+		object.write(data);
+
+		String id;
+		try {
+			StringBuilder hex = new StringBuilder();
+			for (byte b : MessageDigest.getInstance("SHA-1").digest(object.toByteArray())) {
+				hex.append(String.format("%02x", b));
+			}
+			id = hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+
+		Path file = Files.createDirectories(objects.resolve(id.substring(0, 2))).resolve(id.substring(2));
+		try (OutputStream out = new DeflaterOutputStream(Files.newOutputStream(file))) {
+			out.write(object.toByteArray());
+		}
+		return id;
+	}
+
+}
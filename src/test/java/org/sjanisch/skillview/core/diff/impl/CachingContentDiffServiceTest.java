@@ -0,0 +1,152 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.diff.impl;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sjanisch.skillview.core.contribution.api.ContributionItem;
+import org.sjanisch.skillview.core.diff.api.ContentDiff;
+import org.sjanisch.skillview.core.diff.api.ContentDiffService;
+
+/**
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class CachingContentDiffServiceTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testDiff_GivenSmallChangeOfLargeContent_ExpectWeightOfTouchedContentOnly() {
+		String previous = IntStream.range(0, 1000).mapToObj(i -> "line " + i).collect(Collectors.joining("\n"));
+		String current = previous.replace("line 500\n", "changed\n");
+		CachingContentDiffService service = new CachingContentDiffService(new MyersContentDiffService(), 100_000);
+
+		ContentDiff diff = service.diff(previous, current);
+
+		assertThat(diff.getTouchedContent(), contains("changed"));
+		assertThat(service.getStatistics().getResidentCharacters(), is(64L + "changed".length()));
+	}
+
+	@Test
+	public void testDiff_GivenEqualContents_ExpectHit() {
+		CachingContentDiffService service = new CachingContentDiffService(new MyersContentDiffService(), 100_000);
+
+		service.diff("a\nb", "a\nc");
+		ContentDiff diff = service.diff("a\nb", "a\nc");
+
+		assertThat(diff.getTouchedContent(), contains("c"));
+		assertThat(service.getStatistics().getHits(), is(1L));
+		assertThat(service.getStatistics().getMisses(), is(1L));
+	}
+
+	@Test
+	public void testDiff_GivenSameDelegateInLaterProcess_ExpectDiskHit() {
+		Path directory = folder.getRoot().toPath();
+		new CachingContentDiffService(new MyersContentDiffService(), 100_000, directory).diff("a\nb", "a\nc");
+		CachingContentDiffService service = new CachingContentDiffService(new MyersContentDiffService(), 100_000,
+				directory);
+
+		ContentDiff diff = service.diff("a\nb", "a\nc");
+
+		assertThat(diff.getTouchedContent(), contains("c"));
+		assertThat(service.getStatistics().getDiskHits(), is(1L));
+	}
+
+	@Test
+	public void testDiff_GivenDifferentlyConfiguredDelegates_ExpectResultsNotShared() {
+		Path directory = folder.getRoot().toPath();
+		new CachingContentDiffService(fixed("first"), 100_000, directory).diff("a", "b");
+		CachingContentDiffService service = new CachingContentDiffService(fixed("second"), 100_000, directory);
+
+		ContentDiff diff = service.diff("a", "b");
+
+		assertThat(diff.getTouchedContent(), contains("second"));
+		assertThat(service.getStatistics().getDiskHits(), is(0L));
+		assertThat(service.getStatistics().getMisses(), is(1L));
+	}
+
+	@Test
+	public void testDiff_GivenRewrite_ExpectNotWrittenToDisk() {
+		Path directory = folder.getRoot().toPath();
+		CachingContentDiffService first = new CachingContentDiffService(fixed("whole", true), 100_000, directory);
+		first.diff("a", "b");
+		CachingContentDiffService second = new CachingContentDiffService(fixed("whole", true), 100_000, directory);
+
+		ContentDiff diff = second.diff("a", "b");
+
+		assertThat(diff.isRewrite(), is(true));
+		assertThat(first.diff("a", "b").isRewrite(), is(true));
+		assertThat(first.getStatistics().getHits(), is(1L));
+		assertThat(second.getStatistics().getDiskHits(), is(0L));
+		assertThat(second.getStatistics().getMisses(), is(1L));
+	}
+
+	@Test
+	public void testDiff_GivenCompositeRoutingByPath_ExpectResultsPerRoute() {
+		ContentDiffService composite = CompositeContentDiffService.newBuilder(fixed("fallback"))
+				.routePath("*.java", fixed("java")).build();
+		CachingContentDiffService service = new CachingContentDiffService(composite, 100_000);
+
+		ContentDiff java = service.diff(ContributionItem.of("src/A.java", "a", "b"));
+		ContentDiff text = service.diff(ContributionItem.of("src/A.txt", "a", "b"));
+
+		assertThat(java.getTouchedContent(), contains("java"));
+		assertThat(text.getTouchedContent(), contains("fallback"));
+		assertThat(service.diff(ContributionItem.of("src/B.java", "a", "b")).getTouchedContent(), contains("java"));
+		assertThat(service.getStatistics().getHits(), is(1L));
+		assertThat(service.getStatistics().getMisses(), is(2L));
+	}
+
+	private static ContentDiffService fixed(String touchedContent) {
+		return fixed(touchedContent, false);
+	}
+
+	private static ContentDiffService fixed(String touchedContent, boolean rewrite) {
+		return new ContentDiffService() {
+			@Override
+			public ContentDiff diff(String previousContent, String currentContent) {
+				return ContentDiff.of(Collections.singletonList(touchedContent), rewrite);
+			}
+
+			@Override
+			public String toString() {
+				return touchedContent;
+			}
+		};
+	}
+
+}
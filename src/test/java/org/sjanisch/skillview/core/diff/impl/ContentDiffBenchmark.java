@@ -0,0 +1,188 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.diff.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sjanisch.skillview.core.diff.api.ContentDiff;
+import org.sjanisch.skillview.core.diff.api.ContentDiffService;
+
+/**
+ * Measures {@link ContentDiffService} implementations on small, medium and
+ * large files. Inputs are Java-like classes of short methods, with many
+ * closing braces and blank lines, changed either by scattered line edits or
+ * by a refactoring that inserts, removes and moves whole methods. Run with
+ * {@code -prof gc} to see allocation rates.
+ * 
+ * @author sebastianjanisch
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContentDiffBenchmark {
+
+	@Param({ "myers", "patience", "histogram" })
+	public String algorithm;
+
+	@Param({ "100", "2000", "20000" })
+	public int lines;
+
+	@Param({ "scattered", "refactoring" })
+	public String change;
+
+	@Param({ "0.03" })
+	public double editRate;
+
+	private ContentDiffService service;
+	private String previousContent;
+	private String currentContent;
+
+	@Setup
+	public void setUp() {
+		switch (algorithm) {
+		case "myers":
+			service = new MyersContentDiffService();
+			break;
+		case "patience":
+			service = new PatienceContentDiffService();
+			break;
+		case "histogram":
+			service = new HistogramContentDiffService();
+			break;
+		default:
+			throw new IllegalArgumentException("unknown algorithm " + algorithm);
+		}
+
+		Random random = new Random(42);
+		List<List<String>> methods = new ArrayList<>();
+		for (int lineCount = 0; lineCount < lines; lineCount += methods.get(methods.size() - 1).size()) {
+			methods.add(method(random, methods.size()));
+		}
+
+		previousContent = render(methods);
+		List<List<String>> changed = "scattered".equals(change) ? scatter(methods, random) : refactor(methods, random);
+		currentContent = render(changed);
+	}
+
+	@Benchmark
+	public ContentDiff diff() {
+		return service.diff(previousContent, currentContent);
+	}
+
+	private List<List<String>> scatter(List<List<String>> methods, Random random) {
+		List<List<String>> result = new ArrayList<>();
+		for (List<String> method : methods) {
+			List<String> changed = new ArrayList<>();
+			for (String line : method) {
+				double edit = random.nextDouble();
+				if (edit < editRate / 3) {
+					// removed
+				} else if (edit < 2 * editRate / 3) {
+					changed.add(statement(random));
+				} else if (edit < editRate) {
+					changed.add(line);
+					changed.add(statement(random));
+				} else {
+					changed.add(line);
+				}
+			}
+			result.add(changed);
+		}
+		return result;
+	}
+
+	private List<List<String>> refactor(List<List<String>> methods, Random random) {
+		List<List<String>> result = new ArrayList<>(methods);
+		int changes = Math.max(1, (int) (methods.size() * editRate * 3));
+		for (int i = 0; i < changes; i++) {
+			int position = random.nextInt(result.size());
+			switch (random.nextInt(3)) {
+			case 0:
+				result.add(position, method(random, methods.size() + i));
+				break;
+			case 1:
+				result.remove(position);
+				break;
+			default:
+				result.add(random.nextInt(result.size()), result.remove(position));
+				break;
+			}
+		}
+		return result;
+	}
+
+	private static List<String> method(Random random, int index) {
+		List<String> result = new ArrayList<>();
+		result.add("\tpublic int method" + index + "(List<Item> items) {");
+		int statements = 2 + random.nextInt(8);
+		for (int i = 0; i < statements; i++) {
+			if (random.nextInt(4) == 0) {
+				result.add("\t\tif (items.isEmpty()) {");
+				result.add("\t" + statement(random));
+				result.add("\t\t}");
+			} else {
+				result.add(statement(random));
+			}
+		}
+		result.add("\t}");
+		result.add("");
+		return result;
+	}
+
+	private static String statement(Random random) {
+		switch (random.nextInt(3)) {
+		case 0:
+			return "\t\tint value" + random.nextInt(100) + " = compute(" + random.nextInt(100) + ");";
+		case 1:
+			return "\t\treturn items.stream().map(item -> item.get(" + random.nextInt(1000) + ")).count();";
+		default:
+			return "";
+		}
+	}
+
+	private static String render(List<List<String>> methods) {
+		StringBuilder result = new StringBuilder("public class Generated {\n\n");
+		methods.forEach(method -> method.forEach(line -> result.append(line).append('\n')));
+		return result.append("}\n").toString();
+	}
+
+}
@@ -0,0 +1,226 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.diff.impl;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+import org.sjanisch.skillview.core.diff.api.ContentDiff;
+import org.sjanisch.skillview.core.diff.api.ContentDiffService;
+
+/**
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class LineDiffAlgorithmTest {
+
+	private static final String PREVIOUS = String.join("\n", //
+			"#include <stdio.h>", //
+			"", //
+			"// Frobs foo heartily", //
+			"int frobnitz(int foo)", //
+			"{", //
+			"    int i;", //
+			"    for(i = 0; i < 10; i++)", //
+			"    {", //
+			"        printf(\"Your answer is: \");", //
+			"        printf(\"%d\\n\", foo);", //
+			"    }", //
+			"}", //
+			"", //
+			"int fact(int n)", //
+			"{", //
+			"    if(n > 1)", //
+			"    {", //
+			"        return fact(n-1) * n;", //
+			"    }", //
+			"    return 1;", //
+			"}", //
+			"", //
+			"int main(int argc, char **argv)", //
+			"{", //
+			"    frobnitz(fact(10));", //
+			"}", //
+			"");
+
+	private static final String CURRENT = String.join("\n", //
+			"#include <stdio.h>", //
+			"", //
+			"int fib(int n)", //
+			"{", //
+			"    if(n > 2)", //
+			"    {", //
+			"        return fib(n-1) + fib(n-2);", //
+			"    }", //
+			"    return 1;", //
+			"}", //
+			"", //
+			"// Frobs foo heartily", //
+			"int frobnitz(int foo)", //
+			"{", //
+			"    int i;", //
+			"    for(i = 0; i < 10; i++)", //
+			"    {", //
+			"        printf(\"%d\\n\", foo);", //
+			"    }", //
+			"}", //
+			"", //
+			"int main(int argc, char **argv)", //
+			"{", //
+			"    frobnitz(fib(10));", //
+			"}", //
+			"");
+
+	private static final List<LineDiffAlgorithm> ALGORITHMS = Arrays.asList(MyersContentDiffService::diffLines,
+			PatienceContentDiffService::diffLines, HistogramContentDiffService::diffLines);
+
+	@Test
+	public void testPatienceDiff_GivenInsertedFunction_ExpectMovedFunctionUntouched() {
+		ContentDiff diff = new PatienceContentDiffService().diff(PREVIOUS, CURRENT);
+
+		assertThat(diff.getTouchedContent(), contains(CURRENT.substring(CURRENT.indexOf("int fib"),
+				CURRENT.indexOf("// Frobs") - 1), "    frobnitz(fib(10));"));
+	}
+
+	@Test
+	public void testHistogramDiff_GivenInsertedFunction_ExpectMovedFunctionUntouched() {
+		ContentDiff diff = new HistogramContentDiffService().diff(PREVIOUS, CURRENT);
+
+		assertThat(diff.getTouchedContent(), contains(CURRENT.substring(CURRENT.indexOf("int fib"),
+				CURRENT.indexOf("// Frobs") - 1), "    frobnitz(fib(10));"));
+	}
+
+	@Test
+	public void testDiff_GivenFallbackBeyondEditDistanceBudget_ExpectRewrite() {
+		List<ContentDiffService> services = Arrays.asList(
+				new PatienceContentDiffService(0, Duration.ofMinutes(1)),
+				new HistogramContentDiffService(0, Duration.ofMinutes(1)));
+
+		for (ContentDiffService service : services) {
+			ContentDiff diff = service.diff("a\nb\nc\n", "x\ny\nz\n");
+
+			assertThat(diff.getTouchedContent(), contains("x\ny\nz"));
+			assertThat(diff.isRewrite(), is(true));
+		}
+	}
+
+	@Test
+	public void testDiff_GivenTimeBudgetExceeded_ExpectRewrite() {
+		String previous = IntStream.range(0, 2000).mapToObj(i -> "line " + i % 7).collect(Collectors.joining("\n"));
+		String current = IntStream.range(0, 2000).mapToObj(i -> "line " + i % 11).collect(Collectors.joining("\n"));
+		List<ContentDiffService> services = Arrays.asList(
+				new PatienceContentDiffService(Integer.MAX_VALUE, Duration.ofNanos(1)),
+				new HistogramContentDiffService(Integer.MAX_VALUE, Duration.ofNanos(1)));
+
+		for (ContentDiffService service : services) {
+			assertThat(service.diff(previous, current).isRewrite(), is(true));
+		}
+	}
+
+	@Test
+	public void testDiff_GivenBudgetNotExceeded_ExpectSameResultAsWithoutBudget() {
+		ContentDiff patience = new PatienceContentDiffService(100, Duration.ofMinutes(1)).diff(PREVIOUS, CURRENT);
+		ContentDiff histogram = new HistogramContentDiffService(100, Duration.ofMinutes(1)).diff(PREVIOUS, CURRENT);
+
+		assertThat(patience.getTouchedContent(), is(new PatienceContentDiffService().diff(PREVIOUS, CURRENT)
+				.getTouchedContent()));
+		assertThat(histogram.getTouchedContent(), is(new HistogramContentDiffService().diff(PREVIOUS, CURRENT)
+				.getTouchedContent()));
+		assertThat(patience.isRewrite() || histogram.isRewrite(), is(false));
+	}
+
+	@Test
+	public void testStreamTouchedContent_GivenInsertedFunction_ExpectSameChunksAsTouchedContent() {
+		ContentDiff diff = new MyersContentDiffService().diff(PREVIOUS, CURRENT);
+
+		List<String> streamed = diff.streamTouchedContent().map(CharSequence::toString).collect(Collectors.toList());
+
+		assertThat(streamed, is(new ArrayList<>(diff.getTouchedContent())));
+		assertThat(diff.streamTouchedContent().findFirst().get().subSequence(0, 3).toString(), is("int"));
+	}
+
+	@Test
+	public void testCompact_GivenInsertedFunction_ExpectSameChunksRetainingChunksOnly() {
+		LineRangeContentDiff diff = (LineRangeContentDiff) new MyersContentDiffService().diff(PREVIOUS, CURRENT);
+
+		LineRangeContentDiff compacted = diff.compact();
+
+		int touched = diff.streamTouchedContent().mapToInt(CharSequence::length).sum();
+		assertThat(diff.getRetainedLength(), is(CURRENT.length()));
+		assertThat(compacted.getRetainedLength(), is(touched));
+		assertThat(compacted.getTouchedContent(), is(diff.getTouchedContent()));
+		assertThat(compacted.isRewrite(), is(diff.isRewrite()));
+		assertThat(compacted.compact(), is(sameInstance(compacted)));
+	}
+
+	@Test
+	public void testDiffLines_GivenRandomLines_ExpectUntouchedLinesCommonToBoth() {
+		Random random = new Random(7);
+		for (LineDiffAlgorithm algorithm : ALGORITHMS) {
+			for (int run = 0; run < 500; run++) {
+				int[] previous = random.ints(random.nextInt(40), 0, 6).toArray();
+				int[] current = random.ints(random.nextInt(40), 0, 6).toArray();
+				boolean[] touched = new boolean[current.length];
+
+				algorithm.diff(previous, 0, previous.length, current, 0, current.length, touched);
+
+				assertThat(isSubsequence(untouched(current, touched), previous), is(true));
+			}
+		}
+	}
+
+	private static int[] untouched(int[] current, boolean[] touched) {
+		int[] result = new int[current.length];
+		int count = 0;
+		for (int i = 0; i < current.length; i++) {
+			if (!touched[i]) {
+				result[count++] = current[i];
+			}
+		}
+		return Arrays.copyOf(result, count);
+	}
+
+	private static boolean isSubsequence(int[] candidate, int[] sequence) {
+		int i = 0;
+		for (int j = 0; i < candidate.length && j < sequence.length; j++) {
+			if (candidate[i] == sequence[j]) {
+				i++;
+			}
+		}
+		return i == candidate.length;
+	}
+
+}
@@ -0,0 +1,133 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.diff.impl;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.sjanisch.skillview.core.diff.api.ContentDiff;
+
+/**
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class MyersContentDiffServiceTest {
+
+	private final MyersContentDiffService service = new MyersContentDiffService();
+
+	@Test
+	public void testDiff_GivenEqualContents_ExpectNoTouchedContent() {
+		ContentDiff diff = service.diff("a\nb\nc\n", "a\nb\nc\n");
+
+		assertThat(diff.getTouchedContent(), empty());
+	}
+
+	@Test
+	public void testDiff_GivenEmptyPreviousContent_ExpectAllContentTouched() {
+		ContentDiff diff = service.diff("", "a\nb");
+
+		assertThat(diff.getTouchedContent(), contains("a\nb"));
+	}
+
+	@Test
+	public void testDiff_GivenRemovedLines_ExpectNoTouchedContent() {
+		ContentDiff diff = service.diff("a\nb\nc\nd", "a\nd");
+
+		assertThat(diff.getTouchedContent(), empty());
+	}
+
+	@Test
+	public void testDiff_GivenModifiedAndAddedLines_ExpectChunkPerRun() {
+		ContentDiff diff = service.diff("a\nb\nc\nd\ne\n", "a\nx\nc\nd\ne\ny\nz\n");
+
+		assertThat(diff.getTouchedContent(), contains("x", "y\nz"));
+	}
+
+	@Test
+	public void testDiff_GivenEditDistanceWithinBudget_ExpectActualChanges() {
+		MyersContentDiffService bounded = new MyersContentDiffService(4, Duration.ofMinutes(1));
+
+		ContentDiff diff = bounded.diff("a\nb\nc\nd\ne\n", "a\nx\nc\nd\ne\ny\nz\n");
+
+		assertThat(diff.getTouchedContent(), contains("x", "y\nz"));
+		assertThat(diff.isRewrite(), is(false));
+	}
+
+	@Test
+	public void testDiff_GivenEditDistanceBeyondBudget_ExpectRewrite() {
+		MyersContentDiffService bounded = new MyersContentDiffService(2, Duration.ofMinutes(1));
+
+		ContentDiff diff = bounded.diff("a\nb\nc\nd\ne\n", "a\nx\nc\ny\ne\nz\n");
+
+		assertThat(diff.getTouchedContent(), contains("a\nx\nc\ny\ne\nz"));
+		assertThat(diff.isRewrite(), is(true));
+	}
+
+	@Test
+	public void testDiff_GivenRandomContents_ExpectMinimalDiff() {
+		Random random = new Random(42);
+		for (int run = 0; run < 500; run++) {
+			List<String> previous = randomLines(random);
+			List<String> current = randomLines(random);
+
+			String previousContent = String.join("\n", previous) + (random.nextBoolean() ? "\n" : "");
+			String currentContent = String.join("\n", current) + (random.nextBoolean() ? "\n" : "");
+			ContentDiff diff = service.diff(previousContent, currentContent);
+
+			int touched = diff.getTouchedContent().stream().mapToInt(chunk -> chunk.split("\n", -1).length).sum();
+			assertThat(touched, is(current.size() - longestCommonSubsequence(previous, current)));
+		}
+	}
+
+	private static List<String> randomLines(Random random) {
+		List<String> result = new ArrayList<>();
+		int lines = 1 + random.nextInt(30);
+		for (int i = 0; i < lines; i++) {
+			result.add(Arrays.asList("a", "b", "c", "d").get(random.nextInt(4)));
+		}
+		return result;
+	}
+
+	private static int longestCommonSubsequence(List<String> a, List<String> b) {
+		int[][] lengths = new int[a.size() + 1][b.size() + 1];
+		for (int i = a.size() - 1; i >= 0; i--) {
+			for (int j = b.size() - 1; j >= 0; j--) {
+				lengths[i][j] = a.get(i).equals(b.get(j)) ? lengths[i + 1][j + 1] + 1
+						: Math.max(lengths[i + 1][j], lengths[i][j + 1]);
+			}
+		}
+		return lengths[0][0];
+	}
+
+}
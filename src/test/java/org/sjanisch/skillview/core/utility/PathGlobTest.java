@@ -0,0 +1,76 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.utility;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+/**
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class PathGlobTest {
+
+	@Test
+	public void testMatches_GivenGlobWithoutSlash_ExpectFileNameMatched() {
+		PathGlob glob = PathGlob.compile("*.java");
+
+		assertThat(glob.matches("src/main/A.java"), is(true));
+		assertThat(glob.matches("A.java"), is(true));
+		assertThat(glob.matches("src/A.javax"), is(false));
+	}
+
+	@Test
+	public void testMatches_GivenGlobWithSlash_ExpectWholePathMatched() {
+		assertThat(PathGlob.compile("src/*.java").matches("src/A.java"), is(true));
+		assertThat(PathGlob.compile("src/*.java").matches("src/main/A.java"), is(false));
+		assertThat(PathGlob.compile("src/**").matches("src/main/A.java"), is(true));
+		assertThat(PathGlob.compile("src/**").matches("test/src/A.java"), is(false));
+	}
+
+	@Test
+	public void testMatches_GivenBackslashInPath_ExpectNoSeparator() {
+		assertThat(PathGlob.compile("src/*").matches("src\\A.java"), is(false));
+		assertThat(PathGlob.compile("src/*").matches("src/A.java"), is(true));
+	}
+
+	@Test
+	public void testMatches_GivenGroupsSetsAndEscapes_ExpectGlobSyntax() {
+		assertThat(PathGlob.compile("*.{java,kt}").matches("a/B.kt"), is(true));
+		assertThat(PathGlob.compile("*.{java,kt}").matches("a/B.scala"), is(false));
+		assertThat(PathGlob.compile("[A-C]?.txt").matches("B1.txt"), is(true));
+		assertThat(PathGlob.compile("[!A-C]?.txt").matches("B1.txt"), is(false));
+		assertThat(PathGlob.compile("a\\*b.(x)").matches("a*b.(x)"), is(true));
+		assertThat(PathGlob.compile("a\\*b.(x)").matches("axb.(x)"), is(false));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCompile_GivenUnclosedGroup_ExpectException() {
+		PathGlob.compile("*.{java");
+	}
+
+}
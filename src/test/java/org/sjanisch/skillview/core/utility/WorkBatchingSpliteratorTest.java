@@ -0,0 +1,74 @@
+/*
+MIT License
+
+Copyright (c) 2016 Sebastian Janisch
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package org.sjanisch.skillview.core.utility;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+import org.junit.Test;
+
+/**
+ * 
+ * @author sebastianjanisch
+ *
+ */
+public class WorkBatchingSpliteratorTest {
+
+	@Test
+	public void testTrySplit_GivenHugeElement_ExpectBatchOfItsOwnAndGrowingBatches() {
+		Spliterator<Integer> source = IntStream.of(1, 1, 100, 1, 1, 1, 1, 1, 1, 1).boxed().spliterator();
+		WorkBatchingSpliterator<Integer> spliterator = new WorkBatchingSpliterator<>(source, i -> i, 2, 4);
+
+		assertThat(elements(spliterator.trySplit()), contains(1, 1));
+		assertThat(elements(spliterator.trySplit()), contains(100));
+		assertThat(elements(spliterator.trySplit()), contains(1, 1, 1, 1));
+		assertThat(elements(spliterator.trySplit()), contains(1, 1, 1));
+		assertThat(spliterator.trySplit() == null, is(true));
+	}
+
+	@Test
+	public void testStream_GivenParallelStream_ExpectAllElementsInOrder() {
+		Spliterator<Integer> source = IntStream.range(0, 100_000).boxed().spliterator();
+		WorkBatchingSpliterator<Integer> spliterator = new WorkBatchingSpliterator<>(source, i -> i % 100, 16, 4096);
+
+		List<Integer> result = StreamSupport.stream(spliterator, true).collect(Collectors.toList());
+
+		assertThat(result, is(IntStream.range(0, 100_000).boxed().collect(Collectors.toList())));
+	}
+
+	private static List<Integer> elements(Spliterator<Integer> spliterator) {
+		List<Integer> result = new ArrayList<>();
+		spliterator.forEachRemaining(result::add);
+		return result;
+	}
+
+}